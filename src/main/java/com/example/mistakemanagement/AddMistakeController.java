@@ -2,15 +2,21 @@ package com.example.mistakemanagement;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import org.controlsfx.control.textfield.AutoCompletionBinding;
+import org.controlsfx.control.textfield.TextFields;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 
 public class AddMistakeController {
+    @FXML
+    private Label headerLabel;
+
     @FXML
     private TextField titleField;
     
@@ -41,6 +47,12 @@ public class AddMistakeController {
     @FXML
     private TextField tagsField;
     
+    @FXML
+    private Label attachmentsLabel;
+
+    @FXML
+    private Button attachBtn;
+
     @FXML
     private Button saveBtn;
     
@@ -53,6 +65,20 @@ public class AddMistakeController {
     @FXML
     private Label statusLabel;
 
+    private final List<EventBus.Subscription> subscriptions = new ArrayList<>();
+    private final List<AutoCompletionBinding<String>> completions = new ArrayList<>();
+    private static final int SUGGESTION_LIMIT = 8;
+
+    // In edit mode, the mistake as last loaded or saved; on save the form is compared against it
+    // so only the changed fields are written
+    private Mistake editing;
+    // Chosen files, attached when the mistake is saved
+    private final List<Path> pendingFiles = new ArrayList<>();
+
+    // Suggestions are fetched on a background thread, so it reads these instead of the controls
+    private volatile String currentSubject;
+    private volatile String tagsHead = "";
+
     @FXML
     public void initialize() {
         // Initialize difficulty levels
@@ -64,20 +90,109 @@ public class AddMistakeController {
         
         // Add listener to subject combo to update categories
         subjectCombo.setOnAction(e -> loadCategories());
+        bindSuggestions();
+
+        // Keep the subject list current while the form is open
+        EventBus bus = EventBus.get();
+        subscriptions.add(bus.subscribe(DomainEvent.SubjectAdded.class, event -> addSubjectName(event.name())));
+        subscriptions.add(bus.subscribe(DomainEvent.SubjectRestored.class, event -> addSubjectName(event.name())));
+        subscriptions.add(bus.subscribe(DomainEvent.SubjectDeleted.class, event -> {
+            if (event.name().equals(subjectCombo.getValue())) {
+                subjectCombo.setValue(null);
+                categoryCombo.getItems().clear();
+            }
+            subjectCombo.getItems().remove(event.name());
+        }));
+        subscriptions.add(bus.subscribe(DomainEvent.DataReloaded.class, event -> loadSubjects()));
     }
 
-    private void loadSubjects() {
-        try (Connection conn = MySQLConnection.getConnection()) {
-            String query = "SELECT name FROM subjects ORDER BY name";
-            try (PreparedStatement stmt = conn.prepareStatement(query);
-                 ResultSet rs = stmt.executeQuery()) {
-                
-                List<String> subjects = new ArrayList<>();
-                while (rs.next()) {
-                    subjects.add(rs.getString("name"));
+    private void addSubjectName(String name) {
+        List<String> items = subjectCombo.getItems();
+        if (items.contains(name)) return;
+        int index = 0;
+        while (index < items.size() && items.get(index).compareTo(name) < 0) {
+            index++;
+        }
+        items.add(index, name);
+    }
+
+    // Type-ahead from the in-memory Suggestions index; typing never queries the database
+    private void bindSuggestions() {
+        Suggestions suggestions = Suggestions.get();
+
+        AutoCompletionBinding<String> subjects = TextFields.bindAutoCompletion(subjectCombo.getEditor(),
+            request -> request.getUserText().isBlank() ? List.of()
+                : suggestions.suggestSubjects(request.getUserText(), SUGGESTION_LIMIT));
+        subjects.setOnAutoCompleted(e -> subjectCombo.setValue(e.getCompletion()));
+        completions.add(subjects);
+
+        AutoCompletionBinding<String> categories = TextFields.bindAutoCompletion(categoryCombo.getEditor(),
+            request -> request.getUserText().isBlank() ? List.of()
+                : suggestions.suggestCategories(currentSubject, request.getUserText(), SUGGESTION_LIMIT));
+        categories.setOnAutoCompleted(e -> categoryCombo.setValue(e.getCompletion()));
+        completions.add(categories);
+
+        // Tags complete the word after the last comma and keep the ones before it
+        AutoCompletionBinding<String> tags = TextFields.bindAutoCompletion(tagsField, request -> {
+            String text = request.getUserText();
+            int comma = text.lastIndexOf(',');
+            String prefix = text.substring(comma + 1).trim();
+            if (prefix.isEmpty()) return List.of();
+            tagsHead = comma < 0 ? "" : text.substring(0, comma + 1) + " ";
+
+            List<String> typed = MistakeDao.splitTags(text.substring(0, comma + 1));
+            List<String> matches = new ArrayList<>();
+            for (String tag : suggestions.suggestTags(prefix, SUGGESTION_LIMIT + typed.size())) {
+                if (typed.stream().noneMatch(tag::equalsIgnoreCase) && matches.size() < SUGGESTION_LIMIT) {
+                    matches.add(tag);
                 }
-                subjectCombo.getItems().setAll(subjects);
             }
+            return matches;
+        });
+        tags.setOnAutoCompleted(e -> {
+            tagsField.setText(tagsHead + e.getCompletion() + ", ");
+            tagsField.positionCaret(tagsField.getLength());
+        });
+        completions.add(tags);
+    }
+
+    void dispose() {
+        subscriptions.forEach(EventBus.Subscription::cancel);
+        subscriptions.clear();
+        completions.forEach(AutoCompletionBinding::dispose);
+        completions.clear();
+    }
+
+    // Switches the form to editing an existing mistake
+    void edit(Mistake mistake) {
+        editing = mistake;
+        headerLabel.setText("Edit Mistake");
+        saveBtn.setText("Save Changes");
+        clearBtn.setText("Revert");
+        fill(mistake);
+    }
+
+    private void fill(Mistake mistake) {
+        titleField.setText(orEmpty(mistake.title));
+        subjectCombo.setValue(mistake.subjectName);
+        loadCategories();
+        categoryCombo.setValue(mistake.categoryName);
+        difficultyCombo.setValue(mistake.difficultyLevel);
+        descriptionArea.setText(orEmpty(mistake.description));
+        yourAnswerArea.setText(orEmpty(mistake.yourAnswer));
+        correctAnswerArea.setText(orEmpty(mistake.correctAnswer));
+        explanationArea.setText(orEmpty(mistake.explanation));
+        sourceField.setText(orEmpty(mistake.source));
+        tagsField.setText(orEmpty(mistake.tags));
+    }
+
+    private static String orEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private void loadSubjects() {
+        try {
+            subjectCombo.getItems().setAll(SubjectDao.findAllNames());
         } catch (SQLException e) {
             statusLabel.setText("Error loading subjects: " + e.getMessage());
         }
@@ -85,24 +200,13 @@ public class AddMistakeController {
 
     private void loadCategories() {
         String selectedSubject = subjectCombo.getValue();
+        currentSubject = selectedSubject;
         if (selectedSubject == null) return;
         
         categoryCombo.getItems().clear();
         
-        try (Connection conn = MySQLConnection.getConnection()) {
-            String query = "SELECT c.name FROM categories c " +
-                          "JOIN subjects s ON c.subject_id = s.id " +
-                          "WHERE s.name = ? ORDER BY c.name";
-            try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                stmt.setString(1, selectedSubject);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    List<String> categories = new ArrayList<>();
-                    while (rs.next()) {
-                        categories.add(rs.getString("name"));
-                    }
-                    categoryCombo.getItems().setAll(categories);
-                }
-            }
+        try {
+            categoryCombo.getItems().setAll(SubjectDao.findCategoryNames(selectedSubject));
         } catch (SQLException e) {
             statusLabel.setText("Error loading categories: " + e.getMessage());
         }
@@ -116,141 +220,198 @@ public class AddMistakeController {
             return;
         }
         
-        if (subjectCombo.getValue() == null) {
+        // The combos are editable for type-ahead, so check the text names an existing entry
+        if (subjectCombo.getValue() == null || !subjectCombo.getItems().contains(subjectCombo.getValue())) {
             statusLabel.setText("Please select a subject");
             return;
         }
+
+        String category = categoryCombo.getValue();
+        if (category != null && !category.isBlank() && !categoryCombo.getItems().contains(category)) {
+            statusLabel.setText("Please select an existing category");
+            return;
+        }
         
         if (correctAnswerArea.getText().trim().isEmpty()) {
             statusLabel.setText("Please enter the correct answer");
             return;
         }
 
-        try (Connection conn = MySQLConnection.getConnection()) {
-            // Get subject ID
-            String subjectQuery = "SELECT id FROM subjects WHERE name = ?";
-            int subjectId;
-            try (PreparedStatement stmt = conn.prepareStatement(subjectQuery)) {
-                stmt.setString(1, subjectCombo.getValue());
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (!rs.next()) {
-                        statusLabel.setText("Subject not found");
-                        return;
-                    }
-                    subjectId = rs.getInt("id");
-                }
+        if (editing != null) {
+            saveEdit();
+            return;
+        }
+
+        try {
+            Mistake mistake = buildMistake();
+            if (!confirmNotDuplicate(mistake)) {
+                statusLabel.setText("Not saved");
+                return;
             }
+            MistakeDao.insert(mistake, tagsField.getText());
+            String attachError = attachPending(mistake.id);
+            if (attachError != null) {
+                // The mistake itself is saved, so the form is cleared rather than left to be saved twice
+                onClearClick();
+                statusLabel.setText("Mistake saved, but " + attachError);
+                return;
+            }
+            statusLabel.setText("Mistake saved successfully!");
+            statusLabel.setStyle("-fx-text-fill: #27ae60");
+            
+            // Clear form after successful save
+            onClearClick();
+        } catch (SQLException e) {
+            statusLabel.setText("Error saving mistake: " + e.getMessage());
+        }
+    }
 
-            // Get category ID (optional)
-            Integer categoryId = null;
-            if (categoryCombo.getValue() != null) {
-                String categoryQuery = "SELECT id FROM categories WHERE name = ? AND subject_id = ?";
-                try (PreparedStatement stmt = conn.prepareStatement(categoryQuery)) {
-                    stmt.setString(1, categoryCombo.getValue());
-                    stmt.setInt(2, subjectId);
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        if (rs.next()) {
-                            categoryId = rs.getInt("id");
-                        }
-                    }
+    private void saveEdit() {
+        MistakeEdit edit = MistakeEdit.between(editing, buildMistake(), tagsField.getText());
+        if (edit.isEmpty() && pendingFiles.isEmpty()) {
+            statusLabel.setText("No changes to save");
+            return;
+        }
+        try {
+            if (!edit.isEmpty()) {
+                Mistake saved = MistakeDao.update(edit, editing);
+                if (saved == null) {
+                    statusLabel.setText("This mistake no longer exists");
+                    return;
                 }
+                editing = saved;
+            }
+            String attachError = attachPending(editing.id);
+            if (attachError != null) {
+                statusLabel.setText(edit.isEmpty() ? "Could not save: " + attachError : "Changes saved, but " + attachError);
+                return;
             }
+            statusLabel.setText("Changes saved!");
+            statusLabel.setStyle("-fx-text-fill: #27ae60");
+        } catch (MistakeDao.StaleEditException e) {
+            resolveConflict();
+        } catch (SQLException e) {
+            statusLabel.setText("Error saving changes: " + e.getMessage());
+        }
+    }
 
-            // Insert mistake
-            String insertQuery = "INSERT INTO mistakes (title, description, correct_answer, your_answer, " +
-                               "explanation, difficulty_level, subject_id, category_id, source) " +
-                               "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(insertQuery)) {
-                stmt.setString(1, titleField.getText().trim());
-                stmt.setString(2, descriptionArea.getText().trim());
-                stmt.setString(3, correctAnswerArea.getText().trim());
-                stmt.setString(4, yourAnswerArea.getText().trim());
-                stmt.setString(5, explanationArea.getText().trim());
-                stmt.setString(6, difficultyCombo.getValue());
-                stmt.setInt(7, subjectId);
-                if (categoryId != null) {
-                    stmt.setInt(8, categoryId);
-                } else {
-                    stmt.setNull(8, java.sql.Types.INTEGER);
-                }
-                stmt.setString(9, sourceField.getText().trim());
-
-                int rowsAffected = stmt.executeUpdate();
-                if (rowsAffected > 0) {
-                    statusLabel.setText("Mistake saved successfully!");
-                    statusLabel.setStyle("-fx-text-fill: #27ae60");
-                    
-                    // Handle tags if provided
-                    if (!tagsField.getText().trim().isEmpty()) {
-                        addTagsToMistake(conn, getLastInsertedMistakeId(conn));
+    // Attaches the chosen files to a saved mistake; returns what went wrong, or null. Files that
+    // were attached are taken off the list, so saving again only retries the rest.
+    private String attachPending(int mistakeId) throws SQLException {
+        try {
+            while (!pendingFiles.isEmpty()) {
+                Path file = pendingFiles.get(0);
+                try {
+                    if (AttachmentDao.attach(mistakeId, file) == null) {
+                        return "the mistake no longer exists";
                     }
-                    
-                    // Clear form after successful save
-                    onClearClick();
-                } else {
-                    statusLabel.setText("Failed to save mistake");
+                } catch (IOException e) {
+                    return "could not attach " + file.getFileName() + ": " + e.getMessage();
                 }
+                pendingFiles.remove(0);
             }
-        } catch (SQLException e) {
-            statusLabel.setText("Error saving mistake: " + e.getMessage());
+            return null;
+        } finally {
+            updateAttachmentsLabel();
         }
     }
 
-    private int getLastInsertedMistakeId(Connection conn) throws SQLException {
-        String query = "SELECT LAST_INSERT_ID() as id";
-        try (PreparedStatement stmt = conn.prepareStatement(query);
-             ResultSet rs = stmt.executeQuery()) {
-            if (rs.next()) {
-                return rs.getInt("id");
+    @FXML
+    protected void onAttachClick() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Attach Files");
+        chooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Images", "*.png", "*.jpg", "*.jpeg", "*.gif", "*.bmp"),
+            new FileChooser.ExtensionFilter("All Files", "*.*"));
+        List<File> files = chooser.showOpenMultipleDialog(attachBtn.getScene().getWindow());
+        if (files == null) return;
+        for (File file : files) {
+            if (file.length() > AttachmentStore.MAX_SIZE_BYTES) {
+                statusLabel.setText(file.getName() + " is larger than " + Attachment.formatSize(AttachmentStore.MAX_SIZE_BYTES));
+                continue;
             }
+            pendingFiles.add(file.toPath());
         }
-        throw new SQLException("Could not get last inserted ID");
+        updateAttachmentsLabel();
     }
 
-    private void addTagsToMistake(Connection conn, int mistakeId) throws SQLException {
-        String[] tagNames = tagsField.getText().trim().split(",");
-        
-        for (String tagName : tagNames) {
-            tagName = tagName.trim();
-            if (tagName.isEmpty()) continue;
-            
-            // Get or create tag
-            int tagId = getOrCreateTag(conn, tagName);
-            
-            // Link mistake to tag
-            String linkQuery = "INSERT IGNORE INTO mistake_tags (mistake_id, tag_id) VALUES (?, ?)";
-            try (PreparedStatement stmt = conn.prepareStatement(linkQuery)) {
-                stmt.setInt(1, mistakeId);
-                stmt.setInt(2, tagId);
-                stmt.executeUpdate();
-            }
+    private void updateAttachmentsLabel() {
+        List<String> names = new ArrayList<>();
+        for (Path file : pendingFiles) {
+            names.add(file.getFileName().toString());
         }
+        attachmentsLabel.setText(names.isEmpty() ? "" : "To attach on save: " + String.join(", ", names));
     }
 
-    private int getOrCreateTag(Connection conn, String tagName) throws SQLException {
-        // Try to get existing tag
-        String selectQuery = "SELECT id FROM tags WHERE name = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(selectQuery)) {
-            stmt.setString(1, tagName);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("id");
-                }
+    // Someone else saved the mistake since it was loaded; nothing was written
+    private void resolveConflict() {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Mistake Changed");
+        alert.setHeaderText("This mistake was changed elsewhere");
+        alert.setContentText("Someone saved this mistake while you were editing it, so your changes were not saved.\n\n" +
+            "Load the latest version? Your unsaved changes will be lost.");
+        if (alert.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+            statusLabel.setText("Not saved: the mistake was changed elsewhere");
+            return;
+        }
+        try {
+            List<Mistake> latest = MistakeDao.findByIds(List.of(editing.id));
+            if (latest.isEmpty()) {
+                statusLabel.setText("This mistake no longer exists");
+                return;
             }
+            edit(latest.get(0));
+            statusLabel.setText("Loaded the latest version");
+            statusLabel.setStyle("-fx-text-fill: #e74c3c");
+        } catch (SQLException e) {
+            statusLabel.setText("Error loading mistake: " + e.getMessage());
         }
-        
-        // Create new tag
-        String insertQuery = "INSERT INTO tags (name) VALUES (?)";
-        try (PreparedStatement stmt = conn.prepareStatement(insertQuery)) {
-            stmt.setString(1, tagName);
-            stmt.executeUpdate();
-            return getLastInsertedMistakeId(conn); // Reuse the method for tag ID
+    }
+
+    // Warns when the mistake reads almost the same as one already saved
+    private boolean confirmNotDuplicate(Mistake mistake) throws SQLException {
+        List<Mistake> similar = MistakeDao.findSimilar(mistake, 3);
+        if (similar.isEmpty()) return true;
+
+        StringBuilder content = new StringBuilder("This looks like a mistake you already saved:\n\n");
+        for (Mistake existing : similar) {
+            content.append("- ").append(existing.title).append(" (").append(existing.subjectName).append(")\n");
         }
+        content.append("\nSave it anyway?");
+
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Possible Duplicate");
+        alert.setHeaderText("Similar mistake found");
+        alert.setContentText(content.toString());
+        return alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK;
+    }
+
+    private Mistake buildMistake() {
+        Mistake mistake = new Mistake();
+        mistake.title = titleField.getText().trim();
+        mistake.description = descriptionArea.getText().trim();
+        mistake.correctAnswer = correctAnswerArea.getText().trim();
+        mistake.yourAnswer = yourAnswerArea.getText().trim();
+        mistake.explanation = explanationArea.getText().trim();
+        mistake.difficultyLevel = difficultyCombo.getValue();
+        mistake.source = sourceField.getText().trim();
+        mistake.subjectName = subjectCombo.getValue();
+        String category = categoryCombo.getValue();
+        mistake.categoryName = category == null || category.isBlank() ? null : category;
+        return mistake;
     }
 
     @FXML
     protected void onClearClick() {
+        if (editing != null) {
+            // Revert to the saved mistake
+            fill(editing);
+            pendingFiles.clear();
+            updateAttachmentsLabel();
+            statusLabel.setText("");
+            statusLabel.setStyle("-fx-text-fill: #e74c3c");
+            return;
+        }
         titleField.clear();
         subjectCombo.setValue(null);
         categoryCombo.getItems().clear();
@@ -261,6 +422,8 @@ public class AddMistakeController {
         explanationArea.clear();
         sourceField.clear();
         tagsField.clear();
+        pendingFiles.clear();
+        updateAttachmentsLabel();
         statusLabel.setText("");
         statusLabel.setStyle("-fx-text-fill: #e74c3c");
     }
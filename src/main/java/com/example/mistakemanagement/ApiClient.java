@@ -0,0 +1,358 @@
+package com.example.mistakemanagement;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+// Talks to an ApiServer instead of MySQL. Enabled by setting mistakes.api.url (or MISTAKES_API_URL),
+// e.g. -Dmistakes.api.url=http://localhost:8080. The DAOs route through it when enabled.
+// A server listening beyond loopback also needs its token in mistakes.api.token.
+// Failures are reported as SQLException so the controllers' error handling is unchanged.
+public class ApiClient {
+    private static final String BASE_URL = MySQLConnection.setting("mistakes.api.url", "MISTAKES_API_URL", null);
+    private static final String TOKEN = MySQLConnection.setting("mistakes.api.token", "MISTAKES_API_TOKEN", null);
+    private static final ApiClient INSTANCE = BASE_URL == null ? null : new ApiClient(BASE_URL);
+
+    private final String baseUrl;
+    private final HttpClient http;
+
+    ApiClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    }
+
+    public static boolean isEnabled() {
+        return INSTANCE != null;
+    }
+
+    public static ApiClient get() {
+        return INSTANCE;
+    }
+
+    public List<Mistake> listMistakes() throws SQLException {
+        return readMistakes(send("GET", "/api/mistakes", null).body());
+    }
+
+    public List<Mistake> listMistakeSummaries() throws SQLException {
+        return readMistakes(send("GET", "/api/mistakes?summary=true", null).body());
+    }
+
+    public List<Mistake> listArchivedMistakes() throws SQLException {
+        return readMistakes(send("GET", "/api/mistakes?archived=true", null).body());
+    }
+
+    public List<Mistake> listArchivedSummaries() throws SQLException {
+        return readMistakes(send("GET", "/api/mistakes?archived=true&summary=true", null).body());
+    }
+
+    // Only id and description are filled in
+    public List<Mistake> listDescriptions(boolean archived) throws SQLException {
+        String query = archived ? "?descriptions=true&archived=true" : "?descriptions=true";
+        return readMistakes(send("GET", "/api/mistakes" + query, null).body());
+    }
+
+    public List<Mistake> listQuizCandidates() throws SQLException {
+        return readMistakes(send("GET", "/api/mistakes?quiz=true", null).body());
+    }
+
+    public List<Mistake> getMistakes(Collection<Integer> ids) throws SQLException {
+        StringJoiner joined = new StringJoiner(",");
+        ids.forEach(id -> joined.add(String.valueOf(id)));
+        return readMistakes(send("GET", "/api/mistakes?ids=" + joined, null).body());
+    }
+
+    public List<Mistake> getMistakesBySubject(int subjectId) throws SQLException {
+        return readMistakes(send("GET", "/api/mistakes?subject=" + subjectId, null).body());
+    }
+
+    public List<Mistake> findSimilar(long signature, int limit) throws SQLException {
+        return readMistakes(send("GET", "/api/mistakes?similarTo=" + signature + "&limit=" + limit, null).body());
+    }
+
+    public List<Mistake> getRelated(int mistakeId, int limit) throws SQLException {
+        return readMistakes(send("GET", "/api/mistakes/" + mistakeId + "/related?limit=" + limit, null).body());
+    }
+
+    public Mistake addMistake(Mistake mistake, String tags) throws SQLException {
+        Map<String, Object> body = mistake.toJson();
+        body.put("tags", tags);
+        return Mistake.fromJson(Json.parseObject(send("POST", "/api/mistakes", body).body()));
+    }
+
+    // Null if the mistake no longer exists
+    public Mistake updateMistake(MistakeEdit edit) throws SQLException {
+        HttpResponse<String> response = send("PUT", "/api/mistakes/" + edit.mistakeId, edit.toJson());
+        if (response.statusCode() == 404) return null;
+        if (response.statusCode() == 409) {
+            throw new MistakeDao.StaleEditException(errorMessage(response.body()));
+        }
+        return Mistake.fromJson(Json.parseObject(response.body()));
+    }
+
+    public int markReviewed(int mistakeId) throws SQLException {
+        HttpResponse<String> response = send("POST", "/api/mistakes/" + mistakeId + "/review", null);
+        if (response.statusCode() == 404) return -1;
+        return intField(response.body(), "reviewCount");
+    }
+
+    public MistakeDao.Stats stats() throws SQLException {
+        Map<String, Object> json = Json.parseObject(send("GET", "/api/stats", null).body());
+        return new MistakeDao.Stats(((Number) json.get("totalMistakes")).intValue(),
+            ((Number) json.get("totalSubjects")).intValue());
+    }
+
+    public Map<Integer, Integer> countBySubject() throws SQLException {
+        Map<Integer, Integer> counts = new HashMap<>();
+        Json.parseObject(send("GET", "/api/stats/subjects", null).body())
+            .forEach((id, count) -> counts.put(Integer.parseInt(id), ((Number) count).intValue()));
+        return counts;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Integer> tagUsage() throws SQLException {
+        Map<String, Integer> usage = new LinkedHashMap<>();
+        for (Object item : (List<Object>) Json.parse(send("GET", "/api/tags", null).body())) {
+            Map<String, Object> tag = (Map<String, Object>) item;
+            usage.put((String) tag.get("name"), ((Number) tag.get("count")).intValue());
+        }
+        return usage;
+    }
+
+    public Map<String, Integer> subjectUsage() throws SQLException {
+        return counts(Json.parseObject(send("GET", "/api/usage/subjects", null).body()));
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Map<String, Integer>> categoryUsage() throws SQLException {
+        Map<String, Map<String, Integer>> usage = new LinkedHashMap<>();
+        Json.parseObject(send("GET", "/api/usage/categories", null).body())
+            .forEach((subject, categories) -> usage.put(subject, counts((Map<String, Object>) categories)));
+        return usage;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Subject> listSubjects() throws SQLException {
+        List<Subject> subjects = new ArrayList<>();
+        for (Object item : (List<Object>) Json.parse(send("GET", "/api/subjects", null).body())) {
+            subjects.add(Subject.fromJson((Map<String, Object>) item));
+        }
+        return subjects;
+    }
+
+    public Subject getSubject(int subjectId) throws SQLException {
+        HttpResponse<String> response = send("GET", "/api/subjects/" + subjectId, null);
+        if (response.statusCode() == 404) return null;
+        return Subject.fromJson(Json.parseObject(response.body()));
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<String> listCategories(String subjectName) throws SQLException {
+        String path = "/api/categories?subject=" + URLEncoder.encode(subjectName, StandardCharsets.UTF_8);
+        List<String> categories = new ArrayList<>();
+        for (Object item : (List<Object>) Json.parse(send("GET", path, null).body())) {
+            categories.add((String) item);
+        }
+        return categories;
+    }
+
+    public int addSubject(String name, String description) throws SQLException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("name", name);
+        body.put("description", description);
+        HttpResponse<String> response = send("POST", "/api/subjects", body);
+        if (response.statusCode() == 409) return -1;
+        return intField(response.body(), "id");
+    }
+
+    public boolean deleteSubject(int subjectId) throws SQLException {
+        return send("DELETE", "/api/subjects/" + subjectId, null).statusCode() != 404;
+    }
+
+    public boolean restoreSubject(int subjectId) throws SQLException {
+        return send("POST", "/api/subjects/" + subjectId + "/restore", null).statusCode() != 404;
+    }
+
+    // Sends the file as the request body; null if the mistake no longer exists
+    public Attachment uploadAttachment(int mistakeId, Path file, String fileName, String contentType)
+            throws SQLException {
+        HttpRequest.Builder request = request("/api/mistakes/" + mistakeId + "/attachments")
+            .header("Content-Type", contentType)
+            .header(ApiServer.FILE_NAME_HEADER, URLEncoder.encode(fileName, StandardCharsets.UTF_8));
+        try {
+            request.POST(HttpRequest.BodyPublishers.ofFile(file));
+        } catch (FileNotFoundException e) {
+            throw new SQLException("Could not read " + file + ": " + e.getMessage(), e);
+        }
+        HttpResponse<String> response = exchange(request, HttpResponse.BodyHandlers.ofString());
+        checkStatus(response.statusCode(), response.body());
+        if (response.statusCode() == 404) return null;
+        return Attachment.fromJson(Json.parseObject(response.body()));
+    }
+
+    public List<Attachment> listAttachments(int mistakeId) throws SQLException {
+        return readAttachments(send("GET", "/api/mistakes/" + mistakeId + "/attachments", null).body());
+    }
+
+    public List<Attachment> getAttachments(Collection<Integer> ids) throws SQLException {
+        StringJoiner joined = new StringJoiner(",");
+        ids.forEach(id -> joined.add(String.valueOf(id)));
+        return readAttachments(send("GET", "/api/attachments?ids=" + joined, null).body());
+    }
+
+    public Map<Integer, String> firstImages() throws SQLException {
+        Map<Integer, String> images = new HashMap<>();
+        Json.parseObject(send("GET", "/api/attachments?firstImages=true", null).body())
+            .forEach((id, sha256) -> images.put(Integer.parseInt(id), (String) sha256));
+        return images;
+    }
+
+    // Streams the content straight to the file instead of through memory
+    public void downloadAttachment(String sha256, Path target) throws SQLException {
+        HttpResponse<Path> response = exchange(request("/api/attachments/" + sha256).GET(),
+            HttpResponse.BodyHandlers.ofFile(target));
+        if (response.statusCode() != 200) {
+            throw new SQLException("Server returned " + response.statusCode() + " for attachment " + sha256);
+        }
+    }
+
+    public long latestChangeSeq() throws SQLException {
+        Map<String, Object> json = Json.parseObject(send("GET", "/api/changes/latest", null).body());
+        return ((Number) json.get("seq")).longValue();
+    }
+
+    public long oldestChangeSeq() throws SQLException {
+        Map<String, Object> json = Json.parseObject(send("GET", "/api/changes/oldest", null).body());
+        return ((Number) json.get("seq")).longValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<ChangeLog.Entry> changesSince(long seq, int limit) throws SQLException {
+        String body = send("GET", "/api/changes?since=" + seq + "&limit=" + limit, null).body();
+        List<ChangeLog.Entry> entries = new ArrayList<>();
+        for (Object item : (List<Object>) Json.parse(body)) {
+            entries.add(ChangeLog.Entry.fromJson((Map<String, Object>) item));
+        }
+        return entries;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Mistake> readMistakes(String body) {
+        List<Mistake> mistakes = new ArrayList<>();
+        for (Object item : (List<Object>) Json.parse(body)) {
+            mistakes.add(Mistake.fromJson((Map<String, Object>) item));
+        }
+        return mistakes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Attachment> readAttachments(String body) {
+        List<Attachment> attachments = new ArrayList<>();
+        for (Object item : (List<Object>) Json.parse(body)) {
+            attachments.add(Attachment.fromJson((Map<String, Object>) item));
+        }
+        return attachments;
+    }
+
+    private static Map<String, Integer> counts(Map<String, Object> json) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        json.forEach((name, count) -> counts.put(name, ((Number) count).intValue()));
+        return counts;
+    }
+
+    private static int intField(String body, String field) {
+        return ((Number) Json.parseObject(body).get(field)).intValue();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofSeconds(30))
+            .header(ApiServer.CLIENT_ID_HEADER, ChangeLog.CLIENT_ID);
+        if (TOKEN != null) {
+            request.header(ApiServer.TOKEN_HEADER, TOKEN);
+        }
+        return request;
+    }
+
+    private HttpResponse<String> send(String method, String path, Object body) throws SQLException {
+        HttpRequest.Builder request = request(path).header("Accept", "application/json");
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(Json.write(body)));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+
+        HttpResponse<String> response = exchange(request, HttpResponse.BodyHandlers.ofString());
+        checkStatus(response.statusCode(), response.body());
+        return response;
+    }
+
+    // 404 and 409 are answers the callers handle; anything else non-2xx is an error
+    private static void checkStatus(int status, String body) throws SQLException {
+        if (status >= 300 && status != 404 && status != 409) {
+            throw new SQLException("Server returned " + status + ": " + errorMessage(body));
+        }
+    }
+
+    // Reachability for ConnectionHealth, past the circuit breaker. The server answers 503 while its
+    // own database is down, which counts as down here too.
+    void checkHealth() throws SQLException {
+        try {
+            HttpResponse<String> response = http.send(request("/api/health").GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new SQLException("Server returned " + response.statusCode() + ": " +
+                    errorMessage(response.body()), "08001");
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not reach server: " + e.getMessage(), "08001", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for server", e);
+        }
+    }
+
+    private <T> HttpResponse<T> exchange(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler)
+            throws SQLException {
+        ConnectionHealth health = ConnectionHealth.get();
+        health.check();
+        try {
+            HttpResponse<T> response = http.send(request.build(), handler);
+            health.recordSuccess();
+            return response;
+        } catch (IOException e) {
+            SQLException failure = new SQLException("Could not reach server: " + e.getMessage(), "08001", e);
+            health.recordFailure(failure);
+            throw failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for server", e);
+        }
+    }
+
+    private static String errorMessage(String body) {
+        try {
+            Object error = Json.parseObject(body).get("error");
+            return error != null ? error.toString() : body;
+        } catch (IllegalArgumentException e) {
+            return body;
+        }
+    }
+}
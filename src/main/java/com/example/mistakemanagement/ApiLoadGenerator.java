@@ -0,0 +1,102 @@
+package com.example.mistakemanagement;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Load test for ApiServer: simulates many concurrent clients, one virtual thread each, issuing the
+// read mix a desktop client produces, and prints throughput and latency percentiles.
+//
+// Usage: ApiLoadGenerator [baseUrl] [clients] [seconds]
+//   e.g. java ... com.example.mistakemanagement.ApiLoadGenerator http://localhost:8080 1000 30
+public class ApiLoadGenerator {
+    // What a desktop client reads: the list loads summaries, not the full rows
+    private static final String[] PATHS = {"/api/mistakes?summary=true", "/api/subjects", "/api/stats", "/api/tags", "/api/changes/latest"};
+    // Latency buckets in powers of two microseconds, up to ~68 s
+    private static final int BUCKETS = 27;
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        LongAdder ok = new LongAdder();
+        LongAdder failed = new LongAdder();
+        AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+        System.out.printf("Running %d clients against %s for %d s%n", clients, baseUrl, seconds);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                executor.submit(() -> {
+                    int i = client;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + PATHS[i++ % PATHS.length]))
+                            .timeout(Duration.ofSeconds(30))
+                            .header(ApiServer.CLIENT_ID_HEADER, "load-" + client)
+                            .build();
+                        long sent = System.nanoTime();
+                        try {
+                            // Read to the end but not kept: a thousand list bodies held at once would fill the heap
+                            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                ok.increment();
+                            } else {
+                                failed.increment();
+                            }
+                        } catch (Exception e) {
+                            failed.increment();
+                        }
+                        long micros = Math.max(1, (System.nanoTime() - sent) / 1000);
+                        histogram.incrementAndGet(Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros)));
+                    }
+                    return null;
+                });
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long total = ok.sum() + failed.sum();
+        System.out.printf("Requests: %d ok, %d failed in %.1f s%n", ok.sum(), failed.sum(), elapsed);
+        System.out.printf("Throughput: %.0f req/s%n", total / elapsed);
+        List<String> percentiles = new ArrayList<>();
+        for (double p : new double[]{0.50, 0.90, 0.99, 0.999}) {
+            percentiles.add(String.format("p%s <= %s", trim(p * 100), formatMicros(percentile(histogram, total, p))));
+        }
+        System.out.println("Latency: " + String.join(", ", percentiles));
+    }
+
+    // Upper bound of the bucket that contains the given percentile
+    private static long percentile(AtomicLongArray histogram, long total, double p) {
+        long target = (long) Math.ceil(total * p);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += histogram.get(bucket);
+            if (seen >= target) {
+                return 1L << (bucket + 1);
+            }
+        }
+        return 1L << BUCKETS;
+    }
+
+    private static String formatMicros(long micros) {
+        return micros >= 1000 ? (micros / 1000) + " ms" : micros + " us";
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
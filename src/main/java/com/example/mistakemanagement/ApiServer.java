@@ -0,0 +1,575 @@
+package com.example.mistakemanagement;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+// Headless REST/JSON server so desktop clients can share one pooled backend and cache instead of
+// each connecting to MySQL. Start with `--server` (see HelloApplication.main) and point clients at it
+// with -Dmistakes.api.url=http://host:8080.
+//
+// Listens on loopback only unless mistakes.server.bind names another address. Then a shared
+// mistakes.api.token is required, and clients must send it in every request.
+//
+// Each request runs on its own virtual thread. GET responses are cached as encoded JSON and dropped
+// whenever a DomainEvent arrives, either from a write through this server or from the change log.
+// They are filled from the primary, since one client's view of a lagging replica would otherwise be
+// cached for all; replicas serve the reads that bypass the cache.
+public class ApiServer {
+    static final String CLIENT_ID_HEADER = "X-Client-Id";
+    // URL-encoded name of an uploaded attachment
+    static final String FILE_NAME_HEADER = "X-File-Name";
+    static final String TOKEN_HEADER = "X-Api-Token";
+
+    private static final String DEFAULT_BIND = "127.0.0.1";
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_POOL_SIZE = 32;
+
+    private final HttpServer server;
+    // Null when only loopback clients can connect
+    private final byte[] token;
+    private final Map<String, CompletableFuture<byte[]>> cache = new ConcurrentHashMap<>();
+
+    public ApiServer(InetAddress bind, int port, String token) throws IOException {
+        this.token = token == null ? null : token.getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress(bind, port), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/", this::handle);
+    }
+
+    public static void main(String[] args) throws IOException {
+        // Must be set before MySQLConnection builds its pool
+        if (System.getProperty("mistakes.db.poolSize") == null) {
+            System.setProperty("mistakes.db.poolSize", String.valueOf(DEFAULT_POOL_SIZE));
+        }
+        int port = Integer.parseInt(MySQLConnection.setting("mistakes.server.port", "MISTAKES_SERVER_PORT",
+            String.valueOf(DEFAULT_PORT)));
+        InetAddress bind = InetAddress.getByName(MySQLConnection.setting("mistakes.server.bind",
+            "MISTAKES_SERVER_BIND", DEFAULT_BIND));
+        String token = MySQLConnection.setting("mistakes.api.token", "MISTAKES_API_TOKEN", null);
+        if (token == null && !bind.isLoopbackAddress()) {
+            System.err.println("Refusing to listen on " + bind.getHostAddress()
+                + " without mistakes.api.token (or MISTAKES_API_TOKEN) set");
+            return;
+        }
+
+        // No FX toolkit here, so deliver events on a plain thread
+        EventBus.get().setDispatcher(Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "event-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        try {
+            DatabaseSchema.ensure();
+        } catch (SQLException e) {
+            // Requests fail until it is fixed and the server restarted; say why up front
+            System.err.println("Schema update failed: " + e.getMessage());
+        }
+
+        ApiServer apiServer = new ApiServer(bind, port, token);
+        apiServer.start();
+        ConnectionHealth.get().start();
+        ChangeLogPoller.get().start();
+        SubjectPurger.get().start();
+        SimilarityIndex.get().start();
+        RelatedMistakesJob.get().start();
+        TextCompactor.get().start();
+        MistakeArchiver.get().start();
+        System.out.println("Mistake Management API listening on " + bind.getHostAddress() + ":" + port);
+    }
+
+    public void start() {
+        EventBus bus = EventBus.get();
+        bus.subscribe(DomainEvent.MistakeCreated.class, e -> cache.clear());
+        bus.subscribe(DomainEvent.MistakeUpdated.class, e -> cache.clear());
+        bus.subscribe(DomainEvent.MistakeReviewed.class, e -> cache.clear());
+        bus.subscribe(DomainEvent.AttachmentAdded.class, e -> cache.clear());
+        bus.subscribe(DomainEvent.SubjectAdded.class, e -> cache.clear());
+        bus.subscribe(DomainEvent.SubjectDeleted.class, e -> cache.clear());
+        bus.subscribe(DomainEvent.SubjectRestored.class, e -> cache.clear());
+        bus.subscribe(DomainEvent.DataReloaded.class, e -> cache.clear());
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        if (token != null && !authorized(exchange.getRequestHeaders().getFirst(TOKEN_HEADER))) {
+            sendError(exchange, 401, "Missing or wrong " + TOKEN_HEADER);
+            exchange.close();
+            return;
+        }
+        String clientId = exchange.getRequestHeaders().getFirst(CLIENT_ID_HEADER);
+        if (clientId != null && !clientId.isEmpty()) {
+            ChangeLog.ORIGIN.set(clientId);
+        }
+        try {
+            route(exchange);
+        } catch (Json.ParseException e) {
+            sendError(exchange, 400, "Malformed JSON: " + e.getMessage());
+        } catch (IllegalArgumentException | ClassCastException | NullPointerException e) {
+            sendError(exchange, 400, "Bad request: " + e.getMessage());
+        } catch (SQLException e) {
+            sendError(exchange, 500, e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, "Unexpected error: " + e.getMessage());
+        } finally {
+            ChangeLog.ORIGIN.remove();
+            exchange.close();
+        }
+    }
+
+    // Constant time, so the token can't be guessed from response times
+    private boolean authorized(String sent) {
+        return sent != null && MessageDigest.isEqual(token, sent.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void route(HttpExchange exchange) throws IOException, SQLException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String resource = path[0];
+
+        if (method.equals("GET")) {
+            switch (resource) {
+                case "health":
+                    // The server's own view of the database, for ConnectionHealth on the clients
+                    ConnectionHealth.Status health = ConnectionHealth.get().status();
+                    if (health.state() == ConnectionHealth.State.DOWN) {
+                        sendError(exchange, 503, "Database unavailable: " + health.message());
+                    } else {
+                        sendJson(exchange, 200, Map.of("database", health.state().name()));
+                    }
+                    return;
+                case "mistakes":
+                    if (path.length == 3 && path[2].equals("attachments")) {
+                        List<Object> attachments = new ArrayList<>();
+                        for (Attachment attachment : AttachmentDao.findByMistake(Integer.parseInt(path[1]))) {
+                            attachments.add(attachment.toJson());
+                        }
+                        sendJson(exchange, 200, attachments);
+                    } else if (path.length == 3 && path[2].equals("related")) {
+                        int limit = Integer.parseInt(query.getOrDefault("limit", "5"));
+                        sendJson(exchange, 200, mistakesJson(MistakeDao.findRelated(Integer.parseInt(path[1]), limit)));
+                    } else if (path.length == 2) {
+                        List<Mistake> found = MistakeDao.findByIds(List.of(Integer.parseInt(path[1])));
+                        if (found.isEmpty()) {
+                            sendError(exchange, 404, "Mistake not found");
+                        } else {
+                            sendJson(exchange, 200, found.get(0).toJson());
+                        }
+                    } else if (query.containsKey("ids")) {
+                        List<Integer> ids = new ArrayList<>();
+                        for (String id : query.get("ids").split(",")) {
+                            if (!id.isEmpty()) ids.add(Integer.parseInt(id));
+                        }
+                        sendJson(exchange, 200, mistakesJson(MistakeDao.findByIds(ids)));
+                    } else if (query.containsKey("similarTo")) {
+                        long signature = Long.parseLong(query.get("similarTo"));
+                        int limit = Integer.parseInt(query.getOrDefault("limit", "5"));
+                        List<Integer> ids = SimilarityIndex.get().findSimilar(signature, limit);
+                        List<Mistake> found = MistakeDao.findByIds(ids);
+                        found.sort(Comparator.comparingInt(m -> ids.indexOf(m.id)));
+                        sendJson(exchange, 200, mistakesJson(found));
+                    } else if (query.containsKey("descriptions")) {
+                        // Read once per client list load to build its description search
+                        List<Object> descriptions = new ArrayList<>();
+                        MistakeDao.forEachDescription(query.containsKey("archived"), (id, description) -> {
+                            Map<String, Object> item = new LinkedHashMap<>();
+                            item.put("id", id);
+                            item.put("description", description);
+                            descriptions.add(item);
+                        });
+                        sendJson(exchange, 200, descriptions);
+                    } else if (query.containsKey("archived")) {
+                        // Asked for explicitly and not cached; the archiver publishes no events
+                        List<Mistake> archived = query.containsKey("summary")
+                            ? MistakeDao.findArchivedSummaries() : MistakeDao.findArchived();
+                        sendJson(exchange, 200, mistakesJson(archived));
+                    } else if (query.containsKey("quiz")) {
+                        sendCached(exchange, "mistakes:quiz", () -> mistakesJson(MistakeDao.findQuizCandidates()));
+                    } else if (query.containsKey("summary")) {
+                        sendCached(exchange, "mistakes:summary", () -> mistakesJson(MistakeDao.findSummaries()));
+                    } else if (query.containsKey("subject")) {
+                        int subjectId = Integer.parseInt(query.get("subject"));
+                        sendCached(exchange, "mistakes:" + subjectId,
+                            () -> mistakesJson(MistakeDao.findBySubject(subjectId)));
+                    } else {
+                        sendCached(exchange, "mistakes", () -> mistakesJson(MistakeDao.findAll()));
+                    }
+                    return;
+                case "subjects":
+                    if (path.length == 2) {
+                        Subject subject = SubjectDao.findById(Integer.parseInt(path[1]));
+                        if (subject == null) {
+                            sendError(exchange, 404, "Subject not found");
+                        } else {
+                            sendJson(exchange, 200, subject.toJson());
+                        }
+                    } else {
+                        sendCached(exchange, "subjects", () -> {
+                            List<Object> subjects = new ArrayList<>();
+                            for (Subject subject : SubjectDao.findAll()) {
+                                subjects.add(subject.toJson());
+                            }
+                            return subjects;
+                        });
+                    }
+                    return;
+                case "categories":
+                    String subjectName = query.get("subject");
+                    if (subjectName == null) throw new IllegalArgumentException("subject is required");
+                    sendCached(exchange, "categories:" + subjectName, () -> SubjectDao.findCategoryNames(subjectName));
+                    return;
+                case "tags":
+                    sendCached(exchange, "tags", this::tagCounts);
+                    return;
+                case "attachments":
+                    if (path.length == 2) {
+                        sendAttachment(exchange, path[1]);
+                    } else if (query.containsKey("ids")) {
+                        List<Integer> ids = new ArrayList<>();
+                        for (String id : query.get("ids").split(",")) {
+                            if (!id.isEmpty()) ids.add(Integer.parseInt(id));
+                        }
+                        List<Object> attachments = new ArrayList<>();
+                        for (Attachment attachment : AttachmentDao.findByIds(ids)) {
+                            attachments.add(attachment.toJson());
+                        }
+                        sendJson(exchange, 200, attachments);
+                    } else {
+                        sendCached(exchange, "attachments:firstImages", () -> {
+                            Map<String, Object> json = new LinkedHashMap<>();
+                            AttachmentDao.firstImages().forEach((id, sha256) -> json.put(String.valueOf(id), sha256));
+                            return json;
+                        });
+                    }
+                    return;
+                case "usage":
+                    if (path.length == 2 && path[1].equals("subjects")) {
+                        sendCached(exchange, "usage:subjects", () -> new LinkedHashMap<>(SubjectDao.subjectUsage()));
+                    } else if (path.length == 2 && path[1].equals("categories")) {
+                        sendCached(exchange, "usage:categories", () -> new LinkedHashMap<>(SubjectDao.categoryUsage()));
+                    } else {
+                        sendError(exchange, 404, "Not found");
+                    }
+                    return;
+                case "reviews":
+                    sendCached(exchange, "reviews", this::reviews);
+                    return;
+                case "stats":
+                    if (path.length == 2 && path[1].equals("subjects")) {
+                        sendCached(exchange, "stats:subjects", () -> {
+                            Map<String, Object> json = new LinkedHashMap<>();
+                            MistakeDao.countBySubject().forEach((id, count) -> json.put(String.valueOf(id), count));
+                            return json;
+                        });
+                        return;
+                    }
+                    if (path.length == 2 && path[1].equals("storage")) {
+                        sendJson(exchange, 200, storageStats());
+                        return;
+                    }
+                    sendCached(exchange, "stats", () -> {
+                        MistakeDao.Stats stats = MistakeDao.countStats();
+                        Map<String, Object> json = new LinkedHashMap<>();
+                        json.put("totalMistakes", stats.totalMistakes());
+                        json.put("totalSubjects", stats.totalSubjects());
+                        return json;
+                    });
+                    return;
+                case "changes":
+                    if (path.length == 2 && path[1].equals("latest")) {
+                        sendJson(exchange, 200, Map.of("seq", ChangeLog.latestSeq()));
+                    } else if (path.length == 2 && path[1].equals("oldest")) {
+                        sendJson(exchange, 200, Map.of("seq", ChangeLog.oldestSeq()));
+                    } else {
+                        long since = Long.parseLong(query.getOrDefault("since", "0"));
+                        int limit = Math.min(Integer.parseInt(query.getOrDefault("limit", "500")), 1000);
+                        List<Object> entries = new ArrayList<>();
+                        for (ChangeLog.Entry entry : ChangeLog.readSince(since, limit)) {
+                            entries.add(entry.toJson());
+                        }
+                        sendJson(exchange, 200, entries);
+                    }
+                    return;
+                default:
+                    break;
+            }
+        } else if (method.equals("POST")) {
+            if (resource.equals("mistakes") && path.length == 1) {
+                Map<String, Object> body = readBody(exchange);
+                Mistake mistake = Mistake.fromJson(body);
+                if (mistake.title == null || mistake.title.isEmpty() || mistake.subjectName == null
+                        || mistake.correctAnswer == null || mistake.correctAnswer.isEmpty()) {
+                    throw new IllegalArgumentException("title, subjectName and correctAnswer are required");
+                }
+                MistakeDao.insert(mistake, (String) body.get("tags"));
+                cache.clear();
+                sendJson(exchange, 201, mistake.toJson());
+                return;
+            }
+            if (resource.equals("mistakes") && path.length == 3 && path[2].equals("attachments")) {
+                String fileName = exchange.getRequestHeaders().getFirst(FILE_NAME_HEADER);
+                String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                if (fileName == null || contentType == null) {
+                    throw new IllegalArgumentException(FILE_NAME_HEADER + " and Content-Type are required");
+                }
+                AttachmentStore.Blob blob;
+                try (InputStream in = exchange.getRequestBody()) {
+                    blob = AttachmentStore.get().put(in);
+                }
+                Attachment attachment = AttachmentDao.attach(Integer.parseInt(path[1]), blob,
+                    URLDecoder.decode(fileName, StandardCharsets.UTF_8), contentType);
+                cache.clear();
+                if (attachment == null) {
+                    sendError(exchange, 404, "Mistake not found");
+                } else {
+                    sendJson(exchange, 201, attachment.toJson());
+                }
+                return;
+            }
+            if (resource.equals("mistakes") && path.length == 3 && path[2].equals("review")) {
+                int reviewCount = MistakeDao.markReviewed(Integer.parseInt(path[1]));
+                cache.clear();
+                if (reviewCount < 0) {
+                    sendError(exchange, 404, "Mistake not found");
+                } else {
+                    sendJson(exchange, 200, Map.of("reviewCount", reviewCount));
+                }
+                return;
+            }
+            if (resource.equals("subjects") && path.length == 3 && path[2].equals("restore")) {
+                Subject subject = new Subject();
+                subject.id = Integer.parseInt(path[1]);
+                boolean restored = SubjectDao.restore(subject);
+                cache.clear();
+                if (restored) {
+                    sendJson(exchange, 200, SubjectDao.findById(subject.id).toJson());
+                } else {
+                    sendError(exchange, 404, "Subject not found or no longer restorable");
+                }
+                return;
+            }
+            if (resource.equals("subjects") && path.length == 1) {
+                Map<String, Object> body = readBody(exchange);
+                String name = (String) body.get("name");
+                if (name == null || name.trim().isEmpty()) throw new IllegalArgumentException("name is required");
+                int subjectId = SubjectDao.insert(name.trim(), (String) body.get("description"));
+                cache.clear();
+                if (subjectId < 0) {
+                    sendError(exchange, 409, "Subject already exists");
+                } else {
+                    sendJson(exchange, 201, Map.of("id", subjectId));
+                }
+                return;
+            }
+        } else if (method.equals("PUT") && resource.equals("mistakes") && path.length == 2) {
+            MistakeEdit edit = MistakeEdit.fromJson(Integer.parseInt(path[1]), readBody(exchange));
+            try {
+                Mistake updated = MistakeDao.update(edit, null);
+                cache.clear();
+                if (updated == null) {
+                    sendError(exchange, 404, "Mistake not found");
+                } else {
+                    sendJson(exchange, 200, updated.toJson());
+                }
+            } catch (MistakeDao.StaleEditException e) {
+                sendError(exchange, 409, e.getMessage());
+            }
+            return;
+        } else if (method.equals("DELETE") && resource.equals("subjects") && path.length == 2) {
+            Subject subject = SubjectDao.findById(Integer.parseInt(path[1]));
+            if (subject == null) {
+                sendError(exchange, 404, "Subject not found");
+                return;
+            }
+            boolean deleted = SubjectDao.delete(subject);
+            cache.clear();
+            if (deleted) {
+                sendJson(exchange, 200, subject.toJson());
+            } else {
+                sendError(exchange, 404, "Subject not found");
+            }
+            return;
+        }
+        sendError(exchange, 404, "No route for " + method + " " + exchange.getRequestURI().getPath());
+    }
+
+    private Object tagCounts() throws SQLException {
+        List<Object> tags = new ArrayList<>();
+        MistakeDao.tagUsage().forEach((name, count) -> {
+            Map<String, Object> tag = new LinkedHashMap<>();
+            tag.put("name", name);
+            tag.put("count", count);
+            tags.add(tag);
+        });
+        return tags;
+    }
+
+    // Stored size of the long text columns, and what TextCodec saved on this server's reads and writes
+    private static Object storageStats() throws SQLException {
+        TextCompactor.StorageStats stored;
+        try (Connection conn = MySQLConnection.getConnection()) {
+            stored = TextCompactor.storageStats(conn);
+        }
+        TextCodec.Metrics metrics = TextCodec.metrics();
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("rows", stored.rows());
+        json.put("storedTextBytes", stored.storedBytes());
+        json.put("storedTextBytesPerRow", stored.bytesPerRow());
+        json.put("compressedValues", stored.compressedValues());
+        json.put("compressionThreshold", TextCodec.THRESHOLD);
+        json.put("textBytesWritten", metrics.writtenBytes());
+        json.put("storedBytesWritten", metrics.writtenStoredBytes());
+        json.put("textBytesRead", metrics.readBytes());
+        json.put("storedBytesRead", metrics.readStoredBytes());
+        return json;
+    }
+
+    private Object reviews() throws SQLException {
+        String query = "SELECT m.id, m.review_count, m.last_reviewed_at FROM mistakes m " +
+                      "JOIN subjects s ON m.subject_id = s.id AND s.deleted_at IS NULL " +
+                      "WHERE m.is_reviewed = true ORDER BY m.last_reviewed_at DESC";
+        try (Connection conn = MySQLConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            List<Object> reviews = new ArrayList<>();
+            while (rs.next()) {
+                Map<String, Object> review = new LinkedHashMap<>();
+                review.put("mistakeId", rs.getInt("id"));
+                review.put("reviewCount", rs.getInt("review_count"));
+                Timestamp lastReviewed = rs.getTimestamp("last_reviewed_at");
+                review.put("lastReviewedAt", lastReviewed != null ? lastReviewed.toInstant().toString() : null);
+                reviews.add(review);
+            }
+            return reviews;
+        }
+    }
+
+    private static List<Object> mistakesJson(List<Mistake> mistakes) {
+        List<Object> json = new ArrayList<>(mistakes.size());
+        for (Mistake mistake : mistakes) {
+            json.add(mistake.toJson());
+        }
+        return json;
+    }
+
+    // Concurrent misses on the same key share one query instead of stampeding the database
+    private void sendCached(HttpExchange exchange, String key, JsonQuery query) throws IOException, SQLException {
+        CompletableFuture<byte[]> entry = cache.get(key);
+        if (entry == null) {
+            CompletableFuture<byte[]> mine = new CompletableFuture<>();
+            entry = cache.putIfAbsent(key, mine);
+            if (entry == null) {
+                entry = mine;
+                // Every client is served this entry, so it is read from the primary
+                MySQLConnection.PRIMARY_READS.set(true);
+                try {
+                    mine.complete(Json.write(query.run()).getBytes(StandardCharsets.UTF_8));
+                } catch (SQLException | RuntimeException e) {
+                    cache.remove(key, mine);
+                    mine.completeExceptionally(e);
+                } finally {
+                    MySQLConnection.PRIMARY_READS.remove();
+                }
+            }
+        }
+
+        byte[] body;
+        try {
+            body = entry.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException sql) throw sql;
+            throw e;
+        }
+        sendBytes(exchange, 200, body);
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return Json.parseObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        sendBytes(exchange, status, Json.write(body).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, Map.of("error", message == null ? "Unknown error" : message));
+    }
+
+    // Stored files never change, so clients may cache them for good
+    private static void sendAttachment(HttpExchange exchange, String sha256) throws IOException {
+        AttachmentStore store = AttachmentStore.get();
+        if (!store.contains(sha256)) {
+            sendError(exchange, 404, "Attachment not found");
+            return;
+        }
+        ByteBuffer content = store.map(sha256);
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "public, max-age=31536000, immutable");
+        // A length of 0 would mean a chunked body
+        exchange.sendResponseHeaders(200, content.hasRemaining() ? content.remaining() : -1);
+        try (OutputStream out = exchange.getResponseBody()) {
+            byte[] chunk = new byte[64 * 1024];
+            while (content.hasRemaining()) {
+                int n = Math.min(chunk.length, content.remaining());
+                content.get(chunk, 0, n);
+                out.write(chunk, 0, n);
+            }
+        }
+    }
+
+    private static void sendBytes(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonQuery {
+        Object run() throws SQLException;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.mistakemanagement;
+
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Starts and stops the background services that run alongside the UI
+public class AppServices {
+    private static final long SCHEMA_RETRY_MS = 5_000;
+
+    // Shared pool for one-off background jobs started from the controllers
+    private static final ExecutorService BACKGROUND = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "background-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static ExecutorService background() {
+        return BACKGROUND;
+    }
+
+    // Brings the schema up to date, then starts the services. onReady runs (on the startup thread)
+    // once the schema is there, and only then may windows query the database. Schema failures go to
+    // onSchemaError; a lost connection is retried until it comes back, anything else is final.
+    public static void start(Runnable onReady, Consumer<SQLException> onSchemaError) {
+        ConnectionHealth.get().start();
+        Thread startup = new Thread(() -> {
+            // Against an API server the schema is the server's job
+            if (!ApiClient.isEnabled() && !ensureSchema(onSchemaError)) {
+                return;
+            }
+            onReady.run();
+            ChangeLogPoller.get().start();
+            Suggestions.get().start();
+            if (!ApiClient.isEnabled()) {
+                SubjectPurger.get().start();
+                SimilarityIndex.get().start();
+                RelatedMistakesJob.get().start();
+                TextCompactor.get().start();
+                MistakeArchiver.get().start();
+            }
+        }, "app-startup");
+        startup.setDaemon(true);
+        startup.start();
+    }
+
+    private static boolean ensureSchema(Consumer<SQLException> onSchemaError) {
+        while (true) {
+            try {
+                DatabaseSchema.ensure();
+                return true;
+            } catch (SQLException e) {
+                onSchemaError.accept(e);
+                if (!ConnectionHealth.isConnectionFailure(e)) return false;
+            }
+            try {
+                Thread.sleep(SCHEMA_RETRY_MS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+    }
+
+    public static void stop() {
+        ConnectionHealth.get().stop();
+        ChangeLogPoller.get().stop();
+        SubjectPurger.get().stop();
+        RelatedMistakesJob.get().stop();
+        TextCompactor.get().stop();
+        MistakeArchiver.get().stop();
+        BACKGROUND.shutdownNow();
+        MySQLConnection.shutdown();
+    }
+}
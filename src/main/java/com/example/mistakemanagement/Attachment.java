@@ -0,0 +1,51 @@
+package com.example.mistakemanagement;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Holds one mistake_attachments row. The bytes live in the AttachmentStore under sha256.
+public class Attachment {
+    int id;
+    int mistakeId;
+    // Hex SHA-256 of the content, which is also its name in the store
+    String sha256;
+    String fileName;
+    String contentType;
+    long sizeBytes;
+
+    boolean isImage() {
+        return contentType != null && contentType.startsWith("image/");
+    }
+
+    String displayText() {
+        return String.format("%s (%s)", fileName, formatSize(sizeBytes));
+    }
+
+    static String formatSize(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", id);
+        json.put("mistakeId", mistakeId);
+        json.put("sha256", sha256);
+        json.put("fileName", fileName);
+        json.put("contentType", contentType);
+        json.put("sizeBytes", sizeBytes);
+        return json;
+    }
+
+    static Attachment fromJson(Map<String, Object> json) {
+        Attachment attachment = new Attachment();
+        attachment.id = ((Number) json.get("id")).intValue();
+        attachment.mistakeId = ((Number) json.get("mistakeId")).intValue();
+        attachment.sha256 = (String) json.get("sha256");
+        attachment.fileName = (String) json.get("fileName");
+        attachment.contentType = (String) json.get("contentType");
+        attachment.sizeBytes = ((Number) json.get("sizeBytes")).longValue();
+        return attachment;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.mistakemanagement;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Attachment rows. The rows only name the content by hash; the bytes go to the AttachmentStore,
+// so listing attachments never moves file data through MySQL.
+public class AttachmentDao {
+    private static final String SELECT_ATTACHMENTS =
+        "SELECT id, mistake_id, sha256, file_name, content_type, size_bytes FROM mistake_attachments ";
+
+    // For when the platform cannot tell; JavaFX can show these image types
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+        "png", "image/png",
+        "jpg", "image/jpeg",
+        "jpeg", "image/jpeg",
+        "gif", "image/gif",
+        "bmp", "image/bmp",
+        "pdf", "application/pdf",
+        "txt", "text/plain");
+
+    // Stores the file and links it to the mistake. Returns null if the mistake no longer exists.
+    public static Attachment attach(int mistakeId, Path file) throws SQLException, IOException {
+        String fileName = file.getFileName().toString();
+        String contentType = contentTypeOf(file);
+        if (ApiClient.isEnabled()) {
+            Attachment attachment = ApiClient.get().uploadAttachment(mistakeId, file, fileName, contentType);
+            if (attachment != null) {
+                // Kept locally so showing it does not download it back
+                AttachmentStore.get().put(file);
+                EventBus.get().publish(new DomainEvent.AttachmentAdded(attachment));
+            }
+            return attachment;
+        }
+        return attach(mistakeId, AttachmentStore.get().put(file), fileName, contentType);
+    }
+
+    // Links content already in the store to the mistake
+    static Attachment attach(int mistakeId, AttachmentStore.Blob blob, String fileName, String contentType)
+            throws SQLException {
+        Attachment attachment = new Attachment();
+        attachment.mistakeId = mistakeId;
+        attachment.sha256 = blob.sha256();
+        attachment.fileName = fileName;
+        attachment.contentType = contentType;
+        attachment.sizeBytes = blob.size();
+
+        // Inserting from the mistakes row checks it exists in the same statement
+        String insertQuery = "INSERT INTO mistake_attachments (mistake_id, sha256, file_name, content_type, size_bytes) " +
+                            "SELECT id, ?, ?, ?, ? FROM mistakes WHERE id = ?";
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, attachment.sha256);
+            stmt.setString(2, attachment.fileName);
+            stmt.setString(3, attachment.contentType);
+            stmt.setLong(4, attachment.sizeBytes);
+            stmt.setInt(5, mistakeId);
+            if (stmt.executeUpdate() == 0) return null;
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("Could not get last inserted ID");
+                }
+                attachment.id = keys.getInt(1);
+            }
+            ChangeLog.record(conn, ChangeLog.ATTACHMENT, attachment.id, ChangeLog.INSERT);
+        }
+        EventBus.get().publish(new DomainEvent.AttachmentAdded(attachment));
+        return attachment;
+    }
+
+    public static List<Attachment> findByMistake(int mistakeId) throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().listAttachments(mistakeId);
+        }
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_ATTACHMENTS + "WHERE mistake_id = ? ORDER BY id")) {
+            stmt.setInt(1, mistakeId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return readAll(rs);
+            }
+        }
+    }
+
+    public static List<Attachment> findByIds(Collection<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) return new ArrayList<>();
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().getAttachments(ids);
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_ATTACHMENTS + "WHERE id IN (" + placeholders + ") ORDER BY id")) {
+            int index = 1;
+            for (int id : ids) {
+                stmt.setInt(index++, id);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return readAll(rs);
+            }
+        }
+    }
+
+    // Mistake id -> hash of its first image, for the thumbnails in the list
+    public static Map<Integer, String> firstImages() throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().firstImages();
+        }
+        String query = "SELECT a.mistake_id, a.sha256 FROM mistake_attachments a " +
+                      "JOIN (SELECT MIN(id) as id FROM mistake_attachments WHERE content_type LIKE 'image/%' " +
+                      "GROUP BY mistake_id) first_images ON first_images.id = a.id";
+        try (Connection conn = MySQLConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            Map<Integer, String> images = new HashMap<>();
+            while (rs.next()) {
+                images.put(rs.getInt(1), rs.getString(2));
+            }
+            return images;
+        }
+    }
+
+    static String contentTypeOf(Path file) throws IOException {
+        String probed = Files.probeContentType(file);
+        if (probed != null) return probed;
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String extension = dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return CONTENT_TYPES.getOrDefault(extension, "application/octet-stream");
+    }
+
+    private static List<Attachment> readAll(ResultSet rs) throws SQLException {
+        List<Attachment> attachments = new ArrayList<>();
+        while (rs.next()) {
+            Attachment attachment = new Attachment();
+            attachment.id = rs.getInt("id");
+            attachment.mistakeId = rs.getInt("mistake_id");
+            attachment.sha256 = rs.getString("sha256");
+            attachment.fileName = rs.getString("file_name");
+            attachment.contentType = rs.getString("content_type");
+            attachment.sizeBytes = rs.getLong("size_bytes");
+            attachments.add(attachment);
+        }
+        return attachments;
+    }
+}
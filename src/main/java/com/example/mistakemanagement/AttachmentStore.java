@@ -0,0 +1,182 @@
+package com.example.mistakemanagement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.HexFormat;
+
+// Content-addressed files for mistake attachments, kept on disk instead of in MySQL rows.
+//
+// A file is named by the SHA-256 of its bytes (under a two-character fan-out directory), so the
+// same screenshot attached twice is stored once and a stored file never changes. Reads map the
+// file read-only, so the bytes are paged in by the OS instead of copied onto the heap.
+//
+// Against an API server the local store is a cache: content missing here is downloaded once by
+// hash and kept.
+public class AttachmentStore {
+    private static final AttachmentStore INSTANCE = new AttachmentStore(Path.of(MySQLConnection.setting(
+        "mistakes.attachments.dir", "MISTAKES_ATTACHMENTS_DIR",
+        Path.of(System.getProperty("user.home"), ".mistake-management", "attachments").toString())));
+
+    static final long MAX_SIZE_BYTES = 20L * 1024 * 1024;
+
+    private final Path root;
+
+    record Blob(String sha256, long size) {}
+
+    AttachmentStore(Path root) {
+        this.root = root;
+    }
+
+    public static AttachmentStore get() {
+        return INSTANCE;
+    }
+
+    public Blob put(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return put(in);
+        }
+    }
+
+    // Copies the stream into the store, hashing as it goes. Content already stored is not written again.
+    public Blob put(InputStream in) throws IOException {
+        Files.createDirectories(root);
+        Path temp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    size += n;
+                    if (size > MAX_SIZE_BYTES) {
+                        throw new IOException("Attachments are limited to " + Attachment.formatSize(MAX_SIZE_BYTES));
+                    }
+                    digest.update(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                }
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            moveIntoPlace(temp, sha256);
+            return new Blob(sha256, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public boolean contains(String sha256) {
+        return Files.exists(path(sha256));
+    }
+
+    // The content, mapped read-only. The mapping stays valid after the channel is closed.
+    public MappedByteBuffer map(String sha256) throws IOException {
+        Path path = path(sha256);
+        if (!Files.exists(path) && ApiClient.isEnabled()) {
+            download(sha256);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public InputStream open(String sha256) throws IOException {
+        return new MappedInputStream(map(sha256));
+    }
+
+    Path path(String sha256) {
+        // Hashes come from the database and the API, so make sure one cannot name another path
+        if (sha256 == null || sha256.length() != 64 || !sha256.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+            throw new IllegalArgumentException("Not a SHA-256: " + sha256);
+        }
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private void download(String sha256) throws IOException {
+        Files.createDirectories(root);
+        Path temp = Files.createTempFile(root, "download-", ".tmp");
+        try {
+            try {
+                ApiClient.get().downloadAttachment(sha256, temp);
+            } catch (SQLException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            // Only keep what matches its name
+            MessageDigest digest = sha256();
+            try (InputStream in = Files.newInputStream(temp)) {
+                byte[] buffer = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, n);
+                }
+            }
+            if (!HexFormat.of().formatHex(digest.digest()).equals(sha256)) {
+                throw new IOException("Downloaded attachment does not match " + sha256);
+            }
+            moveIntoPlace(temp, sha256);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void moveIntoPlace(Path temp, String sha256) throws IOException {
+        Path target = path(sha256);
+        if (Files.exists(target)) return;
+        Files.createDirectories(target.getParent());
+        // Same content under the same name, so a concurrent writer of the same file is harmless
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Reads a mapped file without copying it into a heap array first
+    private static class MappedInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        MappedInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.mistakemanagement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Server-side record of writes so other clients can pick up deltas with ChangeLogPoller.
+// Write paths call record() on the connection they just wrote with. payload carries what the
+// poller needs besides the id (a REVIEW's new review count, a deleted subject's name, an UPDATE's
+// changed fields); affected_rows is the number of rows the write changed.
+public class ChangeLog {
+    // Identifies this running client so the poller can skip its own writes
+    static final String CLIENT_ID = UUID.randomUUID().toString();
+
+    // The API server writes on behalf of remote clients and records their id instead of its own
+    static final ThreadLocal<String> ORIGIN = ThreadLocal.withInitial(() -> CLIENT_ID);
+
+    static final String MISTAKE = "MISTAKE";
+    static final String SUBJECT = "SUBJECT";
+    static final String ATTACHMENT = "ATTACHMENT";
+    // Everything, as after a restore; entity_id is 0
+    static final String DATA = "DATA";
+
+    static final String INSERT = "INSERT";
+    static final String UPDATE = "UPDATE";
+    static final String REVIEW = "REVIEW";
+    static final String DELETE = "DELETE";
+    static final String RESTORE = "RESTORE";
+    static final String RELOAD = "RELOAD";
+
+    static void record(Connection conn, String entity, int entityId, String op) throws SQLException {
+        record(conn, entity, entityId, op, null, 0);
+    }
+
+    static void record(Connection conn, String entity, int entityId, String op,
+                       String payload, int affectedRows) throws SQLException {
+        String query = "INSERT INTO change_log (entity, entity_id, op, origin, payload, affected_rows) " +
+                      "VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, entity);
+            stmt.setInt(2, entityId);
+            stmt.setString(3, op);
+            stmt.setString(4, ORIGIN.get());
+            stmt.setString(5, payload);
+            stmt.setInt(6, affectedRows);
+            stmt.executeUpdate();
+        }
+        // This session reads its own write from the primary until the replicas have it
+        MySQLConnection.pinReads();
+    }
+
+    static long latestSeq() throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().latestChangeSeq();
+        }
+        try (Connection conn = MySQLConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(seq), 0) FROM change_log")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // The oldest seq still in the log; entries before it were pruned
+    static long oldestSeq() throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().oldestChangeSeq();
+        }
+        try (Connection conn = MySQLConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MIN(seq), 0) FROM change_log")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    static List<Entry> readSince(long seq, int limit) throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().changesSince(seq, limit);
+        }
+        String query = "SELECT seq, entity, entity_id, op, origin, payload, affected_rows " +
+                      "FROM change_log WHERE seq > ? ORDER BY seq LIMIT ?";
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setLong(1, seq);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Entry> entries = new ArrayList<>();
+                while (rs.next()) {
+                    entries.add(new Entry(rs.getLong("seq"), rs.getString("entity"), rs.getInt("entity_id"),
+                        rs.getString("op"), rs.getString("origin"), rs.getString("payload"),
+                        rs.getInt("affected_rows")));
+                }
+                return entries;
+            }
+        }
+    }
+
+    record Entry(long seq, String entity, int entityId, String op, String origin,
+                 String payload, int affectedRows) {
+
+        Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("seq", seq);
+            json.put("entity", entity);
+            json.put("entityId", entityId);
+            json.put("op", op);
+            json.put("origin", origin);
+            json.put("payload", payload);
+            json.put("affectedRows", affectedRows);
+            return json;
+        }
+
+        static Entry fromJson(Map<String, Object> json) {
+            return new Entry(((Number) json.get("seq")).longValue(), (String) json.get("entity"),
+                ((Number) json.get("entityId")).intValue(), (String) json.get("op"),
+                (String) json.get("origin"), (String) json.get("payload"),
+                ((Number) json.get("affectedRows")).intValue());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.mistakemanagement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Picks up writes made by other clients from change_log and republishes them on the EventBus.
+// An idle client costs one primary-key range query per interval. When entries this client has not
+// seen are gone (pruned while it was away, or a gap it gave up waiting on) it publishes
+// DataReloaded instead, and everything is loaded again.
+public class ChangeLogPoller {
+    private static final ChangeLogPoller INSTANCE = new ChangeLogPoller();
+
+    private static final long POLL_INTERVAL_MS = 2000;
+    private static final int BATCH_SIZE = 500;
+    // A missing seq usually belongs to an insert that has not committed yet; stop there until it
+    // shows up. A gap older than this is most likely a rollback, but as it may still commit it is
+    // treated as missed changes.
+    private static final long GAP_TIMEOUT_MS = 5000;
+    private static final long PRUNE_INTERVAL_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final int RETENTION_HOURS = 24;
+    // Away longer than this and pruning may have removed entries this client never saw
+    private static final long MAX_AWAY_MS = TimeUnit.HOURS.toMillis(RETENTION_HOURS - 1);
+
+    private ScheduledExecutorService scheduler;
+    private long lastSeq = -1;
+    private long gapSeenAt = 0;
+    private long lastPruneAt = 0;
+    private long lastPolledAt;
+
+    private ChangeLogPoller() {
+    }
+
+    public static ChangeLogPoller get() {
+        return INSTANCE;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "change-log-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::pollSafely, 0, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+            if (System.currentTimeMillis() - lastPruneAt > PRUNE_INTERVAL_MS) {
+                prune();
+                lastPruneAt = System.currentTimeMillis();
+            }
+        } catch (SQLException e) {
+            System.err.println("Change log poll failed: " + e.getMessage());
+        }
+    }
+
+    private void poll() throws SQLException {
+        if (lastSeq < 0) {
+            // Start from the current end of the log; this client already loaded everything before it
+            lastSeq = ChangeLog.latestSeq();
+            lastPolledAt = System.currentTimeMillis();
+            return;
+        }
+
+        // Away for about as long as entries are kept (asleep, offline): some may be pruned already
+        boolean missed = System.currentTimeMillis() - lastPolledAt > MAX_AWAY_MS;
+        List<ChangeLog.Entry> changes = new ArrayList<>();
+        long expected = lastSeq + 1;
+        List<ChangeLog.Entry> entries = missed ? List.of() : ChangeLog.readSince(lastSeq, BATCH_SIZE);
+        for (ChangeLog.Entry entry : entries) {
+            if (entry.seq() != expected) {
+                // Wait for the missing seq to commit. Pruned entries never show up, and a gap given
+                // up on may still commit later; either way deltas can no longer be trusted.
+                missed = ChangeLog.oldestSeq() > expected || gapExpired();
+                break;
+            }
+            gapSeenAt = 0;
+            expected = entry.seq() + 1;
+            lastSeq = entry.seq();
+            if (ChangeLog.CLIENT_ID.equals(entry.origin())) continue;
+            if (entry.entity().equals(ChangeLog.DATA)) {
+                // Another client restored a backup; no delta describes that
+                missed = true;
+                break;
+            }
+            changes.add(entry);
+        }
+        lastPolledAt = System.currentTimeMillis();
+        if (missed) {
+            reload();
+        } else if (!changes.isEmpty()) {
+            publish(changes);
+        }
+    }
+
+    private boolean gapExpired() {
+        long now = System.currentTimeMillis();
+        if (gapSeenAt == 0) {
+            gapSeenAt = now;
+            return false;
+        }
+        return now - gapSeenAt > GAP_TIMEOUT_MS;
+    }
+
+    // Skips to the end of the log and has everything loaded again
+    private void reload() throws SQLException {
+        lastSeq = ChangeLog.latestSeq();
+        gapSeenAt = 0;
+        MySQLConnection.pinReads();
+        EventBus.get().publish(new DomainEvent.DataReloaded());
+    }
+
+    // Events go out strictly in seq order. Mistakes and attachments are read up front with one query
+    // each, as they are now, so only the last write to each mistake is published: as created if the
+    // batch created it, otherwise as updated.
+    private void publish(List<ChangeLog.Entry> changes) throws SQLException {
+        // Windows reload from these events; replicas may not have the changes yet
+        MySQLConnection.pinReads();
+        Set<Integer> createdIds = new HashSet<>();
+        Map<Integer, Integer> lastWrite = new HashMap<>();
+        Set<Integer> attachmentIds = new LinkedHashSet<>();
+        for (int i = 0; i < changes.size(); i++) {
+            ChangeLog.Entry change = changes.get(i);
+            if (change.entity().equals(ChangeLog.MISTAKE)
+                    && (change.op().equals(ChangeLog.INSERT) || change.op().equals(ChangeLog.UPDATE))) {
+                lastWrite.put(change.entityId(), i);
+                if (change.op().equals(ChangeLog.INSERT)) createdIds.add(change.entityId());
+            } else if (change.entity().equals(ChangeLog.ATTACHMENT) && change.op().equals(ChangeLog.INSERT)) {
+                attachmentIds.add(change.entityId());
+            }
+        }
+        Map<Integer, Mistake> mistakes = new HashMap<>();
+        for (Mistake mistake : MistakeDao.findByIds(lastWrite.keySet())) {
+            mistakes.put(mistake.id, mistake);
+        }
+        Map<Integer, Attachment> attachments = new HashMap<>();
+        for (Attachment attachment : AttachmentDao.findByIds(attachmentIds)) {
+            attachments.put(attachment.id, attachment);
+        }
+
+        EventBus bus = EventBus.get();
+        for (int i = 0; i < changes.size(); i++) {
+            ChangeLog.Entry change = changes.get(i);
+            int id = change.entityId();
+            switch (change.entity() + " " + change.op()) {
+                case "MISTAKE INSERT", "MISTAKE UPDATE" -> {
+                    Mistake mistake = mistakes.get(id);
+                    if (mistake == null || lastWrite.get(id) != i) continue;
+                    bus.publish(createdIds.contains(id)
+                        ? new DomainEvent.MistakeCreated(mistake) : new DomainEvent.MistakeUpdated(mistake, null));
+                }
+                case "MISTAKE REVIEW" ->
+                    bus.publish(new DomainEvent.MistakeReviewed(id, Integer.parseInt(change.payload())));
+                case "ATTACHMENT INSERT" -> {
+                    Attachment attachment = attachments.get(id);
+                    if (attachment != null) bus.publish(new DomainEvent.AttachmentAdded(attachment));
+                }
+                case "SUBJECT INSERT" -> {
+                    Subject subject = SubjectDao.findById(id);
+                    if (subject != null) {
+                        bus.publish(new DomainEvent.SubjectAdded(subject.id, subject.name, subject.description));
+                    }
+                }
+                case "SUBJECT DELETE" -> bus.publish(new DomainEvent.SubjectDeleted(id, change.payload()));
+                case "SUBJECT RESTORE" -> {
+                    Subject subject = SubjectDao.findById(id);
+                    if (subject != null) {
+                        bus.publish(new DomainEvent.SubjectRestored(subject.id, subject.name, subject.description));
+                    }
+                }
+                default -> {
+                    // Written by a newer version of the app; the next reload picks it up
+                }
+            }
+        }
+    }
+
+    private void prune() throws SQLException {
+        // The API server prunes for its remote clients
+        if (ApiClient.isEnabled()) return;
+        try (Connection conn = MySQLConnection.getConnection()) {
+            // Small batches keep each delete short
+            String query = "DELETE FROM change_log WHERE created_at < NOW() - INTERVAL " +
+                          RETENTION_HOURS + " HOUR LIMIT 1000";
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                while (stmt.executeUpdate() == 1000) {
+                    // Keep going until the backlog is gone
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.mistakemanagement;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Tracks whether the database (or the API server, in API mode) is reachable, with a circuit breaker
+// so that during an outage calls fail at once instead of each waiting out a connect timeout.
+//
+// MySQLConnection and ApiClient call check() before connecting and report how connecting went.
+// FAILURE_THRESHOLD connection failures in a row open the circuit: check() then throws straight
+// away and only the monitor tries again, after a backoff that doubles per failed probe up to
+// MAX_BACKOFF_MS, with jitter so clients coming back together do not probe in step. A successful
+// probe closes it. While closed the monitor probes every PROBE_INTERVAL_MS, so a dead server is
+// noticed even when nothing else is running. Listeners are called on whichever thread saw the
+// change, so UI listeners hand off to the FX thread.
+public class ConnectionHealth {
+    private static final ConnectionHealth INSTANCE = new ConnectionHealth();
+
+    private static final long PROBE_INTERVAL_MS = TimeUnit.SECONDS.toMillis(15);
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long BASE_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = TimeUnit.SECONDS.toMillis(60);
+
+    enum State {
+        UNKNOWN("● Connecting...", "#f39c12"),
+        UP("● Connected", "#27ae60"),
+        DOWN("● Disconnected, retrying", "#e74c3c");
+
+        final String displayText;
+        final String color;
+
+        State(String displayText, String color) {
+            this.displayText = displayText;
+            this.color = color;
+        }
+    }
+
+    // message is the last failure while DOWN, otherwise null
+    record Status(State state, String message) {
+    }
+
+    private final List<Consumer<Status>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Status>> probeCallbacks = new ArrayList<>();
+    private volatile Status status = new Status(State.UNKNOWN, null);
+    private volatile int consecutiveFailures;
+    private int failedProbes;
+    private ScheduledExecutorService monitor;
+    // The one pending probe; rescheduling replaces it
+    private ScheduledFuture<?> nextProbe;
+
+    ConnectionHealth() {
+    }
+
+    public static ConnectionHealth get() {
+        return INSTANCE;
+    }
+
+    public synchronized void start() {
+        if (monitor != null) return;
+        monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleProbe(0);
+    }
+
+    public synchronized void stop() {
+        if (monitor != null) {
+            monitor.shutdownNow();
+            monitor = null;
+        }
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    public void addListener(Consumer<Status> listener) {
+        listeners.add(listener);
+    }
+
+    // Probes now instead of at the next scheduled time, then passes the result to onResult (on the
+    // monitor thread)
+    public synchronized void probeNow(Consumer<Status> onResult) {
+        probeCallbacks.add(onResult);
+        scheduleProbe(0);
+    }
+
+    // Throws without touching the network while the circuit is open
+    void check() throws SQLException {
+        Status current = status;
+        if (current.state() == State.DOWN) {
+            throw new SQLException("Database unavailable, retrying automatically: " + current.message(), "08001");
+        }
+    }
+
+    void recordSuccess() {
+        // The common case, without taking the lock
+        if (status.state() == State.UP && consecutiveFailures == 0) return;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            failedProbes = 0;
+            if (status.state() == State.UP) return;
+            status = new Status(State.UP, null);
+            scheduleProbe(PROBE_INTERVAL_MS);
+        }
+        notifyListeners();
+    }
+
+    void recordFailure(Exception failure) {
+        synchronized (this) {
+            consecutiveFailures++;
+            if (status.state() == State.DOWN || consecutiveFailures < FAILURE_THRESHOLD) return;
+            open(failure);
+        }
+        notifyListeners();
+    }
+
+    // Connection failures (SQLState class 08) count against the circuit; errors in queries do not
+    static boolean isConnectionFailure(SQLException e) {
+        return e.getSQLState() != null && e.getSQLState().startsWith("08");
+    }
+
+    private void open(Exception failure) {
+        long backoff = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(failedProbes, 16));
+        // Somewhere between half and all of the backoff
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        failedProbes++;
+        status = new Status(State.DOWN, failure.getMessage());
+        scheduleProbe(delay);
+    }
+
+    private void probe() {
+        try {
+            if (ApiClient.isEnabled()) {
+                ApiClient.get().checkHealth();
+            } else {
+                MySQLConnection.probe();
+            }
+            synchronized (this) {
+                scheduleProbe(PROBE_INTERVAL_MS);
+            }
+            recordSuccess();
+        } catch (SQLException | RuntimeException e) {
+            boolean opened = false;
+            synchronized (this) {
+                // Until a probe succeeds any failure counts (a wrong password, say); once up, only
+                // connection failures do, so a probe stuck behind a busy pool does not open it
+                boolean connectionFailure = e instanceof SQLException sql && isConnectionFailure(sql);
+                if (status.state() != State.UP
+                        || (connectionFailure && ++consecutiveFailures >= FAILURE_THRESHOLD)) {
+                    open(e);
+                    opened = true;
+                } else {
+                    scheduleProbe(PROBE_INTERVAL_MS);
+                }
+            }
+            if (opened) notifyListeners();
+        }
+        List<Consumer<Status>> callbacks;
+        synchronized (this) {
+            callbacks = new ArrayList<>(probeCallbacks);
+            probeCallbacks.clear();
+        }
+        Status current = status;
+        callbacks.forEach(callback -> callback.accept(current));
+    }
+
+    private synchronized void scheduleProbe(long delayMs) {
+        if (monitor == null) return;
+        if (nextProbe != null) {
+            nextProbe.cancel(false);
+        }
+        nextProbe = monitor.schedule(this::probe, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void notifyListeners() {
+        Status current = status;
+        for (Consumer<Status> listener : listeners) {
+            listener.accept(current);
+        }
+    }
+}
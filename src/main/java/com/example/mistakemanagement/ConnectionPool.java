@@ -0,0 +1,167 @@
+package com.example.mistakemanagement;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Small bounded JDBC pool. Callers use connections with try-with-resources as before;
+// close() hands the physical connection back instead of closing it.
+public class ConnectionPool {
+    private static final long BORROW_TIMEOUT_MS = 10_000;
+    // Connections idle longer than this are validated before reuse
+    private static final long VALIDATE_AFTER_MS = 30_000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+
+    public ConnectionPool(String url, String username, String password, int maxSize) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    public Connection borrow() throws SQLException {
+        try {
+            if (!permits.tryAcquire(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (System.currentTimeMillis() - pooled.lastUsed < VALIDATE_AFTER_MS || pooled.raw.isValid(2)) {
+                    return pooled.lease();
+                }
+                closeQuietly(pooled.raw);
+            }
+            return new PooledConnection(connect()).lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public void shutdown() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            closeQuietly(pooled.raw);
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+            return DriverManager.getConnection(url, username, password);
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("MySQL Driver not found", e);
+        }
+    }
+
+    private void release(PooledConnection pooled, boolean broken) {
+        try {
+            if (!broken && !pooled.raw.isClosed()) {
+                // Leave the connection as a fresh one would be
+                if (!pooled.raw.getAutoCommit()) {
+                    pooled.raw.rollback();
+                    pooled.raw.setAutoCommit(true);
+                }
+                if (pooled.raw.isReadOnly()) {
+                    pooled.raw.setReadOnly(false);
+                }
+                pooled.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } else {
+                closeQuietly(pooled.raw);
+            }
+        } catch (SQLException e) {
+            closeQuietly(pooled.raw);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // Already unusable
+        }
+    }
+
+    private class PooledConnection {
+        final Connection raw;
+        volatile long lastUsed = System.currentTimeMillis();
+
+        PooledConnection(Connection raw) {
+            this.raw = raw;
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, new Lease(this));
+        }
+    }
+
+    // One borrow of a pooled connection; becomes unusable once closed
+    private class Lease implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean closed;
+        private boolean broken;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pooled, broken);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pooled.raw.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooled.raw;
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+            try {
+                return method.invoke(pooled.raw, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                // SQLState class 08 is a connection failure; don't hand this one out again
+                if (cause instanceof SQLException sql && sql.getSQLState() != null
+                        && sql.getSQLState().startsWith("08")) {
+                    broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.mistakemanagement;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// The courses offered under Subject Management, read from the bundled courses.txt.
+//
+// In the file a "[Category]" line starts a group and every other non-blank line is a course;
+// lines starting with # are comments. The catalog is read once and shared.
+public class CourseCatalog {
+    record Course(String name, String category) {
+    }
+
+    private static List<Course> courses;
+
+    private CourseCatalog() {
+    }
+
+    public static synchronized List<Course> courses() throws IOException {
+        if (courses == null) {
+            try (InputStream in = CourseCatalog.class.getResourceAsStream("courses.txt")) {
+                if (in == null) {
+                    throw new IOException("Course catalog not found: courses.txt");
+                }
+                courses = List.copyOf(read(in));
+            }
+        }
+        return courses;
+    }
+
+    static List<Course> read(InputStream in) throws IOException {
+        List<Course> read = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String category = "Other";
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            if (line.startsWith("[") && line.endsWith("]")) {
+                category = line.substring(1, line.length() - 1).trim();
+            } else {
+                read.add(new Course(line, category));
+            }
+        }
+        return read;
+    }
+}
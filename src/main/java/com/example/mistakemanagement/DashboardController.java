@@ -1,15 +1,22 @@
 package com.example.mistakemanagement;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
+import javafx.scene.control.Tooltip;
 import javafx.scene.Scene;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.fxml.FXMLLoader;
+import java.io.File;
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.ResultSet;
-import java.sql.Statement;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
 
 public class DashboardController {
     @FXML
@@ -21,15 +28,99 @@ public class DashboardController {
     @FXML
     private Button viewMistakesBtn;
     
+    @FXML
+    private Button quizBtn;
+    
     @FXML
     private Button manageSubjectsBtn;
     
     @FXML
     private Button testDbBtn;
+
+    @FXML
+    private Button backupBtn;
+
+    @FXML
+    private Button restoreBtn;
     
     @FXML
     private Label statsLabel;
 
+    @FXML
+    private Label connectionLabel;
+
+    // Totals from the last loadStats(), kept current from events; -1 until loaded
+    private int totalMistakes = -1;
+    private int totalSubjects = -1;
+    // Live mistake count per subject, so deleting or restoring a subject can adjust the total
+    private Map<Integer, Integer> mistakesBySubject = new HashMap<>();
+    // The windows below need the schema AppServices brings up to date first
+    private boolean databaseReady;
+
+    @FXML
+    public void initialize() {
+        EventBus bus = EventBus.get();
+        bus.subscribe(DomainEvent.MistakeCreated.class, e -> {
+            mistakesBySubject.merge(e.mistake().subjectId, 1, Integer::sum);
+            adjustStats(1, 0);
+        });
+        // Moving a mistake to another subject changes the per-subject counts, not the totals.
+        // Edits from other clients carry no previous subject; the counts are reloaded with the stats.
+        bus.subscribe(DomainEvent.MistakeUpdated.class, e -> {
+            if (e.previous() != null && e.previous().subjectId != e.mistake().subjectId) {
+                mistakesBySubject.merge(e.previous().subjectId, -1, Integer::sum);
+                mistakesBySubject.merge(e.mistake().subjectId, 1, Integer::sum);
+            }
+        });
+        bus.subscribe(DomainEvent.SubjectAdded.class, e -> adjustStats(0, 1));
+        bus.subscribe(DomainEvent.SubjectDeleted.class, e ->
+            adjustStats(-mistakesBySubject.getOrDefault(e.subjectId(), 0), -1));
+        bus.subscribe(DomainEvent.SubjectRestored.class, e ->
+            adjustStats(mistakesBySubject.getOrDefault(e.subjectId(), 0), 1));
+        bus.subscribe(DomainEvent.DataReloaded.class, e -> {
+            if (databaseReady) loadStats();
+        });
+
+        setDatabaseButtonsDisabled(true);
+        welcomeText.setText("Preparing the database...");
+
+        // The monitor reports changes from its own thread
+        ConnectionHealth health = ConnectionHealth.get();
+        health.addListener(status -> Platform.runLater(() -> showConnection(status)));
+        showConnection(health.status());
+    }
+
+    private void showConnection(ConnectionHealth.Status status) {
+        connectionLabel.setText(status.state().displayText);
+        connectionLabel.setStyle("-fx-text-fill: " + status.state().color + ";");
+        connectionLabel.setTooltip(status.message() == null ? null : new Tooltip(status.message()));
+        // Totals may have moved while disconnected
+        if (status.state() == ConnectionHealth.State.UP && databaseReady) {
+            loadStats();
+        }
+    }
+
+    void databaseReady() {
+        databaseReady = true;
+        setDatabaseButtonsDisabled(false);
+        welcomeText.setText("Welcome! Track and learn from your mistakes.");
+        welcomeText.setStyle("");
+        loadStats();
+    }
+
+    // Called for every failed attempt; AppServices keeps retrying while the database is unreachable
+    void schemaFailed(SQLException e) {
+        welcomeText.setText((ConnectionHealth.isConnectionFailure(e)
+            ? "Waiting for the database: " : "Database setup failed: ") + e.getMessage());
+        welcomeText.setStyle("-fx-text-fill: #e74c3c");
+    }
+
+    private void setDatabaseButtonsDisabled(boolean disabled) {
+        for (Button button : new Button[]{addMistakeBtn, viewMistakesBtn, quizBtn, manageSubjectsBtn, backupBtn, restoreBtn}) {
+            button.setDisable(disabled);
+        }
+    }
+
     @FXML
     protected void onAddMistakeClick() {
         try {
@@ -42,9 +133,11 @@ public class DashboardController {
             
             FXMLLoader loader = new FXMLLoader(resource);
             Scene scene = new Scene(loader.load(), 900, 800);
+            AddMistakeController controller = loader.getController();
             Stage stage = new Stage();
             stage.setTitle("Add New Mistake");
             stage.setScene(scene);
+            stage.setOnHidden(e -> controller.dispose());
             stage.setResizable(true);
             stage.show();
         } catch (IOException e) {
@@ -60,10 +153,12 @@ public class DashboardController {
     protected void onViewMistakesClick() {
         try {
             FXMLLoader loader = new FXMLLoader(DashboardController.class.getResource("view-mistakes-view.fxml"));
-            Scene scene = new Scene(loader.load(), 800, 600);
+            Scene scene = new Scene(loader.load(), 1050, 650);
+            ViewMistakesController controller = loader.getController();
             Stage stage = new Stage();
             stage.setTitle("View All Mistakes");
             stage.setScene(scene);
+            stage.setOnHidden(e -> controller.dispose());
             stage.show();
         } catch (IOException e) {
             welcomeText.setText("Error loading view mistakes: " + e.getMessage());
@@ -71,6 +166,24 @@ public class DashboardController {
         }
     }
 
+    @FXML
+    protected void onQuizClick() {
+        try {
+            FXMLLoader loader = new FXMLLoader(DashboardController.class.getResource("quiz-view.fxml"));
+            Scene scene = new Scene(loader.load(), 800, 650);
+            QuizController controller = loader.getController();
+            Stage stage = new Stage();
+            stage.setTitle("Practice Quiz");
+            stage.setScene(scene);
+            stage.setOnHidden(e -> controller.dispose());
+            stage.setResizable(true);
+            stage.show();
+        } catch (IOException e) {
+            welcomeText.setText("Error loading practice quiz: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     @FXML
     protected void onManageSubjectsClick() {
         try {
@@ -82,10 +195,12 @@ public class DashboardController {
             }
             
             FXMLLoader loader = new FXMLLoader(resource);
-            Scene scene = new Scene(loader.load(), 750, 650);
+            Scene scene = new Scene(loader.load(), 1150, 650);
+            ManageSubjectsController controller = loader.getController();
             Stage stage = new Stage();
             stage.setTitle("Subject Management");
             stage.setScene(scene);
+            stage.setOnHidden(e -> controller.dispose());
             stage.setResizable(true);
             stage.show();
         } catch (IOException e) {
@@ -99,31 +214,106 @@ public class DashboardController {
 
     @FXML
     protected void onTestDbClick() {
-        boolean connected = MySQLConnection.testConnection();
-        if (connected) {
-            welcomeText.setText("Database connection successful!");
-            loadStats();
-        } else {
-            welcomeText.setText("Database connection failed!");
-        }
+        // Probes on the monitor's thread, so a dead server does not freeze the window
+        welcomeText.setText("Testing database connection...");
+        ConnectionHealth.get().probeNow(status -> Platform.runLater(() -> {
+            if (status.state() == ConnectionHealth.State.UP) {
+                welcomeText.setText("Database connection successful!");
+                if (databaseReady) loadStats();
+            } else {
+                welcomeText.setText("Database connection failed: " + status.message());
+            }
+        }));
     }
     
+    @FXML
+    protected void onBackupClick() {
+        // Against an API server the database is the server's; it is backed up there
+        if (ApiClient.isEnabled()) {
+            welcomeText.setText("Backups are taken on the server");
+            return;
+        }
+        setBackupRunning(true);
+        welcomeText.setText("Backing up...");
+        AppServices.background().submit(() -> {
+            try {
+                DatabaseBackup.Result result = DatabaseBackup.backup();
+                Platform.runLater(() -> welcomeText.setText(String.format("%s backup saved: %s (%d rows, %s, %.1f s)",
+                    result.full() ? "Full" : "Incremental", result.file().getFileName(), result.rows(),
+                    Attachment.formatSize(result.bytes()), result.millis() / 1000.0)));
+            } catch (SQLException | IOException e) {
+                Platform.runLater(() -> welcomeText.setText("Backup failed: " + e.getMessage()));
+            } finally {
+                Platform.runLater(() -> setBackupRunning(false));
+            }
+        });
+    }
+
+    @FXML
+    protected void onRestoreClick() {
+        if (ApiClient.isEnabled()) {
+            welcomeText.setText("Backups are restored on the server");
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Restore Backup");
+        if (Files.isDirectory(DatabaseBackup.BACKUP_DIR)) {
+            chooser.setInitialDirectory(DatabaseBackup.BACKUP_DIR.toFile());
+        }
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Backups", "*" + DatabaseBackup.SUFFIX));
+        File file = chooser.showOpenDialog(restoreBtn.getScene().getWindow());
+        if (file == null) return;
+
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Confirm Restore");
+        alert.setHeaderText("Restore " + file.getName());
+        alert.setContentText("All subjects and mistakes are replaced with the ones in this backup.\n" +
+                           "Anything added or changed since it was taken is lost.");
+        if (alert.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+            return;
+        }
+
+        setBackupRunning(true);
+        welcomeText.setText("Restoring " + file.getName() + "...");
+        AppServices.background().submit(() -> {
+            try {
+                long rows = DatabaseBackup.restore(file.toPath());
+                // Open windows and in-memory services load everything again, this one's stats included
+                EventBus.get().publish(new DomainEvent.DataReloaded());
+                Platform.runLater(() -> welcomeText.setText("Restored " + rows + " rows"));
+            } catch (SQLException | IOException e) {
+                Platform.runLater(() -> welcomeText.setText("Restore failed, nothing was changed: " + e.getMessage()));
+            } finally {
+                Platform.runLater(() -> setBackupRunning(false));
+            }
+        });
+    }
+
+    private void setBackupRunning(boolean running) {
+        backupBtn.setDisable(running);
+        restoreBtn.setDisable(running);
+    }
+
     private void loadStats() {
-        try (Connection conn = MySQLConnection.getConnection();
-             Statement stmt = conn.createStatement()) {
-            
-            // Get total mistakes count
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) as total FROM mistakes");
-            int totalMistakes = rs.next() ? rs.getInt("total") : 0;
-            
-            // Get subjects count
-            rs = stmt.executeQuery("SELECT COUNT(*) as total FROM subjects");
-            int totalSubjects = rs.next() ? rs.getInt("total") : 0;
-            
-            statsLabel.setText(String.format("Stats: %d Mistakes | %d Subjects", totalMistakes, totalSubjects));
-            
+        try {
+            MistakeDao.Stats stats = MistakeDao.countStats();
+            totalMistakes = stats.totalMistakes();
+            totalSubjects = stats.totalSubjects();
+            mistakesBySubject = MistakeDao.countBySubject();
+            showStats();
         } catch (Exception e) {
             statsLabel.setText("Stats: Error loading data");
         }
     }
+
+    private void adjustStats(int mistakesDelta, int subjectsDelta) {
+        if (totalMistakes < 0) return; // Not loaded yet
+        totalMistakes += mistakesDelta;
+        totalSubjects += subjectsDelta;
+        showStats();
+    }
+
+    private void showStats() {
+        statsLabel.setText(String.format("Stats: %d Mistakes | %d Subjects", totalMistakes, totalSubjects));
+    }
 }
@@ -0,0 +1,806 @@
+package com.example.mistakemanagement;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Online backups of the mistake data into compressed, chunked files, and restores from them.
+//
+// A backup reads every table inside one consistent-snapshot transaction. InnoDB serves that from
+// its undo log, so the backup sees the data as of one moment without taking any locks and writers
+// carry on. Rows are streamed from the server and encoded into chunks of about CHUNK_BYTES, which a
+// pool of threads deflates while the next chunk is read; each chunk carries its length and CRC.
+//
+// The first backup in mistakes.backup.dir is full. The next MAX_INCREMENTALS only hold the mistakes
+// written since the previous backup (by updated_at, or archived_at in the archive) and their tags,
+// plus the ids of all mistakes so a restore can drop the ones deleted since. Subjects, categories,
+// tags and attachment metadata are small and copied whole every time; the attachment files
+// themselves stay in the AttachmentStore.
+//
+// A restore replays the full backup and the incrementals after it, up to the one chosen. Every file
+// of the chain is read through and its CRCs checked before anything is changed; then the chain is
+// applied on one connection in a single transaction, in multi-row INSERTs with foreign key checks
+// off, while RESTORE_THREADS threads inflate and decode the chunks ahead of it. A failure part way
+// rolls it all back. Restoring replaces the current data, so it commits together with a DATA
+// RELOAD entry in the change log, which has every other client load everything again.
+public class DatabaseBackup {
+    static final String SUFFIX = ".mmbak";
+    static final Path BACKUP_DIR = Path.of(MySQLConnection.setting("mistakes.backup.dir", "MISTAKES_BACKUP_DIR",
+        Path.of(System.getProperty("user.home"), ".mistake-management", "backups").toString()));
+
+    private static final int MAGIC = 0x4D4D424B; // "MMBK"
+    private static final int FORMAT_VERSION = 1;
+    private static final int CHUNK_BYTES = 1 << 20;
+    private static final int MAX_INCREMENTALS = 6;
+    // A write that set updated_at just before a snapshot can commit just after it; the next
+    // incremental starts this much earlier so it still picks the row up
+    private static final int OVERLAP_MINUTES = 10;
+    private static final int COMPRESS_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final int RESTORE_THREADS = 4;
+    private static final int ROWS_PER_INSERT = 500;
+    // Well under MySQL's 65535 placeholders per statement
+    private static final int MAX_PARAMS = 60_000;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final DateTimeFormatter SQL_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Value tags in the row encoding
+    private static final int NULL = 0;
+    private static final int LONG = 1;
+    private static final int DOUBLE = 2;
+    private static final int TEXT = 3;
+    private static final int BYTES = 4;
+
+    // How an incremental backup copies a table: WHOLE every time, CHANGED rows by changedColumn plus
+    // the ids of all rows, or the tag links (TAGS) of the changed mistakes
+    private enum Mode { WHOLE, CHANGED, TAGS }
+
+    private record Table(String name, Mode incremental, String changedColumn) {
+    }
+
+    // In restore order: the tag links need to know which mistakes changed
+    private static final List<Table> TABLES = List.of(
+        new Table("categories", Mode.WHOLE, null),
+        new Table("subjects", Mode.WHOLE, null),
+        new Table("tags", Mode.WHOLE, null),
+        new Table("mistakes", Mode.CHANGED, "updated_at"),
+        new Table("mistakes_archive", Mode.CHANGED, "archived_at"),
+        new Table("mistake_tags", Mode.TAGS, null),
+        new Table("mistake_tags_archive", Mode.TAGS, null),
+        new Table("mistake_attachments", Mode.WHOLE, null));
+
+    // base is the file name of the previous backup in the chain, null for a full backup; depth is
+    // the number of incrementals since the full one
+    private record Header(String takenAt, String changesFrom, String base, int depth) {
+        boolean full() {
+            return base == null;
+        }
+    }
+
+    record Result(Path file, boolean full, long rows, long bytes, long millis) {
+    }
+
+    private DatabaseBackup() {
+    }
+
+    // Takes a full backup, or an incremental one on top of the latest backup in BACKUP_DIR
+    public static synchronized Result backup() throws SQLException, IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(BACKUP_DIR);
+        Path previous = latest();
+        Header base = previous == null ? null : readHeader(previous);
+        boolean full = base == null || base.depth() >= MAX_INCREMENTALS;
+        // Never reuse a name: a later backup may name this one as its base
+        String name;
+        Path file;
+        do {
+            name = "backup-" + LocalDateTime.now().format(FILE_TIME) + (full ? "-full" : "-incr") + SUFFIX;
+            file = BACKUP_DIR.resolve(name);
+        } while (Files.exists(file));
+        Path part = BACKUP_DIR.resolve(name + ".part");
+
+        ExecutorService compressors = Executors.newFixedThreadPool(COMPRESS_THREADS, r -> {
+            Thread thread = new Thread(r, "backup-compress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The snapshot is read from the primary: a lagging replica would put rows written just
+        // before takenAt out of reach of the next incremental
+        try (Connection conn = MySQLConnection.getConnection()) {
+            String takenAt;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT NOW()")) {
+                rs.next();
+                takenAt = rs.getString(1);
+            }
+            Header header = full ? new Header(takenAt, null, null, 0)
+                : new Header(takenAt, overlapped(base.takenAt()), previous.getFileName().toString(), base.depth() + 1);
+
+            long rows = 0;
+            conn.setAutoCommit(false);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(part), 1 << 16))) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+                    stmt.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+                }
+                writeHeader(out, header);
+                for (Table table : TABLES) {
+                    rows += writeTable(conn, out, compressors, table, header);
+                }
+                out.writeBoolean(false);
+                conn.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                conn.rollback();
+                Files.deleteIfExists(part);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+            return new Result(file, full, rows, Files.size(file), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            compressors.shutdownNow();
+        }
+    }
+
+    private static long writeTable(Connection conn, DataOutputStream out, ExecutorService compressors,
+                                   Table table, Header header) throws SQLException, IOException {
+        Mode mode = header.full() ? Mode.WHOLE : table.incremental();
+        String query = switch (mode) {
+            case WHOLE -> "SELECT * FROM " + table.name();
+            case CHANGED -> "SELECT * FROM " + table.name() + " WHERE " + table.changedColumn() + " >= ?";
+            case TAGS -> "SELECT * FROM " + table.name() + " WHERE mistake_id IN (" +
+                "SELECT id FROM mistakes WHERE updated_at >= ? UNION SELECT id FROM mistakes_archive WHERE archived_at >= ?)";
+        };
+        long rows = 0;
+        try (PreparedStatement stmt = streaming(conn, query)) {
+            if (mode != Mode.WHOLE) stmt.setString(1, header.changesFrom());
+            if (mode == Mode.TAGS) stmt.setString(2, header.changesFrom());
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                int columns = meta.getColumnCount();
+                out.writeBoolean(true);
+                out.writeUTF(table.name());
+                out.writeUTF(mode.name());
+                out.writeInt(columns);
+                for (int i = 1; i <= columns; i++) {
+                    out.writeUTF(meta.getColumnName(i));
+                }
+                ChunkWriter chunks = new ChunkWriter(out, compressors);
+                while (rs.next()) {
+                    for (int i = 1; i <= columns; i++) {
+                        writeValue(chunks.data, rs, i);
+                    }
+                    chunks.endRow();
+                    rows++;
+                }
+                chunks.finish();
+            }
+        }
+        if (mode == Mode.CHANGED) {
+            // Every id still there, delta-encoded, so a restore knows which rows were deleted
+            try (PreparedStatement stmt = streaming(conn, "SELECT id FROM " + table.name() + " ORDER BY id");
+                 ResultSet rs = stmt.executeQuery()) {
+                ChunkWriter chunks = new ChunkWriter(out, compressors);
+                int last = 0;
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    writeVarInt(chunks.data, id - last);
+                    last = id;
+                    chunks.endRow();
+                }
+                chunks.finish();
+            }
+        }
+        return rows;
+    }
+
+    // Rows come from the server as they are read instead of the whole table being buffered first
+    private static PreparedStatement streaming(Connection conn, String query) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(Integer.MIN_VALUE);
+        return stmt;
+    }
+
+    private static String overlapped(String takenAt) {
+        return LocalDateTime.parse(takenAt.substring(0, 19), SQL_TIME).minusMinutes(OVERLAP_MINUTES).format(SQL_TIME);
+    }
+
+    // Restores the database to the state saved in file, going through its chain of backups. Every
+    // file is read through and checked first, then the whole chain is applied in one transaction,
+    // so a damaged file or a failed INSERT leaves the current data as it was.
+    public static synchronized long restore(Path file) throws SQLException, IOException {
+        List<Path> chain = chain(file);
+        ExecutorService decoders = Executors.newFixedThreadPool(RESTORE_THREADS, r -> {
+            Thread thread = new Thread(r, "backup-restore");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Path backup : chain) {
+                verify(backup, decoders);
+            }
+            try (Connection conn = MySQLConnection.getConnection()) {
+                return withoutForeignKeys(conn, () -> {
+                    long rows = 0;
+                    for (Path backup : chain) {
+                        rows += apply(conn, backup, decoders);
+                    }
+                    try (Statement stmt = conn.createStatement()) {
+                        // Precomputed neighbours of mistakes that are gone; RelatedMistakesJob fills in the rest
+                        stmt.executeUpdate("DELETE r FROM mistake_related r " +
+                                           "LEFT JOIN mistakes a ON a.id = r.mistake_id LEFT JOIN mistakes b ON b.id = r.related_id " +
+                                           "WHERE a.id IS NULL OR b.id IS NULL");
+                    }
+                    // Nothing any client holds in memory can be trusted now. This client publishes
+                    // DataReloaded itself; the others get it from the poller once this commits.
+                    ChangeLog.record(conn, ChangeLog.DATA, 0, ChangeLog.RELOAD,
+                        file.getFileName().toString(), (int) Math.min(rows, Integer.MAX_VALUE));
+                    return rows;
+                });
+            }
+        } finally {
+            decoders.shutdownNow();
+        }
+    }
+
+    // The full backup file builds on, then each incremental up to file
+    static List<Path> chain(Path file) throws IOException {
+        List<Path> chain = new ArrayList<>();
+        Path current = file;
+        while (true) {
+            chain.add(current);
+            Header header = readHeader(current);
+            if (header.full()) break;
+            Path base = current.resolveSibling(header.base());
+            if (!Files.exists(base)) {
+                throw new IOException("Backup " + header.base() + ", needed to restore " + file.getFileName() + ", is missing");
+            }
+            current = base;
+        }
+        Collections.reverse(chain);
+        return chain;
+    }
+
+    // Reads a backup through without applying it: every section must name a known table, and every
+    // chunk must match its length and CRC and decode into whole rows
+    static void verify(Path file, ExecutorService decoders) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            readHeader(in, file);
+            Section section;
+            while ((section = readSection(in)) != null) {
+                readRows(in, decoders, section.columns().length, rows -> {
+                });
+                if (section.mode() == Mode.CHANGED) {
+                    readIds(in);
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException(file.getFileName() + " is truncated", e);
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new IOException(file.getFileName() + " is damaged: " + e.getMessage(), e);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e); // Nothing is written while verifying
+        }
+    }
+
+    private record Section(Table table, Mode mode, String[] columns) {
+    }
+
+    // The next table section's header, null after the last one
+    private static Section readSection(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) return null;
+        String name = in.readUTF();
+        Table table = TABLES.stream().filter(t -> t.name().equals(name)).findFirst()
+            .orElseThrow(() -> new IOException("Unknown table in backup: " + name));
+        String modeName = in.readUTF();
+        Mode mode = Arrays.stream(Mode.values()).filter(m -> m.name().equals(modeName)).findFirst()
+            .orElseThrow(() -> new IOException("Unknown section mode in backup: " + modeName));
+        int count = in.readInt();
+        if (count <= 0 || count > 4096) {
+            throw new IOException("Bad column count in backup: " + count);
+        }
+        String[] columns = new String[count];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = in.readUTF();
+        }
+        return new Section(table, mode, columns);
+    }
+
+    private static long apply(Connection conn, Path file, ExecutorService decoders) throws SQLException, IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            readHeader(in, file);
+            // Mistakes changed or deleted since the previous backup, whose tags are replaced
+            Set<Integer> touched = new HashSet<>();
+            long rows = 0;
+            Section section;
+            while ((section = readSection(in)) != null) {
+                rows += applyTable(conn, in, decoders, section, touched);
+            }
+            return rows;
+        }
+    }
+
+    private static long applyTable(Connection conn, DataInputStream in, ExecutorService decoders, Section section,
+                                   Set<Integer> touched) throws SQLException, IOException {
+        String table = section.table().name();
+        Mode mode = section.mode();
+        String[] columns = section.columns();
+        if (mode == Mode.WHOLE) {
+            // Not TRUNCATE, which would commit
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM " + table);
+            }
+        } else if (mode == Mode.TAGS) {
+            deleteIds(conn, table, "mistake_id", new ArrayList<>(touched));
+        }
+
+        // Columns the table no longer has are skipped; ones added since the backup get their defaults
+        Set<String> current = columnsOf(table);
+        List<Integer> kept = new ArrayList<>();
+        for (int i = 0; i < columns.length; i++) {
+            if (current.contains(columns[i].toLowerCase())) kept.add(i);
+        }
+        int idColumn = mode == Mode.CHANGED ? Arrays.asList(columns).indexOf("id") : -1;
+        String verb = mode == Mode.WHOLE ? "INSERT" : "REPLACE";
+
+        long[] rows = {0};
+        readRows(in, decoders, columns.length, decoded -> {
+            if (idColumn >= 0) {
+                for (Object[] row : decoded) touched.add(((Long) row[idColumn]).intValue());
+            }
+            rows[0] += insert(conn, table, verb, columns, kept, decoded);
+        });
+
+        if (mode == Mode.CHANGED) {
+            List<Integer> deleted = deletedIds(conn, table, readIds(in));
+            touched.addAll(deleted);
+            deleteIds(conn, table, "id", deleted);
+        }
+        return rows[0];
+    }
+
+    // Inflates and decodes a section's chunks on the decoder threads, keeping a few ahead of
+    // action, which gets each chunk's rows in file order on this thread
+    private static void readRows(DataInputStream in, ExecutorService decoders, int columns, RowsAction action)
+            throws SQLException, IOException {
+        Deque<Future<List<Object[]>>> pending = new ArrayDeque<>();
+        try {
+            byte[] chunk;
+            while ((chunk = readChunk(in)) != null) {
+                byte[] compressed = chunk;
+                pending.add(decoders.submit(() -> decodeRows(inflate(compressed), columns)));
+                if (pending.size() > RESTORE_THREADS * 2) {
+                    action.accept(await(pending.poll()));
+                }
+            }
+            while (!pending.isEmpty()) {
+                action.accept(await(pending.poll()));
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private interface RowsAction {
+        void accept(List<Object[]> rows) throws SQLException, IOException;
+    }
+
+    private static int insert(Connection conn, String table, String verb, String[] columns, List<Integer> kept,
+                              List<Object[]> rows) throws SQLException {
+        if (kept.isEmpty() || rows.isEmpty()) return 0;
+        StringBuilder names = new StringBuilder();
+        for (int index : kept) {
+            if (names.length() > 0) names.append(", ");
+            names.append('`').append(columns[index]).append('`');
+        }
+        String tuple = "(" + String.join(", ", Collections.nCopies(kept.size(), "?")) + ")";
+        int perInsert = Math.max(1, Math.min(ROWS_PER_INSERT, MAX_PARAMS / kept.size()));
+        for (int from = 0; from < rows.size(); from += perInsert) {
+            List<Object[]> batch = rows.subList(from, Math.min(rows.size(), from + perInsert));
+            String query = verb + " INTO " + table + " (" + names + ") VALUES " +
+                           String.join(", ", Collections.nCopies(batch.size(), tuple));
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                int param = 1;
+                for (Object[] row : batch) {
+                    for (int index : kept) {
+                        if (row[index] == null) {
+                            stmt.setNull(param++, Types.NULL);
+                        } else {
+                            stmt.setObject(param++, row[index]);
+                        }
+                    }
+                }
+                stmt.executeUpdate();
+            }
+        }
+        return rows.size();
+    }
+
+    private static void deleteIds(Connection conn, String table, String column, List<Integer> ids) throws SQLException {
+        for (int from = 0; from < ids.size(); from += ROWS_PER_INSERT) {
+            List<Integer> batch = ids.subList(from, Math.min(ids.size(), from + ROWS_PER_INSERT));
+            String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM " + table + " WHERE " + column + " IN (" + placeholders + ")")) {
+                for (int i = 0; i < batch.size(); i++) {
+                    stmt.setInt(i + 1, batch.get(i));
+                }
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    // Ids in the table, as restored so far, that were not there when the backup was taken
+    private static List<Integer> deletedIds(Connection conn, String table, int[] kept) throws SQLException {
+        List<Integer> deleted = new ArrayList<>();
+        try (PreparedStatement stmt = streaming(conn, "SELECT id FROM " + table + " ORDER BY id");
+             ResultSet rs = stmt.executeQuery()) {
+            int k = 0;
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                while (k < kept.length && kept[k] < id) k++;
+                if (k == kept.length || kept[k] != id) deleted.add(id);
+            }
+        }
+        return deleted;
+    }
+
+    private static Set<String> columnsOf(String table) throws SQLException {
+        String query = "SELECT column_name FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = ?";
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                Set<String> columns = new HashSet<>();
+                while (rs.next()) {
+                    columns.add(rs.getString(1).toLowerCase());
+                }
+                return columns;
+            }
+        }
+    }
+
+    // Runs work in a transaction with foreign key checks off, so tables can be loaded in any order.
+    // Any failure rolls the whole of it back. The setting is per session and the pool does not
+    // reset sessions, so it is switched back on before the connection is returned.
+    private static <T> T withoutForeignKeys(Connection conn, SqlWork<T> work) throws SQLException, IOException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET FOREIGN_KEY_CHECKS = 0");
+        }
+        conn.setAutoCommit(false);
+        try {
+            T result = work.run();
+            conn.commit();
+            return result;
+        } catch (SQLException | IOException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET FOREIGN_KEY_CHECKS = 1");
+            }
+        }
+    }
+
+    private interface SqlWork<T> {
+        T run() throws SQLException, IOException;
+    }
+
+    // The newest backup in BACKUP_DIR; names sort by the time they were taken
+    private static Path latest() throws IOException {
+        try (Stream<Path> files = Files.list(BACKUP_DIR)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(SUFFIX))
+                .max(Path::compareTo).orElse(null);
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, Header header) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(header.takenAt());
+        out.writeUTF(header.changesFrom() == null ? "" : header.changesFrom());
+        out.writeUTF(header.base() == null ? "" : header.base());
+        out.writeInt(header.depth());
+    }
+
+    private static Header readHeader(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return readHeader(in, file);
+        }
+    }
+
+    private static Header readHeader(DataInputStream in, Path file) throws IOException {
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file.getFileName() + " is not a backup");
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException(file.getFileName() + " has unsupported format version " + version);
+            }
+            String takenAt = in.readUTF();
+            String changesFrom = in.readUTF();
+            String base = in.readUTF();
+            int depth = in.readInt();
+            return new Header(takenAt, changesFrom.isEmpty() ? null : changesFrom, base.isEmpty() ? null : base, depth);
+        } catch (EOFException e) {
+            throw new IOException(file.getFileName() + " is truncated", e);
+        }
+    }
+
+    // Rows of a table section, cut into chunks that are deflated in the background and written in
+    // order. On disk a chunk is its raw length, compressed length and CRC, then the deflated bytes;
+    // a raw length of 0 ends the section.
+    private static class ChunkWriter {
+        private final DataOutputStream file;
+        private final ExecutorService compressors;
+        private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(CHUNK_BYTES + CHUNK_BYTES / 4);
+        final DataOutputStream data = new DataOutputStream(buffer);
+
+        ChunkWriter(DataOutputStream file, ExecutorService compressors) {
+            this.file = file;
+            this.compressors = compressors;
+        }
+
+        void endRow() throws IOException {
+            if (buffer.size() >= CHUNK_BYTES) flush();
+        }
+
+        void finish() throws IOException {
+            if (buffer.size() > 0) flush();
+            while (!pending.isEmpty()) {
+                writeNext();
+            }
+            file.writeInt(0);
+        }
+
+        private void flush() throws IOException {
+            byte[] raw = buffer.toByteArray();
+            buffer.reset();
+            pending.add(compressors.submit(() -> deflate(raw)));
+            // Enough queued to keep every compressor busy while the next chunk is read
+            while (pending.size() > COMPRESS_THREADS * 2) {
+                writeNext();
+            }
+        }
+
+        private void writeNext() throws IOException {
+            file.write(await(pending.poll()));
+        }
+    }
+
+    static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 3 + 64);
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+            CRC32 crc = new CRC32();
+            crc.update(raw);
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream(compressed.size() + 12);
+            DataOutputStream out = new DataOutputStream(chunk);
+            out.writeInt(raw.length);
+            out.writeInt(compressed.size());
+            out.writeInt((int) crc.getValue());
+            compressed.writeTo(out);
+            return chunk.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // In-memory streams do not fail
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // The next chunk of a section as read from the file, header included; null at the end
+    static byte[] readChunk(DataInputStream in) throws IOException {
+        int rawLength = in.readInt();
+        if (rawLength == 0) return null;
+        int compressedLength = in.readInt();
+        int crc = in.readInt();
+        if (rawLength < 0 || compressedLength < 0) {
+            throw new IOException("Backup chunk is corrupt");
+        }
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream(compressedLength + 12);
+        DataOutputStream out = new DataOutputStream(chunk);
+        out.writeInt(rawLength);
+        out.writeInt(compressedLength);
+        out.writeInt(crc);
+        byte[] compressed = new byte[compressedLength];
+        in.readFully(compressed);
+        out.write(compressed);
+        return chunk.toByteArray();
+    }
+
+    static byte[] inflate(byte[] chunk) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(chunk));
+        byte[] raw = new byte[in.readInt()];
+        int compressedLength = in.readInt();
+        int crc = in.readInt();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(chunk, 12, compressedLength);
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int read = inflater.inflate(raw, length, raw.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                length += read;
+            }
+            CRC32 check = new CRC32();
+            check.update(raw, 0, length);
+            if (length != raw.length || (int) check.getValue() != crc) {
+                throw new IOException("Backup chunk is corrupt");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Backup chunk is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    static int[] readIds(DataInputStream in) throws IOException {
+        int[] ids = new int[1024];
+        int count = 0;
+        int last = 0;
+        byte[] chunk;
+        while ((chunk = readChunk(in)) != null) {
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(inflate(chunk)));
+            while (data.available() > 0) {
+                last += readVarInt(data);
+                if (count == ids.length) ids = Arrays.copyOf(ids, count * 2);
+                ids[count++] = last;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    // Integers as LONG, floats as DOUBLE, blobs as BYTES, and everything else (text, dates, decimals)
+    // as the text MySQL gives for it, which it parses back the same way
+    private static void writeValue(DataOutputStream out, ResultSet rs, int column) throws SQLException, IOException {
+        Object value = rs.getObject(column);
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            out.writeByte(LONG);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(LONG);
+            out.writeLong(bool ? 1 : 0);
+        } else if (value instanceof Float || value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof byte[] bytes) {
+            out.writeByte(BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else {
+            byte[] text = rs.getString(column).getBytes(StandardCharsets.UTF_8);
+            out.writeByte(TEXT);
+            out.writeInt(text.length);
+            out.write(text);
+        }
+    }
+
+    private static List<Object[]> decodeRows(byte[] raw, int columns) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        List<Object[]> rows = new ArrayList<>();
+        while (in.available() > 0) {
+            Object[] row = new Object[columns];
+            for (int i = 0; i < columns; i++) {
+                int tag = in.readByte();
+                row[i] = switch (tag) {
+                    case NULL -> null;
+                    case LONG -> in.readLong();
+                    case DOUBLE -> in.readDouble();
+                    case TEXT, BYTES -> {
+                        byte[] bytes = new byte[in.readInt()];
+                        in.readFully(bytes);
+                        yield tag == TEXT ? new String(bytes, StandardCharsets.UTF_8) : bytes;
+                    }
+                    default -> throw new IOException("Backup chunk is corrupt");
+                };
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    // At most five bytes; more continuation bits than an int has room for mean a corrupt file
+    static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 28) throw new IOException("Backup chunk is corrupt");
+            int b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+
+    // The result of background work, with its failure rethrown as it was
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof SQLException sql) throw new IOException("Restore failed: " + sql.getMessage(), sql);
+            throw new IOException(cause);
+        }
+    }
+
+    // For the server, which has no dashboard: DatabaseBackup backup | restore <file>
+    public static void main(String[] args) throws Exception {
+        try {
+            if (args.length == 1 && args[0].equals("backup")) {
+                Result result = backup();
+                System.out.printf("%s backup of %d rows written to %s (%s) in %d ms%n",
+                    result.full() ? "Full" : "Incremental", result.rows(), result.file(),
+                    Attachment.formatSize(result.bytes()), result.millis());
+            } else if (args.length == 2 && args[0].equals("restore")) {
+                long rows = restore(Path.of(args[1]));
+                System.out.printf("Restored %d rows from %s%n", rows, args[1]);
+            } else {
+                System.err.println("Usage: DatabaseBackup backup | restore <file>");
+                System.exit(2);
+            }
+        } finally {
+            MySQLConnection.shutdown();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.mistakemanagement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Creates the tables, columns and indexes the app adds on top of the base schema.
+// Every step checks first, so this is safe to run on every start. The DAOs rely on these columns,
+// so nothing should query the database until ensure() has succeeded.
+public class DatabaseSchema {
+
+    public static void ensure() throws SQLException {
+        try (Connection conn = MySQLConnection.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS change_log (" +
+                             "seq BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                             "entity VARCHAR(20) NOT NULL, " +
+                             "entity_id INT NOT NULL, " +
+                             "op VARCHAR(20) NOT NULL, " +
+                             "origin CHAR(36) NOT NULL, " +
+                             "payload VARCHAR(255) NULL, " +
+                             "affected_rows INT NOT NULL DEFAULT 0, " +
+                             "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                             "INDEX idx_change_log_created (created_at))");
+            }
+
+            // Precomputed neighbours for RelatedMistakesJob; related_id is indexed for purges
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS mistake_related (" +
+                             "mistake_id INT NOT NULL, " +
+                             "related_id INT NOT NULL, " +
+                             "score FLOAT NOT NULL, " +
+                             "PRIMARY KEY (mistake_id, related_id), " +
+                             "INDEX idx_mistake_related_related (related_id))");
+            }
+
+            // Attachment metadata; the content is in the AttachmentStore under its hash
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS mistake_attachments (" +
+                             "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                             "mistake_id INT NOT NULL, " +
+                             "sha256 CHAR(64) NOT NULL, " +
+                             "file_name VARCHAR(255) NOT NULL, " +
+                             "content_type VARCHAR(100) NOT NULL, " +
+                             "size_bytes BIGINT NOT NULL, " +
+                             "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                             "INDEX idx_mistake_attachments_mistake (mistake_id))");
+            }
+
+            // Soft delete: read paths filter on deleted_at, SubjectPurger removes the rows later
+            addColumnIfMissing(conn, "subjects", "deleted_at", "TIMESTAMP NULL DEFAULT NULL");
+            addIndexIfMissing(conn, "subjects", "idx_subjects_deleted_name", "deleted_at, name");
+
+            // MinHash of title, description and correct answer for SimilarityIndex; NULL until backfilled
+            addColumnIfMissing(conn, "mistakes", "minhash", "BIGINT NULL DEFAULT NULL");
+
+            // Bumped by every edit; an edit only applies if the row is still at the version it loaded
+            addColumnIfMissing(conn, "mistakes", "version", "INT NOT NULL DEFAULT 0");
+
+            // Last time the row was written, for MistakeArchiver; rows that predate it start from
+            // their last review or creation
+            if (addColumnIfMissing(conn, "mistakes", "updated_at",
+                    "TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP")) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate("UPDATE mistakes SET updated_at = COALESCE(last_reviewed_at, created_at, updated_at)");
+                }
+            }
+            addIndexIfMissing(conn, "mistakes", "idx_mistakes_reviewed_updated", "is_reviewed, updated_at");
+
+            ensureArchive(conn);
+
+            // What incremental backups select on (DatabaseBackup)
+            addIndexIfMissing(conn, "mistakes", "idx_mistakes_updated", "updated_at");
+            addIndexIfMissing(conn, "mistakes_archive", "idx_mistakes_archive_archived", "archived_at");
+        }
+    }
+
+    // Cold mistakes moved out of the mistakes table by MistakeArchiver. Same columns, plus when the
+    // row was last active, which it is range-partitioned on by year: old years can be dropped or
+    // moved whole, and queries for recent history only read their own partitions. Partitioned
+    // tables cannot have foreign keys or an auto-increment id, so the id is copied as is.
+    // Tag links move along into mistake_tags_archive, which has no foreign keys either;
+    // mistake_attachments has none, so attachments stay where they are, keyed by the mistake id.
+    private static void ensureArchive(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS mistakes_archive LIKE mistakes");
+            stmt.execute("CREATE TABLE IF NOT EXISTS mistake_tags_archive (" +
+                         "mistake_id INT NOT NULL, " +
+                         "tag_id INT NOT NULL, " +
+                         "PRIMARY KEY (mistake_id, tag_id))");
+        }
+        String query = "SELECT COUNT(*) FROM information_schema.columns " +
+                      "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?";
+        if (!exists(conn, query, "mistakes_archive", "last_active")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE mistakes_archive MODIFY id INT NOT NULL, " +
+                             "ADD COLUMN last_active DATETIME NOT NULL, " +
+                             "ADD COLUMN archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                             "DROP PRIMARY KEY, ADD PRIMARY KEY (id, last_active)");
+            }
+        }
+        String partitioned = "SELECT COUNT(*) FROM information_schema.partitions " +
+                            "WHERE table_schema = DATABASE() AND table_name = ? AND partition_name = ?";
+        if (!exists(conn, partitioned, "mistakes_archive", MistakeArchiver.FUTURE_PARTITION)) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE mistakes_archive PARTITION BY RANGE (YEAR(last_active)) (" +
+                             MistakeArchiver.initialPartitions() + ")");
+            } catch (SQLException e) {
+                // Still usable as a plain table, just without partition pruning
+                System.err.println("Could not partition mistakes_archive: " + e.getMessage());
+            }
+        }
+    }
+
+    // Returns whether the column was added
+    static boolean addColumnIfMissing(Connection conn, String table, String column, String definition)
+            throws SQLException {
+        String query = "SELECT COUNT(*) FROM information_schema.columns " +
+                      "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?";
+        if (exists(conn, query, table, column)) return false;
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
+        return true;
+    }
+
+    static void addIndexIfMissing(Connection conn, String table, String index, String columns)
+            throws SQLException {
+        String query = "SELECT COUNT(*) FROM information_schema.statistics " +
+                      "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?";
+        if (exists(conn, query, table, index)) return;
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+        }
+    }
+
+    private static boolean exists(Connection conn, String query, String table, String name) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, table);
+            stmt.setString(2, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+}
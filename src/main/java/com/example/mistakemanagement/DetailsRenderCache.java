@@ -0,0 +1,123 @@
+package com.example.mistakemanagement;
+
+import javafx.application.Platform;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// Rendered HTML of the text sections of mistakes, for the details view.
+//
+// Rendering runs on its own background thread, so a huge explanation never stalls the FX thread.
+// The results are kept by mistake id together with the version they were rendered from: an edit
+// bumps the version, so a stale render is never shown, and going back to a recently viewed mistake
+// needs no rendering at all. The cache is bounded by the total length of the HTML kept (about
+// MAX_CHARS * 2 bytes), least recently viewed dropped first. Shared by all details windows.
+public class DetailsRenderCache {
+    private static final DetailsRenderCache INSTANCE = new DetailsRenderCache();
+
+    static final long MAX_CHARS = 4_000_000;
+
+    private record Entry(int version, String html) {
+    }
+
+    private final Map<Integer, Entry> rendered = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalChars;
+    // One thread, so a burst of requests renders one at a time and skipped ones cost nothing
+    private final ExecutorService renderer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "details-renderer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    DetailsRenderCache() {
+        // Versions may repeat after the data is replaced, so nothing rendered before can be trusted
+        EventBus.get().subscribe(DomainEvent.DataReloaded.class, e -> clear());
+    }
+
+    public static DetailsRenderCache get() {
+        return INSTANCE;
+    }
+
+    // The rendered sections if this version of the mistake is cached, otherwise null
+    public synchronized String cached(Mistake mistake) {
+        Entry entry = rendered.get(mistake.id);
+        return entry != null && entry.version() == mistake.version ? entry.html() : null;
+    }
+
+    // Renders in the background and calls onRendered on the FX thread. Skipped if stillWanted is
+    // false by the time the renderer gets to it, as when the user has already moved on.
+    public void render(Mistake mistake, BooleanSupplier stillWanted, Consumer<String> onRendered) {
+        renderer.submit(() -> {
+            if (!stillWanted.getAsBoolean()) return;
+            String html = cachedOrRender(mistake);
+            Platform.runLater(() -> onRendered.accept(html));
+        });
+    }
+
+    // Like render, for a mistake that is not in memory: it is read on the render thread first, and
+    // only rendered if that version is not cached. onLoaded gets a null mistake if it is gone.
+    public void load(int mistakeId, BooleanSupplier stillWanted, BiConsumer<Mistake, String> onLoaded,
+                     Consumer<SQLException> onError) {
+        renderer.submit(() -> {
+            if (!stillWanted.getAsBoolean()) return;
+            try {
+                List<Mistake> found = MistakeDao.findByIds(List.of(mistakeId));
+                Mistake mistake = found.isEmpty() ? null : found.get(0);
+                String html = mistake != null ? cachedOrRender(mistake) : null;
+                Platform.runLater(() -> onLoaded.accept(mistake, html));
+            } catch (SQLException e) {
+                Platform.runLater(() -> onError.accept(e));
+            }
+        });
+    }
+
+    private String cachedOrRender(Mistake mistake) {
+        String html = cached(mistake);
+        if (html == null) {
+            html = sections(mistake);
+            put(mistake, html);
+        }
+        return html;
+    }
+
+    private synchronized void clear() {
+        rendered.clear();
+        totalChars = 0;
+    }
+
+    synchronized void put(Mistake mistake, String html) {
+        Entry previous = rendered.put(mistake.id, new Entry(mistake.version, html));
+        if (previous != null) {
+            totalChars -= previous.html().length();
+        }
+        totalChars += html.length();
+        var eldest = rendered.values().iterator();
+        // The newest entry stays even if it alone is over the limit, so it is there when reopened
+        while (totalChars > MAX_CHARS && rendered.size() > 1) {
+            totalChars -= eldest.next().html().length();
+            eldest.remove();
+        }
+    }
+
+    static String sections(Mistake mistake) {
+        StringBuilder html = new StringBuilder();
+        section(html, "Description", mistake.description, "");
+        section(html, "Your Answer", mistake.yourAnswer, "your-answer");
+        section(html, "Correct Answer", mistake.correctAnswer, "correct-answer");
+        section(html, "Explanation", mistake.explanation, "");
+        return html.toString();
+    }
+
+    private static void section(StringBuilder html, String heading, String markdown, String cssClass) {
+        if (markdown == null || markdown.isBlank()) return;
+        html.append("<section class=\"").append(cssClass).append("\"><h2>").append(heading).append("</h2>\n")
+            .append(MarkdownRenderer.render(markdown)).append("</section>\n");
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.mistakemanagement;
+
+// Events published on the EventBus whenever a write path changes data.
+// Each event carries enough of the changed entity for views to apply it as a delta.
+public sealed interface DomainEvent {
+
+    record MistakeCreated(Mistake mistake) implements DomainEvent {}
+
+    // previous is the mistake as the editor loaded it; null when another client made the edit
+    record MistakeUpdated(Mistake mistake, Mistake previous) implements DomainEvent {}
+
+    record MistakeReviewed(int mistakeId, int reviewCount) implements DomainEvent {}
+
+    record AttachmentAdded(Attachment attachment) implements DomainEvent {}
+
+    record SubjectAdded(int subjectId, String name, String description) implements DomainEvent {}
+
+    record SubjectDeleted(int subjectId, String name) implements DomainEvent {}
+
+    record SubjectRestored(int subjectId, String name, String description) implements DomainEvent {}
+
+    // The data changed in ways no delta describes, such as changes this client missed; anything
+    // loaded from the database has to be loaded again
+    record DataReloaded() implements DomainEvent {}
+}
@@ -0,0 +1,92 @@
+package com.example.mistakemanagement;
+
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// In-process bus that keeps open windows in sync without reloading from the database.
+// Events can be published from any thread; they are queued and delivered on the FX thread,
+// with everything published before the next pulse drained in a single runLater. Handlers can defer
+// work that many events would repeat with afterDrain, so it runs once per drain.
+public final class EventBus {
+    private static final EventBus INSTANCE = new EventBus();
+
+    private final Map<Class<? extends DomainEvent>, List<Consumer<? super DomainEvent>>> handlers =
+        new ConcurrentHashMap<>();
+    private final Queue<DomainEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    // Only touched on the dispatch thread
+    private final List<Runnable> afterDrain = new ArrayList<>();
+    // The headless API server has no FX thread and swaps in its own
+    private volatile Executor dispatcher = Platform::runLater;
+
+    private EventBus() {
+    }
+
+    public static EventBus get() {
+        return INSTANCE;
+    }
+
+    public void setDispatcher(Executor dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    public <T extends DomainEvent> Subscription subscribe(Class<T> type, Consumer<? super T> handler) {
+        Consumer<? super DomainEvent> wrapper = event -> handler.accept(type.cast(event));
+        List<Consumer<? super DomainEvent>> list =
+            handlers.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>());
+        list.add(wrapper);
+        return () -> list.remove(wrapper);
+    }
+
+    // Runs action once the events being delivered are all handled. Call it from a handler.
+    public void afterDrain(Runnable action) {
+        afterDrain.add(action);
+    }
+
+    public void publish(DomainEvent event) {
+        pending.add(event);
+        if (drainScheduled.compareAndSet(false, true)) {
+            dispatcher.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        // Clear the flag first so events published by handlers schedule the next pulse
+        drainScheduled.set(false);
+        DomainEvent event;
+        while ((event = pending.poll()) != null) {
+            List<Consumer<? super DomainEvent>> list = handlers.get(event.getClass());
+            if (list == null) continue;
+            for (Consumer<? super DomainEvent> handler : list) {
+                try {
+                    handler.accept(event);
+                } catch (RuntimeException e) {
+                    System.err.println("Event handler failed for " + event + ": " + e.getMessage());
+                }
+            }
+        }
+        List<Runnable> actions = new ArrayList<>(afterDrain);
+        afterDrain.clear();
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                System.err.println("After-drain action failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public interface Subscription {
+        void cancel();
+    }
+}
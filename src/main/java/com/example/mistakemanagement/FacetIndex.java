@@ -0,0 +1,143 @@
+package com.example.mistakemanagement;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// The mistake ids for each facet value (each tag, subject, category, difficulty and reviewed
+// state), as one RoaringBitmap per value, for the facet filters of the mistakes view.
+//
+// Values within a facet are ORed and facets are ANDed; tags can be ANDed instead. A value's count
+// is how many mistakes would match if it were added to the current selection, so the counts of
+// a facet ignore that facet's own selection (except tags in match-all mode). Kept current by
+// MistakeStore as mistakes are added, edited, reviewed and hidden. Not thread-safe.
+public class FacetIndex {
+    enum Facet {
+        SUBJECT("Subject"), CATEGORY("Category"), DIFFICULTY("Difficulty"), REVIEWED("Reviewed"), TAG("Tags");
+
+        final String label;
+
+        Facet(String label) {
+            this.label = label;
+        }
+    }
+
+    static final String REVIEWED = "Reviewed";
+    static final String NOT_REVIEWED = "Not reviewed";
+
+    // Names match without case, like the tags table; the first spelling seen is shown
+    private final Map<Facet, TreeMap<String, RoaringBitmap>> values = new EnumMap<>(Facet.class);
+    // Every mistake that is not hidden
+    private final RoaringBitmap visible = new RoaringBitmap();
+
+    // The values chosen in each facet; an empty or missing set leaves the facet unfiltered
+    static class Selection {
+        final Map<Facet, Set<String>> chosen = new EnumMap<>(Facet.class);
+        boolean matchAllTags;
+
+        boolean isEmpty() {
+            return chosen.values().stream().allMatch(Set::isEmpty);
+        }
+    }
+
+    public FacetIndex() {
+        for (Facet facet : Facet.values()) {
+            values.put(facet, new TreeMap<>(String.CASE_INSENSITIVE_ORDER));
+        }
+    }
+
+    public void add(Mistake mistake) {
+        int id = mistake.id;
+        addValue(Facet.SUBJECT, mistake.subjectName, id);
+        addValue(Facet.CATEGORY, mistake.categoryName, id);
+        addValue(Facet.DIFFICULTY, mistake.difficultyLevel, id);
+        addValue(Facet.REVIEWED, mistake.isReviewed ? REVIEWED : NOT_REVIEWED, id);
+        for (String tag : MistakeDao.splitTags(mistake.tags)) {
+            addValue(Facet.TAG, tag, id);
+        }
+        visible.add(id);
+    }
+
+    // Takes the mistake out of every value, for edits whose old values are not known
+    public void remove(int id) {
+        for (TreeMap<String, RoaringBitmap> facet : values.values()) {
+            facet.values().removeIf(ids -> {
+                ids.remove(id);
+                return ids.isEmpty();
+            });
+        }
+        visible.remove(id);
+    }
+
+    public void setReviewed(int id) {
+        RoaringBitmap notReviewed = values.get(Facet.REVIEWED).get(NOT_REVIEWED);
+        if (notReviewed == null || !notReviewed.contains(id)) return;
+        notReviewed.remove(id);
+        if (notReviewed.isEmpty()) values.get(Facet.REVIEWED).remove(NOT_REVIEWED);
+        addValue(Facet.REVIEWED, REVIEWED, id);
+    }
+
+    // Hidden mistakes stay in their values but are left out of results and counts
+    public void setHidden(int id, boolean hidden) {
+        if (hidden) {
+            visible.remove(id);
+        } else {
+            visible.add(id);
+        }
+    }
+
+    // The visible mistakes matching the selection. May be shared with the index; do not change it.
+    public RoaringBitmap matching(Selection selection) {
+        return matchingExcept(selection, null);
+    }
+
+    // Facet value -> count, in name order. Values with no matches are included with 0 if chosen.
+    public Map<String, Integer> counts(Facet facet, Selection selection) {
+        boolean ownSelectionApplies = facet == Facet.TAG && selection.matchAllTags;
+        RoaringBitmap base = matchingExcept(selection, ownSelectionApplies ? null : facet);
+        Set<String> chosen = selection.chosen.getOrDefault(facet, Set.of());
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, RoaringBitmap> value : values.get(facet).entrySet()) {
+            int count = RoaringBitmap.andCardinality(value.getValue(), base);
+            if (count > 0 || chosen.contains(value.getKey())) {
+                counts.put(value.getKey(), count);
+            }
+        }
+        return counts;
+    }
+
+    private RoaringBitmap matchingExcept(Selection selection, Facet skipped) {
+        RoaringBitmap result = visible;
+        for (Facet facet : Facet.values()) {
+            Set<String> chosen = selection.chosen.get(facet);
+            if (facet == skipped || chosen == null || chosen.isEmpty()) continue;
+            boolean intersect = facet == Facet.TAG && selection.matchAllTags;
+            List<RoaringBitmap> sets = new ArrayList<>();
+            for (String value : chosen) {
+                RoaringBitmap ids = values.get(facet).get(value);
+                if (ids != null) {
+                    sets.add(ids);
+                } else if (intersect) {
+                    // A chosen tag no mistake has any more
+                    return new RoaringBitmap();
+                }
+            }
+            RoaringBitmap facetIds = new RoaringBitmap();
+            for (int i = 0; i < sets.size(); i++) {
+                facetIds = i == 0 ? sets.get(0) : intersect
+                    ? RoaringBitmap.and(facetIds, sets.get(i)) : RoaringBitmap.or(facetIds, sets.get(i));
+            }
+            result = RoaringBitmap.and(result, facetIds);
+        }
+        return result;
+    }
+
+    private void addValue(Facet facet, String value, int id) {
+        if (value == null || value.isEmpty()) return;
+        values.get(facet).computeIfAbsent(value, v -> new RoaringBitmap()).add(id);
+    }
+}
@@ -1,24 +1,39 @@
 package com.example.mistakemanagement;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 public class HelloApplication extends Application {
     @Override
     public void start(Stage stage) throws IOException {
         FXMLLoader fxmlLoader = new FXMLLoader(HelloApplication.class.getResource("dashboard-view.fxml"));
-        Scene scene = new Scene(fxmlLoader.load(), 500, 400);
+        Scene scene = new Scene(fxmlLoader.load(), 600, 560);
         stage.setTitle("Mistake Management System");
         stage.setScene(scene);
         stage.show();
+
+        DashboardController dashboard = fxmlLoader.getController();
+        AppServices.start(() -> Platform.runLater(dashboard::databaseReady),
+            e -> Platform.runLater(() -> dashboard.schemaFailed(e)));
+    }
+
+    @Override
+    public void stop() {
+        AppServices.stop();
     }
 
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (Arrays.asList(args).contains("--server")) {
+            ApiServer.main(args);
+            return;
+        }
         launch();
     }
 }
\ No newline at end of file
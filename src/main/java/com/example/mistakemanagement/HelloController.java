@@ -1,5 +1,6 @@
 package com.example.mistakemanagement;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 
@@ -10,12 +11,12 @@ public class HelloController {
     @FXML
     protected void onHelloButtonClick() {
         // Test MySQL connection
-        boolean connected = MySQLConnection.testConnection();
-        
-        if (connected) {
-            welcomeText.setText("MySQL Connected Successfully!");
-        } else {
-            welcomeText.setText("MySQL Connection Failed!");
-        }
+        ConnectionHealth.get().probeNow(status -> Platform.runLater(() -> {
+            if (status.state() == ConnectionHealth.State.UP) {
+                welcomeText.setText("MySQL Connected Successfully!");
+            } else {
+                welcomeText.setText("MySQL Connection Failed!");
+            }
+        }));
     }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.example.mistakemanagement;
+
+import javafx.collections.ModifiableObservableListBase;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+// Observable list of ints backed by a plain int array, for list views over many rows.
+// Values are only boxed when a cell asks for them.
+public class IntObservableList extends ModifiableObservableListBase<Integer> {
+    private int[] values = new int[0];
+    private int size;
+
+    // Replaces the contents with a single change notification
+    public void setAll(int[] newValues, int newSize) {
+        int[] oldValues = values;
+        int oldSize = size;
+        beginChange();
+        values = newValues;
+        size = newSize;
+        if (oldSize > 0) {
+            nextRemove(0, snapshot(oldValues, oldSize));
+        }
+        if (newSize > 0) {
+            nextAdd(0, newSize);
+        }
+        endChange();
+    }
+
+    public int getInt(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return values[index];
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    protected void doAdd(int index, Integer element) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(16, size * 2));
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = element;
+        size++;
+    }
+
+    @Override
+    protected Integer doSet(int index, Integer element) {
+        int old = values[index];
+        values[index] = element;
+        return old;
+    }
+
+    @Override
+    protected Integer doRemove(int index) {
+        int old = values[index];
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return old;
+    }
+
+    private static List<Integer> snapshot(int[] values, int size) {
+        return new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                return values[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
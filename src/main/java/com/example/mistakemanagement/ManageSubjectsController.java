@@ -1,17 +1,25 @@
 package com.example.mistakemanagement;
 
+import javafx.animation.PauseTransition;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.layout.VBox;
+import javafx.scene.control.cell.CheckBoxListCell;
+import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.Set;
+import javafx.util.Duration;
+import javafx.util.StringConverter;
 
 public class ManageSubjectsController {
     // Individual subject management fields
@@ -32,10 +40,23 @@ public class ManageSubjectsController {
     
     @FXML
     private Button refreshBtn;
+
+    // Undo bar shown after a delete
+    @FXML
+    private HBox undoBox;
+
+    @FXML
+    private Label undoLabel;
+
+    @FXML
+    private Button undoBtn;
     
     // Course selection fields
     @FXML
-    private VBox coursesContainer;
+    private TextField courseSearchField;
+
+    @FXML
+    private ListView<CourseCatalog.Course> coursesListView;
     
     @FXML
     private TextField customSubjectField;
@@ -60,12 +81,19 @@ public class ManageSubjectsController {
     private Label statusLabel;
     
     private List<Subject> subjects = new ArrayList<>();
-    private Map<String, CheckBox> courseCheckBoxes = new HashMap<>();
-    private List<String> selectedCourses = new ArrayList<>();
+    private final ObservableList<CourseCatalog.Course> allCourses = FXCollections.observableArrayList();
+    private FilteredList<CourseCatalog.Course> filteredCourses;
+    private final Set<String> selectedCourses = new LinkedHashSet<>();
+    private final List<EventBus.Subscription> subscriptions = new ArrayList<>();
+    // Deleted subjects stay restorable until SubjectPurger removes them; the bar offers undo for a short while
+    private static final Duration UNDO_WINDOW = Duration.seconds(30);
+    private final PauseTransition undoTimer = new PauseTransition(UNDO_WINDOW);
+    private Subject lastDeleted;
 
     @FXML
     public void initialize() {
         loadSubjects();
+        loadCourses();
         
         // Add listener for selection
         subjectsListView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
@@ -73,33 +101,67 @@ public class ManageSubjectsController {
         });
         
         deleteSubjectBtn.setDisable(true);
+        undoTimer.setOnFinished(e -> hideUndo());
+
+        EventBus bus = EventBus.get();
+        subscriptions.add(bus.subscribe(DomainEvent.SubjectAdded.class, this::onSubjectAdded));
+        subscriptions.add(bus.subscribe(DomainEvent.SubjectDeleted.class, this::onSubjectDeleted));
+        subscriptions.add(bus.subscribe(DomainEvent.SubjectRestored.class, this::onSubjectRestored));
+        subscriptions.add(bus.subscribe(DomainEvent.DataReloaded.class, e -> loadSubjects()));
+    }
+
+    void dispose() {
+        undoTimer.stop();
+        subscriptions.forEach(EventBus.Subscription::cancel);
+        subscriptions.clear();
+    }
+
+    private void onSubjectAdded(DomainEvent.SubjectAdded event) {
+        addSubject(event.subjectId(), event.name(), event.description());
+    }
+
+    private void onSubjectRestored(DomainEvent.SubjectRestored event) {
+        addSubject(event.subjectId(), event.name(), event.description());
+        if (lastDeleted != null && lastDeleted.id == event.subjectId()) {
+            hideUndo();
+        }
+    }
+
+    private void addSubject(int id, String name, String description) {
+        for (Subject existing : subjects) {
+            if (existing.id == id) return;
+        }
+        Subject subject = new Subject();
+        subject.id = id;
+        subject.name = name;
+        subject.description = description;
+
+        int index = 0;
+        while (index < subjects.size() && subjects.get(index).name.compareTo(subject.name) < 0) {
+            index++;
+        }
+        subjects.add(index, subject);
+        subjectsListView.getItems().add(index, subject.displayText());
+    }
+
+    private void onSubjectDeleted(DomainEvent.SubjectDeleted event) {
+        for (int i = 0; i < subjects.size(); i++) {
+            if (subjects.get(i).id == event.subjectId()) {
+                subjects.remove(i);
+                subjectsListView.getItems().remove(i);
+                return;
+            }
+        }
     }
 
     private void loadSubjects() {
-        try (Connection conn = MySQLConnection.getConnection()) {
-            String query = "SELECT id, name, description FROM subjects ORDER BY name";
-            try (PreparedStatement stmt = conn.prepareStatement(query);
-                 ResultSet rs = stmt.executeQuery()) {
-                
-                subjects.clear();
-                List<String> displayItems = new ArrayList<>();
-                
-                while (rs.next()) {
-                    Subject subject = new Subject();
-                    subject.id = rs.getInt("id");
-                    subject.name = rs.getString("name");
-                    subject.description = rs.getString("description");
-                    
-                    subjects.add(subject);
-                    
-                    String displayText = String.format("%s - %s", 
-                        subject.name, 
-                        subject.description != null ? subject.description : "No description");
-                    displayItems.add(displayText);
-                }
-                
-                subjectsListView.getItems().setAll(displayItems);
+        try {
+            subjects = SubjectDao.findAll();
+            List<String> displayItems = new ArrayList<>();
+            for (Subject subject : subjects) {
+                displayItems.add(subject.displayText());
             }
+            subjectsListView.getItems().setAll(displayItems);
         } catch (SQLException e) {
             statusLabel.setText("Error loading subjects: " + e.getMessage());
         }
@@ -115,40 +177,18 @@ public class ManageSubjectsController {
             return;
         }
         
-        try (Connection conn = MySQLConnection.getConnection()) {
-            // Check if subject already exists
-            String checkQuery = "SELECT COUNT(*) FROM subjects WHERE name = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(checkQuery)) {
-                stmt.setString(1, name);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next() && rs.getInt(1) > 0) {
-                        statusLabel.setText("Subject already exists");
-                        return;
-                    }
-                }
+        try {
+            // Every open window (including this one) adds the subject from the event
+            if (SubjectDao.insert(name, description.isEmpty() ? null : description) < 0) {
+                statusLabel.setText("Subject already exists");
+                return;
             }
+            statusLabel.setText("Subject added successfully!");
+            statusLabel.setStyle("-fx-text-fill: #27ae60");
             
-            // Insert new subject
-            String insertQuery = "INSERT INTO subjects (name, description) VALUES (?, ?)";
-            try (PreparedStatement stmt = conn.prepareStatement(insertQuery)) {
-                stmt.setString(1, name);
-                stmt.setString(2, description.isEmpty() ? null : description);
-                
-                int rowsAffected = stmt.executeUpdate();
-                if (rowsAffected > 0) {
-                    statusLabel.setText("Subject added successfully!");
-                    statusLabel.setStyle("-fx-text-fill: #27ae60");
-                    
-                    // Clear fields
-                    subjectNameField.clear();
-                    subjectDescField.clear();
-                    
-                    // Refresh list
-                    loadSubjects();
-                } else {
-                    statusLabel.setText("Failed to add subject");
-                }
-            }
+            // Clear fields
+            subjectNameField.clear();
+            subjectDescField.clear();
         } catch (SQLException e) {
             statusLabel.setText("Error adding subject: " + e.getMessage());
         }
@@ -169,26 +209,56 @@ public class ManageSubjectsController {
         alert.setTitle("Confirm Deletion");
         alert.setHeaderText("Delete Subject");
         alert.setContentText("Are you sure you want to delete '" + selectedSubject.name + "'?\n" +
-                           "This will also delete all associated mistakes and categories.");
+                           "Its mistakes and categories are hidden too. You can undo this for a short while.");
         
-        if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
-            try (Connection conn = MySQLConnection.getConnection()) {
-                String query = "DELETE FROM subjects WHERE id = ?";
-                try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                    stmt.setInt(1, selectedSubject.id);
-                    
-                    int rowsAffected = stmt.executeUpdate();
-                    if (rowsAffected > 0) {
-                        statusLabel.setText("Subject deleted successfully!");
-                        statusLabel.setStyle("-fx-text-fill: #27ae60");
-                        loadSubjects();
-                    } else {
-                        statusLabel.setText("Failed to delete subject");
-                    }
-                }
-            } catch (SQLException e) {
-                statusLabel.setText("Error deleting subject: " + e.getMessage());
+        if (alert.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+            return;
+        }
+
+        try {
+            // Soft delete: one row update; SubjectPurger removes the data in the background later
+            if (!SubjectDao.delete(selectedSubject)) {
+                statusLabel.setText("Failed to delete subject");
+                return;
+            }
+            statusLabel.setText("Subject deleted successfully!");
+            statusLabel.setStyle("-fx-text-fill: #27ae60");
+            showUndo(selectedSubject);
+        } catch (SQLException e) {
+            statusLabel.setText("Error deleting subject: " + e.getMessage());
+        }
+    }
+
+    private void showUndo(Subject subject) {
+        lastDeleted = subject;
+        undoLabel.setText("Deleted '" + subject.name + "'");
+        undoBox.setVisible(true);
+        undoBox.setManaged(true);
+        undoTimer.playFromStart();
+    }
+
+    private void hideUndo() {
+        undoTimer.stop();
+        lastDeleted = null;
+        undoBox.setVisible(false);
+        undoBox.setManaged(false);
+    }
+
+    @FXML
+    protected void onUndoDeleteClick() {
+        if (lastDeleted == null) return;
+        Subject subject = lastDeleted;
+        hideUndo();
+        try {
+            // The subject reappears in every window from the SubjectRestored event
+            if (SubjectDao.restore(subject)) {
+                statusLabel.setText("Subject restored");
+                statusLabel.setStyle("-fx-text-fill: #27ae60");
+            } else {
+                statusLabel.setText("Subject could not be restored");
             }
+        } catch (SQLException e) {
+            statusLabel.setText("Error restoring subject: " + e.getMessage());
         }
     }
 
@@ -199,114 +269,54 @@ public class ManageSubjectsController {
     }
 
     // Course selection methods
-    private void loadPredefinedCourses() {
-        // Define common academic subjects organized by field
-        Map<String, List<String>> courseCategories = new HashMap<>();
-        
-        // STEM Subjects
-        List<String> stemSubjects = new ArrayList<>();
-        stemSubjects.add("Mathematics");
-        stemSubjects.add("Calculus");
-        stemSubjects.add("Linear Algebra");
-        stemSubjects.add("Statistics");
-        stemSubjects.add("Physics");
-        stemSubjects.add("Chemistry");
-        stemSubjects.add("Biology");
-        stemSubjects.add("Computer Science");
-        stemSubjects.add("Programming");
-        stemSubjects.add("Data Structures");
-        stemSubjects.add("Algorithms");
-        stemSubjects.add("Database Systems");
-        stemSubjects.add("Software Engineering");
-        stemSubjects.add("Machine Learning");
-        stemSubjects.add("Artificial Intelligence");
-        courseCategories.put("STEM Subjects", stemSubjects);
-        
-        // Engineering
-        List<String> engineeringSubjects = new ArrayList<>();
-        engineeringSubjects.add("Mechanical Engineering");
-        engineeringSubjects.add("Electrical Engineering");
-        engineeringSubjects.add("Civil Engineering");
-        engineeringSubjects.add("Chemical Engineering");
-        engineeringSubjects.add("Computer Engineering");
-        engineeringSubjects.add("Materials Science");
-        engineeringSubjects.add("Thermodynamics");
-        engineeringSubjects.add("Circuit Analysis");
-        engineeringSubjects.add("Structural Analysis");
-        courseCategories.put("Engineering", engineeringSubjects);
-        
-        // Business & Economics
-        List<String> businessSubjects = new ArrayList<>();
-        businessSubjects.add("Economics");
-        businessSubjects.add("Microeconomics");
-        businessSubjects.add("Macroeconomics");
-        businessSubjects.add("Business Administration");
-        businessSubjects.add("Accounting");
-        businessSubjects.add("Finance");
-        businessSubjects.add("Marketing");
-        businessSubjects.add("Management");
-        businessSubjects.add("Statistics for Business");
-        courseCategories.put("Business & Economics", businessSubjects);
-        
-        // Liberal Arts
-        List<String> liberalArtsSubjects = new ArrayList<>();
-        liberalArtsSubjects.add("English Literature");
-        liberalArtsSubjects.add("Creative Writing");
-        liberalArtsSubjects.add("History");
-        liberalArtsSubjects.add("Political Science");
-        liberalArtsSubjects.add("Psychology");
-        liberalArtsSubjects.add("Sociology");
-        liberalArtsSubjects.add("Philosophy");
-        liberalArtsSubjects.add("Art History");
-        liberalArtsSubjects.add("Foreign Languages");
-        courseCategories.put("Liberal Arts", liberalArtsSubjects);
-        
-        // Health Sciences
-        List<String> healthSubjects = new ArrayList<>();
-        healthSubjects.add("Medicine");
-        healthSubjects.add("Nursing");
-        healthSubjects.add("Anatomy");
-        healthSubjects.add("Physiology");
-        healthSubjects.add("Pharmacology");
-        healthSubjects.add("Pathology");
-        healthSubjects.add("Biochemistry");
-        healthSubjects.add("Public Health");
-        courseCategories.put("Health Sciences", healthSubjects);
-        
-        // Create UI for each category
-        for (Map.Entry<String, List<String>> entry : courseCategories.entrySet()) {
-            String categoryName = entry.getKey();
-            List<String> subjects = entry.getValue();
-            
-            // Add category header
-            Label categoryLabel = new Label(categoryName);
-            categoryLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14px; -fx-text-fill: #2c3e50;");
-            coursesContainer.getChildren().add(categoryLabel);
-            
-            // Add subjects in this category
-            VBox subjectBox = new VBox(5.0);
-            subjectBox.setPadding(new javafx.geometry.Insets(0, 20, 10, 0));
-            
-            for (String subject : subjects) {
-                CheckBox checkBox = new CheckBox(subject);
-                checkBox.setOnAction(e -> updateSelectedCourses());
-                courseCheckBoxes.put(subject, checkBox);
-                subjectBox.getChildren().add(checkBox);
-            }
-            
-            coursesContainer.getChildren().add(subjectBox);
+
+    // The catalog is shown in a virtualized list, so only the visible rows have cells. Which
+    // courses are checked lives in selectedCourses, updated one course per toggle.
+    private void loadCourses() {
+        try {
+            allCourses.setAll(CourseCatalog.courses());
+        } catch (IOException e) {
+            statusLabel.setText("Error loading course catalog: " + e.getMessage());
         }
-    }
+        filteredCourses = new FilteredList<>(allCourses);
+        coursesListView.setItems(filteredCourses);
+        // Each cell binds to a property made for the course it shows, dropped when it shows another
+        coursesListView.setCellFactory(CheckBoxListCell.forListView(course -> {
+            BooleanProperty checked = new SimpleBooleanProperty(selectedCourses.contains(course.name()));
+            checked.addListener((obs, wasChecked, isChecked) -> setCourseSelected(course.name(), isChecked));
+            return checked;
+        }, new StringConverter<>() {
+            @Override
+            public String toString(CourseCatalog.Course course) {
+                return course == null ? "" : course.name() + "  (" + course.category() + ")";
+            }
 
-    private void updateSelectedCourses() {
-        selectedCourses.clear();
-        for (Map.Entry<String, CheckBox> entry : courseCheckBoxes.entrySet()) {
-            if (entry.getValue().isSelected()) {
-                selectedCourses.add(entry.getKey());
+            @Override
+            public CourseCatalog.Course fromString(String text) {
+                return null;
             }
+        }));
+        courseSearchField.textProperty().addListener((obs, oldVal, newVal) -> filterCourses(newVal));
+        updateSelectedCount();
+    }
+
+    private void filterCourses(String text) {
+        String query = text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+        filteredCourses.setPredicate(query.isEmpty() ? null : course ->
+            course.name().toLowerCase(Locale.ROOT).contains(query)
+                || course.category().toLowerCase(Locale.ROOT).contains(query));
+    }
+
+    private void setCourseSelected(String name, boolean selected) {
+        if (selected) {
+            selectedCourses.add(name);
+        } else {
+            selectedCourses.remove(name);
         }
-        
-        // Update button text
+        updateSelectedCount();
+    }
+
+    private void updateSelectedCount() {
         if (selectedCourses.isEmpty()) {
             addSelectedBtn.setText("Add Selected Subjects");
         } else {
@@ -322,40 +332,42 @@ public class ManageSubjectsController {
             return;
         }
         
-        if (courseCheckBoxes.containsKey(customSubject)) {
-            statusLabel.setText("Subject already exists in the list");
-            return;
+        for (CourseCatalog.Course course : allCourses) {
+            if (course.name().equalsIgnoreCase(customSubject)) {
+                statusLabel.setText("Subject already exists in the list");
+                return;
+            }
         }
         
-        // Add custom subject checkbox
-        CheckBox customCheckBox = new CheckBox(customSubject);
-        customCheckBox.setOnAction(e -> updateSelectedCourses());
-        courseCheckBoxes.put(customSubject, customCheckBox);
-        
-        // Add to the end of the container
-        coursesContainer.getChildren().add(customCheckBox);
+        // Added to the end of the catalog, already checked
+        CourseCatalog.Course custom = new CourseCatalog.Course(customSubject, "Custom");
+        setCourseSelected(customSubject, true);
+        allCourses.add(custom);
+        coursesListView.scrollTo(custom);
         
         customSubjectField.clear();
         statusLabel.setText("Custom subject added: " + customSubject);
         statusLabel.setStyle("-fx-text-fill: #27ae60");
     }
 
+    // Selects the courses the search currently shows
     @FXML
     protected void onSelectAllClick() {
-        for (CheckBox checkBox : courseCheckBoxes.values()) {
-            checkBox.setSelected(true);
+        for (CourseCatalog.Course course : filteredCourses) {
+            selectedCourses.add(course.name());
         }
-        updateSelectedCourses();
-        statusLabel.setText("All subjects selected");
+        updateSelectedCount();
+        coursesListView.refresh();
+        statusLabel.setText(filteredCourses.size() == allCourses.size()
+            ? "All subjects selected" : filteredCourses.size() + " matching subjects selected");
         statusLabel.setStyle("-fx-text-fill: #27ae60");
     }
 
     @FXML
     protected void onDeselectAllClick() {
-        for (CheckBox checkBox : courseCheckBoxes.values()) {
-            checkBox.setSelected(false);
-        }
-        updateSelectedCourses();
+        selectedCourses.clear();
+        updateSelectedCount();
+        coursesListView.refresh();
         statusLabel.setText("All subjects deselected");
         statusLabel.setStyle("-fx-text-fill: #27ae60");
     }
@@ -367,33 +379,15 @@ public class ManageSubjectsController {
             return;
         }
         
-        try (Connection conn = MySQLConnection.getConnection()) {
+        try {
             int addedCount = 0;
             int skippedCount = 0;
             
             for (String subjectName : selectedCourses) {
-                // Check if subject already exists
-                String checkQuery = "SELECT COUNT(*) FROM subjects WHERE name = ?";
-                try (PreparedStatement stmt = conn.prepareStatement(checkQuery)) {
-                    stmt.setString(1, subjectName);
-                    try (var rs = stmt.executeQuery()) {
-                        if (rs.next() && rs.getInt(1) > 0) {
-                            skippedCount++;
-                            continue; // Subject already exists
-                        }
-                    }
-                }
-                
-                // Add new subject
-                String insertQuery = "INSERT INTO subjects (name, description) VALUES (?, ?)";
-                try (PreparedStatement stmt = conn.prepareStatement(insertQuery)) {
-                    stmt.setString(1, subjectName);
-                    stmt.setString(2, "Added from course selection");
-                    
-                    int rowsAffected = stmt.executeUpdate();
-                    if (rowsAffected > 0) {
-                        addedCount++;
-                    }
+                if (SubjectDao.insert(subjectName, "Added from course selection") >= 0) {
+                    addedCount++;
+                } else {
+                    skippedCount++; // Subject already exists
                 }
             }
             
@@ -402,9 +396,10 @@ public class ManageSubjectsController {
                     (skippedCount > 0 ? " (" + skippedCount + " already existed)" : ""));
                 statusLabel.setStyle("-fx-text-fill: #27ae60");
                 
-                // Clear selections and refresh the existing subjects list
-                onDeselectAllClick();
-                loadSubjects();
+                // Clear selections; the subjects list updates from the published events
+                selectedCourses.clear();
+                updateSelectedCount();
+                coursesListView.refresh();
             } else {
                 statusLabel.setText("All selected subjects already exist in the database");
             }
@@ -419,11 +414,4 @@ public class ManageSubjectsController {
         Stage stage = (Stage) closeBtn.getScene().getWindow();
         stage.close();
     }
-
-    // Inner class to hold subject data
-    private static class Subject {
-        int id;
-        String name;
-        String description;
-    }
-}
+}
\ No newline at end of file
@@ -0,0 +1,415 @@
+package com.example.mistakemanagement;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Turns the Markdown people type into mistakes into HTML for the details view.
+//
+// Covers what shows up in study notes: headings, paragraphs (single line breaks are kept), bullet
+// and numbered lists, quotes, rules, **bold**, *italic*, `code`, [links](https://...), fenced code
+// blocks with keyword highlighting, and TeX math in $...$, $$...$$, \(...\) and \[...\]. Math is
+// laid out with HTML and Unicode (fractions, roots, scripts, Greek letters and common symbols)
+// since no TeX engine is bundled. Everything typed is escaped, so text cannot inject markup.
+public class MarkdownRenderer {
+    // Longer texts are shown as typed; rendering and laying them out is not worth a stall
+    static final int MAX_MARKUP_CHARS = 100_000;
+
+    private static final Pattern HEADING = Pattern.compile("^(#{1,6})\\s+(.*)$");
+    private static final Pattern BULLET = Pattern.compile("^\\s*[-*+]\\s+(.*)$");
+    private static final Pattern NUMBERED = Pattern.compile("^\\s*\\d+[.)]\\s+(.*)$");
+    private static final Pattern RULE = Pattern.compile("^\\s*([-*_])(\\s*\\1){2,}\\s*$");
+    private static final Pattern LINK = Pattern.compile("\\[([^\\]]+)]\\((https?://[^\\s)]+)\\)");
+
+    private static final Set<String> KEYWORDS = Set.of(
+        // Java, C, C++, C#, JavaScript
+        "abstract", "boolean", "break", "case", "catch", "char", "class", "const", "continue", "default",
+        "do", "double", "else", "enum", "extends", "final", "finally", "float", "for", "function", "if",
+        "implements", "import", "instanceof", "int", "interface", "let", "long", "new", "null", "package",
+        "private", "protected", "public", "return", "short", "static", "struct", "super", "switch", "this",
+        "throw", "throws", "true", "false", "try", "typedef", "unsigned", "var", "void", "volatile", "while",
+        "include", "namespace", "template", "using", "async", "await", "yield", "record", "sealed",
+        // Python
+        "and", "as", "def", "del", "elif", "except", "from", "global", "in", "is", "lambda", "None",
+        "nonlocal", "not", "or", "pass", "raise", "True", "False", "with",
+        // SQL
+        "select", "insert", "update", "delete", "where", "join", "left", "right", "inner", "outer", "on",
+        "group", "by", "order", "having", "limit", "into", "values", "create", "table", "index", "distinct",
+        "SELECT", "INSERT", "UPDATE", "DELETE", "WHERE", "JOIN", "LEFT", "RIGHT", "INNER", "OUTER", "ON",
+        "GROUP", "BY", "ORDER", "HAVING", "LIMIT", "INTO", "VALUES", "CREATE", "TABLE", "INDEX", "DISTINCT",
+        "AND", "OR", "NOT", "NULL", "AS", "IN", "IS");
+
+    private static final Map<String, String> SYMBOLS = Map.ofEntries(
+        Map.entry("alpha", "α"), Map.entry("beta", "β"), Map.entry("gamma", "γ"), Map.entry("delta", "δ"),
+        Map.entry("epsilon", "ε"), Map.entry("varepsilon", "ε"), Map.entry("zeta", "ζ"), Map.entry("eta", "η"),
+        Map.entry("theta", "θ"), Map.entry("iota", "ι"), Map.entry("kappa", "κ"), Map.entry("lambda", "λ"),
+        Map.entry("mu", "μ"), Map.entry("nu", "ν"), Map.entry("xi", "ξ"), Map.entry("pi", "π"),
+        Map.entry("rho", "ρ"), Map.entry("sigma", "σ"), Map.entry("tau", "τ"), Map.entry("phi", "φ"),
+        Map.entry("varphi", "φ"), Map.entry("chi", "χ"), Map.entry("psi", "ψ"), Map.entry("omega", "ω"),
+        Map.entry("Gamma", "Γ"), Map.entry("Delta", "Δ"), Map.entry("Theta", "Θ"), Map.entry("Lambda", "Λ"),
+        Map.entry("Xi", "Ξ"), Map.entry("Pi", "Π"), Map.entry("Sigma", "Σ"), Map.entry("Phi", "Φ"),
+        Map.entry("Psi", "Ψ"), Map.entry("Omega", "Ω"),
+        Map.entry("times", "×"), Map.entry("div", "÷"), Map.entry("cdot", "·"), Map.entry("pm", "±"),
+        Map.entry("mp", "∓"), Map.entry("leq", "≤"), Map.entry("le", "≤"), Map.entry("geq", "≥"),
+        Map.entry("ge", "≥"), Map.entry("neq", "≠"), Map.entry("ne", "≠"), Map.entry("approx", "≈"),
+        Map.entry("equiv", "≡"), Map.entry("sim", "∼"), Map.entry("propto", "∝"), Map.entry("infty", "∞"),
+        Map.entry("sum", "∑"), Map.entry("prod", "∏"), Map.entry("int", "∫"), Map.entry("oint", "∮"),
+        Map.entry("partial", "∂"), Map.entry("nabla", "∇"), Map.entry("forall", "∀"), Map.entry("exists", "∃"),
+        Map.entry("in", "∈"), Map.entry("notin", "∉"), Map.entry("subset", "⊂"), Map.entry("subseteq", "⊆"),
+        Map.entry("supset", "⊃"), Map.entry("cup", "∪"), Map.entry("cap", "∩"), Map.entry("emptyset", "∅"),
+        Map.entry("to", "→"), Map.entry("rightarrow", "→"), Map.entry("leftarrow", "←"),
+        Map.entry("Rightarrow", "⇒"), Map.entry("Leftarrow", "⇐"), Map.entry("iff", "⇔"),
+        Map.entry("Leftrightarrow", "⇔"), Map.entry("mapsto", "↦"), Map.entry("ldots", "…"),
+        Map.entry("cdots", "⋯"), Map.entry("dots", "…"), Map.entry("neg", "¬"), Map.entry("land", "∧"),
+        Map.entry("lor", "∨"), Map.entry("angle", "∠"), Map.entry("degree", "°"), Map.entry("circ", "∘"),
+        Map.entry("quad", " "), Map.entry("qquad", "  "), Map.entry(",", " "),
+        Map.entry(";", " "), Map.entry("!", ""), Map.entry(" ", " "),
+        Map.entry("{", "{"), Map.entry("}", "}"), Map.entry("%", "%"), Map.entry("$", "$"),
+        Map.entry("left", ""), Map.entry("right", ""), Map.entry("displaystyle", ""));
+
+    // Function names are set upright, as TeX does
+    private static final Set<String> FUNCTIONS = Set.of("sin", "cos", "tan", "cot", "sec", "csc", "log", "ln",
+        "exp", "lim", "max", "min", "det", "gcd", "arcsin", "arccos", "arctan", "sinh", "cosh", "tanh", "mod");
+
+    private MarkdownRenderer() {
+    }
+
+    public static String render(String markdown) {
+        if (markdown == null || markdown.isBlank()) return "";
+        if (markdown.length() > MAX_MARKUP_CHARS) {
+            return "<pre class=\"plain\">" + escape(markdown) + "</pre>";
+        }
+        String[] lines = markdown.replace("\r\n", "\n").split("\n", -1);
+        StringBuilder html = new StringBuilder(markdown.length() * 2);
+        StringBuilder paragraph = new StringBuilder();
+        String listTag = null;
+
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            String trimmed = line.trim();
+
+            // Blocks that span lines: fenced code and display math
+            if (trimmed.startsWith("```") || trimmed.startsWith("$$") && !(trimmed.length() > 2 && trimmed.endsWith("$$"))) {
+                boolean code = trimmed.startsWith("```");
+                String fence = code ? "```" : "$$";
+                String language = code ? trimmed.substring(3).trim().toLowerCase(Locale.ROOT) : "";
+                StringBuilder block = new StringBuilder(code ? "" : trimmed.substring(2));
+                int end = i + 1;
+                while (end < lines.length && !lines[end].trim().startsWith(fence) && !lines[end].trim().endsWith(fence)) {
+                    if (!block.isEmpty() || !code) block.append('\n');
+                    block.append(lines[end]);
+                    end++;
+                }
+                if (end < lines.length && !code) {
+                    String last = lines[end].trim();
+                    block.append('\n').append(last, 0, last.length() - 2);
+                }
+                flushParagraph(html, paragraph);
+                listTag = closeList(html, listTag);
+                if (code) {
+                    html.append("<pre class=\"code\"><code>").append(highlight(block.toString(), language))
+                        .append("</code></pre>\n");
+                } else {
+                    html.append("<div class=\"math display\">").append(math(block.toString().trim())).append("</div>\n");
+                }
+                i = end;
+                continue;
+            }
+
+            if (trimmed.isEmpty()) {
+                flushParagraph(html, paragraph);
+                listTag = closeList(html, listTag);
+                continue;
+            }
+
+            Matcher heading = HEADING.matcher(trimmed);
+            Matcher bullet = BULLET.matcher(line);
+            Matcher numbered = NUMBERED.matcher(line);
+            if (RULE.matcher(trimmed).matches()) {
+                flushParagraph(html, paragraph);
+                listTag = closeList(html, listTag);
+                html.append("<hr>\n");
+            } else if (heading.matches()) {
+                flushParagraph(html, paragraph);
+                listTag = closeList(html, listTag);
+                // h1 and h2 are used by the page itself
+                int level = Math.min(6, heading.group(1).length() + 2);
+                html.append("<h").append(level).append('>').append(inline(heading.group(2)))
+                    .append("</h").append(level).append(">\n");
+            } else if (trimmed.startsWith("$$") && trimmed.endsWith("$$") && trimmed.length() > 4) {
+                flushParagraph(html, paragraph);
+                listTag = closeList(html, listTag);
+                html.append("<div class=\"math display\">").append(math(trimmed.substring(2, trimmed.length() - 2)))
+                    .append("</div>\n");
+            } else if (bullet.matches() || numbered.matches()) {
+                flushParagraph(html, paragraph);
+                String tag = bullet.matches() ? "ul" : "ol";
+                if (!tag.equals(listTag)) {
+                    closeList(html, listTag);
+                    html.append('<').append(tag).append(">\n");
+                    listTag = tag;
+                }
+                html.append("<li>").append(inline((bullet.matches() ? bullet : numbered).group(1))).append("</li>\n");
+            } else if (trimmed.startsWith(">")) {
+                flushParagraph(html, paragraph);
+                listTag = closeList(html, listTag);
+                html.append("<blockquote>").append(inline(trimmed.substring(1).trim())).append("</blockquote>\n");
+            } else {
+                listTag = closeList(html, listTag);
+                if (!paragraph.isEmpty()) paragraph.append('\n');
+                paragraph.append(line);
+            }
+        }
+        flushParagraph(html, paragraph);
+        closeList(html, listTag);
+        return html.toString();
+    }
+
+    private static void flushParagraph(StringBuilder html, StringBuilder paragraph) {
+        if (paragraph.isEmpty()) return;
+        html.append("<p>").append(inline(paragraph.toString()).replace("\n", "<br>\n")).append("</p>\n");
+        paragraph.setLength(0);
+    }
+
+    private static String closeList(StringBuilder html, String listTag) {
+        if (listTag != null) {
+            html.append("</").append(listTag).append(">\n");
+        }
+        return null;
+    }
+
+    // Code spans and math are cut out first, so the emphasis rules never see their contents
+    static String inline(String text) {
+        StringBuilder html = new StringBuilder(text.length() + 16);
+        StringBuilder plain = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int end;
+            if (c == '`' && (end = text.indexOf('`', i + 1)) > i) {
+                html.append(emphasis(plain));
+                html.append("<code>").append(escape(text.substring(i + 1, end))).append("</code>");
+                i = end + 1;
+            } else if (c == '$' && (end = closingDollar(text, i)) > i) {
+                html.append(emphasis(plain));
+                html.append("<span class=\"math\">").append(math(text.substring(i + 1, end))).append("</span>");
+                i = end + 1;
+            } else if (c == '\\' && i + 1 < text.length() && (text.charAt(i + 1) == '(' || text.charAt(i + 1) == '[')) {
+                String close = text.charAt(i + 1) == '(' ? "\\)" : "\\]";
+                end = text.indexOf(close, i + 2);
+                if (end < 0) {
+                    plain.append(c);
+                    i++;
+                    continue;
+                }
+                html.append(emphasis(plain));
+                String cssClass = close.equals("\\]") ? "math display" : "math";
+                html.append("<span class=\"").append(cssClass).append("\">").append(math(text.substring(i + 2, end)))
+                    .append("</span>");
+                i = end + 2;
+            } else {
+                plain.append(c);
+                i++;
+            }
+        }
+        html.append(emphasis(plain));
+        return html.toString();
+    }
+
+    // A $ followed by non-space and closed by a $ on the same line, so prices like "$5 and $6" stay text
+    private static int closingDollar(String text, int open) {
+        if (open + 1 >= text.length() || Character.isWhitespace(text.charAt(open + 1))) return -1;
+        for (int i = open + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') return -1;
+            if (c == '$' && text.charAt(i - 1) != '\\') {
+                return Character.isWhitespace(text.charAt(i - 1)) || i + 1 < text.length()
+                    && Character.isDigit(text.charAt(i + 1)) ? -1 : i;
+            }
+        }
+        return -1;
+    }
+
+    private static String emphasis(StringBuilder plain) {
+        if (plain.isEmpty()) return "";
+        String html = escape(plain.toString());
+        plain.setLength(0);
+        html = LINK.matcher(html).replaceAll("<a href=\"$2\" target=\"_blank\">$1</a>");
+        html = html.replaceAll("\\*\\*(\\S(?:.*?\\S)?)\\*\\*", "<strong>$1</strong>");
+        html = html.replaceAll("__(\\S(?:.*?\\S)?)__", "<strong>$1</strong>");
+        html = html.replaceAll("(?<![\\w*])\\*(\\S(?:.*?\\S)?)\\*(?![\\w*])", "<em>$1</em>");
+        html = html.replaceAll("(?<![\\w_])_(\\S(?:.*?\\S)?)_(?![\\w_])", "<em>$1</em>");
+        return html;
+    }
+
+    // Comments, strings, numbers and keywords, coloured by the page's CSS
+    static String highlight(String code, String language) {
+        boolean hashComments = Set.of("python", "py", "sh", "bash", "ruby", "rb", "r").contains(language);
+        boolean dashComments = Set.of("sql", "haskell", "lua").contains(language);
+        StringBuilder html = new StringBuilder(code.length() * 2);
+        int i = 0;
+        int n = code.length();
+        while (i < n) {
+            char c = code.charAt(i);
+            int end;
+            if ((c == '/' && i + 1 < n && code.charAt(i + 1) == '/') || (hashComments && c == '#')
+                    || (dashComments && c == '-' && i + 1 < n && code.charAt(i + 1) == '-')) {
+                end = code.indexOf('\n', i);
+                end = end < 0 ? n : end;
+                span(html, "com", code.substring(i, end));
+            } else if (c == '/' && i + 1 < n && code.charAt(i + 1) == '*') {
+                end = code.indexOf("*/", i + 2);
+                end = end < 0 ? n : end + 2;
+                span(html, "com", code.substring(i, end));
+            } else if (c == '"' || c == '\'' || c == '`') {
+                end = i + 1;
+                while (end < n && code.charAt(end) != c && code.charAt(end) != '\n') {
+                    if (code.charAt(end) == '\\') end++;
+                    end++;
+                }
+                end = Math.min(n, end + 1);
+                span(html, "str", code.substring(i, end));
+            } else if (Character.isDigit(c)) {
+                end = i;
+                while (end < n && (Character.isLetterOrDigit(code.charAt(end)) || code.charAt(end) == '.')) end++;
+                span(html, "num", code.substring(i, end));
+            } else if (Character.isJavaIdentifierStart(c)) {
+                end = i;
+                while (end < n && Character.isJavaIdentifierPart(code.charAt(end))) end++;
+                String word = code.substring(i, end);
+                if (KEYWORDS.contains(word)) {
+                    span(html, "kw", word);
+                } else {
+                    html.append(escape(word));
+                }
+            } else {
+                end = i + 1;
+                html.append(escape(String.valueOf(c)));
+            }
+            i = end;
+        }
+        return html.toString();
+    }
+
+    private static void span(StringBuilder html, String cssClass, String text) {
+        html.append("<span class=\"").append(cssClass).append("\">").append(escape(text)).append("</span>");
+    }
+
+    static String math(String tex) {
+        StringBuilder html = new StringBuilder(tex.length() * 2);
+        new MathParser(tex).parseUntil(html, '\0');
+        return html.toString();
+    }
+
+    static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> escaped.append("&amp;");
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '"' -> escaped.append("&quot;");
+                case '\'' -> escaped.append("&#39;");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    // Recursive descent over the TeX commands that matter for layout; unknown commands are shown by name
+    private static final class MathParser {
+        private final String tex;
+        private int pos;
+
+        MathParser(String tex) {
+            this.tex = tex;
+        }
+
+        void parseUntil(StringBuilder html, char stop) {
+            while (pos < tex.length()) {
+                char c = tex.charAt(pos);
+                if (c == stop) {
+                    pos++;
+                    return;
+                }
+                pos++;
+                switch (c) {
+                    case '^' -> html.append("<sup>").append(argument()).append("</sup>");
+                    case '_' -> html.append("<sub>").append(argument()).append("</sub>");
+                    case '{' -> parseUntil(html, '}');
+                    case '\\' -> command(html);
+                    case '&', '<', '>', '"', '\'' -> html.append(escape(String.valueOf(c)));
+                    default -> {
+                        if (Character.isLetter(c)) {
+                            html.append("<i>").append(c).append("</i>");
+                        } else {
+                            html.append(c);
+                        }
+                    }
+                }
+            }
+        }
+
+        // A braced group, a command, or a single character
+        private String argument() {
+            StringBuilder html = new StringBuilder();
+            while (pos < tex.length() && tex.charAt(pos) == ' ') pos++;
+            if (pos >= tex.length()) return "";
+            char c = tex.charAt(pos++);
+            if (c == '{') {
+                parseUntil(html, '}');
+            } else if (c == '\\') {
+                command(html);
+            } else if (Character.isLetter(c)) {
+                html.append("<i>").append(c).append("</i>");
+            } else {
+                html.append(escape(String.valueOf(c)));
+            }
+            return html.toString();
+        }
+
+        private void command(StringBuilder html) {
+            int start = pos;
+            if (pos < tex.length() && !Character.isLetter(tex.charAt(pos))) {
+                pos++;
+            } else {
+                while (pos < tex.length() && Character.isLetter(tex.charAt(pos))) pos++;
+            }
+            String name = tex.substring(start, pos);
+            switch (name) {
+                case "frac", "dfrac", "tfrac" -> html.append("<span class=\"frac\"><span class=\"num\">")
+                    .append(argument()).append("</span><span class=\"den\">").append(argument()).append("</span></span>");
+                case "sqrt" -> {
+                    String index = "";
+                    if (pos < tex.length() && tex.charAt(pos) == '[') {
+                        int close = tex.indexOf(']', pos);
+                        if (close > 0) {
+                            index = "<sup class=\"root\">" + escape(tex.substring(pos + 1, close)) + "</sup>";
+                            pos = close + 1;
+                        }
+                    }
+                    html.append(index).append("√<span class=\"radicand\">").append(argument()).append("</span>");
+                }
+                case "text", "textrm", "mathrm", "operatorname" -> html.append("<span class=\"upright\">")
+                    .append(argument().replaceAll("</?i>", "")).append("</span>");
+                case "mathbf", "textbf", "boldsymbol" -> html.append("<b>").append(argument()).append("</b>");
+                case "vec" -> html.append("<span class=\"vec\">").append(argument()).append("</span>");
+                case "overline", "bar" -> html.append("<span class=\"overline\">").append(argument()).append("</span>");
+                case "hat" -> html.append(argument()).append("̂");
+                case "\\" -> html.append("<br>");
+                default -> {
+                    if (FUNCTIONS.contains(name)) {
+                        html.append("<span class=\"upright\">").append(name).append("</span>");
+                    } else if (SYMBOLS.containsKey(name)) {
+                        html.append(SYMBOLS.get(name));
+                    } else {
+                        html.append("<span class=\"upright\">").append(escape(name)).append("</span>");
+                    }
+                }
+            }
+        }
+    }
+}
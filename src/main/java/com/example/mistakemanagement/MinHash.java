@@ -0,0 +1,82 @@
+package com.example.mistakemanagement;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+// Compact MinHash signature of a mistake's words, packed into one long: eight minimum hashes,
+// keeping the low 8 bits of each. The share of equal bytes between two signatures estimates the
+// overlap (Jaccard similarity) of their word sets, which stays high for reworded short texts.
+public class MinHash {
+    static final int HASHES = 8;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long[] SEEDS = {
+        0x9e3779b97f4a7c15L, 0xc2b2ae3d27d4eb4fL, 0x165667b19e3779f9L, 0xd6e8feb86659fd93L,
+        0xa0761d6478bd642fL, 0xe7037ed1a0b428dbL, 0x8ebc6af09c88c6e3L, 0x589965cc75374cc3L
+    };
+
+    // 0 means "no words to compare", and such mistakes are left out of the index
+    static long of(Mistake mistake) {
+        return of(mistake.title, mistake.description, mistake.correctAnswer);
+    }
+
+    static long of(String... texts) {
+        Set<String> words = new HashSet<>();
+        for (String text : texts) {
+            for (String word : Words.split(text)) {
+                if (!Words.STOP_WORDS.contains(word)) {
+                    words.add(word);
+                }
+            }
+        }
+        if (words.isEmpty()) return 0;
+
+        long[] minimums = new long[HASHES];
+        Arrays.fill(minimums, Long.MAX_VALUE);
+        for (String word : words) {
+            long base = hash(word);
+            for (int i = 0; i < HASHES; i++) {
+                long h = mix(base ^ SEEDS[i]) >>> 1;
+                if (h < minimums[i]) {
+                    minimums[i] = h;
+                }
+            }
+        }
+
+        long signature = 0;
+        for (int i = 0; i < HASHES; i++) {
+            signature |= (minimums[i] & 0xff) << (i * 8);
+        }
+        // Keep 0 free for "no words"
+        return signature == 0 ? 1 : signature;
+    }
+
+    // Number of the eight hashes the two signatures agree on
+    static int matches(long a, long b) {
+        long diff = a ^ b;
+        int matches = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (((diff >>> (i * 8)) & 0xff) == 0) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private static long hash(String word) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < word.length(); i++) {
+            h ^= word.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    // SplitMix64 finalizer, so each seed gives an independent-looking hash of the word
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
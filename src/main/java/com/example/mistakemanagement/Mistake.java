@@ -0,0 +1,85 @@
+package com.example.mistakemanagement;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Holds one mistake row as shown in the list and details views
+public class Mistake {
+    int id;
+    String title;
+    String description;
+    String correctAnswer;
+    String yourAnswer;
+    String explanation;
+    String difficultyLevel;
+    String source;
+    boolean isReviewed;
+    int reviewCount;
+    int subjectId;
+    String subjectName;
+    String categoryName;
+    // Comma-separated, as typed in the form
+    String tags;
+    // Incremented on every edit, for optimistic locking
+    int version;
+    // Epoch millis, 0 if never reviewed; only filled in for quiz candidates
+    long lastReviewedAt;
+
+    String displayText() {
+        return displayText(isReviewed, title, subjectName, difficultyLevel, categoryName);
+    }
+
+    static String displayText(boolean isReviewed, String title, String subjectName,
+                              String difficultyLevel, String categoryName) {
+        String reviewed = isReviewed ? "✓" : "○";
+        return String.format("[%s] %s - %s (%s) %s",
+            reviewed, title, subjectName,
+            difficultyLevel, categoryName != null ? "- " + categoryName : "");
+    }
+
+    Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", id);
+        json.put("title", title);
+        json.put("description", description);
+        json.put("correctAnswer", correctAnswer);
+        json.put("yourAnswer", yourAnswer);
+        json.put("explanation", explanation);
+        json.put("difficultyLevel", difficultyLevel);
+        json.put("source", source);
+        json.put("isReviewed", isReviewed);
+        json.put("reviewCount", reviewCount);
+        json.put("subjectId", subjectId);
+        json.put("subjectName", subjectName);
+        json.put("categoryName", categoryName);
+        json.put("tags", tags);
+        json.put("version", version);
+        json.put("lastReviewedAt", lastReviewedAt);
+        return json;
+    }
+
+    static Mistake fromJson(Map<String, Object> json) {
+        Mistake mistake = new Mistake();
+        mistake.id = intValue(json.get("id"));
+        mistake.title = (String) json.get("title");
+        mistake.description = (String) json.get("description");
+        mistake.correctAnswer = (String) json.get("correctAnswer");
+        mistake.yourAnswer = (String) json.get("yourAnswer");
+        mistake.explanation = (String) json.get("explanation");
+        mistake.difficultyLevel = (String) json.get("difficultyLevel");
+        mistake.source = (String) json.get("source");
+        mistake.isReviewed = Boolean.TRUE.equals(json.get("isReviewed"));
+        mistake.reviewCount = intValue(json.get("reviewCount"));
+        mistake.subjectId = intValue(json.get("subjectId"));
+        mistake.subjectName = (String) json.get("subjectName");
+        mistake.categoryName = (String) json.get("categoryName");
+        mistake.tags = (String) json.get("tags");
+        mistake.version = intValue(json.get("version"));
+        mistake.lastReviewedAt = json.get("lastReviewedAt") instanceof Number number ? number.longValue() : 0;
+        return mistake;
+    }
+
+    private static int intValue(Object value) {
+        return value instanceof Number number ? number.intValue() : 0;
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.mistakemanagement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Moves mistakes that were reviewed and then left alone for mistakes.archive.days into
+// mistakes_archive, so the mistakes table, and every list, count and index lookup on it, only
+// holds the working set however much history piles up.
+//
+// Rows move in batches of BATCH, each copied and deleted in one transaction that re-checks the age,
+// so a mistake touched meanwhile stays. Like SubjectPurger it sleeps several times as long as each
+// batch took. Archived mistakes keep their id. Their tag links move to mistake_tags_archive in the
+// same transaction, and their attachments stay in mistake_attachments, keyed by the id. Their
+// related-mistake rows are dropped. Reviewing or editing one moves it back, tags included
+// (restore). Set mistakes.archive.days to 0 to turn archiving off.
+public class MistakeArchiver {
+    private static final MistakeArchiver INSTANCE = new MistakeArchiver();
+
+    static final String FUTURE_PARTITION = "p_future";
+    private static final int FIRST_PARTITION_YEAR = 2020;
+    private static final long RUN_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+    private static final long INITIAL_DELAY_MS = TimeUnit.MINUTES.toMillis(2);
+    private static final int BATCH = 200;
+    private static final int THROTTLE_FACTOR = 4;
+    private static final long MIN_PAUSE_MS = 50;
+    private static final String LOCK_NAME = "mistake_management_archive";
+
+    private final int archiveDays =
+        Integer.parseInt(MySQLConnection.setting("mistakes.archive.days", "MISTAKES_ARCHIVE_DAYS", "365"));
+    private ScheduledExecutorService scheduler;
+
+    private MistakeArchiver() {
+    }
+
+    public static MistakeArchiver get() {
+        return INSTANCE;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null || archiveDays <= 0) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "mistake-archiver");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, INITIAL_DELAY_MS, RUN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void runSafely() {
+        try {
+            run();
+        } catch (SQLException e) {
+            System.err.println("Archiving failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void run() throws SQLException, InterruptedException {
+        try (Connection lockConn = MySQLConnection.getConnection()) {
+            if (!MySQLConnection.tryLock(lockConn, LOCK_NAME)) return;
+            try {
+                addYearPartitions(lockConn);
+                String columns = String.join(", ", sharedColumns(lockConn));
+                int archived = 0;
+                List<Integer> batch;
+                while (!(batch = nextBatch(lockConn)).isEmpty()) {
+                    long start = System.nanoTime();
+                    archived += archive(lockConn, columns, batch);
+                    long tookMs = (System.nanoTime() - start) / 1_000_000;
+                    Thread.sleep(Math.max(MIN_PAUSE_MS, tookMs * THROTTLE_FACTOR));
+                }
+                if (archived > 0) {
+                    System.out.printf("Archived %d mistakes not touched for %d days%n", archived, archiveDays);
+                }
+            } finally {
+                MySQLConnection.releaseLock(lockConn, LOCK_NAME);
+            }
+        }
+    }
+
+    private List<Integer> nextBatch(Connection conn) throws SQLException {
+        String query = "SELECT id FROM mistakes WHERE is_reviewed = true " +
+                      "AND updated_at < NOW() - INTERVAL ? DAY ORDER BY id LIMIT " + BATCH;
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, archiveDays);
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Integer> ids = new ArrayList<>();
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+                return ids;
+            }
+        }
+    }
+
+    // Copies and deletes in one transaction; the age is checked again by the copy, and
+    // INSERT ... SELECT locks the rows it reads, so a row touched meanwhile is left alone. The
+    // later statements only act on the ids the copy actually moved. Tag links are moved before the
+    // mistakes are deleted, so neither a cascading nor a restricting foreign key gets in the way.
+    private int archive(Connection conn, String columns, List<Integer> ids) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String cold = "WHERE id IN (" + placeholders + ") AND is_reviewed = true " +
+                     "AND updated_at < NOW() - INTERVAL ? DAY";
+        String moved = "IN (SELECT id FROM mistakes_archive WHERE id IN (" + placeholders + "))";
+        String[] queries = {
+            "INSERT INTO mistakes_archive (" + columns + ", last_active) " +
+                "SELECT " + columns + ", updated_at FROM mistakes " + cold,
+            "INSERT IGNORE INTO mistake_tags_archive (mistake_id, tag_id) " +
+                "SELECT mistake_id, tag_id FROM mistake_tags WHERE mistake_id " + moved,
+            "DELETE FROM mistake_tags WHERE mistake_id " + moved,
+            "DELETE FROM mistake_related WHERE mistake_id " + moved,
+            "DELETE FROM mistake_related WHERE related_id " + moved,
+            "DELETE FROM mistakes WHERE id " + moved
+        };
+        conn.setAutoCommit(false);
+        try {
+            int archived = 0;
+            for (int q = 0; q < queries.length; q++) {
+                try (PreparedStatement stmt = conn.prepareStatement(queries[q])) {
+                    int index = 1;
+                    for (int id : ids) {
+                        stmt.setInt(index++, id);
+                    }
+                    if (q == 0) {
+                        stmt.setInt(index, archiveDays);
+                    }
+                    int count = stmt.executeUpdate();
+                    if (q == queries.length - 1) archived = count;
+                }
+            }
+            conn.commit();
+            return archived;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // Moves an archived mistake back into the mistakes table. Returns false if it is not archived.
+    static boolean restore(int mistakeId) throws SQLException {
+        try (Connection conn = MySQLConnection.getConnection()) {
+            String columns = String.join(", ", sharedColumns(conn));
+            conn.setAutoCommit(false);
+            try {
+                int restored;
+                try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO mistakes (" + columns + ") " +
+                        "SELECT " + columns + " FROM mistakes_archive WHERE id = ?")) {
+                    stmt.setInt(1, mistakeId);
+                    restored = stmt.executeUpdate();
+                }
+                if (restored == 0) {
+                    conn.rollback();
+                    return false;
+                }
+                String[] queries = {
+                    "INSERT IGNORE INTO mistake_tags (mistake_id, tag_id) " +
+                        "SELECT mistake_id, tag_id FROM mistake_tags_archive WHERE mistake_id = ?",
+                    "DELETE FROM mistake_tags_archive WHERE mistake_id = ?",
+                    "DELETE FROM mistakes_archive WHERE id = ?"
+                };
+                for (String query : queries) {
+                    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                        stmt.setInt(1, mistakeId);
+                        stmt.executeUpdate();
+                    }
+                }
+                // Other clients pick it up like a newly added mistake
+                ChangeLog.record(conn, ChangeLog.MISTAKE, mistakeId, ChangeLog.INSERT);
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    // The columns of mistakes that the archive has too; the archive is created from mistakes, but
+    // columns added to mistakes later are not copied
+    private static List<String> sharedColumns(Connection conn) throws SQLException {
+        String query = "SELECT m.column_name FROM information_schema.columns m " +
+                      "JOIN information_schema.columns a ON a.table_schema = m.table_schema " +
+                      "AND a.table_name = 'mistakes_archive' AND a.column_name = m.column_name " +
+                      "WHERE m.table_schema = DATABASE() AND m.table_name = 'mistakes' ORDER BY m.ordinal_position";
+        try (PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            List<String> columns = new ArrayList<>();
+            while (rs.next()) {
+                columns.add(rs.getString(1));
+            }
+            if (columns.isEmpty()) {
+                throw new SQLException("mistakes_archive is missing");
+            }
+            return columns;
+        }
+    }
+
+    // One partition per year up to next year, then FUTURE_PARTITION for anything later
+    static String initialPartitions() {
+        StringBuilder partitions = new StringBuilder();
+        for (int year = FIRST_PARTITION_YEAR; year <= Year.now().getValue() + 1; year++) {
+            partitions.append(yearPartition(year)).append(", ");
+        }
+        return partitions.append("PARTITION ").append(FUTURE_PARTITION).append(" VALUES LESS THAN MAXVALUE").toString();
+    }
+
+    private static String yearPartition(int year) {
+        String name = year == FIRST_PARTITION_YEAR ? "p_before_" + (year + 1) : "p" + year;
+        return "PARTITION " + name + " VALUES LESS THAN (" + (year + 1) + ")";
+    }
+
+    // Splits next year off FUTURE_PARTITION once the calendar gets there; FUTURE_PARTITION is
+    // empty until then, so this moves no rows
+    private static void addYearPartitions(Connection conn) throws SQLException {
+        int nextYear = Year.now().getValue() + 1;
+        String query = "SELECT COUNT(*) FROM information_schema.partitions " +
+                      "WHERE table_schema = DATABASE() AND table_name = 'mistakes_archive' AND partition_name = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, "p" + nextYear);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next() && rs.getInt(1) > 0) return;
+            }
+            stmt.setString(1, FUTURE_PARTITION);
+            try (ResultSet rs = stmt.executeQuery()) {
+                // Not partitioned; DatabaseSchema could not do it
+                if (!rs.next() || rs.getInt(1) == 0) return;
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE mistakes_archive REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (" +
+                         yearPartition(nextYear) + ", PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE)");
+        }
+    }
+}
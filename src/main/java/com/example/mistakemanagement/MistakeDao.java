@@ -0,0 +1,711 @@
+package com.example.mistakemanagement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+// Mistake queries and write paths shared by the controllers and the API server.
+// When an API server is configured every call goes through ApiClient instead of JDBC.
+public class MistakeDao {
+    private static final String SELECT_MISTAKES =
+        "SELECT m.id, m.title, m.description, m.correct_answer, m.your_answer, " +
+        "m.explanation, m.difficulty_level, m.source, m.is_reviewed, m.review_count, " +
+        "m.subject_id, s.name as subject_name, c.name as category_name, m.version, " +
+        "(SELECT GROUP_CONCAT(t.name ORDER BY t.name SEPARATOR ', ') FROM mistake_tags mt " +
+        " JOIN tags t ON t.id = mt.tag_id WHERE mt.mistake_id = m.id) as tags " +
+        "FROM mistakes m " +
+        "JOIN subjects s ON m.subject_id = s.id AND s.deleted_at IS NULL " +
+        "LEFT JOIN categories c ON m.category_id = c.id ";
+    private static final String SELECT_ARCHIVED = SELECT_MISTAKES.replace("FROM mistakes m ", "FROM mistakes_archive m ")
+        .replace("FROM mistake_tags mt ", "FROM mistake_tags_archive mt ");
+
+    public static List<Mistake> findAll() throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().listMistakes();
+        }
+        try (Connection conn = MySQLConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_MISTAKES + "ORDER BY m.created_at DESC");
+             ResultSet rs = stmt.executeQuery()) {
+            return readAll(rs);
+        }
+    }
+
+    // Only the fields a list row shows and its tags for the facet filters, without the long text
+    // columns, oldest first
+    public static List<Mistake> findSummaries() throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().listMistakeSummaries();
+        }
+        return findSummaries("mistakes", "mistake_tags");
+    }
+
+    // The same for archived mistakes, when a search is asked to span both tiers
+    public static List<Mistake> findArchivedSummaries() throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().listArchivedSummaries();
+        }
+        return findSummaries("mistakes_archive", "mistake_tags_archive");
+    }
+
+    private static List<Mistake> findSummaries(String table, String tagTable) throws SQLException {
+        String query = "SELECT m.id, m.title, m.difficulty_level, m.is_reviewed, m.review_count, " +
+                      "m.subject_id, s.name as subject_name, c.name as category_name, " +
+                      "(SELECT GROUP_CONCAT(t.name ORDER BY t.name SEPARATOR ', ') FROM " + tagTable + " mt " +
+                      " JOIN tags t ON t.id = mt.tag_id WHERE mt.mistake_id = m.id) as tags " +
+                      "FROM " + table + " m " +
+                      "JOIN subjects s ON m.subject_id = s.id AND s.deleted_at IS NULL " +
+                      "LEFT JOIN categories c ON m.category_id = c.id ORDER BY m.id";
+        try (Connection conn = MySQLConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            List<Mistake> mistakes = new ArrayList<>();
+            while (rs.next()) {
+                Mistake mistake = new Mistake();
+                mistake.id = rs.getInt("id");
+                mistake.title = rs.getString("title");
+                mistake.difficultyLevel = rs.getString("difficulty_level");
+                mistake.isReviewed = rs.getBoolean("is_reviewed");
+                mistake.reviewCount = rs.getInt("review_count");
+                mistake.subjectId = rs.getInt("subject_id");
+                mistake.subjectName = rs.getString("subject_name");
+                mistake.categoryName = rs.getString("category_name");
+                mistake.tags = rs.getString("tags");
+                mistakes.add(mistake);
+            }
+            return mistakes;
+        }
+    }
+
+    // Every non-empty description, live or archived, streamed to action one row at a time. Feeds
+    // MistakeStore's description search in a background pass, so list loads don't carry the text.
+    public static void forEachDescription(boolean archived, BiConsumer<Integer, String> action) throws SQLException {
+        if (ApiClient.isEnabled()) {
+            for (Mistake mistake : ApiClient.get().listDescriptions(archived)) {
+                action.accept(mistake.id, mistake.description);
+            }
+            return;
+        }
+        String query = "SELECT id, description FROM " + (archived ? "mistakes_archive" : "mistakes") +
+                      " WHERE description IS NOT NULL AND description <> ''";
+        try (Connection conn = MySQLConnection.getReadConnection();
+             Statement stmt = conn.createStatement()) {
+            // Stream rows instead of buffering the whole result set
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery(query)) {
+                while (rs.next()) {
+                    action.accept(rs.getInt(1), TextCodec.decode(rs.getString(2)));
+                }
+            }
+        }
+    }
+
+    // What QuizSampler weighs mistakes by, oldest first
+    public static List<Mistake> findQuizCandidates() throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().listQuizCandidates();
+        }
+        String query = "SELECT m.id, m.subject_id, m.difficulty_level, m.review_count, m.last_reviewed_at, " +
+                      "(SELECT GROUP_CONCAT(t.name SEPARATOR ', ') FROM mistake_tags mt " +
+                      " JOIN tags t ON t.id = mt.tag_id WHERE mt.mistake_id = m.id) as tags " +
+                      "FROM mistakes m " +
+                      "JOIN subjects s ON m.subject_id = s.id AND s.deleted_at IS NULL ORDER BY m.id";
+        try (Connection conn = MySQLConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            List<Mistake> mistakes = new ArrayList<>();
+            while (rs.next()) {
+                Mistake mistake = new Mistake();
+                mistake.id = rs.getInt("id");
+                mistake.subjectId = rs.getInt("subject_id");
+                mistake.difficultyLevel = rs.getString("difficulty_level");
+                mistake.reviewCount = rs.getInt("review_count");
+                Timestamp lastReviewed = rs.getTimestamp("last_reviewed_at");
+                mistake.lastReviewedAt = lastReviewed != null ? lastReviewed.getTime() : 0;
+                mistake.tags = rs.getString("tags");
+                mistakes.add(mistake);
+            }
+            return mistakes;
+        }
+    }
+
+    public static List<Mistake> findByIds(Collection<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) return new ArrayList<>();
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().getMistakes(ids);
+        }
+
+        List<Mistake> found = findByIds(SELECT_MISTAKES, ids);
+        if (found.size() < ids.size()) {
+            // Ids from search over both tiers or from the similarity index may be archived
+            Set<Integer> missing = new LinkedHashSet<>(ids);
+            found.forEach(mistake -> missing.remove(mistake.id));
+            found.addAll(findByIds(SELECT_ARCHIVED, missing));
+        }
+        return found;
+    }
+
+    private static List<Mistake> findByIds(String select, Collection<Integer> ids) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String query = select + "WHERE m.id IN (" + placeholders + ") ORDER BY m.created_at";
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            int index = 1;
+            for (int id : ids) {
+                stmt.setInt(index++, id);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return readAll(rs);
+            }
+        }
+    }
+
+    // Archived mistakes in full, newest first, for exports that span both tiers
+    public static List<Mistake> findArchived() throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().listArchivedMistakes();
+        }
+        try (Connection conn = MySQLConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_ARCHIVED + "ORDER BY m.created_at DESC");
+             ResultSet rs = stmt.executeQuery()) {
+            return readAll(rs);
+        }
+    }
+
+    public static List<Mistake> findBySubject(int subjectId) throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().getMistakesBySubject(subjectId);
+        }
+        try (Connection conn = MySQLConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_MISTAKES +
+                 "WHERE m.subject_id = ? ORDER BY m.created_at DESC")) {
+            stmt.setInt(1, subjectId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return readAll(rs);
+            }
+        }
+    }
+
+    // Existing mistakes whose text is nearly the same as this one, closest first
+    public static List<Mistake> findSimilar(Mistake mistake, int limit) throws SQLException {
+        long signature = MinHash.of(mistake);
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().findSimilar(signature, limit);
+        }
+        List<Integer> ids = SimilarityIndex.get().findSimilar(signature, limit);
+        List<Mistake> found = findByIds(ids);
+        found.sort(Comparator.comparingInt(m -> ids.indexOf(m.id)));
+        return found;
+    }
+
+    // Mistakes RelatedMistakesJob found to share the most vocabulary with this one, best first
+    public static List<Mistake> findRelated(int mistakeId, int limit) throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().getRelated(mistakeId, limit);
+        }
+        String query = SELECT_MISTAKES.replace("FROM mistakes m ",
+                          "FROM mistake_related r JOIN mistakes m ON m.id = r.related_id ") +
+                      "WHERE r.mistake_id = ? ORDER BY r.score DESC LIMIT ?";
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, mistakeId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return readAll(rs);
+            }
+        }
+    }
+
+    // Saves a new mistake, resolving subjectName and categoryName to ids; fills in mistake.id
+    public static int insert(Mistake mistake, String tags) throws SQLException {
+        if (ApiClient.isEnabled()) {
+            Mistake saved = ApiClient.get().addMistake(mistake, tags);
+            mistake.id = saved.id;
+            mistake.subjectId = saved.subjectId;
+        } else {
+            insertLocal(mistake, tags);
+        }
+        EventBus.get().publish(new DomainEvent.MistakeCreated(mistake));
+        return mistake.id;
+    }
+
+    private static void insertLocal(Mistake mistake, String tags) throws SQLException {
+        try (Connection conn = MySQLConnection.getConnection()) {
+            // The row, its tag links and its change_log entry are saved together, so other
+            // clients never see a mistake without its tags or miss one that exists
+            conn.setAutoCommit(false);
+            try {
+                mistake.subjectId = subjectIdOf(conn, mistake.subjectName);
+                // Category is optional
+                Integer categoryId = mistake.categoryName != null
+                    ? categoryIdOf(conn, mistake.subjectId, mistake.categoryName) : null;
+
+                // Insert mistake
+                String insertQuery = "INSERT INTO mistakes (title, description, correct_answer, your_answer, " +
+                                   "explanation, difficulty_level, subject_id, category_id, source, minhash) " +
+                                   "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+                try (PreparedStatement stmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
+                    stmt.setString(1, mistake.title);
+                    // Long text is stored compressed; see TextCodec
+                    stmt.setString(2, TextCodec.encode(mistake.description));
+                    stmt.setString(3, TextCodec.encode(mistake.correctAnswer));
+                    stmt.setString(4, TextCodec.encode(mistake.yourAnswer));
+                    stmt.setString(5, TextCodec.encode(mistake.explanation));
+                    stmt.setString(6, mistake.difficultyLevel);
+                    stmt.setInt(7, mistake.subjectId);
+                    if (categoryId != null) {
+                        stmt.setInt(8, categoryId);
+                    } else {
+                        stmt.setNull(8, java.sql.Types.INTEGER);
+                    }
+                    stmt.setString(9, mistake.source);
+                    stmt.setLong(10, MinHash.of(mistake));
+                    stmt.executeUpdate();
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        if (!keys.next()) {
+                            throw new SQLException("Could not get last inserted ID");
+                        }
+                        mistake.id = keys.getInt(1);
+                    }
+                }
+
+                // Handle tags if provided
+                List<String> tagNames = splitTags(tags);
+                if (!tagNames.isEmpty()) {
+                    addTagsToMistake(conn, mistake.id, tagNames);
+                }
+                mistake.tags = tagNames.isEmpty() ? null : String.join(", ", tagNames);
+                ChangeLog.record(conn, ChangeLog.MISTAKE, mistake.id, ChangeLog.INSERT);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    // Applies an edit and returns the saved mistake, or null if it no longer exists. Throws
+    // StaleEditException if someone else saved the mistake since the edit's version was loaded.
+    // previous is the mistake as the editor loaded it, passed on in the event (null if unknown).
+    public static Mistake update(MistakeEdit edit, Mistake previous) throws SQLException {
+        if (edit.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to update");
+        }
+        Mistake updated;
+        if (ApiClient.isEnabled()) {
+            updated = ApiClient.get().updateMistake(edit);
+        } else {
+            updated = updateLocal(edit);
+            if (updated == null && restoreArchived(edit.mistakeId)) {
+                updated = updateLocal(edit);
+            }
+        }
+        if (updated != null) {
+            EventBus.get().publish(new DomainEvent.MistakeUpdated(updated, previous));
+        }
+        return updated;
+    }
+
+    // Field name -> column for the text and enum fields; subject and category resolve to ids
+    private static final Map<String, String> EDIT_COLUMNS = Map.of(
+        MistakeEdit.TITLE, "title",
+        MistakeEdit.DESCRIPTION, "description",
+        MistakeEdit.CORRECT_ANSWER, "correct_answer",
+        MistakeEdit.YOUR_ANSWER, "your_answer",
+        MistakeEdit.EXPLANATION, "explanation",
+        MistakeEdit.DIFFICULTY, "difficulty_level",
+        MistakeEdit.SOURCE, "source");
+
+    // Columns that go through TextCodec
+    static final Set<String> COMPRESSED_COLUMNS = Set.of("description", "correct_answer", "your_answer", "explanation");
+
+    private static Mistake updateLocal(MistakeEdit edit) throws SQLException {
+        for (String name : edit.fields.keySet()) {
+            if (!EDIT_COLUMNS.containsKey(name) && !name.equals(MistakeEdit.SUBJECT) && !name.equals(MistakeEdit.CATEGORY)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+        }
+        for (String required : List.of(MistakeEdit.TITLE, MistakeEdit.CORRECT_ANSWER, MistakeEdit.SUBJECT)) {
+            if (edit.fields.containsKey(required) && edit.fields.get(required) == null) {
+                throw new IllegalArgumentException(required + " cannot be empty");
+            }
+        }
+        boolean textChanged = edit.changesAny(MistakeEdit.TITLE, MistakeEdit.DESCRIPTION, MistakeEdit.CORRECT_ANSWER);
+
+        try (Connection conn = MySQLConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Lock the row and check nobody saved it since the editor loaded it. The text columns
+                // are only read when the MinHash has to be recomputed.
+                String lockQuery = "SELECT version, subject_id, category_id" +
+                                  (textChanged ? ", title, description, correct_answer" : "") +
+                                  " FROM mistakes WHERE id = ? FOR UPDATE";
+                int subjectId;
+                Integer categoryId;
+                Mistake text = new Mistake();
+                try (PreparedStatement stmt = conn.prepareStatement(lockQuery)) {
+                    stmt.setInt(1, edit.mistakeId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (!rs.next()) {
+                            conn.rollback();
+                            return null;
+                        }
+                        if (rs.getInt("version") != edit.version) {
+                            throw new StaleEditException(edit.mistakeId, rs.getInt("version"));
+                        }
+                        subjectId = rs.getInt("subject_id");
+                        categoryId = (Integer) rs.getObject("category_id");
+                        if (textChanged) {
+                            text.title = rs.getString("title");
+                            text.description = TextCodec.decode(rs.getString("description"));
+                            text.correctAnswer = TextCodec.decode(rs.getString("correct_answer"));
+                        }
+                    }
+                }
+
+                // Only the changed columns are written; unchanged TEXT columns are left alone
+                List<String> assignments = new ArrayList<>();
+                List<Object> values = new ArrayList<>();
+                for (Map.Entry<String, String> field : edit.fields.entrySet()) {
+                    String column = EDIT_COLUMNS.get(field.getKey());
+                    if (column != null) {
+                        assignments.add(column + " = ?");
+                        values.add(COMPRESSED_COLUMNS.contains(column) ? TextCodec.encode(field.getValue()) : field.getValue());
+                    }
+                }
+                if (edit.fields.containsKey(MistakeEdit.SUBJECT)) {
+                    subjectId = subjectIdOf(conn, edit.fields.get(MistakeEdit.SUBJECT));
+                    assignments.add("subject_id = ?");
+                    values.add(subjectId);
+                }
+                // A new subject has its own categories, so the category is looked up again
+                if (edit.changesAny(MistakeEdit.SUBJECT, MistakeEdit.CATEGORY)) {
+                    String categoryName = edit.fields.containsKey(MistakeEdit.CATEGORY)
+                        ? edit.fields.get(MistakeEdit.CATEGORY) : categoryNameOf(conn, categoryId);
+                    Integer newCategoryId = categoryName != null ? categoryIdOf(conn, subjectId, categoryName) : null;
+                    if (!Objects.equals(newCategoryId, categoryId)) {
+                        assignments.add("category_id = ?");
+                        values.add(newCategoryId);
+                    }
+                }
+                if (textChanged) {
+                    text.title = edit.fields.getOrDefault(MistakeEdit.TITLE, text.title);
+                    text.description = edit.fields.getOrDefault(MistakeEdit.DESCRIPTION, text.description);
+                    text.correctAnswer = edit.fields.getOrDefault(MistakeEdit.CORRECT_ANSWER, text.correctAnswer);
+                    assignments.add("minhash = ?");
+                    values.add(MinHash.of(text));
+                }
+                // Tag-only edits still bump the version, so they conflict like any other edit
+                assignments.add("version = version + 1");
+
+                String updateQuery = "UPDATE mistakes SET " + String.join(", ", assignments) + " WHERE id = ?";
+                try (PreparedStatement stmt = conn.prepareStatement(updateQuery)) {
+                    int index = 1;
+                    for (Object value : values) {
+                        stmt.setObject(index++, value);
+                    }
+                    stmt.setInt(index, edit.mistakeId);
+                    stmt.executeUpdate();
+                }
+
+                if (!edit.removedTags.isEmpty()) {
+                    removeTagsFromMistake(conn, edit.mistakeId, edit.removedTags);
+                }
+                if (!edit.addedTags.isEmpty()) {
+                    addTagsToMistake(conn, edit.mistakeId, edit.addedTags);
+                }
+                ChangeLog.record(conn, ChangeLog.MISTAKE, edit.mistakeId, ChangeLog.UPDATE,
+                    String.join(",", edit.fields.keySet()), 1);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        List<Mistake> saved = findByIds(List.of(edit.mistakeId));
+        return saved.isEmpty() ? null : saved.get(0);
+    }
+
+    private static int subjectIdOf(Connection conn, String subjectName) throws SQLException {
+        String query = "SELECT id FROM subjects WHERE name = ? AND deleted_at IS NULL";
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, subjectName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Subject not found");
+                }
+                return rs.getInt("id");
+            }
+        }
+    }
+
+    // Null if the subject has no category by that name
+    private static Integer categoryIdOf(Connection conn, int subjectId, String categoryName) throws SQLException {
+        String query = "SELECT id FROM categories WHERE name = ? AND subject_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, categoryName);
+            stmt.setInt(2, subjectId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt("id") : null;
+            }
+        }
+    }
+
+    private static String categoryNameOf(Connection conn, Integer categoryId) throws SQLException {
+        if (categoryId == null) return null;
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT name FROM categories WHERE id = ?")) {
+            stmt.setInt(1, categoryId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString("name") : null;
+            }
+        }
+    }
+
+    // Thrown by update when the mistake was saved by someone else after the edit's version
+    public static class StaleEditException extends SQLException {
+        private static final long serialVersionUID = 1L;
+
+        public StaleEditException(int mistakeId, int currentVersion) {
+            super("Mistake " + mistakeId + " was changed by someone else (now at version " + currentVersion + ")");
+        }
+
+        public StaleEditException(String message) {
+            super(message);
+        }
+    }
+
+    // Trimmed, non-empty tag names from a comma-separated list, without repeats
+    static List<String> splitTags(String tags) {
+        Set<String> names = new LinkedHashSet<>();
+        if (tags != null) {
+            for (String tagName : tags.split(",")) {
+                tagName = tagName.trim();
+                if (!tagName.isEmpty()) {
+                    names.add(tagName);
+                }
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    private static void addTagsToMistake(Connection conn, int mistakeId, List<String> tagNames) throws SQLException {
+        // Link mistake to all tags in one batch
+        String linkQuery = "INSERT IGNORE INTO mistake_tags (mistake_id, tag_id) VALUES (?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(linkQuery)) {
+            for (String tagName : tagNames) {
+                stmt.setInt(1, mistakeId);
+                stmt.setInt(2, getOrCreateTag(conn, tagName));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private static void removeTagsFromMistake(Connection conn, int mistakeId, List<String> tagNames) throws SQLException {
+        // Unlink all removed tags in one statement; the tags themselves stay for other mistakes
+        String placeholders = String.join(", ", Collections.nCopies(tagNames.size(), "?"));
+        String query = "DELETE mt FROM mistake_tags mt JOIN tags t ON t.id = mt.tag_id " +
+                      "WHERE mt.mistake_id = ? AND t.name IN (" + placeholders + ")";
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, mistakeId);
+            for (int i = 0; i < tagNames.size(); i++) {
+                stmt.setString(i + 2, tagNames.get(i));
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    // Number of visible mistakes per tag name, most used first
+    public static Map<String, Integer> tagUsage() throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().tagUsage();
+        }
+        String query = "SELECT t.name, COUNT(s.id) AS uses FROM tags t " +
+                      "LEFT JOIN mistake_tags mt ON mt.tag_id = t.id " +
+                      "LEFT JOIN mistakes m ON m.id = mt.mistake_id " +
+                      "LEFT JOIN subjects s ON s.id = m.subject_id AND s.deleted_at IS NULL " +
+                      "GROUP BY t.id, t.name ORDER BY uses DESC, t.name";
+        try (Connection conn = MySQLConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            Map<String, Integer> usage = new LinkedHashMap<>();
+            while (rs.next()) {
+                usage.put(rs.getString("name"), rs.getInt("uses"));
+            }
+            return usage;
+        }
+    }
+
+    private static int getOrCreateTag(Connection conn, String tagName) throws SQLException {
+        // Try to get existing tag
+        String selectQuery = "SELECT id FROM tags WHERE name = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(selectQuery)) {
+            stmt.setString(1, tagName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("id");
+                }
+            }
+        }
+        
+        // Create new tag
+        String insertQuery = "INSERT INTO tags (name) VALUES (?)";
+        try (PreparedStatement stmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, tagName);
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    return keys.getInt(1);
+                }
+            }
+        }
+        throw new SQLException("Could not get inserted tag ID");
+    }
+
+    // Returns the new review count, or -1 if the mistake no longer exists
+    public static int markReviewed(int mistakeId) throws SQLException {
+        int reviewCount;
+        if (ApiClient.isEnabled()) {
+            reviewCount = ApiClient.get().markReviewed(mistakeId);
+        } else {
+            reviewCount = markReviewedLocal(mistakeId);
+            if (reviewCount < 0 && restoreArchived(mistakeId)) {
+                reviewCount = markReviewedLocal(mistakeId);
+            }
+        }
+        if (reviewCount >= 0) {
+            EventBus.get().publish(new DomainEvent.MistakeReviewed(mistakeId, reviewCount));
+        }
+        return reviewCount;
+    }
+
+    // Touching an archived mistake moves it back to the active table first
+    private static boolean restoreArchived(int mistakeId) throws SQLException {
+        if (!MistakeArchiver.restore(mistakeId)) return false;
+        for (Mistake restored : findByIds(List.of(mistakeId))) {
+            EventBus.get().publish(new DomainEvent.MistakeCreated(restored));
+        }
+        return true;
+    }
+
+    private static int markReviewedLocal(int mistakeId) throws SQLException {
+        try (Connection conn = MySQLConnection.getConnection()) {
+            // LAST_INSERT_ID(expr) hands back the count this UPDATE wrote, not whatever a concurrent
+            // review left in the row by the time it is read. The change_log entry commits with it,
+            // while the row is still locked, so entries for one mistake carry increasing counts.
+            conn.setAutoCommit(false);
+            try {
+                String query = "UPDATE mistakes SET is_reviewed = true, review_count = LAST_INSERT_ID(review_count + 1), " +
+                              "last_reviewed_at = CURRENT_TIMESTAMP WHERE id = ?";
+                try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                    stmt.setInt(1, mistakeId);
+                    if (stmt.executeUpdate() == 0) {
+                        conn.rollback();
+                        return -1;
+                    }
+                }
+
+                int reviewCount;
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT LAST_INSERT_ID()")) {
+                    rs.next();
+                    reviewCount = rs.getInt(1);
+                }
+                ChangeLog.record(conn, ChangeLog.MISTAKE, mistakeId, ChangeLog.REVIEW, String.valueOf(reviewCount), 1);
+                conn.commit();
+                return reviewCount;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    public static Stats countStats() throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().stats();
+        }
+        try (Connection conn = MySQLConnection.getReadConnection();
+             Statement stmt = conn.createStatement()) {
+            
+            // Get total mistakes count
+            int totalMistakes;
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) as total FROM mistakes m " +
+                    "JOIN subjects s ON m.subject_id = s.id AND s.deleted_at IS NULL")) {
+                totalMistakes = rs.next() ? rs.getInt("total") : 0;
+            }
+            
+            // Get subjects count
+            int totalSubjects;
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) as total FROM subjects WHERE deleted_at IS NULL")) {
+                totalSubjects = rs.next() ? rs.getInt("total") : 0;
+            }
+            return new Stats(totalMistakes, totalSubjects);
+        }
+    }
+
+    public record Stats(int totalMistakes, int totalSubjects) {}
+
+    // Mistake counts per visible subject, so totals can be adjusted when a subject is deleted or restored
+    public static Map<Integer, Integer> countBySubject() throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().countBySubject();
+        }
+        String query = "SELECT s.id, COUNT(m.id) AS total FROM subjects s " +
+                      "LEFT JOIN mistakes m ON m.subject_id = s.id " +
+                      "WHERE s.deleted_at IS NULL GROUP BY s.id";
+        try (Connection conn = MySQLConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            Map<Integer, Integer> counts = new HashMap<>();
+            while (rs.next()) {
+                counts.put(rs.getInt("id"), rs.getInt("total"));
+            }
+            return counts;
+        }
+    }
+
+    private static List<Mistake> readAll(ResultSet rs) throws SQLException {
+        List<Mistake> mistakes = new ArrayList<>();
+        while (rs.next()) {
+            Mistake mistake = new Mistake();
+            mistake.id = rs.getInt("id");
+            mistake.title = rs.getString("title");
+            mistake.description = TextCodec.decode(rs.getString("description"));
+            mistake.correctAnswer = TextCodec.decode(rs.getString("correct_answer"));
+            mistake.yourAnswer = TextCodec.decode(rs.getString("your_answer"));
+            mistake.explanation = TextCodec.decode(rs.getString("explanation"));
+            mistake.difficultyLevel = rs.getString("difficulty_level");
+            mistake.source = rs.getString("source");
+            mistake.isReviewed = rs.getBoolean("is_reviewed");
+            mistake.reviewCount = rs.getInt("review_count");
+            mistake.subjectId = rs.getInt("subject_id");
+            mistake.subjectName = rs.getString("subject_name");
+            mistake.categoryName = rs.getString("category_name");
+            mistake.tags = rs.getString("tags");
+            mistake.version = rs.getInt("version");
+            mistakes.add(mistake);
+        }
+        return mistakes;
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.mistakemanagement;
+
+import javafx.application.Platform;
+import javafx.concurrent.Worker;
+import javafx.fxml.FXML;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+import javafx.scene.web.WebEngine;
+import javafx.scene.web.WebView;
+import javafx.stage.Stage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// The details of one mistake, rendered from Markdown into a single WebView that is reused as the
+// user moves between mistakes.
+//
+// The text sections come from the DetailsRenderCache, so a recently viewed mistake shows at once
+// and a new one is rendered off the FX thread. A mistake that is not in memory is read there too. The header is built here, since the review count and
+// subject can change without the mistake's version changing. Attachments and related mistakes are
+// loaded in the background and filled into the page when they arrive.
+public class MistakeDetailsController {
+    private static final String STYLE = loadStyle();
+
+    @FXML
+    private WebView webView;
+
+    @FXML
+    private HBox thumbnailsBox;
+
+    @FXML
+    private Button closeBtn;
+
+    @FXML
+    private Label statusLabel;
+
+    private WebEngine engine;
+    private Mistake shown;
+    // Bumped for every mistake shown, so late results for an earlier one are dropped
+    private volatile int request;
+    private boolean pageLoaded;
+    private String extrasHtml;
+    private final List<EventBus.Subscription> subscriptions = new ArrayList<>();
+
+    @FXML
+    public void initialize() {
+        engine = webView.getEngine();
+        webView.setContextMenuEnabled(false);
+        engine.getLoadWorker().stateProperty().addListener((obs, oldState, state) -> {
+            pageLoaded = state == Worker.State.SUCCEEDED;
+            if (pageLoaded) injectExtras();
+        });
+        // Links are opened with target=_blank, in a window of their own, so the details page stays put
+        engine.setCreatePopupHandler(features -> {
+            WebView linkView = new WebView();
+            Stage stage = new Stage();
+            stage.setScene(new Scene(linkView, 1000, 750));
+            stage.titleProperty().bind(linkView.getEngine().titleProperty());
+            stage.show();
+            return linkView.getEngine();
+        });
+
+        EventBus bus = EventBus.get();
+        subscriptions.add(bus.subscribe(DomainEvent.MistakeUpdated.class, event -> {
+            if (shown != null && event.mistake().id == shown.id) show(event.mistake());
+        }));
+        subscriptions.add(bus.subscribe(DomainEvent.MistakeReviewed.class, event -> {
+            if (shown != null && event.mistakeId() == shown.id) {
+                shown.reviewCount = event.reviewCount();
+                show(shown);
+            }
+        }));
+        subscriptions.add(bus.subscribe(DomainEvent.AttachmentAdded.class, event -> {
+            if (shown != null && event.attachment().mistakeId == shown.id) loadExtras(request);
+        }));
+        subscriptions.add(bus.subscribe(DomainEvent.DataReloaded.class, event -> {
+            if (shown != null) reload(shown.id);
+        }));
+    }
+
+    void dispose() {
+        subscriptions.forEach(EventBus.Subscription::cancel);
+        subscriptions.clear();
+        request++;
+    }
+
+    void show(Mistake mistake) {
+        show(mistake, DetailsRenderCache.get().cached(mistake));
+    }
+
+    // sections is null when this version still has to be rendered
+    private void show(Mistake mistake, String sections) {
+        int token = ++request;
+        shown = mistake;
+        extrasHtml = null;
+        statusLabel.setText("");
+        thumbnailsBox.getChildren().clear();
+        updateThumbnailsVisibility();
+        ((Stage) webView.getScene().getWindow()).setTitle(mistake.title);
+
+        if (sections != null) {
+            load(mistake, sections);
+        } else {
+            load(mistake, "<p class=\"pending\">Rendering…</p>");
+            DetailsRenderCache.get().render(mistake, () -> request == token, html -> {
+                if (request == token) load(mistake, html);
+            });
+        }
+        loadExtras(token);
+    }
+
+    // Shows a mistake that has to be read first. Reading and rendering happen on the render thread,
+    // and a version rendered before is taken from the cache. onLoaded gets the mistake as read.
+    void show(int mistakeId, Consumer<Mistake> onLoaded) {
+        int token = ++request;
+        statusLabel.setText("Loading mistake...");
+        DetailsRenderCache.get().load(mistakeId, () -> request == token, (mistake, sections) -> {
+            if (request != token) return;
+            if (mistake == null) {
+                statusLabel.setText("This mistake no longer exists");
+                return;
+            }
+            onLoaded.accept(mistake);
+            show(mistake, sections);
+        }, e -> {
+            if (request == token) statusLabel.setText("Error loading mistake: " + e.getMessage());
+        });
+    }
+
+    // Reads the shown mistake again, off the FX thread; it stays as it is if it is gone
+    private void reload(int mistakeId) {
+        int token = request;
+        AppServices.background().submit(() -> {
+            try {
+                List<Mistake> found = MistakeDao.findByIds(List.of(mistakeId));
+                Platform.runLater(() -> {
+                    if (request == token && !found.isEmpty()) show(found.get(0));
+                });
+            } catch (SQLException e) {
+                Platform.runLater(() -> statusLabel.setText("Error reloading mistake: " + e.getMessage()));
+            }
+        });
+    }
+
+    private void load(Mistake mistake, String sections) {
+        pageLoaded = false;
+        engine.loadContent(page(mistake, sections));
+    }
+
+    private static String page(Mistake mistake, String sections) {
+        StringBuilder html = new StringBuilder(sections.length() + 2048);
+        html.append("<!DOCTYPE html><html><head><meta charset=\"UTF-8\"><style>").append(STYLE)
+            .append("</style></head><body>\n");
+        html.append("<h1>").append(MarkdownRenderer.escape(mistake.title)).append("</h1>\n<div class=\"meta\">");
+        meta(html, "Subject", mistake.subjectName);
+        meta(html, "Category", mistake.categoryName);
+        meta(html, "Difficulty", mistake.difficultyLevel);
+        meta(html, "Source", mistake.source);
+        meta(html, "Reviews", String.valueOf(mistake.reviewCount));
+        html.append("</div>\n");
+        List<String> tags = MistakeDao.splitTags(mistake.tags);
+        if (!tags.isEmpty()) {
+            html.append("<div class=\"meta\">");
+            for (String tag : tags) {
+                html.append("<span class=\"tag\">").append(MarkdownRenderer.escape(tag)).append("</span>");
+            }
+            html.append("</div>\n");
+        }
+        html.append(sections).append("<div id=\"extras\"></div>\n</body></html>");
+        return html.toString();
+    }
+
+    private static void meta(StringBuilder html, String label, String value) {
+        if (value == null || value.isEmpty()) return;
+        html.append("<span><b>").append(label).append(":</b> ").append(MarkdownRenderer.escape(value)).append("</span>");
+    }
+
+    // Attachments and related mistakes; the details still show without them
+    private void loadExtras(int token) {
+        int mistakeId = shown.id;
+        AppServices.background().submit(() -> {
+            if (request != token) return;
+            List<Attachment> attachments = List.of();
+            List<Mistake> related = List.of();
+            try {
+                attachments = AttachmentDao.findByMistake(mistakeId);
+            } catch (SQLException e) {
+                System.err.println("Could not load attachments: " + e.getMessage());
+            }
+            try {
+                related = MistakeDao.findRelated(mistakeId, 5);
+            } catch (SQLException e) {
+                System.err.println("Could not load related mistakes: " + e.getMessage());
+            }
+            List<Attachment> loadedAttachments = attachments;
+            List<Mistake> loadedRelated = related;
+            Platform.runLater(() -> {
+                if (request == token) showExtras(loadedAttachments, loadedRelated);
+            });
+        });
+    }
+
+    private void showExtras(List<Attachment> attachments, List<Mistake> related) {
+        StringBuilder html = new StringBuilder();
+        thumbnailsBox.getChildren().clear();
+        if (!attachments.isEmpty()) {
+            html.append("<h2>Attachments</h2><ul>");
+            for (Attachment attachment : attachments) {
+                html.append("<li>").append(MarkdownRenderer.escape(attachment.displayText())).append("</li>");
+                // Images show as thumbnails under the page that open full size
+                if (attachment.isImage()) {
+                    thumbnailsBox.getChildren().add(thumbnailOf(attachment));
+                }
+            }
+            html.append("</ul>");
+        }
+        if (!related.isEmpty()) {
+            html.append("<h2>Related Mistakes</h2><ul>");
+            for (Mistake mistake : related) {
+                html.append("<li>").append(MarkdownRenderer.escape(mistake.title)).append(" (")
+                    .append(MarkdownRenderer.escape(mistake.subjectName)).append(")</li>");
+            }
+            html.append("</ul>");
+        }
+        updateThumbnailsVisibility();
+        extrasHtml = html.toString();
+        injectExtras();
+    }
+
+    // The page may still be loading; then this runs again once it has
+    private void injectExtras() {
+        if (!pageLoaded || extrasHtml == null || extrasHtml.isEmpty()) return;
+        engine.executeScript("document.getElementById('extras').innerHTML = " + Json.write(extrasHtml));
+    }
+
+    private void updateThumbnailsVisibility() {
+        boolean any = !thumbnailsBox.getChildren().isEmpty();
+        thumbnailsBox.setVisible(any);
+        thumbnailsBox.setManaged(any);
+    }
+
+    private StackPane thumbnailOf(Attachment attachment) {
+        ImageView view = new ImageView();
+        view.setImage(ThumbnailCache.get().get(attachment.sha256, ThumbnailCache.DETAILS_SIZE, view::setImage));
+        StackPane frame = new StackPane(view);
+        frame.setMinSize(ThumbnailCache.DETAILS_SIZE, ThumbnailCache.DETAILS_SIZE);
+        frame.setStyle("-fx-cursor: hand;");
+        Tooltip.install(frame, new Tooltip(attachment.displayText()));
+        frame.setOnMouseClicked(e -> openImage(attachment));
+        return frame;
+    }
+
+    // Full-size images are only decoded when opened, off the FX thread
+    private void openImage(Attachment attachment) {
+        AppServices.background().submit(() -> {
+            try {
+                Image image = ThumbnailCache.loadFull(attachment.sha256);
+                Platform.runLater(() -> {
+                    ImageView view = new ImageView(image);
+                    view.setPreserveRatio(true);
+                    ScrollPane pane = new ScrollPane(view);
+                    Stage stage = new Stage();
+                    stage.setTitle(attachment.fileName);
+                    stage.setScene(new Scene(pane, Math.min(image.getWidth() + 20, 1200),
+                        Math.min(image.getHeight() + 20, 900)));
+                    stage.show();
+                });
+            } catch (IOException e) {
+                Platform.runLater(() -> statusLabel.setText("Error opening attachment: " + e.getMessage()));
+            }
+        });
+    }
+
+    private static String loadStyle() {
+        try (InputStream in = MistakeDetailsController.class.getResourceAsStream("mistake-details.css")) {
+            return in == null ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Could not load details style: " + e.getMessage());
+            return "";
+        }
+    }
+
+    @FXML
+    protected void onCloseClick() {
+        Stage stage = (Stage) closeBtn.getScene().getWindow();
+        stage.close();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.mistakemanagement;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+// The changes an edit makes to a saved mistake: only the fields that differ from the version the
+// form loaded, and the tags to link and unlink. MistakeDao.update writes exactly these, and only
+// if the row is still at that version.
+public class MistakeEdit {
+    // Editable fields, by their Mistake / JSON name
+    static final String TITLE = "title";
+    static final String DESCRIPTION = "description";
+    static final String CORRECT_ANSWER = "correctAnswer";
+    static final String YOUR_ANSWER = "yourAnswer";
+    static final String EXPLANATION = "explanation";
+    static final String DIFFICULTY = "difficultyLevel";
+    static final String SOURCE = "source";
+    static final String SUBJECT = "subjectName";
+    static final String CATEGORY = "categoryName";
+
+    int mistakeId;
+    int version;
+    // Changed field -> new value; null clears an optional field
+    final Map<String, String> fields = new LinkedHashMap<>();
+    final List<String> addedTags = new ArrayList<>();
+    final List<String> removedTags = new ArrayList<>();
+
+    static MistakeEdit between(Mistake original, Mistake edited, String tags) {
+        MistakeEdit edit = new MistakeEdit();
+        edit.mistakeId = original.id;
+        edit.version = original.version;
+        edit.compare(TITLE, original.title, edited.title);
+        edit.compare(DESCRIPTION, original.description, edited.description);
+        edit.compare(CORRECT_ANSWER, original.correctAnswer, edited.correctAnswer);
+        edit.compare(YOUR_ANSWER, original.yourAnswer, edited.yourAnswer);
+        edit.compare(EXPLANATION, original.explanation, edited.explanation);
+        edit.compare(DIFFICULTY, original.difficultyLevel, edited.difficultyLevel);
+        edit.compare(SOURCE, original.source, edited.source);
+        edit.compare(SUBJECT, original.subjectName, edited.subjectName);
+        edit.compare(CATEGORY, original.categoryName, edited.categoryName);
+
+        // Tag names are matched without case, like the tags table does
+        Set<String> before = lowerCase(MistakeDao.splitTags(original.tags));
+        Set<String> after = lowerCase(MistakeDao.splitTags(tags));
+        for (String tag : MistakeDao.splitTags(tags)) {
+            if (!before.contains(tag.toLowerCase(Locale.ROOT))) edit.addedTags.add(tag);
+        }
+        for (String tag : MistakeDao.splitTags(original.tags)) {
+            if (!after.contains(tag.toLowerCase(Locale.ROOT))) edit.removedTags.add(tag);
+        }
+        return edit;
+    }
+
+    boolean isEmpty() {
+        return fields.isEmpty() && addedTags.isEmpty() && removedTags.isEmpty();
+    }
+
+    boolean changesAny(String... names) {
+        for (String name : names) {
+            if (fields.containsKey(name)) return true;
+        }
+        return false;
+    }
+
+    // The form gives "" for an empty field where the row may hold NULL; both mean no value
+    private void compare(String name, String before, String after) {
+        String normalizedBefore = before == null || before.isEmpty() ? null : before;
+        String normalizedAfter = after == null || after.isEmpty() ? null : after;
+        if (!Objects.equals(normalizedBefore, normalizedAfter)) {
+            fields.put(name, normalizedAfter);
+        }
+    }
+
+    private static Set<String> lowerCase(List<String> tags) {
+        Set<String> lower = new TreeSet<>();
+        for (String tag : tags) {
+            lower.add(tag.toLowerCase(Locale.ROOT));
+        }
+        return lower;
+    }
+
+    Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("version", version);
+        json.put("fields", new LinkedHashMap<String, Object>(fields));
+        json.put("addedTags", new ArrayList<Object>(addedTags));
+        json.put("removedTags", new ArrayList<Object>(removedTags));
+        return json;
+    }
+
+    @SuppressWarnings("unchecked")
+    static MistakeEdit fromJson(int mistakeId, Map<String, Object> json) {
+        MistakeEdit edit = new MistakeEdit();
+        edit.mistakeId = mistakeId;
+        edit.version = ((Number) json.get("version")).intValue();
+        Map<String, Object> fields = (Map<String, Object>) json.getOrDefault("fields", Map.of());
+        fields.forEach((name, value) -> edit.fields.put(name, (String) value));
+        for (Object tag : (List<Object>) json.getOrDefault("addedTags", List.of())) {
+            edit.addedTags.add((String) tag);
+        }
+        for (Object tag : (List<Object>) json.getOrDefault("removedTags", List.of())) {
+            edit.removedTags.add((String) tag);
+        }
+        return edit;
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.mistakemanagement;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compact in-memory table of the mistakes behind a list view.
+//
+// Each field is a primitive column indexed by row. Subject, category and difficulty are stored as
+// dictionary codes, and the title is the only text kept resident. The long text fields are fetched
+// when a mistake is opened and held by SoftReference, so the GC can drop them under pressure.
+// Subjects are coded by id rather than name, since a new subject may reuse a deleted one's name.
+//
+// Rows are kept in ascending id order, so a row is found by binary search and the newest mistakes
+// are at the end. Rows of a deleted subject are only flagged as hidden, so an undo just clears the
+// flag. A TrigramIndex over titles, subjects and categories backs the fuzzy search, and a
+// FacetIndex backs the facet filters. Descriptions are not part of the summary rows: a second
+// TrigramIndex over them is built off the FX thread (see startDescriptions) and kept current by
+// add() and update(), and backs the description part of the plain search.
+// Not thread-safe; used from the FX thread.
+public class MistakeStore {
+    private static final byte REVIEWED = 1;
+    private static final byte HIDDEN = 2;
+
+    private final Map<Integer, Integer> subjectCodeById = new HashMap<>();
+    private int[] subjectIdByCode = new int[16];
+    private String[] subjectNameByCode = new String[16];
+    private final StringDictionary categories = new StringDictionary();
+    private final StringDictionary difficulties = new StringDictionary();
+
+    private int size;
+    private int[] ids = new int[0];
+    private int[] subjectCodes = new int[0];
+    private int[] categoryCodes = new int[0];
+    private byte[] difficultyCodes = new byte[0];
+    private int[] reviewCounts = new int[0];
+    private byte[] flags = new byte[0];
+    private String[] titles = new String[0];
+
+    private final Map<Integer, SoftReference<Mistake>> details = new HashMap<>();
+    private TrigramIndex words = new TrigramIndex();
+    private TrigramIndex descriptions = new TrigramIndex();
+    // Descriptions added or edited while a new description index is built; replayed onto it
+    private Map<Integer, String> pendingDescriptions;
+    private int descriptionBuild;
+    private FacetIndex facets = new FacetIndex();
+
+    // Replaces the contents with the given rows; only their list fields are kept
+    public void load(List<Mistake> mistakes) {
+        size = 0;
+        details.clear();
+        words = new TrigramIndex();
+        descriptions = new TrigramIndex();
+        pendingDescriptions = null;
+        descriptionBuild++;
+        facets = new FacetIndex();
+        ensureCapacity(mistakes.size());
+        mistakes.sort((a, b) -> Integer.compare(a.id, b.id));
+        for (Mistake mistake : mistakes) {
+            write(size++, mistake);
+            index(mistake);
+            facets.add(mistake);
+        }
+    }
+
+    // Adds a mistake, or shows it again if it was hidden. Returns false if it is already visible.
+    public boolean add(Mistake mistake) {
+        int found = Arrays.binarySearch(ids, 0, size, mistake.id);
+        if (found >= 0) {
+            if ((flags[found] & HIDDEN) == 0) return false;
+            flags[found] &= ~HIDDEN;
+            facets.setHidden(mistake.id, false);
+            return true;
+        }
+
+        int row = -found - 1;
+        ensureCapacity(size + 1);
+        if (row < size) {
+            shift(row);
+        }
+        write(row, mistake);
+        size++;
+        index(mistake);
+        if (mistake.description != null) {
+            indexDescription(mistake.id, mistake.description);
+        }
+        facets.add(mistake);
+        if (mistake.correctAnswer != null) {
+            details.put(mistake.id, new SoftReference<>(mistake));
+        }
+        return true;
+    }
+
+    // Replaces a row's fields with the edited mistake; returns false if the row is not here.
+    // A hidden row stays hidden.
+    public boolean update(Mistake mistake) {
+        int row = rowOf(mistake.id);
+        if (row < 0) return false;
+        byte hidden = (byte) (flags[row] & HIDDEN);
+        write(row, mistake);
+        flags[row] |= hidden;
+        index(mistake);
+        // An edit carries the whole mistake, so a null description was cleared
+        indexDescription(mistake.id, mistake.description);
+        facets.remove(mistake.id);
+        facets.add(mistake);
+        facets.setHidden(mistake.id, hidden != 0);
+        details.put(mistake.id, new SoftReference<>(mistake));
+        return true;
+    }
+
+    public boolean contains(int id) {
+        int row = rowOf(id);
+        return row >= 0 && (flags[row] & HIDDEN) == 0;
+    }
+
+    public void setReviewed(int id, int reviewCount) {
+        int row = rowOf(id);
+        if (row < 0) return;
+        flags[row] |= REVIEWED;
+        reviewCounts[row] = reviewCount;
+        facets.setReviewed(id);
+        Mistake cached = cachedDetails(id);
+        if (cached != null) {
+            cached.isReviewed = true;
+            cached.reviewCount = reviewCount;
+        }
+    }
+
+    // Hides or shows every row of a subject; returns how many rows changed
+    public int setSubjectHidden(int subjectId, boolean hidden) {
+        int changed = 0;
+        for (int row = 0; row < size; row++) {
+            if (subjectIdByCode[subjectCodes[row]] != subjectId) continue;
+            boolean isHidden = (flags[row] & HIDDEN) != 0;
+            if (isHidden != hidden) {
+                flags[row] ^= HIDDEN;
+                facets.setHidden(ids[row], hidden);
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    public FacetIndex facets() {
+        return facets;
+    }
+
+    public int subjectIdOf(int id) {
+        int row = rowOf(id);
+        return row < 0 ? -1 : subjectIdByCode[subjectCodes[row]];
+    }
+
+    public String displayText(int id) {
+        int row = rowOf(id);
+        if (row < 0) return "";
+        return Mistake.displayText((flags[row] & REVIEWED) != 0, titles[row], subjectNameByCode[subjectCodes[row]],
+            difficulties.decode(difficultyCodes[row]), categories.decode(categoryCodes[row]));
+    }
+
+    // Starts a new description index, which the caller fills off the FX thread and hands to
+    // finishDescriptions with the returned build number. Until then searches use the old one.
+    public int startDescriptions() {
+        pendingDescriptions = new HashMap<>();
+        return ++descriptionBuild;
+    }
+
+    // Swaps in a filled description index, unless a later load or build has replaced this one
+    public void finishDescriptions(int build, TrigramIndex built) {
+        if (build != descriptionBuild) return;
+        pendingDescriptions.forEach(built::add);
+        descriptions = built;
+        pendingDescriptions = null;
+    }
+
+    // The full mistake if it is still in the soft cache; otherwise read it off the FX thread and
+    // hand it to remember()
+    public Mistake details(int id) {
+        return cachedDetails(id);
+    }
+
+    public void remember(Mistake mistake) {
+        if (rowOf(mistake.id) >= 0) {
+            details.put(mistake.id, new SoftReference<>(mistake));
+        }
+    }
+
+    // Fills target with the ids of visible rows in the subject (null for all) whose title, subject
+    // or category contains search, or whose words contain each word of it (which is how the
+    // description is searched), newest first. allowed, if not null, limits it to those ids.
+    public void filter(String subjectName, String search, RoaringBitmap allowed, IntObservableList target) {
+        Search query = new Search(search);
+
+        int[] result = new int[size];
+        int count = 0;
+        for (int row = size - 1; row >= 0; row--) {
+            if ((flags[row] & HIDDEN) != 0) continue;
+            if (subjectName != null && !subjectName.equals(subjectNameByCode[subjectCodes[row]])) continue;
+            if (allowed != null && !allowed.contains(ids[row])) continue;
+            if (query.matches(row)) {
+                result[count++] = ids[row];
+            }
+        }
+        target.setAll(result, count);
+    }
+
+    // Like filter, but tolerates typos: every word of search must be within a couple of edits of a
+    // word in the title, subject or category. Closest matches first, then newest.
+    public void filterFuzzy(String subjectName, String search, RoaringBitmap allowed, IntObservableList target) {
+        Map<Integer, Integer> scores = words.search(search);
+        if (scores == null) {
+            // Nothing long enough to match loosely
+            filter(subjectName, search, allowed, target);
+            return;
+        }
+
+        // Sort key: distance in the high bits, newer (larger) ids first in the low bits
+        long[] keys = new long[scores.size()];
+        int count = 0;
+        for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+            int row = rowOf(entry.getKey());
+            if (row < 0 || (flags[row] & HIDDEN) != 0) continue;
+            if (subjectName != null && !subjectName.equals(subjectNameByCode[subjectCodes[row]])) continue;
+            if (allowed != null && !allowed.contains(entry.getKey())) continue;
+            keys[count++] = (long) entry.getValue() << 32 | (Integer.MAX_VALUE - entry.getKey());
+        }
+        Arrays.sort(keys, 0, count);
+
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = Integer.MAX_VALUE - (int) keys[i];
+        }
+        target.setAll(result, count);
+    }
+
+    public boolean matches(int id, String subjectName, String search, RoaringBitmap allowed) {
+        int row = rowOf(id);
+        if (row < 0 || (flags[row] & HIDDEN) != 0) return false;
+        if (allowed != null && !allowed.contains(id)) return false;
+        if (subjectName != null && !subjectName.equals(subjectNameByCode[subjectCodes[row]])) return false;
+        return new Search(search).matches(row);
+    }
+
+    private int rowOf(int id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        return row >= 0 ? row : -1;
+    }
+
+    private Mistake cachedDetails(int id) {
+        SoftReference<Mistake> ref = details.get(id);
+        Mistake mistake = ref != null ? ref.get() : null;
+        if (ref != null && mistake == null) {
+            details.remove(id);
+        }
+        return mistake;
+    }
+
+    private void index(Mistake mistake) {
+        words.add(mistake.id, mistake.title, mistake.subjectName, mistake.categoryName);
+    }
+
+    // The description only goes into its word index; it is not kept
+    private void indexDescription(int id, String description) {
+        descriptions.add(id, description);
+        if (pendingDescriptions != null) {
+            pendingDescriptions.put(id, description);
+        }
+    }
+
+    private void write(int row, Mistake mistake) {
+        ids[row] = mistake.id;
+        subjectCodes[row] = subjectCode(mistake.subjectId, mistake.subjectName);
+        categoryCodes[row] = categories.encode(mistake.categoryName);
+        difficultyCodes[row] = (byte) difficulties.encode(mistake.difficultyLevel);
+        reviewCounts[row] = mistake.reviewCount;
+        flags[row] = mistake.isReviewed ? REVIEWED : 0;
+        titles[row] = mistake.title;
+    }
+
+    private int subjectCode(int subjectId, String subjectName) {
+        Integer code = subjectCodeById.get(subjectId);
+        if (code == null) {
+            code = subjectCodeById.size();
+            if (code == subjectIdByCode.length) {
+                subjectIdByCode = Arrays.copyOf(subjectIdByCode, code * 2);
+                subjectNameByCode = Arrays.copyOf(subjectNameByCode, code * 2);
+            }
+            subjectCodeById.put(subjectId, code);
+            subjectIdByCode[code] = subjectId;
+        }
+        subjectNameByCode[code] = subjectName;
+        return code;
+    }
+
+    private void shift(int row) {
+        int moved = size - row;
+        System.arraycopy(ids, row, ids, row + 1, moved);
+        System.arraycopy(subjectCodes, row, subjectCodes, row + 1, moved);
+        System.arraycopy(categoryCodes, row, categoryCodes, row + 1, moved);
+        System.arraycopy(difficultyCodes, row, difficultyCodes, row + 1, moved);
+        System.arraycopy(reviewCounts, row, reviewCounts, row + 1, moved);
+        System.arraycopy(flags, row, flags, row + 1, moved);
+        System.arraycopy(titles, row, titles, row + 1, moved);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+        int grown = Math.max(capacity, ids.length + (ids.length >> 1) + 16);
+        ids = Arrays.copyOf(ids, grown);
+        subjectCodes = Arrays.copyOf(subjectCodes, grown);
+        categoryCodes = Arrays.copyOf(categoryCodes, grown);
+        difficultyCodes = Arrays.copyOf(difficultyCodes, grown);
+        reviewCounts = Arrays.copyOf(reviewCounts, grown);
+        flags = Arrays.copyOf(flags, grown);
+        titles = Arrays.copyOf(titles, grown);
+    }
+
+    // Case-insensitive search over the title and the subject and category names, and through the
+    // word index over the description. The names are matched once per dictionary entry and the
+    // words once per vocabulary entry, instead of once per row.
+    private class Search {
+        private final String text;
+        private final boolean[] subjectHits;
+        private final boolean[] categoryHits;
+        private final RoaringBitmap wordHits;
+
+        Search(String search) {
+            text = search == null ? "" : search;
+            subjectHits = new boolean[subjectCodeById.size()];
+            for (int code = 0; code < subjectHits.length; code++) {
+                subjectHits[code] = containsIgnoreCase(subjectNameByCode[code], text);
+            }
+            categoryHits = new boolean[categories.size()];
+            for (int code = 0; code < categoryHits.length; code++) {
+                categoryHits[code] = containsIgnoreCase(categories.decode(code), text);
+            }
+            wordHits = text.isEmpty() ? null : descriptions.containing(text);
+        }
+
+        boolean matches(int row) {
+            if (text.isEmpty()) return true;
+            int categoryCode = categoryCodes[row];
+            return subjectHits[subjectCodes[row]]
+                || (categoryCode >= 0 && categoryHits[categoryCode])
+                || containsIgnoreCase(titles[row], text)
+                || (wordHits != null && wordHits.contains(ids[row]));
+        }
+    }
+
+    // Like toLowerCase().contains() without allocating a lowercase copy
+    private static boolean containsIgnoreCase(String value, String text) {
+        if (value == null) return false;
+        int last = value.length() - text.length();
+        for (int i = 0; i <= last; i++) {
+            if (value.regionMatches(true, i, text, 0, text.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
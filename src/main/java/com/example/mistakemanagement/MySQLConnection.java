@@ -1,31 +1,155 @@
 package com.example.mistakemanagement;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+// Connections to the primary database and, if configured, to read replicas.
+//
+// Writes, and reads that must see them, use getConnection() (the primary). List loads, filters and
+// stats use getReadConnection(), which spreads them over the replicas listed in mistakes.db.replicas
+// (comma-separated JDBC URLs, same user and password), round robin. A replica that cannot be reached
+// is skipped for a while, and with none left reads go to the primary. Replication lags, so a session
+// that just wrote (or just saw another client's change) reads from the primary for READ_PIN_MS:
+// every write path records a change, and ChangeLog.record pins the session that made it. Sessions
+// are the ChangeLog origin, so the API server pins each remote client on its own. To try it locally,
+// run a second MySQL instance replicating from the first and pass
+// -Dmistakes.db.replicas=jdbc:mysql://localhost:3307/mistake_management.
 public class MySQLConnection {
 
-    
-    private static final String URL = "jdbc:mysql://localhost:3306/mistake_management";
-    private static final String USERNAME = "root";
-    private static final String PASSWORD = "H&h111213"; // Change this to your MySQL password
-    
+    // Each setting can be overridden with a -D system property or an environment variable
+    private static final String URL = setting("mistakes.db.url", "MISTAKES_DB_URL",
+        "jdbc:mysql://localhost:3306/mistake_management");
+    private static final String USERNAME = setting("mistakes.db.user", "MISTAKES_DB_USER", "root");
+    private static final String PASSWORD = setting("mistakes.db.password", "MISTAKES_DB_PASSWORD",
+        "H&h111213"); // Change this to your MySQL password
+    private static final int POOL_SIZE = Integer.parseInt(setting("mistakes.db.poolSize", "MISTAKES_DB_POOL_SIZE", "10"));
+
+    private static final String REPLICA_URLS = setting("mistakes.db.replicas", "MISTAKES_DB_REPLICAS", "");
+    private static final long READ_PIN_MS =
+        Long.parseLong(setting("mistakes.db.readPinMs", "MISTAKES_DB_READ_PIN_MS", "5000"));
+    private static final long REPLICA_RETRY_MS = 30_000;
+
+    private static final ConnectionPool POOL = new ConnectionPool(URL, USERNAME, PASSWORD, POOL_SIZE);
+    private static final List<ConnectionPool> REPLICAS = replicaPools();
+    // Per replica, until when it is skipped after failing to connect
+    private static final AtomicLongArray REPLICA_DOWN_UNTIL = new AtomicLongArray(REPLICAS.size());
+    private static final AtomicInteger NEXT_REPLICA = new AtomicInteger();
+    // Session (ChangeLog origin) -> until when its reads go to the primary
+    private static final Map<String, Long> PINNED_UNTIL = new ConcurrentHashMap<>();
+    // Set while filling something every session reads, like the API server's response cache: a
+    // replica that lags would hand its stale rows to everyone, not just the session that asked
+    static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    // The primary, for writes and for reads inside a write. Fails at once while ConnectionHealth
+    // has the circuit open.
     public static Connection getConnection() throws SQLException {
+        ConnectionHealth health = ConnectionHealth.get();
+        health.check();
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            return DriverManager.getConnection(URL, USERNAME, PASSWORD);
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("MySQL Driver not found", e);
+            Connection conn = POOL.borrow();
+            health.recordSuccess();
+            return conn;
+        } catch (SQLException e) {
+            if (ConnectionHealth.isConnectionFailure(e)) {
+                health.recordFailure(e);
+            }
+            throw e;
         }
     }
-    
-    public static boolean testConnection() {
-        try (Connection conn = getConnection()) {
-            return conn != null && !conn.isClosed();
-        } catch (SQLException e) {
-            System.err.println("Connection failed: " + e.getMessage());
-            return false;
+
+    // A round trip to the primary for ConnectionHealth, past the circuit breaker
+    static void probe() throws SQLException {
+        try (Connection conn = POOL.borrow();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("SELECT 1");
+        }
+    }
+
+    // A read-only connection to a replica, or to the primary if there are none, none can be
+    // reached, this session is pinned to the primary after a write, or PRIMARY_READS is set
+    public static Connection getReadConnection() throws SQLException {
+        if (REPLICAS.isEmpty() || isPinned() || Boolean.TRUE.equals(PRIMARY_READS.get())) {
+            return getConnection();
+        }
+        int start = Math.floorMod(NEXT_REPLICA.getAndIncrement(), REPLICAS.size());
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < REPLICAS.size(); i++) {
+            int replica = (start + i) % REPLICAS.size();
+            if (REPLICA_DOWN_UNTIL.get(replica) > now) continue;
+            try {
+                Connection conn = REPLICAS.get(replica).borrow();
+                conn.setReadOnly(true);
+                return conn;
+            } catch (SQLException e) {
+                System.err.println("Replica " + (replica + 1) + " unavailable, skipping it for now: " + e.getMessage());
+                REPLICA_DOWN_UNTIL.set(replica, now + REPLICA_RETRY_MS);
+            }
+        }
+        return getConnection();
+    }
+
+    // Sends this session's reads to the primary until replicas have had time to catch up
+    static void pinReads() {
+        if (REPLICAS.isEmpty()) return;
+        PINNED_UNTIL.put(ChangeLog.ORIGIN.get(), System.currentTimeMillis() + READ_PIN_MS);
+    }
+
+    private static boolean isPinned() {
+        String session = ChangeLog.ORIGIN.get();
+        Long until = PINNED_UNTIL.get(session);
+        if (until == null) return false;
+        if (until > System.currentTimeMillis()) return true;
+        PINNED_UNTIL.remove(session, until);
+        return false;
+    }
+
+    private static List<ConnectionPool> replicaPools() {
+        List<ConnectionPool> pools = new ArrayList<>();
+        for (String url : REPLICA_URLS.split(",")) {
+            if (!url.isBlank()) {
+                pools.add(new ConnectionPool(url.trim(), USERNAME, PASSWORD, POOL_SIZE));
+            }
+        }
+        return pools;
+    }
+
+    public static void shutdown() {
+        POOL.shutdown();
+        REPLICAS.forEach(ConnectionPool::shutdown);
+    }
+
+    // MySQL named locks let one client at a time run a background job. The lock belongs to the
+    // connection, so hold on to it until releaseLock (or until the connection closes).
+    static boolean tryLock(Connection conn, String name) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    static void releaseLock(Connection conn, String name) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, name);
+            stmt.executeQuery().close();
+        }
+    }
+
+    static String setting(String property, String envVar, String defaultValue) {
+        String value = System.getProperty(property);
+        if (value == null || value.isEmpty()) {
+            value = System.getenv(envVar);
         }
+        return value == null || value.isEmpty() ? defaultValue : value;
     }
 }
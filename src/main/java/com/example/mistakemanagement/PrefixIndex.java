@@ -0,0 +1,127 @@
+package com.example.mistakemanagement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+// Case-insensitive prefix trie for type-ahead suggestions. Every node keeps the TOP_K most used
+// terms below it, so a lookup is a walk down the prefix plus a copy of that list, independent of
+// how many terms there are. Changing a term's count only re-ranks the nodes on its own path.
+// Thread-safe; suggestion popups query it from a background thread.
+public class PrefixIndex {
+    static final int TOP_K = 10;
+
+    private static final Comparator<Node> BY_USAGE = (a, b) -> a.count != b.count
+        ? Integer.compare(b.count, a.count)
+        : a.term.compareToIgnoreCase(b.term);
+    private static final Node[] NO_NODES = new Node[0];
+
+    private final Node root = new Node();
+
+    // Adds a term, or adds delta to its usage count if it is already there
+    public synchronized void add(String term, int delta) {
+        String key = key(term);
+        if (key.isEmpty()) return;
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            path[i + 1] = node;
+        }
+        if (node.term == null) {
+            node.term = term.trim();
+        }
+        node.count = Math.max(0, node.count + delta);
+        rerank(path);
+    }
+
+    // Returns the removed term's usage count, or -1 if it was not there
+    public synchronized int remove(String term) {
+        String key = key(term);
+        if (key.isEmpty()) return -1;
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.child(key.charAt(i));
+            if (node == null) return -1;
+            path[i + 1] = node;
+        }
+        if (node.term == null) return -1;
+        int count = node.count;
+        node.term = null;
+        node.count = 0;
+        rerank(path);
+        return count;
+    }
+
+    // The most used terms starting with prefix, best first
+    public synchronized List<String> suggest(String prefix, int limit) {
+        String key = key(prefix);
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        List<String> terms = new ArrayList<>();
+        if (node == null) return terms;
+        for (int i = 0; i < node.top.length && terms.size() < limit; i++) {
+            terms.add(node.top[i].term);
+        }
+        return terms;
+    }
+
+    // Rebuilds each node's top list from its own term and its children's lists, leaf first
+    private static void rerank(Node[] path) {
+        for (int i = path.length - 1; i >= 0; i--) {
+            Node node = path[i];
+            List<Node> candidates = new ArrayList<>();
+            if (node.term != null) {
+                candidates.add(node);
+            }
+            for (Node child : node.children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(BY_USAGE);
+            node.top = candidates.subList(0, Math.min(TOP_K, candidates.size())).toArray(NO_NODES);
+        }
+    }
+
+    private static String key(String term) {
+        return term == null ? "" : term.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Node {
+        // Children sorted by key character, searched with a binary search
+        char[] keys = new char[0];
+        Node[] children = NO_NODES;
+        String term;
+        int count;
+        Node[] top = NO_NODES;
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) return children[index];
+            int insert = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            Node child = new Node();
+            newKeys[insert] = c;
+            newChildren[insert] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+}
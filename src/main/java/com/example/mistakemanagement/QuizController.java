@@ -0,0 +1,354 @@
+package com.example.mistakemanagement;
+
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class QuizController {
+    // Questions whose full text is fetched ahead of the one on screen
+    private static final int PREFETCH = 3;
+
+    @FXML
+    private ComboBox<String> subjectCombo;
+
+    @FXML
+    private TextField tagField;
+
+    @FXML
+    private Spinner<Integer> questionCountSpinner;
+
+    @FXML
+    private Button startBtn;
+
+    @FXML
+    private Label progressLabel;
+
+    @FXML
+    private Label questionTitleLabel;
+
+    @FXML
+    private TextArea questionArea;
+
+    @FXML
+    private VBox answerBox;
+
+    @FXML
+    private TextArea answerArea;
+
+    @FXML
+    private Button showAnswerBtn;
+
+    @FXML
+    private Button markReviewedBtn;
+
+    @FXML
+    private Button nextBtn;
+
+    @FXML
+    private Button closeBtn;
+
+    @FXML
+    private Label statusLabel;
+
+    private final QuizSampler sampler = new QuizSampler();
+    // Events that arrive while the candidates load are applied once they are in
+    private List<DomainEvent> missedEvents = new ArrayList<>();
+    private final Map<String, Integer> subjectIds = new HashMap<>();
+    private final List<EventBus.Subscription> subscriptions = new ArrayList<>();
+
+    private int[] questions = new int[0];
+    private int current = -1;
+    // Bumped per candidate load, so an earlier load that finishes late is dropped
+    private int candidateLoad;
+    private Mistake shown;
+    private final Map<Integer, CompletableFuture<Mistake>> prefetched = new HashMap<>();
+
+    @FXML
+    public void initialize() {
+        questionCountSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 50, 10));
+        showQuestion(null);
+        startBtn.setDisable(true);
+        loadSubjects();
+
+        EventBus bus = EventBus.get();
+        subscriptions.add(bus.subscribe(DomainEvent.MistakeCreated.class, this::onEvent));
+        subscriptions.add(bus.subscribe(DomainEvent.MistakeUpdated.class, this::onEvent));
+        subscriptions.add(bus.subscribe(DomainEvent.MistakeReviewed.class, this::onEvent));
+        subscriptions.add(bus.subscribe(DomainEvent.SubjectAdded.class, this::onEvent));
+        subscriptions.add(bus.subscribe(DomainEvent.SubjectDeleted.class, this::onEvent));
+        subscriptions.add(bus.subscribe(DomainEvent.SubjectRestored.class, this::onEvent));
+        subscriptions.add(bus.subscribe(DomainEvent.DataReloaded.class, this::onEvent));
+        loadCandidates();
+    }
+
+    void dispose() {
+        subscriptions.forEach(EventBus.Subscription::cancel);
+        subscriptions.clear();
+        prefetched.values().forEach(future -> future.cancel(true));
+    }
+
+    private void loadSubjects() {
+        try {
+            subjectCombo.getItems().setAll("All Subjects");
+            for (Subject subject : SubjectDao.findAll()) {
+                subjectIds.put(subject.name, subject.id);
+                subjectCombo.getItems().add(subject.name);
+            }
+            subjectCombo.setValue("All Subjects");
+        } catch (SQLException e) {
+            statusLabel.setText("Error loading subjects: " + e.getMessage());
+        }
+    }
+
+    // Only the weighting fields, fetched off the FX thread
+    private void loadCandidates() {
+        statusLabel.setText("Loading mistakes...");
+        int token = ++candidateLoad;
+        AppServices.background().submit(() -> {
+            try {
+                List<Mistake> candidates = MistakeDao.findQuizCandidates();
+                Platform.runLater(() -> {
+                    if (token != candidateLoad) return;
+                    sampler.load(candidates);
+                    missedEvents.forEach(this::apply);
+                    missedEvents = null;
+                    startBtn.setDisable(false);
+                    statusLabel.setText("");
+                });
+            } catch (SQLException e) {
+                Platform.runLater(() -> statusLabel.setText("Error loading mistakes: " + e.getMessage()));
+            }
+        });
+    }
+
+    private void onEvent(DomainEvent event) {
+        // A load still running may predate the reload, so it is started over rather than queued behind
+        if (missedEvents != null && !(event instanceof DomainEvent.DataReloaded)) {
+            missedEvents.add(event);
+        } else {
+            apply(event);
+        }
+    }
+
+    private void apply(DomainEvent event) {
+        switch (event) {
+            case DomainEvent.MistakeCreated e -> sampler.add(e.mistake());
+            case DomainEvent.MistakeUpdated e -> sampler.update(e.mistake());
+            case DomainEvent.MistakeReviewed e -> sampler.setReviewed(e.mistakeId(), e.reviewCount());
+            case DomainEvent.AttachmentAdded e -> {
+                // Attachments do not change how a mistake is weighed
+            }
+            case DomainEvent.SubjectAdded e -> addSubject(e.subjectId(), e.name());
+            case DomainEvent.SubjectDeleted e -> {
+                if (e.name().equals(subjectCombo.getValue())) {
+                    subjectCombo.setValue("All Subjects");
+                }
+                subjectCombo.getItems().remove(e.name());
+                subjectIds.remove(e.name());
+                sampler.setSubjectHidden(e.subjectId(), true);
+            }
+            case DomainEvent.SubjectRestored e -> {
+                addSubject(e.subjectId(), e.name());
+                sampler.setSubjectHidden(e.subjectId(), false);
+            }
+            case DomainEvent.DataReloaded e -> {
+                subjectIds.clear();
+                loadSubjects();
+                missedEvents = new ArrayList<>();
+                startBtn.setDisable(true);
+                loadCandidates();
+            }
+        }
+    }
+
+    private void addSubject(int subjectId, String name) {
+        if (subjectIds.put(name, subjectId) != null) return;
+        List<String> items = subjectCombo.getItems();
+        // Index 0 is "All Subjects"; keep the rest in name order
+        int index = 1;
+        while (index < items.size() && items.get(index).compareTo(name) < 0) {
+            index++;
+        }
+        items.add(index, name);
+    }
+
+    @FXML
+    protected void onStartClick() {
+        Integer subjectId = subjectIds.get(subjectCombo.getValue());
+        int[] drawn = sampler.draw(questionCountSpinner.getValue(), subjectId != null ? subjectId : -1,
+            tagField.getText());
+        prefetched.values().forEach(future -> future.cancel(true));
+        prefetched.clear();
+        if (drawn.length == 0) {
+            questions = new int[0];
+            current = -1;
+            showQuestion(null);
+            statusLabel.setText("No mistakes match this subject and tag");
+            return;
+        }
+        questions = drawn;
+        statusLabel.setText("");
+        goTo(0);
+    }
+
+    @FXML
+    protected void onShowAnswerClick() {
+        if (shown == null) return;
+        StringBuilder answer = new StringBuilder();
+        if (shown.yourAnswer != null && !shown.yourAnswer.isEmpty()) {
+            answer.append("Your Answer:\n").append(shown.yourAnswer).append("\n\n");
+        }
+        answer.append("Correct Answer:\n").append(shown.correctAnswer);
+        if (shown.explanation != null && !shown.explanation.isEmpty()) {
+            answer.append("\n\nExplanation:\n").append(shown.explanation);
+        }
+        answerArea.setText(answer.toString());
+        answerBox.setVisible(true);
+        answerBox.setManaged(true);
+    }
+
+    @FXML
+    protected void onMarkReviewedClick() {
+        if (shown == null) return;
+        int mistakeId = shown.id;
+        markReviewedBtn.setDisable(true);
+        // Written off the FX thread; the sampler picks up the new count from the event, so this
+        // mistake weighs less next time
+        AppServices.background().submit(() -> {
+            String error = null;
+            try {
+                if (MistakeDao.markReviewed(mistakeId) < 0) {
+                    error = "This mistake no longer exists";
+                }
+            } catch (SQLException e) {
+                error = "Error updating mistake: " + e.getMessage();
+            }
+            String failure = error;
+            Platform.runLater(() -> {
+                markReviewedBtn.setDisable(shown == null);
+                if (failure == null) {
+                    statusLabel.setText("Mistake marked as reviewed!");
+                    statusLabel.setStyle("-fx-text-fill: #27ae60");
+                } else {
+                    statusLabel.setText(failure);
+                    statusLabel.setStyle("");
+                }
+            });
+        });
+    }
+
+    @FXML
+    protected void onNextClick() {
+        if (current + 1 < questions.length) {
+            goTo(current + 1);
+        } else {
+            questions = new int[0];
+            current = -1;
+            showQuestion(null);
+            statusLabel.setText("Quiz finished! Start another one when you are ready.");
+            statusLabel.setStyle("-fx-text-fill: #27ae60");
+        }
+    }
+
+    private void goTo(int index) {
+        current = index;
+        statusLabel.setText("");
+        prefetched.remove(index > 0 ? questions[index - 1] : -1);
+        prefetch(index);
+        progressLabel.setText(String.format("Question %d of %d", index + 1, questions.length));
+        CompletableFuture<Mistake> question = prefetched.get(questions[index]);
+        if (question.isDone()) {
+            showLoaded(index, question);
+            return;
+        }
+        showQuestion(null);
+        questionTitleLabel.setText("Loading...");
+        question.whenComplete((mistake, error) -> Platform.runLater(() -> showLoaded(index, question)));
+    }
+
+    private void showLoaded(int index, CompletableFuture<Mistake> question) {
+        if (index != current) return; // The user moved on or started a new quiz
+        try {
+            Mistake mistake = question.getNow(null);
+            if (mistake == null) {
+                statusLabel.setText("This mistake no longer exists");
+            }
+            showQuestion(mistake);
+        } catch (RuntimeException e) {
+            // Dropped so that coming back to it tries again
+            prefetched.remove(questions[index]);
+            Throwable cause = e;
+            while (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            showQuestion(null);
+            statusLabel.setText("Error loading question: " + cause.getMessage());
+        }
+    }
+
+    // Fetches the full text of the questions from index up to PREFETCH ahead, in one query
+    private void prefetch(int index) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = index; i < Math.min(questions.length, index + 1 + PREFETCH); i++) {
+            if (!prefetched.containsKey(questions[i])) ids.add(questions[i]);
+        }
+        if (ids.isEmpty()) return;
+        CompletableFuture<Map<Integer, Mistake>> batch = CompletableFuture.supplyAsync(() -> {
+            try {
+                Map<Integer, Mistake> byId = new HashMap<>();
+                for (Mistake mistake : MistakeDao.findByIds(ids)) {
+                    byId.put(mistake.id, mistake);
+                }
+                return byId;
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, AppServices.background());
+        for (int id : ids) {
+            prefetched.put(id, batch.thenApply(byId -> byId.get(id)));
+        }
+    }
+
+    private void showQuestion(Mistake mistake) {
+        shown = mistake;
+        boolean hasQuestion = mistake != null;
+        if (hasQuestion) {
+            questionTitleLabel.setText(mistake.title);
+            StringBuilder question = new StringBuilder();
+            question.append("Subject: ").append(mistake.subjectName);
+            if (mistake.categoryName != null) {
+                question.append(" - ").append(mistake.categoryName);
+            }
+            question.append("\nDifficulty: ").append(mistake.difficultyLevel).append("\n\n");
+            if (mistake.description != null) {
+                question.append(mistake.description);
+            }
+            questionArea.setText(question.toString());
+        } else {
+            questionTitleLabel.setText(current < 0 ? "Choose a subject or tag and start a quiz" : "");
+            questionArea.clear();
+            if (current < 0) progressLabel.setText("");
+        }
+        answerArea.clear();
+        answerBox.setVisible(false);
+        answerBox.setManaged(false);
+        showAnswerBtn.setDisable(!hasQuestion);
+        markReviewedBtn.setDisable(!hasQuestion);
+        nextBtn.setDisable(current < 0);
+        statusLabel.setStyle("");
+    }
+
+    @FXML
+    protected void onCloseClick() {
+        Stage stage = (Stage) closeBtn.getScene().getWindow();
+        stage.close();
+    }
+}
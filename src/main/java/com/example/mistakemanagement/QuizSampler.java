@@ -0,0 +1,309 @@
+package com.example.mistakemanagement;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Draws practice quizzes, favouring mistakes that are hard, rarely reviewed and not seen lately.
+//
+// Only the fields the weight needs are kept, as primitive columns in ascending id order like
+// MistakeStore. A draw is a weighted sample without replacement (Efraimidis-Spirakis): each
+// candidate gets the key ln(u) / weight for a uniform u, and the n largest keys win. That is one
+// pass over the candidates with no precomputed table, so reviews, new mistakes and subject deletes
+// only update a column, and the weights can depend on the time of the draw. Exponential jumps keep
+// the random draws to the few candidates that enter the sample.
+// Not thread-safe; used from the FX thread.
+public class QuizSampler {
+    private static final byte HIDDEN = 1;
+    private static final long MINUTE_MS = 60_000;
+    // Staleness grows by one per this many days since the last review, up to MAX_STALENESS
+    private static final double STALE_DAYS = 7;
+    private static final double MAX_STALENESS = 4;
+    // Cached weights are recomputed when they are older than this; staleness moves in days
+    private static final int WEIGHT_REFRESH_MINUTES = 60;
+
+    private int size;
+    private int[] ids = new int[0];
+    private int[] subjectIds = new int[0];
+    private byte[] difficulties = new byte[0];
+    private int[] reviewCounts = new int[0];
+    // Minutes since the epoch, 0 if never reviewed
+    private int[] lastReviewed = new int[0];
+    private byte[] flags = new byte[0];
+    // weight() of each row as of weightsAsOf, so a draw does no arithmetic per candidate
+    private float[] weights = new float[0];
+    private int weightsAsOf = (int) (System.currentTimeMillis() / MINUTE_MS);
+    // Rows carrying each tag (lower case), in ascending row order
+    private final Map<String, Rows> rowsByTag = new HashMap<>();
+
+    public void load(List<Mistake> candidates) {
+        size = 0;
+        rowsByTag.clear();
+        candidates.sort((a, b) -> Integer.compare(a.id, b.id));
+        ensureCapacity(candidates.size());
+        for (Mistake mistake : candidates) {
+            append(mistake);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Adds a new mistake, or shows it again if its subject was hidden
+    public void add(Mistake mistake) {
+        int row = Arrays.binarySearch(ids, 0, size, mistake.id);
+        if (row >= 0) {
+            flags[row] &= ~HIDDEN;
+            return;
+        }
+        // New ids are the largest, so appending keeps the order; anything else is inserted
+        if (size > 0 && mistake.id < ids[size - 1]) {
+            insertAt(-row - 1, mistake);
+            return;
+        }
+        ensureCapacity(size + 1);
+        append(mistake);
+    }
+
+    // Applies an edit to the subject, difficulty and tags; a hidden row stays hidden
+    public void update(Mistake mistake) {
+        int row = Arrays.binarySearch(ids, 0, size, mistake.id);
+        if (row < 0) return;
+        subjectIds[row] = mistake.subjectId;
+        difficulties[row] = difficulty(mistake.difficultyLevel);
+        weights[row] = weight(row, weightsAsOf);
+        for (Rows tagged : rowsByTag.values()) {
+            tagged.delete(row);
+        }
+        for (String tag : MistakeDao.splitTags(mistake.tags)) {
+            rowsByTag.computeIfAbsent(tag.toLowerCase(Locale.ROOT), t -> new Rows()).insert(row);
+        }
+    }
+
+    public void setReviewed(int mistakeId, int reviewCount) {
+        int row = Arrays.binarySearch(ids, 0, size, mistakeId);
+        if (row < 0) return;
+        reviewCounts[row] = reviewCount;
+        lastReviewed[row] = (int) (System.currentTimeMillis() / MINUTE_MS);
+        weights[row] = weight(row, weightsAsOf);
+    }
+
+    // Returns the number of rows changed, so callers know whether the subject had any here
+    public int setSubjectHidden(int subjectId, boolean hidden) {
+        int changed = 0;
+        for (int row = 0; row < size; row++) {
+            if (subjectIds[row] != subjectId || ((flags[row] & HIDDEN) != 0) == hidden) continue;
+            flags[row] = (byte) (hidden ? flags[row] | HIDDEN : flags[row] & ~HIDDEN);
+            changed++;
+        }
+        return changed;
+    }
+
+    // Up to count mistake ids, drawn by weight without repeats, the strongest draw first.
+    // subjectId < 0 means any subject; a null or blank tag means any tag.
+    public int[] draw(int count, int subjectId, String tag) {
+        if (count <= 0) return new int[0];
+        int[] rows = null;
+        int candidates = size;
+        if (tag != null && !tag.isBlank()) {
+            Rows tagged = rowsByTag.get(tag.trim().toLowerCase(Locale.ROOT));
+            if (tagged == null) return new int[0];
+            rows = tagged.rows;
+            candidates = tagged.size;
+        }
+
+        // Min-heap of the count best keys so far, with the weakest at the root
+        int[] heapRows = new int[count];
+        double[] heapKeys = new double[count];
+        int heapSize = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int now = (int) (System.currentTimeMillis() / MINUTE_MS);
+        if (now - weightsAsOf >= WEIGHT_REFRESH_MINUTES) {
+            weightsAsOf = now;
+            for (int row = 0; row < size; row++) {
+                weights[row] = weight(row, now);
+            }
+        }
+        // Once the heap is full, rather than a key per candidate, draw how much weight to skip
+        // before the next candidate that beats the weakest key (exponential jumps, A-ExpJ)
+        double skip = 0;
+        for (int i = 0; i < candidates; i++) {
+            int row = rows != null ? rows[i] : i;
+            if ((flags[row] & HIDDEN) != 0 || (subjectId >= 0 && subjectIds[row] != subjectId)) continue;
+            double weight = weights[row];
+            if (heapSize < count) {
+                // ln(u) <= 0, so a larger weight pulls the key closer to 0
+                heapRows[heapSize] = row;
+                heapKeys[heapSize] = Math.log(1.0 - random.nextDouble()) / weight;
+                siftUp(heapRows, heapKeys, heapSize++);
+                if (heapSize == count) skip = Math.log(1.0 - random.nextDouble()) / heapKeys[0];
+                continue;
+            }
+            skip -= weight;
+            if (skip > 0) continue;
+            // This candidate's key is uniform between the weakest key and 0
+            double threshold = Math.exp(heapKeys[0] * weight);
+            double u = threshold + (1.0 - threshold) * random.nextDouble();
+            heapRows[0] = row;
+            heapKeys[0] = Math.log(u) / weight;
+            siftDown(heapRows, heapKeys, heapSize);
+            skip = Math.log(1.0 - random.nextDouble()) / heapKeys[0];
+        }
+
+        // Popping the weakest each time fills the result from the back
+        int[] drawn = new int[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            drawn[i] = ids[heapRows[0]];
+            heapSize--;
+            heapRows[0] = heapRows[heapSize];
+            heapKeys[0] = heapKeys[heapSize];
+            siftDown(heapRows, heapKeys, heapSize);
+        }
+        return drawn;
+    }
+
+    // difficulty (1-3) * staleness (1-4, 4 if never reviewed) / (1 + reviews)
+    private float weight(int row, int now) {
+        double staleness = lastReviewed[row] == 0
+            ? MAX_STALENESS
+            : Math.min(MAX_STALENESS, 1 + Math.max(0, now - lastReviewed[row]) / (STALE_DAYS * 24 * 60));
+        return (float) (difficulties[row] * staleness / (1 + reviewCounts[row]));
+    }
+
+    private static byte difficulty(String level) {
+        if (level == null) return 2;
+        return switch (level) {
+            case "Easy" -> 1;
+            case "Hard" -> 3;
+            default -> 2;
+        };
+    }
+
+    private void append(Mistake mistake) {
+        write(size, mistake);
+        if (mistake.tags != null) {
+            for (String tag : MistakeDao.splitTags(mistake.tags)) {
+                rowsByTag.computeIfAbsent(tag.toLowerCase(Locale.ROOT), t -> new Rows()).add(size);
+            }
+        }
+        size++;
+    }
+
+    // Rare: a mistake older than the newest one, e.g. from a restored subject. Shifts the columns
+    // and renumbers the tag rows after it.
+    private void insertAt(int row, Mistake mistake) {
+        ensureCapacity(size + 1);
+        int tail = size - row;
+        System.arraycopy(ids, row, ids, row + 1, tail);
+        System.arraycopy(subjectIds, row, subjectIds, row + 1, tail);
+        System.arraycopy(difficulties, row, difficulties, row + 1, tail);
+        System.arraycopy(reviewCounts, row, reviewCounts, row + 1, tail);
+        System.arraycopy(lastReviewed, row, lastReviewed, row + 1, tail);
+        System.arraycopy(flags, row, flags, row + 1, tail);
+        System.arraycopy(weights, row, weights, row + 1, tail);
+        for (Rows tagged : rowsByTag.values()) {
+            tagged.shiftFrom(row);
+        }
+        write(row, mistake);
+        if (mistake.tags != null) {
+            for (String tag : MistakeDao.splitTags(mistake.tags)) {
+                rowsByTag.computeIfAbsent(tag.toLowerCase(Locale.ROOT), t -> new Rows()).insert(row);
+            }
+        }
+        size++;
+    }
+
+    private void write(int row, Mistake mistake) {
+        ids[row] = mistake.id;
+        subjectIds[row] = mistake.subjectId;
+        difficulties[row] = difficulty(mistake.difficultyLevel);
+        reviewCounts[row] = mistake.reviewCount;
+        lastReviewed[row] = (int) (mistake.lastReviewedAt / MINUTE_MS);
+        flags[row] = 0;
+        weights[row] = weight(row, weightsAsOf);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+        int grown = Math.max(capacity, ids.length * 3 / 2 + 16);
+        ids = Arrays.copyOf(ids, grown);
+        subjectIds = Arrays.copyOf(subjectIds, grown);
+        difficulties = Arrays.copyOf(difficulties, grown);
+        reviewCounts = Arrays.copyOf(reviewCounts, grown);
+        lastReviewed = Arrays.copyOf(lastReviewed, grown);
+        flags = Arrays.copyOf(flags, grown);
+        weights = Arrays.copyOf(weights, grown);
+    }
+
+    private static void siftUp(int[] rows, double[] keys, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (keys[parent] <= keys[i]) return;
+            swap(rows, keys, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] rows, double[] keys, int size) {
+        int i = 0;
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && keys[left] < keys[smallest]) smallest = left;
+            if (right < size && keys[right] < keys[smallest]) smallest = right;
+            if (smallest == i) return;
+            swap(rows, keys, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(int[] rows, double[] keys, int a, int b) {
+        int row = rows[a];
+        rows[a] = rows[b];
+        rows[b] = row;
+        double key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+    }
+
+    // Growable sorted list of row numbers
+    private static final class Rows {
+        int[] rows = new int[4];
+        int size;
+
+        void add(int row) {
+            // Tags differing only in case land on the same list
+            if (size > 0 && rows[size - 1] == row) return;
+            if (size == rows.length) rows = Arrays.copyOf(rows, size * 2);
+            rows[size++] = row;
+        }
+
+        void insert(int row) {
+            int at = Arrays.binarySearch(rows, 0, size, row);
+            if (at >= 0) return;
+            at = -at - 1;
+            if (size == rows.length) rows = Arrays.copyOf(rows, size * 2);
+            System.arraycopy(rows, at, rows, at + 1, size - at);
+            rows[at] = row;
+            size++;
+        }
+
+        void delete(int row) {
+            int at = Arrays.binarySearch(rows, 0, size, row);
+            if (at < 0) return;
+            System.arraycopy(rows, at + 1, rows, at, size - at - 1);
+            size--;
+        }
+
+        void shiftFrom(int row) {
+            for (int i = size - 1; i >= 0 && rows[i] >= row; i--) {
+                rows[i]++;
+            }
+        }
+    }
+}
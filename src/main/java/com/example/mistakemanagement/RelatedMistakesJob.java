@@ -0,0 +1,493 @@
+package com.example.mistakemanagement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Keeps mistake_related filled with each mistake's most similar mistakes, so the details view
+// reads them with one indexed lookup.
+//
+// Similarity is the cosine of sparse TF-IDF vectors over the words of the title, description,
+// answers, explanation and tags. The job holds the vectors and an inverted index in memory: a
+// full build scores every mistake once, and new mistakes are then scored against the index and
+// offered to their neighbours' lists as they arrive. Only one client maintains the table; it
+// takes a MySQL named lock for each run.
+public class RelatedMistakesJob {
+    private static final RelatedMistakesJob INSTANCE = new RelatedMistakesJob();
+
+    static final int TOP_K = 10;
+    // Below this cosine two mistakes have too little in common to be worth showing
+    private static final float MIN_SCORE = 0.1f;
+    // Highest-weighted words kept per mistake; bounds memory and scoring time
+    private static final int MAX_TERMS = 32;
+    // Words in more than this share of all mistakes say little and make scoring slow
+    private static final double MAX_DOC_SHARE = 0.5;
+    // Rebuild once incremental additions reach this share, as IDF weights drift
+    private static final double REBUILD_GROWTH = 0.2;
+    private static final long RUN_INTERVAL_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final int WRITE_BATCH = 500;
+    private static final String LOCK_NAME = "mistake_management_related";
+
+    private static final String SELECT_TEXT =
+        "SELECT m.id, m.title, m.description, m.correct_answer, m.your_answer, m.explanation, " +
+        "(SELECT GROUP_CONCAT(t.name SEPARATOR ' ') FROM mistake_tags mt " +
+        " JOIN tags t ON t.id = mt.tag_id WHERE mt.mistake_id = m.id) as tags " +
+        "FROM mistakes m ";
+
+    private final Queue<Integer> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> edited = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService scheduler;
+    private final List<EventBus.Subscription> subscriptions = new ArrayList<>();
+    // Only touched from the scheduler thread
+    private Model model;
+    // Set when the data was replaced; the next run rebuilds from scratch
+    private volatile boolean rebuildRequested;
+
+    private RelatedMistakesJob() {
+    }
+
+    public static RelatedMistakesJob get() {
+        return INSTANCE;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) return;
+        EventBus bus = EventBus.get();
+        subscriptions.add(bus.subscribe(DomainEvent.MistakeCreated.class, e -> pending.add(e.mistake().id)));
+        subscriptions.add(bus.subscribe(DomainEvent.MistakeUpdated.class, e -> edited.add(e.mistake().id)));
+        subscriptions.add(bus.subscribe(DomainEvent.DataReloaded.class, e -> rebuildRequested = true));
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "related-mistakes");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, 5000, RUN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            subscriptions.forEach(EventBus.Subscription::cancel);
+            subscriptions.clear();
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void runSafely() {
+        try {
+            run();
+        } catch (SQLException e) {
+            System.err.println("Related mistakes update failed: " + e.getMessage());
+            // Some writes may be missing; start over with a full build next time
+            model = null;
+        }
+    }
+
+    private void run() throws SQLException {
+        // The named lock belongs to this connection, so it is released on it before the pool gets it back
+        try (Connection conn = MySQLConnection.getConnection()) {
+            if (!MySQLConnection.tryLock(conn, LOCK_NAME)) {
+                // Another client maintains the table; our model goes stale without its writes
+                model = null;
+                pending.clear();
+                edited.clear();
+                return;
+            }
+            try {
+                if (rebuildRequested) {
+                    rebuildRequested = false;
+                    model = null;
+                }
+                if (model == null || model.added > model.builtSize * REBUILD_GROWTH) {
+                    pending.clear();
+                    edited.clear();
+                    rebuild(conn);
+                    return;
+                }
+                Set<Integer> ids = new LinkedHashSet<>();
+                for (Integer id; (id = pending.poll()) != null; ) {
+                    if (!model.contains(id)) ids.add(id);
+                }
+                // An edited mistake is dropped from the index and scored again like a new one. Lists
+                // of other mistakes keep its old score until they are rescored or the next rebuild.
+                for (Integer id; (id = edited.poll()) != null; ) {
+                    model.retire(id);
+                    ids.add(id);
+                }
+                if (!ids.isEmpty()) {
+                    addMistakes(conn, new ArrayList<>(ids));
+                }
+            } finally {
+                MySQLConnection.releaseLock(conn, LOCK_NAME);
+            }
+        }
+    }
+
+    // Vectors for every mistake (including those of soft-deleted subjects, so undo keeps them),
+    // then every mistake's neighbour list, written in batches
+    private void rebuild(Connection conn) throws SQLException {
+        Model fresh = new Model();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery(SELECT_TEXT + "ORDER BY m.id")) {
+                while (rs.next()) {
+                    fresh.addDocument(rs.getInt("id"), text(rs));
+                }
+            }
+        }
+        fresh.weighAll();
+        model = fresh;
+
+        // Rows of mistakes that no longer exist are removed by purges, so only current ids are rewritten
+        List<Integer> batch = new ArrayList<>();
+        for (int doc = 0; doc < model.size; doc++) {
+            if (Thread.currentThread().isInterrupted()) {
+                model = null;
+                return;
+            }
+            batch.add(doc);
+            if (batch.size() == WRITE_BATCH) {
+                writeNeighbours(conn, batch);
+                batch.clear();
+            }
+        }
+        writeNeighbours(conn, batch);
+    }
+
+    private void addMistakes(Connection conn, List<Integer> ids) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        List<Integer> docs = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(SELECT_TEXT + "WHERE m.id IN (" + placeholders + ")")) {
+            for (int i = 0; i < ids.size(); i++) {
+                stmt.setInt(i + 1, ids.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int doc = model.addDocument(rs.getInt("id"), text(rs));
+                    model.weigh(doc);
+                    docs.add(doc);
+                }
+            }
+        }
+        if (docs.isEmpty()) return;
+        writeNeighbours(conn, docs);
+
+        // A new mistake may also belong in the lists of the mistakes it is close to
+        for (int doc : docs) {
+            Neighbours neighbours = model.neighbours(doc);
+            for (int i = 0; i < neighbours.size(); i++) {
+                int other = neighbours.docs()[i];
+                float score = neighbours.scores()[i];
+                if (docs.contains(other)) continue; // Its own list already covers this pair
+                if (model.listSizes[other] == TOP_K && score <= model.lowestScores[other]) continue;
+                insertIntoList(conn, other, doc, score);
+            }
+        }
+    }
+
+    // Replaces the stored lists of the given documents in one transaction
+    private void writeNeighbours(Connection conn, List<Integer> docs) throws SQLException {
+        if (docs.isEmpty()) return;
+        String placeholders = String.join(", ", Collections.nCopies(docs.size(), "?"));
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement delete = conn.prepareStatement(
+                    "DELETE FROM mistake_related WHERE mistake_id IN (" + placeholders + ")")) {
+                for (int i = 0; i < docs.size(); i++) {
+                    delete.setInt(i + 1, model.ids[docs.get(i)]);
+                }
+                delete.executeUpdate();
+            }
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO mistake_related (mistake_id, related_id, score) VALUES (?, ?, ?)")) {
+                for (int doc : docs) {
+                    Neighbours neighbours = model.neighbours(doc);
+                    model.listSizes[doc] = (byte) neighbours.size();
+                    model.lowestScores[doc] = neighbours.size() == TOP_K ? neighbours.scores()[TOP_K - 1] : 0;
+                    for (int i = 0; i < neighbours.size(); i++) {
+                        insert.setInt(1, model.ids[doc]);
+                        insert.setInt(2, model.ids[neighbours.docs()[i]]);
+                        insert.setFloat(3, neighbours.scores()[i]);
+                        insert.addBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // Adds one row to a full or partial list, dropping the lowest-scoring row when it was full
+    private void insertIntoList(Connection conn, int doc, int related, float score) throws SQLException {
+        int mistakeId = model.ids[doc];
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO mistake_related (mistake_id, related_id, score) VALUES (?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE score = VALUES(score)")) {
+                insert.setInt(1, mistakeId);
+                insert.setInt(2, model.ids[related]);
+                insert.setFloat(3, score);
+                insert.executeUpdate();
+            }
+            if (model.listSizes[doc] == TOP_K) {
+                try (PreparedStatement trim = conn.prepareStatement(
+                        "DELETE FROM mistake_related WHERE mistake_id = ? ORDER BY score LIMIT 1")) {
+                    trim.setInt(1, mistakeId);
+                    trim.executeUpdate();
+                }
+            } else {
+                model.listSizes[doc]++;
+            }
+            if (model.listSizes[doc] == TOP_K) {
+                try (PreparedStatement lowest = conn.prepareStatement(
+                        "SELECT MIN(score) FROM mistake_related WHERE mistake_id = ?")) {
+                    lowest.setInt(1, mistakeId);
+                    try (ResultSet rs = lowest.executeQuery()) {
+                        model.lowestScores[doc] = rs.next() ? rs.getFloat(1) : 0;
+                    }
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static List<String> text(ResultSet rs) throws SQLException {
+        List<String> words = new ArrayList<>();
+        for (String column : new String[]{"title", "description", "correct_answer", "your_answer", "explanation", "tags"}) {
+            String value = MistakeDao.COMPRESSED_COLUMNS.contains(column)
+                ? TextCodec.decode(rs.getString(column)) : rs.getString(column);
+            for (String word : Words.split(value)) {
+                if (word.length() > 1 && !Words.STOP_WORDS.contains(word)) {
+                    words.add(word);
+                }
+            }
+        }
+        return words;
+    }
+
+    record Neighbours(int[] docs, float[] scores, int size) {}
+
+    // TF-IDF vectors with an inverted index from term to (document, weight)
+    static final class Model {
+        final Map<String, Integer> termIds = new HashMap<>();
+        int[] docFrequency = new int[1024];
+        final Map<Integer, Integer> docById = new HashMap<>();
+
+        int size;
+        int[] ids = new int[1024];
+        // Raw term ids and counts until weighed, then the kept terms and their normalised weights
+        int[][] terms = new int[1024][];
+        int[][] counts = new int[1024][];
+        float[][] weights = new float[1024][];
+        byte[] listSizes = new byte[1024];
+        float[] lowestScores = new float[1024];
+
+        int[][] postingDocs = new int[1024][];
+        float[][] postingWeights = new float[1024][];
+        int[] postingSizes = new int[1024];
+
+        int builtSize;
+        int added;
+
+        // Scratch space for neighbours(): partial dot products by document, and which are non-zero
+        private float[] accumulator = new float[0];
+        private int[] touched = new int[0];
+
+        boolean contains(int mistakeId) {
+            return docById.containsKey(mistakeId);
+        }
+
+        // Takes a mistake's document out of the index. Document frequencies are left as they were;
+        // the drift counts towards the next rebuild.
+        void retire(int mistakeId) {
+            Integer doc = docById.remove(mistakeId);
+            if (doc == null) return;
+            for (int term : terms[doc]) {
+                int[] docs = postingDocs[term];
+                int n = postingSizes[term];
+                for (int i = 0; i < n; i++) {
+                    if (docs[i] == doc) {
+                        System.arraycopy(docs, i + 1, docs, i, n - i - 1);
+                        System.arraycopy(postingWeights[term], i + 1, postingWeights[term], i, n - i - 1);
+                        postingSizes[term] = n - 1;
+                        break;
+                    }
+                }
+            }
+            terms[doc] = new int[0];
+            weights[doc] = new float[0];
+            added++;
+        }
+
+        int addDocument(int mistakeId, List<String> words) {
+            Map<Integer, Integer> frequencies = new HashMap<>();
+            for (String word : words) {
+                frequencies.merge(termId(word), 1, Integer::sum);
+            }
+            int doc = size++;
+            if (doc == ids.length) grow();
+            ids[doc] = mistakeId;
+            docById.put(mistakeId, doc);
+            terms[doc] = new int[frequencies.size()];
+            counts[doc] = new int[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> entry : frequencies.entrySet()) {
+                terms[doc][i] = entry.getKey();
+                counts[doc][i] = entry.getValue();
+                docFrequency[entry.getKey()]++;
+                i++;
+            }
+            if (builtSize > 0) added++;
+            return doc;
+        }
+
+        void weighAll() {
+            for (int doc = 0; doc < size; doc++) {
+                weigh(doc);
+            }
+            builtSize = size;
+        }
+
+        // (1 + log tf) * log(N / df), top MAX_TERMS kept, L2-normalised, then indexed
+        void weigh(int doc) {
+            int[] docTerms = terms[doc];
+            float[] raw = new float[docTerms.length];
+            Integer[] order = new Integer[docTerms.length];
+            int kept = 0;
+            for (int i = 0; i < docTerms.length; i++) {
+                int df = docFrequency[docTerms[i]];
+                // A word only one mistake uses cannot make two mistakes similar
+                if (df < 2 || (size >= 20 && df > size * MAX_DOC_SHARE)) continue;
+                raw[i] = (float) ((1 + Math.log(counts[doc][i])) * Math.log((double) size / df));
+                order[kept++] = i;
+            }
+            Arrays.sort(order, 0, kept, (a, b) -> Float.compare(raw[b], raw[a]));
+            kept = Math.min(kept, MAX_TERMS);
+
+            int[] keptTerms = new int[kept];
+            float[] keptWeights = new float[kept];
+            double norm = 0;
+            for (int i = 0; i < kept; i++) {
+                keptTerms[i] = docTerms[order[i]];
+                keptWeights[i] = raw[order[i]];
+                norm += keptWeights[i] * keptWeights[i];
+            }
+            norm = Math.sqrt(norm);
+            for (int i = 0; i < kept; i++) {
+                keptWeights[i] /= (float) norm;
+                addPosting(keptTerms[i], doc, keptWeights[i]);
+            }
+            terms[doc] = keptTerms;
+            weights[doc] = keptWeights;
+            counts[doc] = null;
+        }
+
+        // The TOP_K most similar documents, best first
+        Neighbours neighbours(int doc) {
+            if (accumulator.length < size) {
+                accumulator = new float[ids.length];
+                touched = new int[ids.length];
+            }
+            int touchedCount = 0;
+            for (int i = 0; i < terms[doc].length; i++) {
+                int term = terms[doc][i];
+                float weight = weights[doc][i];
+                int[] docs = postingDocs[term];
+                float[] postingWeight = postingWeights[term];
+                for (int j = 0; j < postingSizes[term]; j++) {
+                    int other = docs[j];
+                    if (other == doc) continue;
+                    if (accumulator[other] == 0) touched[touchedCount++] = other;
+                    accumulator[other] += weight * postingWeight[j];
+                }
+            }
+
+            int[] best = new int[TOP_K];
+            float[] bestScores = new float[TOP_K];
+            int count = 0;
+            for (int t = 0; t < touchedCount; t++) {
+                int other = touched[t];
+                float score = accumulator[other];
+                accumulator[other] = 0;
+                if (score < MIN_SCORE || (count == TOP_K && score <= bestScores[TOP_K - 1])) continue;
+                int at = Math.min(count, TOP_K - 1);
+                // Insertion into the sorted list; when full, the lowest entry is overwritten
+                while (at > 0 && bestScores[at - 1] < score) {
+                    best[at] = best[at - 1];
+                    bestScores[at] = bestScores[at - 1];
+                    at--;
+                }
+                best[at] = other;
+                bestScores[at] = score;
+                if (count < TOP_K) count++;
+            }
+            return new Neighbours(best, bestScores, count);
+        }
+
+        private int termId(String word) {
+            Integer id = termIds.get(word);
+            if (id != null) return id;
+            id = termIds.size();
+            termIds.put(word, id);
+            if (id == docFrequency.length) {
+                int grown = id * 2;
+                docFrequency = Arrays.copyOf(docFrequency, grown);
+                postingDocs = Arrays.copyOf(postingDocs, grown);
+                postingWeights = Arrays.copyOf(postingWeights, grown);
+                postingSizes = Arrays.copyOf(postingSizes, grown);
+            }
+            return id;
+        }
+
+        private void addPosting(int term, int doc, float weight) {
+            int n = postingSizes[term];
+            if (postingDocs[term] == null) {
+                postingDocs[term] = new int[4];
+                postingWeights[term] = new float[4];
+            } else if (n == postingDocs[term].length) {
+                postingDocs[term] = Arrays.copyOf(postingDocs[term], n * 2);
+                postingWeights[term] = Arrays.copyOf(postingWeights[term], n * 2);
+            }
+            postingDocs[term][n] = doc;
+            postingWeights[term][n] = weight;
+            postingSizes[term] = n + 1;
+        }
+
+        private void grow() {
+            int grown = ids.length * 2;
+            ids = Arrays.copyOf(ids, grown);
+            terms = Arrays.copyOf(terms, grown);
+            counts = Arrays.copyOf(counts, grown);
+            weights = Arrays.copyOf(weights, grown);
+            listSizes = Arrays.copyOf(listSizes, grown);
+            lowestScores = Arrays.copyOf(lowestScores, grown);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.mistakemanagement;
+
+import javafx.application.Platform;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// Loads the full mistakes of a review session ahead of the card on screen.
+//
+// A background job fetches the ids in order, a batch at a time, into a bounded queue; it blocks
+// once the queue is full, so at most capacity mistakes are held ahead. The FX thread only polls
+// the queue, so moving to the next card never waits on the database unless the reviewer has
+// caught up with the fetcher. Mistakes deleted since the session started are skipped.
+public class ReviewPrefetcher {
+    private static final long RETRY_MS = 2000;
+
+    private final int[] ids;
+    private final BlockingQueue<Mistake> buffer;
+    private final Consumer<String> onError;
+    private Future<?> fetcher;
+    // Set by the FX thread when it polled an empty buffer; run on the FX thread after the next put
+    private volatile Runnable waiting;
+    private volatile boolean exhausted;
+
+    public ReviewPrefetcher(int[] ids, int capacity, Consumer<String> onError) {
+        this.ids = ids;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.onError = onError;
+    }
+
+    public void start() {
+        fetcher = AppServices.background().submit(this::fetchAll);
+    }
+
+    public void stop() {
+        if (fetcher != null) {
+            fetcher.cancel(true);
+        }
+        buffer.clear();
+    }
+
+    // The next mistake if it has been fetched, else null. With null and !isFinished(), onReady
+    // runs on the FX thread once the next one arrives.
+    public Mistake poll(Runnable onReady) {
+        Mistake next = buffer.poll();
+        if (next == null && !exhausted) {
+            waiting = onReady;
+            // The fetcher may have put one in between the poll and setting waiting
+            next = buffer.poll();
+            if (next != null) waiting = null;
+        }
+        return next;
+    }
+
+    public boolean isFinished() {
+        return exhausted && buffer.isEmpty();
+    }
+
+    public int buffered() {
+        return buffer.size();
+    }
+
+    private void fetchAll() {
+        int position = 0;
+        try {
+            while (position < ids.length) {
+                // Ask for as many as there is room for, so a slow link costs one round trip per batch
+                int room = Math.max(1, buffer.remainingCapacity());
+                List<Integer> batch = new ArrayList<>();
+                for (int i = position; i < Math.min(ids.length, position + room); i++) {
+                    batch.add(ids[i]);
+                }
+                Map<Integer, Mistake> byId = new HashMap<>();
+                try {
+                    for (Mistake mistake : MistakeDao.findByIds(batch)) {
+                        byId.put(mistake.id, mistake);
+                    }
+                } catch (SQLException e) {
+                    Platform.runLater(() -> onError.accept(e.getMessage()));
+                    Thread.sleep(RETRY_MS);
+                    continue;
+                }
+                for (int id : batch) {
+                    Mistake mistake = byId.get(id);
+                    if (mistake != null) {
+                        buffer.put(mistake);
+                        notifyWaiting();
+                    }
+                }
+                position += batch.size();
+            }
+        } catch (InterruptedException e) {
+            // Session closed
+            return;
+        }
+        exhausted = true;
+        notifyWaiting();
+    }
+
+    private void notifyWaiting() {
+        Runnable onReady = waiting;
+        if (onReady != null) {
+            waiting = null;
+            Platform.runLater(onReady);
+        }
+    }
+}
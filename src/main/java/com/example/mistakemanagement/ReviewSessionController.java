@@ -0,0 +1,221 @@
+package com.example.mistakemanagement;
+
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// One card at a time, driven from the keyboard. Cards come from a ReviewPrefetcher, and reviews
+// are written on a background thread, so neither showing the next card nor recording a review
+// waits on the database.
+public class ReviewSessionController {
+    private static final int PREFETCH = 8;
+
+    @FXML
+    private VBox root;
+
+    @FXML
+    private Label progressLabel;
+
+    @FXML
+    private Label titleLabel;
+
+    @FXML
+    private TextArea questionArea;
+
+    @FXML
+    private VBox answerBox;
+
+    @FXML
+    private TextArea answerArea;
+
+    @FXML
+    private Button showAnswerBtn;
+
+    @FXML
+    private Button reviewedBtn;
+
+    @FXML
+    private Button skipBtn;
+
+    @FXML
+    private Button closeBtn;
+
+    @FXML
+    private Label statusLabel;
+
+    // One thread, so reviews are recorded in the order they were given
+    private final ExecutorService reviewWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "review-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ReviewPrefetcher prefetcher;
+    private Mistake card;
+    private int total;
+    private int seen;
+    private int reviewed;
+    private int pendingWrites;
+
+    @FXML
+    public void initialize() {
+        showCard(null);
+        root.sceneProperty().addListener((obs, oldScene, scene) -> {
+            if (scene != null) bindKeys(scene);
+        });
+    }
+
+    // Starts a session over these mistakes, in this order
+    void start(int[] ids) {
+        total = ids.length;
+        prefetcher = new ReviewPrefetcher(ids, PREFETCH,
+            message -> statusLabel.setText("Error loading mistakes, retrying: " + message));
+        prefetcher.start();
+        next();
+    }
+
+    void dispose() {
+        if (prefetcher != null) {
+            prefetcher.stop();
+        }
+        // Reviews already given are still written; the thread ends after the last one
+        reviewWriter.shutdown();
+    }
+
+    // Filtered on the scene so the text areas do not swallow the keys
+    private void bindKeys(Scene scene) {
+        scene.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            KeyCode code = event.getCode();
+            if (code == KeyCode.SPACE) {
+                onShowAnswerClick();
+            } else if (code == KeyCode.ENTER || code == KeyCode.R) {
+                onReviewedClick();
+            } else if (code == KeyCode.RIGHT || code == KeyCode.S) {
+                onSkipClick();
+            } else if (code == KeyCode.ESCAPE) {
+                onCloseClick();
+            } else {
+                return;
+            }
+            event.consume();
+        });
+    }
+
+    @FXML
+    protected void onShowAnswerClick() {
+        if (card == null) return;
+        StringBuilder answer = new StringBuilder();
+        if (card.yourAnswer != null && !card.yourAnswer.isEmpty()) {
+            answer.append("Your Answer:\n").append(card.yourAnswer).append("\n\n");
+        }
+        answer.append("Correct Answer:\n").append(card.correctAnswer);
+        if (card.explanation != null && !card.explanation.isEmpty()) {
+            answer.append("\n\nExplanation:\n").append(card.explanation);
+        }
+        answerArea.setText(answer.toString());
+        answerBox.setVisible(true);
+        answerBox.setManaged(true);
+    }
+
+    @FXML
+    protected void onReviewedClick() {
+        if (card == null) return;
+        int mistakeId = card.id;
+        reviewed++;
+        pendingWrites++;
+        reviewWriter.submit(() -> {
+            String error = null;
+            try {
+                // Open windows, including the one that started this session, update from the event
+                if (MistakeDao.markReviewed(mistakeId) < 0) {
+                    error = "Mistake no longer exists";
+                }
+            } catch (SQLException e) {
+                error = e.getMessage();
+            }
+            String failure = error;
+            Platform.runLater(() -> reviewWritten(failure));
+        });
+        next();
+    }
+
+    @FXML
+    protected void onSkipClick() {
+        if (card == null) return;
+        next();
+    }
+
+    private void reviewWritten(String error) {
+        pendingWrites--;
+        if (error != null) {
+            reviewed--;
+            statusLabel.setStyle("");
+            statusLabel.setText("Error recording review: " + error);
+        }
+        updateProgress();
+    }
+
+    private void next() {
+        Mistake mistake = prefetcher.poll(this::next);
+        if (mistake != null) {
+            seen++;
+            showCard(mistake);
+        } else if (prefetcher.isFinished()) {
+            showCard(null);
+            titleLabel.setText("Session complete");
+            statusLabel.setText("");
+        } else {
+            // Caught up with the prefetcher; next() runs again when a card arrives
+            showCard(null);
+            titleLabel.setText("Loading...");
+        }
+        updateProgress();
+    }
+
+    private void showCard(Mistake mistake) {
+        card = mistake;
+        if (mistake != null) {
+            titleLabel.setText(mistake.title);
+            StringBuilder question = new StringBuilder();
+            question.append("Subject: ").append(mistake.subjectName);
+            if (mistake.categoryName != null) {
+                question.append(" - ").append(mistake.categoryName);
+            }
+            question.append("\nDifficulty: ").append(mistake.difficultyLevel)
+                .append(" | Reviewed ").append(mistake.reviewCount).append(" times\n\n");
+            if (mistake.description != null) {
+                question.append(mistake.description);
+            }
+            questionArea.setText(question.toString());
+        } else {
+            questionArea.clear();
+        }
+        answerArea.clear();
+        answerBox.setVisible(false);
+        answerBox.setManaged(false);
+        showAnswerBtn.setDisable(mistake == null);
+        reviewedBtn.setDisable(mistake == null);
+        skipBtn.setDisable(mistake == null);
+    }
+
+    private void updateProgress() {
+        String progress = String.format("Card %d of %d | %d reviewed", seen, total, reviewed);
+        if (pendingWrites > 0) {
+            progress += " (" + pendingWrites + " saving)";
+        }
+        progressLabel.setText(progress);
+    }
+
+    @FXML
+    protected void onCloseClick() {
+        Stage stage = (Stage) closeBtn.getScene().getWindow();
+        stage.close();
+    }
+}
@@ -0,0 +1,420 @@
+package com.example.mistakemanagement;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Compressed set of non-negative ints, laid out like a Roaring bitmap.
+//
+// Values are grouped by their high 16 bits. Each group is a container of the low 16 bits: a
+// sorted char array while it holds at most ARRAY_MAX values, and a 65536-bit bitset above that.
+// Sparse sets stay small, dense ones cost 8KB per 65536 ids, and set operations work a container
+// at a time: merging two arrays, probing an array against a bitset, or combining bitsets a word
+// at a time. andCardinality counts an intersection without building it.
+// Not thread-safe.
+public class RoaringBitmap {
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int count;
+
+    public void add(int value) {
+        char key = (char) (value >>> 16);
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new Container());
+        }
+        containers[index].add((char) value);
+    }
+
+    public void remove(int value) {
+        int index = indexOf((char) (value >>> 16));
+        if (index < 0) return;
+        Container container = containers[index];
+        container.remove((char) value);
+        if (container.cardinality == 0) {
+            removeContainer(index);
+        }
+    }
+
+    public boolean contains(int value) {
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            total += containers[i].cardinality;
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public RoaringBitmap copy() {
+        RoaringBitmap copy = new RoaringBitmap();
+        copy.keys = Arrays.copyOf(keys, Math.max(4, count));
+        copy.containers = new Container[copy.keys.length];
+        for (int i = 0; i < count; i++) {
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.count = count;
+        return copy;
+    }
+
+    // Values in ascending order
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < count; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.count && j < b.count) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container container = Container.and(a.containers[i], b.containers[j]);
+                if (container.cardinality > 0) result.append(a.keys[i], container);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public static int andCardinality(RoaringBitmap a, RoaringBitmap b) {
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.count && j < b.count) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                total += Container.andCardinality(a.containers[i], b.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.count || j < b.count) {
+            if (j == b.count || (i < a.count && a.keys[i] < b.keys[j])) {
+                result.append(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i == a.count || a.keys[i] > b.keys[j]) {
+                result.append(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                result.append(a.keys[i], Container.or(a.containers[i], b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // The values of a that are not in b
+    public static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < a.count; i++) {
+            while (j < b.count && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            Container container = j < b.count && b.keys[j] == a.keys[i]
+                ? Container.andNot(a.containers[i], b.containers[j])
+                : a.containers[i].copy();
+            if (container.cardinality > 0) result.append(a.keys[i], container);
+        }
+        return result;
+    }
+
+    private int indexOf(char key) {
+        // Appends are the common case, as ids grow
+        if (count > 0 && keys[count - 1] == key) return count - 1;
+        return Arrays.binarySearch(keys, 0, count, key);
+    }
+
+    private void append(char key, Container container) {
+        insertContainer(count, key, container);
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+            containers = Arrays.copyOf(containers, count * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, count - index);
+        System.arraycopy(containers, index, containers, index + 1, count - index);
+        keys[index] = key;
+        containers[index] = container;
+        count++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, count - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, count - index - 1);
+        containers[--count] = null;
+    }
+
+    // The low 16 bits of the values in one group: a sorted array, or a bitset when bits is set
+    private static final class Container {
+        char[] array;
+        long[] bits;
+        int cardinality;
+
+        Container() {
+            array = new char[4];
+        }
+
+        private Container(char[] array, long[] bits, int cardinality) {
+            this.array = array;
+            this.bits = bits;
+            this.cardinality = cardinality;
+        }
+
+        static Container ofBits(long[] bits, int cardinality) {
+            Container container = new Container(null, bits, cardinality);
+            if (cardinality <= ARRAY_MAX) container.toArray();
+            return container;
+        }
+
+        Container copy() {
+            return bits != null
+                ? new Container(null, bits.clone(), cardinality)
+                : new Container(Arrays.copyOf(array, Math.max(4, cardinality)), null, cardinality);
+        }
+
+        boolean contains(char value) {
+            if (bits != null) return (bits[value >>> 6] & (1L << value)) != 0;
+            return Arrays.binarySearch(array, 0, cardinality, value) >= 0;
+        }
+
+        void add(char value) {
+            if (bits != null) {
+                long mask = 1L << value;
+                if ((bits[value >>> 6] & mask) == 0) {
+                    bits[value >>> 6] |= mask;
+                    cardinality++;
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(array, 0, cardinality, value);
+            if (index >= 0) return;
+            if (cardinality == ARRAY_MAX) {
+                toBits();
+                add(value);
+                return;
+            }
+            index = -index - 1;
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(array, index, array, index + 1, cardinality - index);
+            array[index] = value;
+            cardinality++;
+        }
+
+        void remove(char value) {
+            if (bits != null) {
+                long mask = 1L << value;
+                if ((bits[value >>> 6] & mask) != 0) {
+                    bits[value >>> 6] &= ~mask;
+                    if (--cardinality <= ARRAY_MAX) toArray();
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(array, 0, cardinality, value);
+            if (index < 0) return;
+            System.arraycopy(array, index + 1, array, index, cardinality - index - 1);
+            cardinality--;
+        }
+
+        void forEach(int high, IntConsumer action) {
+            if (bits == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    action.accept(high | array[i]);
+                }
+                return;
+            }
+            for (int word = 0; word < WORDS; word++) {
+                long remaining = bits[word];
+                while (remaining != 0) {
+                    action.accept(high | word << 6 | Long.numberOfTrailingZeros(remaining));
+                    remaining &= remaining - 1;
+                }
+            }
+        }
+
+        private void toBits() {
+            bits = new long[WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                bits[array[i] >>> 6] |= 1L << array[i];
+            }
+            array = null;
+        }
+
+        private void toArray() {
+            char[] values = new char[Math.max(4, cardinality)];
+            int n = 0;
+            for (int word = 0; word < WORDS; word++) {
+                long remaining = bits[word];
+                while (remaining != 0) {
+                    values[n++] = (char) (word << 6 | Long.numberOfTrailingZeros(remaining));
+                    remaining &= remaining - 1;
+                }
+            }
+            array = values;
+            bits = null;
+        }
+
+        static Container and(Container a, Container b) {
+            if (a.bits != null && b.bits != null) {
+                long[] words = new long[WORDS];
+                int cardinality = 0;
+                for (int i = 0; i < WORDS; i++) {
+                    words[i] = a.bits[i] & b.bits[i];
+                    cardinality += Long.bitCount(words[i]);
+                }
+                return ofBits(words, cardinality);
+            }
+            if (a.bits != null) return and(b, a);
+            char[] values = new char[Math.max(4, Math.min(a.cardinality, b.cardinality))];
+            int n = 0;
+            if (b.bits != null) {
+                for (int i = 0; i < a.cardinality; i++) {
+                    if (b.contains(a.array[i])) values[n++] = a.array[i];
+                }
+            } else {
+                int i = 0;
+                int j = 0;
+                while (i < a.cardinality && j < b.cardinality) {
+                    if (a.array[i] < b.array[j]) {
+                        i++;
+                    } else if (a.array[i] > b.array[j]) {
+                        j++;
+                    } else {
+                        values[n++] = a.array[i];
+                        i++;
+                        j++;
+                    }
+                }
+            }
+            return new Container(values, null, n);
+        }
+
+        static int andCardinality(Container a, Container b) {
+            if (a.bits != null && b.bits != null) {
+                int cardinality = 0;
+                for (int i = 0; i < WORDS; i++) {
+                    cardinality += Long.bitCount(a.bits[i] & b.bits[i]);
+                }
+                return cardinality;
+            }
+            if (a.bits != null) return andCardinality(b, a);
+            int n = 0;
+            if (b.bits != null) {
+                for (int i = 0; i < a.cardinality; i++) {
+                    if (b.contains(a.array[i])) n++;
+                }
+                return n;
+            }
+            int i = 0;
+            int j = 0;
+            while (i < a.cardinality && j < b.cardinality) {
+                if (a.array[i] < b.array[j]) {
+                    i++;
+                } else if (a.array[i] > b.array[j]) {
+                    j++;
+                } else {
+                    n++;
+                    i++;
+                    j++;
+                }
+            }
+            return n;
+        }
+
+        static Container or(Container a, Container b) {
+            if (a.bits == null && b.bits == null && a.cardinality + b.cardinality <= ARRAY_MAX) {
+                char[] values = new char[Math.max(4, a.cardinality + b.cardinality)];
+                int n = 0;
+                int i = 0;
+                int j = 0;
+                while (i < a.cardinality || j < b.cardinality) {
+                    if (j == b.cardinality || (i < a.cardinality && a.array[i] < b.array[j])) {
+                        values[n++] = a.array[i++];
+                    } else if (i == a.cardinality || a.array[i] > b.array[j]) {
+                        values[n++] = b.array[j++];
+                    } else {
+                        values[n++] = a.array[i];
+                        i++;
+                        j++;
+                    }
+                }
+                return new Container(values, null, n);
+            }
+            Container result = a.copy();
+            if (result.bits == null) result.toBits();
+            if (b.bits != null) {
+                int cardinality = 0;
+                for (int i = 0; i < WORDS; i++) {
+                    result.bits[i] |= b.bits[i];
+                    cardinality += Long.bitCount(result.bits[i]);
+                }
+                result.cardinality = cardinality;
+            } else {
+                for (int i = 0; i < b.cardinality; i++) {
+                    result.add(b.array[i]);
+                }
+            }
+            // Overlapping arrays may fit an array after all
+            if (result.cardinality <= ARRAY_MAX) result.toArray();
+            return result;
+        }
+
+        static Container andNot(Container a, Container b) {
+            if (a.bits == null) {
+                char[] values = new char[Math.max(4, a.cardinality)];
+                int n = 0;
+                for (int i = 0; i < a.cardinality; i++) {
+                    if (!b.contains(a.array[i])) values[n++] = a.array[i];
+                }
+                return new Container(values, null, n);
+            }
+            long[] words = a.bits.clone();
+            if (b.bits != null) {
+                for (int i = 0; i < WORDS; i++) {
+                    words[i] &= ~b.bits[i];
+                }
+            } else {
+                for (int i = 0; i < b.cardinality; i++) {
+                    words[b.array[i] >>> 6] &= ~(1L << b.array[i]);
+                }
+            }
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            return ofBits(words, cardinality);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.mistakemanagement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// In-memory index of mistake MinHash signatures for near-duplicate lookups.
+//
+// Each signature is split into four bands of two hashes and the mistake id is filed under each
+// band value. Mistakes with mostly the same words very likely agree on a whole band, so only the
+// four matching buckets are checked instead of every mistake. At 1M mistakes a bucket holds about
+// 15 ids. Signatures are kept in mistakes.minhash so startup only reads ids and longs.
+public class SimilarityIndex {
+    private static final SimilarityIndex INSTANCE = new SimilarityIndex();
+
+    // 6 of 8 hashes equal is roughly 75% of the words in common
+    static final int MIN_MATCHES = 6;
+    private static final int BANDS = 4;
+    private static final int BAND_BITS = 64 / BANDS;
+    private static final int BAND_MASK = (1 << BAND_BITS) - 1;
+    private static final int BACKFILL_BATCH = 1000;
+
+    // Bucket (band << 16 | band value) -> mistake ids; sizes tracked separately so arrays can grow
+    private final int[][] buckets = new int[BANDS << BAND_BITS][];
+    private final int[] bucketSizes = new int[BANDS << BAND_BITS];
+    // Signature by mistake id; ids are auto-increment so a flat array stays dense
+    private long[] signatures = new long[1024];
+    private final BitSet indexed = new BitSet();
+    private volatile boolean loaded;
+
+    SimilarityIndex() {
+    }
+
+    public static SimilarityIndex get() {
+        return INSTANCE;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Subscribes for new mistakes, then fills the index from the database. Call off the FX thread.
+    public void start() {
+        EventBus.get().subscribe(DomainEvent.MistakeCreated.class,
+            e -> add(e.mistake().id, MinHash.of(e.mistake())));
+        EventBus.get().subscribe(DomainEvent.MistakeUpdated.class,
+            e -> replace(e.mistake().id, MinHash.of(e.mistake())));
+        EventBus.get().subscribe(DomainEvent.DataReloaded.class,
+            e -> AppServices.background().submit(this::reload));
+        try {
+            backfill();
+            load();
+            loaded = true;
+        } catch (SQLException e) {
+            System.err.println("Could not load similarity index: " + e.getMessage());
+        }
+    }
+
+    public synchronized void add(int mistakeId, long signature) {
+        if (signature == 0 || indexed.get(mistakeId)) return;
+        if (mistakeId >= signatures.length) {
+            signatures = Arrays.copyOf(signatures, Math.max(mistakeId + 1, signatures.length * 2));
+        }
+        signatures[mistakeId] = signature;
+        indexed.set(mistakeId);
+        for (int band = 0; band < BANDS; band++) {
+            int bucket = bucketOf(signature, band);
+            int[] ids = buckets[bucket];
+            int size = bucketSizes[bucket];
+            if (ids == null) {
+                ids = buckets[bucket] = new int[4];
+            } else if (size == ids.length) {
+                ids = buckets[bucket] = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size] = mistakeId;
+            bucketSizes[bucket] = size + 1;
+        }
+    }
+
+    // Moves an edited mistake to the buckets of its new signature
+    public synchronized void replace(int mistakeId, long signature) {
+        if (indexed.get(mistakeId)) {
+            long old = signatures[mistakeId];
+            if (old == signature) return;
+            for (int band = 0; band < BANDS; band++) {
+                int bucket = bucketOf(old, band);
+                int[] ids = buckets[bucket];
+                int size = bucketSizes[bucket];
+                for (int i = 0; i < size; i++) {
+                    if (ids[i] == mistakeId) {
+                        // Order within a bucket does not matter
+                        ids[i] = ids[size - 1];
+                        bucketSizes[bucket] = size - 1;
+                        break;
+                    }
+                }
+            }
+            indexed.clear(mistakeId);
+        }
+        add(mistakeId, signature);
+    }
+
+    // Ids of indexed mistakes agreeing on at least MIN_MATCHES hashes, closest first.
+    // Ids of deleted mistakes may be returned; MistakeDao.findByIds drops them.
+    public synchronized List<Integer> findSimilar(long signature, int limit) {
+        if (signature == 0) return new ArrayList<>();
+        List<long[]> matches = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (int band = 0; band < BANDS; band++) {
+            int bucket = bucketOf(signature, band);
+            int[] ids = buckets[bucket];
+            for (int i = 0; i < bucketSizes[bucket]; i++) {
+                int id = ids[i];
+                // An id can sit in up to four of the buckets
+                if (!seen.add(id)) continue;
+                int matching = MinHash.matches(signature, signatures[id]);
+                if (matching >= MIN_MATCHES) {
+                    matches.add(new long[]{matching, id});
+                }
+            }
+        }
+        matches.sort((a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(b[1], a[1]));
+
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            result.add((int) matches.get(i)[1]);
+        }
+        return result;
+    }
+
+    private static int bucketOf(long signature, int band) {
+        return band << BAND_BITS | (int) (signature >>> (band * BAND_BITS)) & BAND_MASK;
+    }
+
+    // Rows saved before the minhash column existed get their signature computed once, in batches
+    private static void backfill() throws SQLException {
+        String select = "SELECT id, title, description, correct_answer FROM mistakes " +
+                       "WHERE minhash IS NULL LIMIT " + BACKFILL_BATCH;
+        String update = "UPDATE mistakes SET minhash = ? WHERE id = ?";
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement selectStmt = conn.prepareStatement(select);
+             PreparedStatement updateStmt = conn.prepareStatement(update)) {
+            while (true) {
+                int rows = 0;
+                try (ResultSet rs = selectStmt.executeQuery()) {
+                    while (rs.next()) {
+                        // Texts with no words store 0 so they are not selected again
+                        updateStmt.setLong(1, MinHash.of(rs.getString("title"),
+                            TextCodec.decode(rs.getString("description")),
+                            TextCodec.decode(rs.getString("correct_answer"))));
+                        updateStmt.setInt(2, rs.getInt("id"));
+                        updateStmt.addBatch();
+                        rows++;
+                    }
+                }
+                if (rows == 0) return;
+                updateStmt.executeBatch();
+            }
+        }
+    }
+
+    private void reload() {
+        loaded = false;
+        synchronized (this) {
+            Arrays.fill(buckets, null);
+            Arrays.fill(bucketSizes, 0);
+            signatures = new long[1024];
+            indexed.clear();
+        }
+        try {
+            backfill();
+            load();
+            loaded = true;
+        } catch (SQLException e) {
+            System.err.println("Could not reload similarity index: " + e.getMessage());
+        }
+    }
+
+    // Includes mistakes of soft-deleted subjects so they are found again after an undo
+    private void load() throws SQLException {
+        try (Connection conn = MySQLConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            // Stream rows instead of buffering the whole result set
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery("SELECT id, minhash FROM mistakes WHERE minhash <> 0")) {
+                while (rs.next()) {
+                    add(rs.getInt(1), rs.getLong(2));
+                }
+            }
+        }
+    }
+}
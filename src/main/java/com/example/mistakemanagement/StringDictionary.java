@@ -0,0 +1,38 @@
+package com.example.mistakemanagement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Maps repeated strings to small int codes so columns can store the code instead of the string
+public class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    // Code for value, adding it if new; null is always -1
+    int encode(String value) {
+        if (value == null) return -1;
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    // Code for value, or -1 if it was never added
+    int find(String value) {
+        Integer code = value == null ? null : codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    String decode(int code) {
+        return code < 0 ? null : values.get(code);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.mistakemanagement;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Holds one subject row
+public class Subject {
+    int id;
+    String name;
+    String description;
+
+    String displayText() {
+        return String.format("%s - %s", name, description != null ? description : "No description");
+    }
+
+    Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", id);
+        json.put("name", name);
+        json.put("description", description);
+        return json;
+    }
+
+    static Subject fromJson(Map<String, Object> json) {
+        Subject subject = new Subject();
+        subject.id = ((Number) json.get("id")).intValue();
+        subject.name = (String) json.get("name");
+        subject.description = (String) json.get("description");
+        return subject;
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.mistakemanagement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Subject and category queries shared by the controllers and the API server.
+// When an API server is configured every call goes through ApiClient instead of JDBC.
+public class SubjectDao {
+
+    public static List<Subject> findAll() throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().listSubjects();
+        }
+        try (Connection conn = MySQLConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT id, name, description FROM subjects WHERE deleted_at IS NULL ORDER BY name");
+             ResultSet rs = stmt.executeQuery()) {
+            List<Subject> subjects = new ArrayList<>();
+            while (rs.next()) {
+                subjects.add(read(rs));
+            }
+            return subjects;
+        }
+    }
+
+    public static List<String> findAllNames() throws SQLException {
+        List<String> names = new ArrayList<>();
+        for (Subject subject : findAll()) {
+            names.add(subject.name);
+        }
+        return names;
+    }
+
+    public static Subject findById(int id) throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().getSubject(id);
+        }
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT id, name, description FROM subjects WHERE id = ? AND deleted_at IS NULL")) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? read(rs) : null;
+            }
+        }
+    }
+
+    public static List<String> findCategoryNames(String subjectName) throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().listCategories(subjectName);
+        }
+        String query = "SELECT c.name FROM categories c " +
+                      "JOIN subjects s ON c.subject_id = s.id " +
+                      "WHERE s.name = ? AND s.deleted_at IS NULL ORDER BY c.name";
+        try (Connection conn = MySQLConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, subjectName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<String> categories = new ArrayList<>();
+                while (rs.next()) {
+                    categories.add(rs.getString("name"));
+                }
+                return categories;
+            }
+        }
+    }
+
+    // Number of mistakes per visible subject name
+    public static Map<String, Integer> subjectUsage() throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().subjectUsage();
+        }
+        String query = "SELECT s.name, COUNT(m.id) AS uses FROM subjects s " +
+                      "LEFT JOIN mistakes m ON m.subject_id = s.id " +
+                      "WHERE s.deleted_at IS NULL GROUP BY s.id, s.name";
+        try (Connection conn = MySQLConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            Map<String, Integer> usage = new LinkedHashMap<>();
+            while (rs.next()) {
+                usage.put(rs.getString("name"), rs.getInt("uses"));
+            }
+            return usage;
+        }
+    }
+
+    // Number of mistakes per category name, grouped by visible subject name
+    public static Map<String, Map<String, Integer>> categoryUsage() throws SQLException {
+        if (ApiClient.isEnabled()) {
+            return ApiClient.get().categoryUsage();
+        }
+        String query = "SELECT s.name AS subject_name, c.name, COUNT(m.id) AS uses FROM categories c " +
+                      "JOIN subjects s ON c.subject_id = s.id AND s.deleted_at IS NULL " +
+                      "LEFT JOIN mistakes m ON m.category_id = c.id " +
+                      "GROUP BY c.id, s.name, c.name";
+        try (Connection conn = MySQLConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            Map<String, Map<String, Integer>> usage = new LinkedHashMap<>();
+            while (rs.next()) {
+                usage.computeIfAbsent(rs.getString("subject_name"), name -> new LinkedHashMap<>())
+                    .put(rs.getString("name"), rs.getInt("uses"));
+            }
+            return usage;
+        }
+    }
+
+    // Returns the new subject's id, or -1 if a subject with this name already exists
+    public static int insert(String name, String description) throws SQLException {
+        int subjectId;
+        if (ApiClient.isEnabled()) {
+            subjectId = ApiClient.get().addSubject(name, description);
+        } else {
+            subjectId = insertLocal(name, description);
+        }
+        if (subjectId >= 0) {
+            EventBus.get().publish(new DomainEvent.SubjectAdded(subjectId, name, description));
+        }
+        return subjectId;
+    }
+
+    private static int insertLocal(String name, String description) throws SQLException {
+        try (Connection conn = MySQLConnection.getConnection()) {
+            String checkQuery = "SELECT COUNT(*) FROM subjects WHERE name = ? AND deleted_at IS NULL";
+            try (PreparedStatement stmt = conn.prepareStatement(checkQuery)) {
+                stmt.setString(1, name);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next() && rs.getInt(1) > 0) {
+                        return -1;
+                    }
+                }
+            }
+
+            // A deleted subject waiting to be purged may still hold the name; move it aside
+            String renameQuery = "UPDATE subjects SET name = CONCAT(LEFT(name, 200), ' (deleted #', id, ')') " +
+                                "WHERE name = ? AND deleted_at IS NOT NULL";
+            try (PreparedStatement stmt = conn.prepareStatement(renameQuery)) {
+                stmt.setString(1, name);
+                stmt.executeUpdate();
+            }
+
+            String insertQuery = "INSERT INTO subjects (name, description) VALUES (?, ?)";
+            try (PreparedStatement stmt = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, name);
+                stmt.setString(2, description);
+                stmt.executeUpdate();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (!keys.next()) {
+                        throw new SQLException("Could not get inserted subject ID");
+                    }
+                    int subjectId = keys.getInt(1);
+                    ChangeLog.record(conn, ChangeLog.SUBJECT, subjectId, ChangeLog.INSERT);
+                    return subjectId;
+                }
+            }
+        }
+    }
+
+    // Rows removed per transaction; keeps lock hold times short on large subjects
+    private static final int PURGE_BATCH_SIZE = 500;
+
+    // Called after each committed purge batch; may sleep to throttle or throw to stop
+    public interface PurgeProgress {
+        void onBatch(int purgedMistakes);
+    }
+
+    // Soft-deletes the subject: one indexed row update regardless of how many mistakes it has.
+    // Read paths stop showing it and its mistakes at once; SubjectPurger removes the rows later.
+    // Returns false if the subject was already gone.
+    public static boolean delete(Subject subject) throws SQLException {
+        boolean deleted;
+        if (ApiClient.isEnabled()) {
+            deleted = ApiClient.get().deleteSubject(subject.id);
+        } else {
+            deleted = setDeleted(subject, true);
+        }
+        if (deleted) {
+            EventBus.get().publish(new DomainEvent.SubjectDeleted(subject.id, subject.name));
+        }
+        return deleted;
+    }
+
+    // Undoes delete() until SubjectPurger's grace period is over; after that the purge may have begun
+    public static boolean restore(Subject subject) throws SQLException {
+        boolean restored;
+        if (ApiClient.isEnabled()) {
+            restored = ApiClient.get().restoreSubject(subject.id);
+        } else {
+            restored = setDeleted(subject, false);
+        }
+        if (restored) {
+            EventBus.get().publish(new DomainEvent.SubjectRestored(subject.id, subject.name, subject.description));
+        }
+        return restored;
+    }
+
+    private static boolean setDeleted(Subject subject, boolean deleted) throws SQLException {
+        String query = deleted
+            ? "UPDATE subjects SET deleted_at = CURRENT_TIMESTAMP WHERE id = ? AND deleted_at IS NULL"
+            : "UPDATE subjects SET deleted_at = NULL WHERE id = ? AND deleted_at >= NOW() - INTERVAL ? SECOND";
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, subject.id);
+            if (!deleted) {
+                stmt.setInt(2, SubjectPurger.GRACE_SECONDS);
+            }
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            ChangeLog.record(conn, ChangeLog.SUBJECT, subject.id, deleted ? ChangeLog.DELETE : ChangeLog.RESTORE,
+                subject.name, 1);
+            return true;
+        }
+    }
+
+    // Soft-deleted subjects whose undo grace period has passed, oldest first
+    static List<Subject> findPurgeable(int graceSeconds, int limit) throws SQLException {
+        String query = "SELECT id, name, description FROM subjects " +
+                      "WHERE deleted_at IS NOT NULL AND deleted_at < NOW() - INTERVAL ? SECOND " +
+                      "ORDER BY deleted_at LIMIT ?";
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, graceSeconds);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Subject> subjects = new ArrayList<>();
+                while (rs.next()) {
+                    subjects.add(read(rs));
+                }
+                return subjects;
+            }
+        }
+    }
+
+    // Physically removes a soft-deleted subject: mistake_tags and mistakes (active, then archived) in
+    // bounded batches, each in its own short transaction, then categories and the subject row.
+    // Nothing here is visible to readers, since every read path already excludes the subject.
+    // Every batch first locks the subject row and checks it is still past its grace period, and
+    // restore() refuses once that period is over, so a subject is never restored half purged.
+    static void purge(Subject subject, int graceSeconds, PurgeProgress progress) throws SQLException {
+        try (Connection conn = MySQLConnection.getConnection()) {
+            int purgedMistakes = 0;
+            List<Integer> batch;
+            for (String table : new String[] {"mistakes", "mistakes_archive"}) {
+                while (!(batch = nextMistakeBatch(conn, table, subject.id)).isEmpty()) {
+                    String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+                    String tagTable = table.equals("mistakes") ? "mistake_tags" : "mistake_tags_archive";
+                    List<String> queries = List.of(
+                        "DELETE FROM " + tagTable + " WHERE mistake_id IN (" + placeholders + ")",
+                        // The stored files are left; other mistakes may share them
+                        "DELETE FROM mistake_attachments WHERE mistake_id IN (" + placeholders + ")",
+                        "DELETE FROM mistake_related WHERE mistake_id IN (" + placeholders + ")",
+                        "DELETE FROM mistake_related WHERE related_id IN (" + placeholders + ")",
+                        "DELETE FROM " + table + " WHERE id IN (" + placeholders + ")");
+                    if (purgeBatch(conn, subject.id, graceSeconds, queries, batch) < 0) return;
+                    purgedMistakes += batch.size();
+                    progress.onBatch(purgedMistakes);
+                }
+            }
+
+            List<String> categoryQuery = List.of("DELETE FROM categories WHERE subject_id = ? LIMIT " + PURGE_BATCH_SIZE);
+            int removed;
+            do {
+                removed = purgeBatch(conn, subject.id, graceSeconds, categoryQuery, List.of(subject.id));
+                if (removed < 0) return;
+            } while (removed == PURGE_BATCH_SIZE);
+
+            purgeBatch(conn, subject.id, graceSeconds, List.of("DELETE FROM subjects WHERE id = ?"), List.of(subject.id));
+        }
+    }
+
+    private static List<Integer> nextMistakeBatch(Connection conn, String table, int subjectId) throws SQLException {
+        String query = "SELECT id FROM " + table + " WHERE subject_id = ? ORDER BY id LIMIT " + PURGE_BATCH_SIZE;
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, subjectId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Integer> ids = new ArrayList<>();
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+                return ids;
+            }
+        }
+    }
+
+    // Runs the queries, each with the same parameters, in one transaction while holding the subject
+    // row. Returns the row count of the last query, or -1 without running anything if the subject
+    // was restored or is still inside its grace period.
+    private static int purgeBatch(Connection conn, int subjectId, int graceSeconds,
+                                  List<String> queries, List<Integer> params) throws SQLException {
+        String lockQuery = "SELECT id FROM subjects " +
+                          "WHERE id = ? AND deleted_at < NOW() - INTERVAL ? SECOND FOR UPDATE";
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement stmt = conn.prepareStatement(lockQuery)) {
+                stmt.setInt(1, subjectId);
+                stmt.setInt(2, graceSeconds);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        conn.rollback();
+                        return -1;
+                    }
+                }
+            }
+            int count = 0;
+            for (String query : queries) {
+                try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                    for (int i = 0; i < params.size(); i++) {
+                        stmt.setInt(i + 1, params.get(i));
+                    }
+                    count = stmt.executeUpdate();
+                }
+            }
+            conn.commit();
+            return count;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static Subject read(ResultSet rs) throws SQLException {
+        Subject subject = new Subject();
+        subject.id = rs.getInt("id");
+        subject.name = rs.getString("name");
+        subject.description = rs.getString("description");
+        return subject;
+    }
+}
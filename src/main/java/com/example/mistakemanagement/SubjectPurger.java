@@ -0,0 +1,109 @@
+package com.example.mistakemanagement;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Physically removes soft-deleted subjects once their undo grace period is over.
+// It waits for idle time: a run is skipped while other writes reach the change log, unless the
+// purge has already been put off for MAX_DEFER_MS. Work is throttled: after each batch it sleeps
+// several times as long as the batch took, so the purge never holds more than a small share of the
+// database's time.
+public class SubjectPurger {
+    private static final SubjectPurger INSTANCE = new SubjectPurger();
+
+    private static final long RUN_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+    // Well past the UI's undo window; SubjectDao.restore refuses after it, so an undo can never race a purge
+    static final int GRACE_SECONDS = 600;
+    // A busy database still gets purged this often
+    private static final long MAX_DEFER_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final int SUBJECTS_PER_RUN = 10;
+    // Sleep this many times the batch duration between batches (~20% duty cycle)
+    private static final int THROTTLE_FACTOR = 4;
+    private static final long MIN_PAUSE_MS = 50;
+    // Only one client purges at a time
+    private static final String LOCK_NAME = "mistake_management_subject_purge";
+
+    private ScheduledExecutorService scheduler;
+    // Only touched from the scheduler thread
+    private long lastSeenSeq = -1;
+    private long lastPurgeAt = System.currentTimeMillis();
+
+    private SubjectPurger() {
+    }
+
+    public static SubjectPurger get() {
+        return INSTANCE;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "subject-purger");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, RUN_INTERVAL_MS, RUN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void runSafely() {
+        try {
+            run();
+        } catch (SQLException e) {
+            System.err.println("Subject purge failed: " + e.getMessage());
+        } catch (InterruptedPurge e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() throws SQLException {
+        // Idle when nothing was written since the last run, one interval ago
+        long seq = ChangeLog.latestSeq();
+        boolean idle = seq == lastSeenSeq;
+        lastSeenSeq = seq;
+        if (!idle && System.currentTimeMillis() - lastPurgeAt < MAX_DEFER_MS) return;
+        lastPurgeAt = System.currentTimeMillis();
+
+        // The named lock belongs to this connection, so it is released on it before the pool gets it back
+        try (Connection lockConn = MySQLConnection.getConnection()) {
+            if (!MySQLConnection.tryLock(lockConn, LOCK_NAME)) return;
+            try {
+                List<Subject> subjects = SubjectDao.findPurgeable(GRACE_SECONDS, SUBJECTS_PER_RUN);
+                for (Subject subject : subjects) {
+                    long[] batchStart = {System.nanoTime()};
+                    SubjectDao.purge(subject, GRACE_SECONDS, purged -> {
+                        long tookMs = (System.nanoTime() - batchStart[0]) / 1_000_000;
+                        pause(Math.max(MIN_PAUSE_MS, tookMs * THROTTLE_FACTOR));
+                        batchStart[0] = System.nanoTime();
+                    });
+                }
+            } finally {
+                MySQLConnection.releaseLock(lockConn, LOCK_NAME);
+            }
+        }
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new InterruptedPurge();
+        }
+    }
+
+    // Unwinds out of a purge when the scheduler is shut down mid-run
+    private static class InterruptedPurge extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.mistakemanagement;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Type-ahead suggestions for tags, subjects and categories, ranked by how many mistakes use them.
+// Loaded once at startup and kept current from events, so typing never queries the database.
+public class Suggestions {
+    private static final Suggestions INSTANCE = new Suggestions();
+
+    // Replaced as a whole when the data is reloaded
+    private volatile PrefixIndex tags = new PrefixIndex();
+    private volatile PrefixIndex subjects = new PrefixIndex();
+    // Category names are only unique within a subject
+    private volatile Map<String, PrefixIndex> categoriesBySubject = new ConcurrentHashMap<>();
+    // Usage of deleted subjects, put back if the delete is undone
+    private final Map<String, Integer> deletedSubjectUsage = new ConcurrentHashMap<>();
+
+    private Suggestions() {
+    }
+
+    public static Suggestions get() {
+        return INSTANCE;
+    }
+
+    // Subscribes for changes, then loads the usage counts. Call off the FX thread.
+    public void start() {
+        EventBus bus = EventBus.get();
+        bus.subscribe(DomainEvent.MistakeCreated.class, e -> countUsage(e.mistake(), 1));
+        // Edits from other clients arrive without the old values; their counts catch up on restart
+        bus.subscribe(DomainEvent.MistakeUpdated.class, e -> {
+            if (e.previous() != null) {
+                countUsage(e.previous(), -1);
+                countUsage(e.mistake(), 1);
+            }
+        });
+        bus.subscribe(DomainEvent.SubjectAdded.class, e -> subjects.add(e.name(), 0));
+        bus.subscribe(DomainEvent.SubjectDeleted.class, e -> {
+            int usage = subjects.remove(e.name());
+            if (usage >= 0) {
+                deletedSubjectUsage.put(e.name(), usage);
+            }
+        });
+        bus.subscribe(DomainEvent.SubjectRestored.class, e -> {
+            Integer usage = deletedSubjectUsage.remove(e.name());
+            subjects.add(e.name(), usage != null ? usage : 0);
+        });
+        bus.subscribe(DomainEvent.DataReloaded.class, e -> AppServices.background().submit(this::load));
+
+        load();
+    }
+
+    // Counts the usage into fresh indexes and swaps them in, so suggestions keep working meanwhile
+    private void load() {
+        try {
+            PrefixIndex loadedTags = new PrefixIndex();
+            PrefixIndex loadedSubjects = new PrefixIndex();
+            Map<String, PrefixIndex> loadedCategories = new ConcurrentHashMap<>();
+            MistakeDao.tagUsage().forEach(loadedTags::add);
+            SubjectDao.subjectUsage().forEach(loadedSubjects::add);
+            SubjectDao.categoryUsage().forEach((subject, categories) -> {
+                PrefixIndex index = loadedCategories.computeIfAbsent(subject, name -> new PrefixIndex());
+                categories.forEach(index::add);
+            });
+            tags = loadedTags;
+            subjects = loadedSubjects;
+            categoriesBySubject = loadedCategories;
+            deletedSubjectUsage.clear();
+        } catch (SQLException e) {
+            System.err.println("Could not load suggestions: " + e.getMessage());
+        }
+    }
+
+    public List<String> suggestTags(String prefix, int limit) {
+        return tags.suggest(prefix, limit);
+    }
+
+    public List<String> suggestSubjects(String prefix, int limit) {
+        return subjects.suggest(prefix, limit);
+    }
+
+    public List<String> suggestCategories(String subjectName, String prefix, int limit) {
+        PrefixIndex categories = subjectName != null ? categoriesBySubject.get(subjectName) : null;
+        return categories != null ? categories.suggest(prefix, limit) : new ArrayList<>();
+    }
+
+    private void countUsage(Mistake mistake, int delta) {
+        for (String tag : MistakeDao.splitTags(mistake.tags)) {
+            tags.add(tag, delta);
+        }
+        if (mistake.subjectName != null) {
+            subjects.add(mistake.subjectName, delta);
+            if (mistake.categoryName != null) {
+                categoryIndex(mistake.subjectName).add(mistake.categoryName, delta);
+            }
+        }
+    }
+
+    private PrefixIndex categoryIndex(String subjectName) {
+        return categoriesBySubject.computeIfAbsent(subjectName, name -> new PrefixIndex());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.mistakemanagement;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Transparent compression for the long text columns of a mistake (description, answers, explanation).
+//
+// Values over the threshold are stored Deflate-compressed and Base64-encoded behind a marker, so the
+// columns stay TEXT and nothing above MistakeDao ever sees the stored form. A value is only stored
+// compressed when that makes it smaller. Anything without the marker is read as is, so rows written
+// before compression, or with it turned off, need no special handling.
+public class TextCodec {
+    // A control character no one types, then the codec and its version
+    static final String DEFLATE_MARKER = "\u0001z1:";
+    private static final char MARKER_START = '\u0001';
+
+    // Values at or under this many bytes are stored as they are; 0 turns compression off for new writes
+    static final int THRESHOLD = Integer.parseInt(MySQLConnection.setting("mistakes.compress.threshold",
+        "MISTAKES_COMPRESS_THRESHOLD", "1024"));
+
+    // Text bytes the app wrote and read, and how many bytes went to and came from the database for them
+    private static final AtomicLong writtenBytes = new AtomicLong();
+    private static final AtomicLong writtenStoredBytes = new AtomicLong();
+    private static final AtomicLong readBytes = new AtomicLong();
+    private static final AtomicLong readStoredBytes = new AtomicLong();
+
+    record Metrics(long writtenBytes, long writtenStoredBytes, long readBytes, long readStoredBytes) {}
+
+    static Metrics metrics() {
+        return new Metrics(writtenBytes.get(), writtenStoredBytes.get(), readBytes.get(), readStoredBytes.get());
+    }
+
+    // The form to store for this text
+    static String encode(String text) {
+        if (text == null) return null;
+        int size = utf8Length(text);
+        // Text that happens to start like a marker is always compressed, so reading it back is unambiguous
+        boolean mustEncode = !text.isEmpty() && text.charAt(0) == MARKER_START;
+        String stored = text;
+        if (mustEncode || (THRESHOLD > 0 && size > THRESHOLD)) {
+            String compressed = compress(text);
+            // Base64 is ASCII, so its length is its size in bytes
+            if (mustEncode || compressed.length() < size) {
+                stored = compressed;
+            }
+        }
+        writtenBytes.addAndGet(size);
+        writtenStoredBytes.addAndGet(stored == text ? size : stored.length());
+        return stored;
+    }
+
+    // The text a stored value stands for
+    static String decode(String stored) throws SQLException {
+        if (stored == null) return null;
+        if (!isCompressed(stored)) {
+            int size = utf8Length(stored);
+            readBytes.addAndGet(size);
+            readStoredBytes.addAndGet(size);
+            return stored;
+        }
+        String text = decompress(stored);
+        readBytes.addAndGet(utf8Length(text));
+        readStoredBytes.addAndGet(stored.length());
+        return text;
+    }
+
+    static boolean isCompressed(String stored) {
+        return stored != null && stored.startsWith(DEFLATE_MARKER);
+    }
+
+    static int utf8Length(String text) {
+        int bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static String compress(String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return DEFLATE_MARKER + Base64.getEncoder().encodeToString(out.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String decompress(String stored) throws SQLException {
+        Inflater inflater = new Inflater();
+        try {
+            byte[] compressed = Base64.getDecoder().decode(stored.substring(DEFLATE_MARKER.length()));
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("truncated data");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException | DataFormatException e) {
+            throw new SQLException("Corrupt compressed text: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.mistakemanagement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Rewrites mistakes saved before TextCodec existed so their long text is stored compressed too.
+// New writes are compressed by MistakeDao, so one pass over the table is enough; a pass that could
+// not get the lock is tried again later. Like SubjectPurger it sleeps several times as long as each
+// batch took, and it logs the stored text size before and after.
+public class TextCompactor {
+    private static final TextCompactor INSTANCE = new TextCompactor();
+
+    private static final long RUN_INTERVAL_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final long INITIAL_DELAY_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final int BATCH = 200;
+    private static final int THROTTLE_FACTOR = 4;
+    private static final long MIN_PAUSE_MS = 50;
+    private static final String LOCK_NAME = "mistake_management_text_compaction";
+    private static final String[] COLUMNS = {"description", "correct_answer", "your_answer", "explanation"};
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean finished;
+
+    private TextCompactor() {
+    }
+
+    public static TextCompactor get() {
+        return INSTANCE;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null || TextCodec.THRESHOLD <= 0) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "text-compactor");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, INITIAL_DELAY_MS, RUN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void runSafely() {
+        if (finished) return;
+        try {
+            run();
+        } catch (SQLException e) {
+            System.err.println("Text compaction failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() throws SQLException, InterruptedException {
+        try (Connection lockConn = MySQLConnection.getConnection()) {
+            if (!MySQLConnection.tryLock(lockConn, LOCK_NAME)) return;
+            try {
+                StorageStats before = storageStats(lockConn);
+                int rewritten = compactAll(lockConn);
+                if (rewritten > 0) {
+                    StorageStats after = storageStats(lockConn);
+                    System.out.printf("Compressed text of %d mistakes: %d -> %d bytes stored (%d -> %d bytes per row)%n",
+                        rewritten, before.storedBytes(), after.storedBytes(),
+                        before.bytesPerRow(), after.bytesPerRow());
+                }
+                finished = true;
+            } finally {
+                MySQLConnection.releaseLock(lockConn, LOCK_NAME);
+            }
+        }
+    }
+
+    // Walks the table in id order, reading only rows with a long value still stored as plain text
+    private static int compactAll(Connection conn) throws SQLException, InterruptedException {
+        List<String> conditions = new ArrayList<>();
+        for (String column : COLUMNS) {
+            conditions.add("(LENGTH(" + column + ") > ? AND LEFT(" + column + ", 1) <> CHAR(1 USING utf8mb4))");
+        }
+        String select = "SELECT id, version, " + String.join(", ", COLUMNS) + " FROM mistakes " +
+                       "WHERE id > ? AND (" + String.join(" OR ", conditions) + ") ORDER BY id LIMIT " + BATCH;
+        int rewritten = 0;
+        int lastId = 0;
+        try (PreparedStatement selectStmt = conn.prepareStatement(select)) {
+            while (true) {
+                long batchStart = System.nanoTime();
+                selectStmt.setInt(1, lastId);
+                for (int i = 0; i < COLUMNS.length; i++) {
+                    selectStmt.setInt(i + 2, TextCodec.THRESHOLD);
+                }
+                List<Object[]> updates = new ArrayList<>();
+                int rows = 0;
+                try (ResultSet rs = selectStmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                        lastId = rs.getInt("id");
+                        Object[] update = compacted(rs);
+                        if (update != null) updates.add(update);
+                    }
+                }
+                if (rows == 0) return rewritten;
+                rewritten += write(conn, updates);
+                long tookMs = (System.nanoTime() - batchStart) / 1_000_000;
+                Thread.sleep(Math.max(MIN_PAUSE_MS, tookMs * THROTTLE_FACTOR));
+            }
+        }
+    }
+
+    // The row's columns in stored form followed by id and version, or null if nothing got smaller
+    private static Object[] compacted(ResultSet rs) throws SQLException {
+        Object[] update = new Object[COLUMNS.length + 2];
+        boolean changed = false;
+        for (int i = 0; i < COLUMNS.length; i++) {
+            String stored = rs.getString(COLUMNS[i]);
+            update[i] = stored;
+            if (stored != null && !TextCodec.isCompressed(stored)) {
+                String encoded = TextCodec.encode(stored);
+                if (!encoded.equals(stored)) {
+                    update[i] = encoded;
+                    changed = true;
+                }
+            }
+        }
+        update[COLUMNS.length] = rs.getInt("id");
+        update[COLUMNS.length + 1] = rs.getInt("version");
+        return changed ? update : null;
+    }
+
+    // The content is unchanged, so the version is not bumped and updated_at is kept, so the
+    // archiver does not see a rewritten row as touched; an edit saved meanwhile wins
+    private static int write(Connection conn, List<Object[]> updates) throws SQLException {
+        if (updates.isEmpty()) return 0;
+        List<String> assignments = new ArrayList<>();
+        for (String column : COLUMNS) {
+            assignments.add(column + " = ?");
+        }
+        assignments.add("updated_at = updated_at");
+        String update = "UPDATE mistakes SET " + String.join(", ", assignments) + " WHERE id = ? AND version = ?";
+        int written = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(update)) {
+            for (Object[] row : updates) {
+                for (int i = 0; i < row.length; i++) {
+                    stmt.setObject(i + 1, row[i]);
+                }
+                stmt.addBatch();
+            }
+            for (int count : stmt.executeBatch()) {
+                if (count > 0) written++;
+            }
+        }
+        return written;
+    }
+
+    record StorageStats(int rows, long storedBytes, int compressedValues) {
+        long bytesPerRow() {
+            return rows == 0 ? 0 : storedBytes / rows;
+        }
+    }
+
+    // Stored size of the compressible columns across the table
+    static StorageStats storageStats(Connection conn) throws SQLException {
+        List<String> sizes = new ArrayList<>();
+        List<String> compressed = new ArrayList<>();
+        for (String column : COLUMNS) {
+            sizes.add("COALESCE(SUM(LENGTH(" + column + ")), 0)");
+            compressed.add("COALESCE(SUM(LEFT(" + column + ", 1) = CHAR(1 USING utf8mb4)), 0)");
+        }
+        String query = "SELECT COUNT(*), " + String.join(" + ", sizes) + ", " + String.join(" + ", compressed) +
+                      " FROM mistakes";
+        try (PreparedStatement stmt = conn.prepareStatement(query);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return new StorageStats(rs.getInt(1), rs.getLong(2), rs.getInt(3));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.mistakemanagement;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Small decoded previews of image attachments for the list and details views.
+//
+// Images are decoded straight from the store's mapped file at thumbnail size, on two background
+// threads, so scrolling never decodes on the FX thread and full-size images never sit on the heap.
+// At most CAPACITY thumbnails are kept, least recently used dropped first. The newest request is
+// decoded first, so after a fast scroll the rows now on screen come before the ones scrolled past.
+// get() is called on the FX thread.
+public class ThumbnailCache {
+    private static final ThumbnailCache INSTANCE = new ThumbnailCache();
+
+    static final int LIST_SIZE = 40;
+    static final int DETAILS_SIZE = 160;
+    private static final int CAPACITY = 300;
+    private static final int DECODERS = 2;
+
+    private final Map<String, Image> images = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    // Key -> callbacks waiting on a decode in progress
+    private final Map<String, List<Consumer<Image>>> loading = new HashMap<>();
+    private final ExecutorService decoders = new ThreadPoolExecutor(DECODERS, DECODERS, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingDeque<>() {
+            @Override
+            public boolean offer(Runnable task) {
+                return offerFirst(task);
+            }
+        },
+        r -> {
+            Thread thread = new Thread(r, "thumbnail-decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    private ThumbnailCache() {
+    }
+
+    public static ThumbnailCache get() {
+        return INSTANCE;
+    }
+
+    // The thumbnail if it is cached. Otherwise null, and onLoaded runs on the FX thread once it is
+    // decoded (not at all if it cannot be).
+    public Image get(String sha256, int size, Consumer<Image> onLoaded) {
+        String key = sha256 + "@" + size;
+        Image image = images.get(key);
+        if (image != null) return image;
+
+        List<Consumer<Image>> waiting = loading.get(key);
+        if (waiting != null) {
+            waiting.add(onLoaded);
+            return null;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(onLoaded);
+        loading.put(key, waiting);
+        decoders.submit(() -> {
+            Image decoded = decode(sha256, size);
+            Platform.runLater(() -> {
+                List<Consumer<Image>> callbacks = loading.remove(key);
+                if (decoded == null) return;
+                images.put(key, decoded);
+                callbacks.forEach(callback -> callback.accept(decoded));
+            });
+        });
+        return null;
+    }
+
+    // The full image, for when one is opened; not cached
+    public static Image loadFull(String sha256) throws IOException {
+        try (InputStream in = AttachmentStore.get().open(sha256)) {
+            Image image = new Image(in);
+            if (image.isError()) {
+                throw new IOException("Not a readable image", image.getException());
+            }
+            return image;
+        }
+    }
+
+    private static Image decode(String sha256, int size) {
+        try (InputStream in = AttachmentStore.get().open(sha256)) {
+            // Scaled while loading, so only the thumbnail's pixels are kept
+            Image image = new Image(in, size, size, true, true);
+            return image.isError() ? null : image;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not load thumbnail " + sha256 + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
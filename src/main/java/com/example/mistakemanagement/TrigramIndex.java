@@ -0,0 +1,225 @@
+package com.example.mistakemanagement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Typo-tolerant word search for MistakeStore's fuzzy mode, and its substring search over descriptions.
+//
+// Every distinct word gets an id and a posting list of the mistakes using it, and every word is
+// filed under its trigrams. A query word only needs an edit-distance check against the words that
+// share enough trigrams with it (a word within k edits shares all but at most 3k of them), so the
+// work grows with the vocabulary that looks alike, not with the number of mistakes.
+//
+// Each mistake's word ids are kept as well, so it can be removed without the texts it was added
+// with; the texts themselves are never kept.
+public class TrigramIndex {
+    private static final char BOUNDARY = '$';
+
+    private final Map<String, Integer> wordIds = new HashMap<>();
+    private final List<String> words = new ArrayList<>();
+    private final List<IntList> postings = new ArrayList<>();
+    private final Map<Long, IntList> wordsByGram = new HashMap<>();
+    private final Map<Integer, int[]> wordsByMistake = new HashMap<>();
+
+    // Indexes the words of the given texts for a mistake, replacing what it was indexed with before
+    public void add(int mistakeId, String... texts) {
+        remove(mistakeId);
+        Set<String> distinct = distinctWords(texts);
+        int[] added = new int[distinct.size()];
+        int i = 0;
+        for (String word : distinct) {
+            int wordId = wordId(word);
+            postings.get(wordId).add(mistakeId);
+            added[i++] = wordId;
+        }
+        wordsByMistake.put(mistakeId, added);
+    }
+
+    // Undoes add(), e.g. before re-adding an edited mistake. Words stay in the vocabulary even when
+    // no mistake uses them any more; they just match nothing.
+    public void remove(int mistakeId) {
+        int[] added = wordsByMistake.remove(mistakeId);
+        if (added == null) return;
+        for (int wordId : added) {
+            postings.get(wordId).remove(mistakeId);
+        }
+    }
+
+    // Mistakes where every word of query is part of one of their words, as a plain substring
+    // search would find it within a word. Scans the vocabulary once per query word rather than
+    // every mistake's text. Returns null if query has no words.
+    public RoaringBitmap containing(String query) {
+        RoaringBitmap result = null;
+        for (String token : new HashSet<>(Words.split(query))) {
+            RoaringBitmap matches = new RoaringBitmap();
+            for (int wordId = 0; wordId < words.size(); wordId++) {
+                if (!words.get(wordId).contains(token)) continue;
+                IntList mistakes = postings.get(wordId);
+                for (int j = 0; j < mistakes.size; j++) {
+                    matches.add(mistakes.values[j]);
+                }
+            }
+            result = result == null ? matches : RoaringBitmap.and(result, matches);
+            if (result.isEmpty()) break;
+        }
+        return result;
+    }
+
+    private static Set<String> distinctWords(String... texts) {
+        Set<String> distinct = new HashSet<>();
+        for (String text : texts) {
+            distinct.addAll(Words.split(text));
+        }
+        return distinct;
+    }
+
+    // Mistakes whose words match every query word within its edit budget, with the summed
+    // distance of the closest matches (lower is better). The last query word also matches as a
+    // prefix, so results keep up while typing. Words under 3 letters are ignored; returns null
+    // if nothing is left to search for.
+    public Map<Integer, Integer> search(String query) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : Words.split(query)) {
+            if (token.length() >= 3) tokens.add(token);
+        }
+        if (tokens.isEmpty()) return null;
+
+        Map<Integer, Integer> scores = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            Map<Integer, Integer> best = closestMistakes(tokens.get(i), i == tokens.size() - 1);
+            if (scores == null) {
+                scores = best;
+            } else {
+                Map<Integer, Integer> merged = new HashMap<>();
+                for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+                    Integer distance = best.get(entry.getKey());
+                    if (distance != null) {
+                        merged.put(entry.getKey(), entry.getValue() + distance);
+                    }
+                }
+                scores = merged;
+            }
+            if (scores.isEmpty()) break;
+        }
+        return scores;
+    }
+
+    // Allowed typos grow with word length: exact up to 3 letters, 1 up to 7, then 2
+    static int maxDistance(int length) {
+        return length <= 3 ? 0 : length <= 7 ? 1 : 2;
+    }
+
+    private Map<Integer, Integer> closestMistakes(String token, boolean prefix) {
+        int maxDistance = maxDistance(token.length());
+        long[] grams = grams(token, prefix);
+        int needed = Math.max(1, grams.length - 3 * maxDistance);
+
+        // Count shared trigrams per word, then check edit distance only for words with enough
+        int[] shared = new int[words.size()];
+        IntList touched = new IntList();
+        for (long gram : grams) {
+            IntList ids = wordsByGram.get(gram);
+            if (ids == null) continue;
+            for (int i = 0; i < ids.size; i++) {
+                int wordId = ids.values[i];
+                if (shared[wordId]++ == 0) touched.add(wordId);
+            }
+        }
+
+        Map<Integer, Integer> best = new HashMap<>();
+        for (int i = 0; i < touched.size; i++) {
+            int wordId = touched.values[i];
+            if (shared[wordId] < needed) continue;
+            String word = words.get(wordId);
+            if (prefix ? word.length() < token.length() - maxDistance
+                       : Math.abs(word.length() - token.length()) > maxDistance) continue;
+            int distance = distance(token, word, maxDistance, prefix);
+            if (distance > maxDistance) continue;
+            IntList mistakes = postings.get(wordId);
+            for (int j = 0; j < mistakes.size; j++) {
+                best.merge(mistakes.values[j], distance, Math::min);
+            }
+        }
+        return best;
+    }
+
+    private int wordId(String word) {
+        Integer id = wordIds.get(word);
+        if (id != null) return id;
+        id = words.size();
+        wordIds.put(word, id);
+        words.add(word);
+        postings.add(new IntList());
+        for (long gram : grams(word, false)) {
+            wordsByGram.computeIfAbsent(gram, g -> new IntList()).add(id);
+        }
+        return id;
+    }
+
+    // Levenshtein distance, giving up once it must exceed max. With prefix, the distance from
+    // query to the closest prefix of word.
+    static int distance(String query, String word, int max, boolean prefix) {
+        int[] previous = new int[word.length() + 1];
+        int[] current = new int[word.length() + 1];
+        for (int j = 0; j <= word.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= query.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char c = query.charAt(i - 1);
+            for (int j = 1; j <= word.length(); j++) {
+                int cost = c == word.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) return max + 1;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        if (!prefix) return previous[word.length()];
+        int min = Integer.MAX_VALUE;
+        for (int value : previous) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    // Trigrams of the word padded with a boundary mark; a prefix leaves the end open
+    private static long[] grams(String word, boolean prefix) {
+        String padded = BOUNDARY + word + (prefix ? "" : String.valueOf(BOUNDARY));
+        long[] grams = new long[Math.max(0, padded.length() - 2)];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+        }
+        return grams;
+    }
+
+    private static final class IntList {
+        int[] values = new int[2];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    System.arraycopy(values, i + 1, values, i, size - i - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+    }
+}
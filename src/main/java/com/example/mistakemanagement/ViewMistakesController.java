@@ -1,14 +1,24 @@
 package com.example.mistakemanagement;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 public class ViewMistakesController {
     @FXML
@@ -16,12 +26,27 @@ public class ViewMistakesController {
     
     @FXML
     private TextField searchField;
+
+    @FXML
+    private CheckBox fuzzySearchCheck;
+
+    @FXML
+    private CheckBox includeArchiveCheck;
     
     @FXML
     private Button refreshBtn;
+
+    @FXML
+    private VBox facetsBox;
+
+    @FXML
+    private CheckBox matchAllTagsCheck;
+
+    @FXML
+    private Button clearFacetsBtn;
     
     @FXML
-    private ListView<String> mistakesListView;
+    private ListView<Integer> mistakesListView;
     
     @FXML
     private Button viewDetailsBtn;
@@ -31,129 +56,366 @@ public class ViewMistakesController {
     
     @FXML
     private Button markReviewedBtn;
+
+    @FXML
+    private Button editBtn;
+
+    @FXML
+    private Button reviewSessionBtn;
     
     @FXML
     private Label statusLabel;
     
-    private List<Mistake> mistakes = new ArrayList<>();
-    private Mistake selectedMistake = null;
+    // Rows live in the columnar store; the list view only holds the ids that pass the filter
+    private final MistakeStore store = new MistakeStore();
+    private final IntObservableList visibleIds = new IntObservableList();
+    private int selectedId = -1;
+    // Mistake id -> hash of its first image; only these rows show a thumbnail
+    private Map<Integer, String> firstImages = new HashMap<>();
+    private final FacetIndex.Selection facetSelection = new FacetIndex.Selection();
+    // One check box per facet value, reused as the counts change
+    private final Map<FacetIndex.Facet, Map<String, CheckBox>> facetChecks = new EnumMap<>(FacetIndex.Facet.class);
+    private final List<EventBus.Subscription> subscriptions = new ArrayList<>();
+    // Set by event handlers, so a burst of events redraws the facets and refilters only once
+    private boolean facetsStale;
+    private boolean filterStale;
+    private Stage detailsStage;
+    private MistakeDetailsController detailsController;
 
     @FXML
     public void initialize() {
+        mistakesListView.setItems(visibleIds);
+        mistakesListView.setCellFactory(list -> new ListCell<>() {
+            private final ImageView thumbnail = new ImageView();
+
+            @Override
+            protected void updateItem(Integer id, boolean empty) {
+                super.updateItem(id, empty);
+                setText(empty || id == null ? null : store.displayText(id));
+                String image = empty || id == null ? null : firstImages.get(id);
+                if (image == null) {
+                    setGraphic(null);
+                    return;
+                }
+                // Decoded in the background; by then the cell may show another row
+                thumbnail.setImage(ThumbnailCache.get().get(image, ThumbnailCache.LIST_SIZE, loaded -> {
+                    if (id.equals(getItem())) thumbnail.setImage(loaded);
+                }));
+                setGraphic(thumbnail);
+            }
+        });
+
         loadSubjects();
         loadMistakes();
         
         // Add listeners
-        subjectFilterCombo.setOnAction(e -> loadMistakes());
+        subjectFilterCombo.setOnAction(e -> filterMistakes());
         searchField.textProperty().addListener((obs, oldVal, newVal) -> filterMistakes());
+        fuzzySearchCheck.selectedProperty().addListener((obs, oldVal, newVal) -> filterMistakes());
+        includeArchiveCheck.selectedProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal) {
+                loadArchived();
+            } else {
+                loadMistakes();
+            }
+        });
+        matchAllTagsCheck.selectedProperty().addListener((obs, oldVal, newVal) -> {
+            facetSelection.matchAllTags = newVal;
+            onFacetsChanged();
+        });
         mistakesListView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal != null) {
-                int index = mistakesListView.getSelectionModel().getSelectedIndex();
-                if (index >= 0 && index < mistakes.size()) {
-                    selectedMistake = mistakes.get(index);
-                }
+                selectedId = newVal;
+                // An open details window follows the selection
+                if (detailsStage != null) onViewDetailsClick();
             }
         });
+
+        // Keep this window current when other windows write
+        EventBus bus = EventBus.get();
+        subscriptions.add(bus.subscribe(DomainEvent.MistakeCreated.class, this::onMistakeCreated));
+        subscriptions.add(bus.subscribe(DomainEvent.MistakeUpdated.class, this::onMistakeUpdated));
+        subscriptions.add(bus.subscribe(DomainEvent.MistakeReviewed.class, this::onMistakeReviewed));
+        subscriptions.add(bus.subscribe(DomainEvent.AttachmentAdded.class, this::onAttachmentAdded));
+        subscriptions.add(bus.subscribe(DomainEvent.SubjectAdded.class, this::onSubjectAdded));
+        subscriptions.add(bus.subscribe(DomainEvent.SubjectDeleted.class, this::onSubjectDeleted));
+        subscriptions.add(bus.subscribe(DomainEvent.SubjectRestored.class, this::onSubjectRestored));
+        subscriptions.add(bus.subscribe(DomainEvent.DataReloaded.class, event -> {
+            loadSubjects();
+            loadMistakes();
+        }));
     }
 
-    private void loadSubjects() {
-        try (Connection conn = MySQLConnection.getConnection()) {
-            String query = "SELECT name FROM subjects ORDER BY name";
-            try (PreparedStatement stmt = conn.prepareStatement(query);
-                 ResultSet rs = stmt.executeQuery()) {
-                
-                List<String> subjects = new ArrayList<>();
-                subjects.add("All Subjects");
-                while (rs.next()) {
-                    subjects.add(rs.getString("name"));
-                }
-                subjectFilterCombo.getItems().setAll(subjects);
-                subjectFilterCombo.setValue("All Subjects");
+    void dispose() {
+        subscriptions.forEach(EventBus.Subscription::cancel);
+        subscriptions.clear();
+        if (detailsStage != null) {
+            detailsStage.close();
+        }
+    }
+
+    private void onMistakeCreated(DomainEvent.MistakeCreated event) {
+        Mistake mistake = event.mistake();
+        if (!store.add(mistake)) return;
+        if (fuzzySearchCheck.isSelected() || !facetSelection.isEmpty() || filterStale) {
+            // Fuzzy results are ranked, so the new row may not belong at the top; facet matches
+            // are worked out once for the whole batch
+            refreshAfterEvents(true);
+            return;
+        }
+        // The newest row goes on top, so it can be placed without refiltering
+        if (store.matches(mistake.id, selectedSubject(), searchField.getText(), null)) {
+            visibleIds.add(0, mistake.id);
+        }
+        refreshAfterEvents(false);
+    }
+
+    private void onMistakeUpdated(DomainEvent.MistakeUpdated event) {
+        if (store.update(event.mistake())) {
+            // The new title, subject or tags may move it in or out of the current filter
+            refreshAfterEvents(true);
+        }
+    }
+
+    private void onMistakeReviewed(DomainEvent.MistakeReviewed event) {
+        if (!store.contains(event.mistakeId())) return;
+        store.setReviewed(event.mistakeId(), event.reviewCount());
+        // It may no longer match the reviewed filter
+        refreshAfterEvents(!facetSelection.chosen.getOrDefault(FacetIndex.Facet.REVIEWED, Set.of()).isEmpty());
+        // Only the visible cells are re-rendered, and repeated calls within a pulse collapse
+        mistakesListView.refresh();
+    }
+
+    // The store and its facet bitmaps are updated per event; redrawing the facets and refiltering
+    // waits until the whole batch of events is in
+    private void refreshAfterEvents(boolean refilter) {
+        if (!facetsStale) {
+            facetsStale = true;
+            EventBus.get().afterDrain(this::refreshStale);
+        }
+        filterStale |= refilter;
+    }
+
+    private void refreshStale() {
+        if (filterStale) {
+            filterMistakes();
+        }
+        refreshFacets();
+        facetsStale = false;
+        filterStale = false;
+    }
+
+    private void onAttachmentAdded(DomainEvent.AttachmentAdded event) {
+        Attachment attachment = event.attachment();
+        if (attachment.isImage() && firstImages.putIfAbsent(attachment.mistakeId, attachment.sha256) == null) {
+            mistakesListView.refresh();
+        }
+    }
+
+    private void onSubjectAdded(DomainEvent.SubjectAdded event) {
+        addSubjectName(event.name());
+    }
+
+    private void addSubjectName(String name) {
+        List<String> items = subjectFilterCombo.getItems();
+        if (items.contains(name)) return;
+        // Index 0 is "All Subjects"; keep the rest in name order like the query does
+        int index = 1;
+        while (index < items.size() && items.get(index).compareTo(name) < 0) {
+            index++;
+        }
+        items.add(index, name);
+    }
+
+    private void onSubjectDeleted(DomainEvent.SubjectDeleted event) {
+        if (event.name().equals(subjectFilterCombo.getValue())) {
+            subjectFilterCombo.setValue("All Subjects");
+        }
+        subjectFilterCombo.getItems().remove(event.name());
+        // Hidden rather than dropped, so an undo only has to show them again
+        if (store.setSubjectHidden(event.subjectId(), true) > 0) {
+            refreshAfterEvents(true);
+        }
+        if (selectedId >= 0 && !store.contains(selectedId)) {
+            selectedId = -1;
+        }
+    }
+
+    // An undone delete brings the subject's mistakes back. Rows this window hid are shown again;
+    // if it was opened after the delete, just that subject's mistakes are fetched off the FX thread.
+    private void onSubjectRestored(DomainEvent.SubjectRestored event) {
+        addSubjectName(event.name());
+        if (store.setSubjectHidden(event.subjectId(), false) > 0) {
+            refreshAfterEvents(true);
+            return;
+        }
+        AppServices.background().submit(() -> {
+            try {
+                List<Mistake> restored = MistakeDao.findBySubject(event.subjectId());
+                Platform.runLater(() -> mergeMistakes(restored));
+            } catch (SQLException e) {
+                Platform.runLater(() -> statusLabel.setText("Error loading restored mistakes: " + e.getMessage()));
             }
+        });
+    }
+
+    private void mergeMistakes(List<Mistake> restored) {
+        boolean changed = false;
+        for (Mistake mistake : restored) {
+            changed |= store.add(mistake);
+        }
+        if (changed) {
+            onFacetsChanged();
+        }
+    }
+
+    private void loadSubjects() {
+        try {
+            List<String> subjects = new ArrayList<>();
+            subjects.add("All Subjects");
+            subjects.addAll(SubjectDao.findAllNames());
+            subjectFilterCombo.getItems().setAll(subjects);
+            subjectFilterCombo.setValue("All Subjects");
         } catch (SQLException e) {
             statusLabel.setText("Error loading subjects: " + e.getMessage());
         }
     }
 
     private void loadMistakes() {
-        try (Connection conn = MySQLConnection.getConnection()) {
-            String query = "SELECT m.id, m.title, m.description, m.correct_answer, m.your_answer, " +
-                          "m.explanation, m.difficulty_level, m.source, m.is_reviewed, m.review_count, " +
-                          "s.name as subject_name, c.name as category_name " +
-                          "FROM mistakes m " +
-                          "JOIN subjects s ON m.subject_id = s.id " +
-                          "LEFT JOIN categories c ON m.category_id = c.id " +
-                          "ORDER BY m.created_at DESC";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(query);
-                 ResultSet rs = stmt.executeQuery()) {
-                
-                mistakes.clear();
-                List<String> displayItems = new ArrayList<>();
-                
-                while (rs.next()) {
-                    Mistake mistake = new Mistake();
-                    mistake.id = rs.getInt("id");
-                    mistake.title = rs.getString("title");
-                    mistake.description = rs.getString("description");
-                    mistake.correctAnswer = rs.getString("correct_answer");
-                    mistake.yourAnswer = rs.getString("your_answer");
-                    mistake.explanation = rs.getString("explanation");
-                    mistake.difficultyLevel = rs.getString("difficulty_level");
-                    mistake.source = rs.getString("source");
-                    mistake.isReviewed = rs.getBoolean("is_reviewed");
-                    mistake.reviewCount = rs.getInt("review_count");
-                    mistake.subjectName = rs.getString("subject_name");
-                    mistake.categoryName = rs.getString("category_name");
-                    
-                    mistakes.add(mistake);
-                    
-                    // Create display string
-                    String reviewed = mistake.isReviewed ? "✓" : "○";
-                    String displayText = String.format("[%s] %s - %s (%s) %s",
-                        reviewed, mistake.title, mistake.subjectName, 
-                        mistake.difficultyLevel, mistake.categoryName != null ? "- " + mistake.categoryName : "");
-                    
-                    displayItems.add(displayText);
-                }
-                
-                mistakesListView.getItems().setAll(displayItems);
+        try {
+            // Only the list columns; the text fields are fetched when a mistake is opened
+            store.load(MistakeDao.findSummaries());
+            firstImages = AttachmentDao.firstImages();
+            selectedId = -1;
+            onFacetsChanged();
+            if (includeArchiveCheck.isSelected()) {
+                loadArchived();
+            } else {
+                loadDescriptions(false);
             }
         } catch (SQLException e) {
             statusLabel.setText("Error loading mistakes: " + e.getMessage());
         }
     }
 
+    // Descriptions are only searched, so they are read in one streamed pass off the FX thread
+    // instead of with every list row; until it finishes, a search matches titles and names only
+    private void loadDescriptions(boolean archived) {
+        int build = store.startDescriptions();
+        AppServices.background().submit(() -> {
+            try {
+                TrigramIndex descriptions = new TrigramIndex();
+                MistakeDao.forEachDescription(false, descriptions::add);
+                if (archived) {
+                    MistakeDao.forEachDescription(true, descriptions::add);
+                }
+                Platform.runLater(() -> {
+                    store.finishDescriptions(build, descriptions);
+                    if (!searchField.getText().isEmpty()) filterMistakes();
+                });
+            } catch (SQLException e) {
+                Platform.runLater(() -> statusLabel.setText("Error loading descriptions: " + e.getMessage()));
+            }
+        });
+    }
+
+    // Archived mistakes are only listed on request, so searches and facets span both tiers;
+    // fetched off the FX thread
+    private void loadArchived() {
+        statusLabel.setText("Loading archived mistakes...");
+        AppServices.background().submit(() -> {
+            try {
+                List<Mistake> archived = MistakeDao.findArchivedSummaries();
+                Platform.runLater(() -> {
+                    if (!includeArchiveCheck.isSelected()) return;
+                    mergeMistakes(archived);
+                    loadDescriptions(true);
+                    statusLabel.setText(archived.size() + " archived mistakes included");
+                    statusLabel.setStyle("-fx-text-fill: #27ae60");
+                });
+            } catch (SQLException e) {
+                Platform.runLater(() -> {
+                    statusLabel.setText("Error loading archived mistakes: " + e.getMessage());
+                    loadDescriptions(false);
+                });
+            }
+        });
+    }
+
     private void filterMistakes() {
-        String searchText = searchField.getText().toLowerCase();
-        String selectedSubject = subjectFilterCombo.getValue();
-        
-        List<String> filteredItems = new ArrayList<>();
-        
-        for (int i = 0; i < mistakes.size(); i++) {
-            Mistake mistake = mistakes.get(i);
-            
-            // Check subject filter
-            boolean subjectMatch = selectedSubject == null || selectedSubject.equals("All Subjects") || 
-                                 mistake.subjectName.equals(selectedSubject);
-            
-            // Check search filter
-            boolean searchMatch = searchText.isEmpty() || 
-                                 mistake.title.toLowerCase().contains(searchText) ||
-                                 (mistake.description != null && mistake.description.toLowerCase().contains(searchText)) ||
-                                 mistake.subjectName.toLowerCase().contains(searchText) ||
-                                 (mistake.categoryName != null && mistake.categoryName.toLowerCase().contains(searchText));
-            
-            if (subjectMatch && searchMatch) {
-                String reviewed = mistake.isReviewed ? "✓" : "○";
-                String displayText = String.format("[%s] %s - %s (%s) %s",
-                    reviewed, mistake.title, mistake.subjectName, 
-                    mistake.difficultyLevel, mistake.categoryName != null ? "- " + mistake.categoryName : "");
-                filteredItems.add(displayText);
+        RoaringBitmap allowed = facetFilter();
+        if (fuzzySearchCheck.isSelected()) {
+            store.filterFuzzy(selectedSubject(), searchField.getText(), allowed, visibleIds);
+        } else {
+            store.filter(selectedSubject(), searchField.getText(), allowed, visibleIds);
+        }
+    }
+
+    // Null when no facet value is chosen
+    private RoaringBitmap facetFilter() {
+        return facetSelection.isEmpty() ? null : store.facets().matching(facetSelection);
+    }
+
+    private void onFacetsChanged() {
+        refreshFacets();
+        filterMistakes();
+    }
+
+    // Redraws the facet values with their counts for the current selection. The counts follow the
+    // facet selection only; typing a search does not recount.
+    private void refreshFacets() {
+        FacetIndex facets = store.facets();
+        List<Node> children = new ArrayList<>();
+        for (FacetIndex.Facet facet : FacetIndex.Facet.values()) {
+            Map<String, Integer> counts = facets.counts(facet, facetSelection);
+            Set<String> chosen = facetSelection.chosen.computeIfAbsent(facet,
+                f -> new TreeSet<>(String.CASE_INSENSITIVE_ORDER));
+            // A chosen value stays listed even once nothing has it, so it can be unticked
+            for (String value : chosen) {
+                counts.putIfAbsent(value, 0);
+            }
+            if (counts.isEmpty()) continue;
+
+            Label header = new Label(facet.label);
+            header.setStyle("-fx-font-weight: bold; -fx-text-fill: #34495e;");
+            children.add(header);
+            Map<String, CheckBox> checks = facetChecks.computeIfAbsent(facet,
+                f -> new TreeMap<>(String.CASE_INSENSITIVE_ORDER));
+            checks.keySet().retainAll(counts.keySet());
+            for (Map.Entry<String, Integer> count : counts.entrySet()) {
+                CheckBox check = checks.computeIfAbsent(count.getKey(), value -> facetCheck(facet, value));
+                check.setText(count.getKey() + " (" + count.getValue() + ")");
+                check.setSelected(chosen.contains(count.getKey()));
+                children.add(check);
             }
         }
-        
-        mistakesListView.getItems().setAll(filteredItems);
+        facetsBox.getChildren().setAll(children);
+    }
+
+    private CheckBox facetCheck(FacetIndex.Facet facet, String value) {
+        CheckBox check = new CheckBox();
+        check.setOnAction(e -> {
+            Set<String> chosen = facetSelection.chosen.get(facet);
+            if (check.isSelected()) {
+                chosen.add(value);
+            } else {
+                chosen.remove(value);
+            }
+            onFacetsChanged();
+        });
+        return check;
+    }
+
+    @FXML
+    protected void onClearFacetsClick() {
+        facetSelection.chosen.values().forEach(Set::clear);
+        onFacetsChanged();
+    }
+
+    // Null when showing all subjects
+    private String selectedSubject() {
+        String selected = subjectFilterCombo.getValue();
+        return selected == null || selected.equals("All Subjects") ? null : selected;
     }
 
     @FXML
@@ -164,92 +426,144 @@ public class ViewMistakesController {
 
     @FXML
     protected void onViewDetailsClick() {
-        if (selectedMistake == null) {
+        if (selectedId < 0) {
             statusLabel.setText("Please select a mistake to view details");
             return;
         }
-        
-        // Create a simple details dialog
-        Alert alert = new Alert(Alert.AlertType.INFORMATION);
-        alert.setTitle("Mistake Details");
-        alert.setHeaderText(selectedMistake.title);
-        
-        StringBuilder content = new StringBuilder();
-        content.append("Subject: ").append(selectedMistake.subjectName).append("\n");
-        if (selectedMistake.categoryName != null) {
-            content.append("Category: ").append(selectedMistake.categoryName).append("\n");
+
+        if (!openDetails()) return;
+        Mistake selectedMistake = store.details(selectedId);
+        if (selectedMistake != null) {
+            detailsController.show(selectedMistake);
+        } else {
+            // Read and rendered off the FX thread
+            detailsController.show(selectedId, store::remember);
         }
-        content.append("Difficulty: ").append(selectedMistake.difficultyLevel).append("\n");
-        if (selectedMistake.source != null) {
-            content.append("Source: ").append(selectedMistake.source).append("\n");
+        detailsStage.show();
+        detailsStage.toFront();
+    }
+
+    // One details window per list, reused as the selection moves
+    private boolean openDetails() {
+        if (detailsStage == null) {
+            try {
+                FXMLLoader loader = new FXMLLoader(ViewMistakesController.class.getResource("mistake-details-view.fxml"));
+                Scene scene = new Scene(loader.load(), 750, 700);
+                MistakeDetailsController controller = loader.getController();
+                Stage stage = new Stage();
+                stage.setScene(scene);
+                stage.setOnHidden(e -> {
+                    controller.dispose();
+                    detailsStage = null;
+                    detailsController = null;
+                });
+                detailsStage = stage;
+                detailsController = controller;
+            } catch (IOException e) {
+                statusLabel.setText("Error loading details view: " + e.getMessage());
+                return false;
+            }
         }
-        content.append("Review Count: ").append(selectedMistake.reviewCount).append("\n\n");
-        
-        if (selectedMistake.description != null && !selectedMistake.description.isEmpty()) {
-            content.append("Description:\n").append(selectedMistake.description).append("\n\n");
+        return true;
+    }
+
+    @FXML
+    protected void onEditClick() {
+        if (selectedId < 0) {
+            statusLabel.setText("Please select a mistake to edit");
+            return;
         }
-        
-        if (selectedMistake.yourAnswer != null && !selectedMistake.yourAnswer.isEmpty()) {
-            content.append("Your Answer:\n").append(selectedMistake.yourAnswer).append("\n\n");
+        Mistake mistake = store.details(selectedId);
+        if (mistake != null) {
+            openEditor(mistake);
+            return;
         }
-        
-        content.append("Correct Answer:\n").append(selectedMistake.correctAnswer).append("\n\n");
-        
-        if (selectedMistake.explanation != null && !selectedMistake.explanation.isEmpty()) {
-            content.append("Explanation:\n").append(selectedMistake.explanation);
+        int mistakeId = selectedId;
+        statusLabel.setText("Loading mistake...");
+        AppServices.background().submit(() -> {
+            try {
+                List<Mistake> found = MistakeDao.findByIds(List.of(mistakeId));
+                Platform.runLater(() -> {
+                    if (found.isEmpty()) {
+                        statusLabel.setText("This mistake no longer exists");
+                        return;
+                    }
+                    statusLabel.setText("");
+                    store.remember(found.get(0));
+                    openEditor(found.get(0));
+                });
+            } catch (SQLException e) {
+                Platform.runLater(() -> statusLabel.setText("Error loading mistake: " + e.getMessage()));
+            }
+        });
+    }
+
+    private void openEditor(Mistake mistake) {
+        try {
+            FXMLLoader loader = new FXMLLoader(ViewMistakesController.class.getResource("add-mistake-view.fxml"));
+            Scene scene = new Scene(loader.load(), 900, 800);
+            AddMistakeController controller = loader.getController();
+            controller.edit(mistake);
+            Stage stage = new Stage();
+            stage.setTitle("Edit Mistake");
+            stage.setScene(scene);
+            stage.setOnHidden(e -> controller.dispose());
+            stage.setResizable(true);
+            stage.show();
+        } catch (IOException e) {
+            statusLabel.setText("Error loading edit form: " + e.getMessage());
         }
-        
-        alert.setContentText(content.toString());
-        alert.showAndWait();
     }
 
     @FXML
     protected void onMarkReviewedClick() {
-        if (selectedMistake == null) {
+        if (selectedId < 0) {
             statusLabel.setText("Please select a mistake to mark as reviewed");
             return;
         }
         
-        try (Connection conn = MySQLConnection.getConnection()) {
-            String query = "UPDATE mistakes SET is_reviewed = true, review_count = review_count + 1, " +
-                          "last_reviewed_at = CURRENT_TIMESTAMP WHERE id = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                stmt.setInt(1, selectedMistake.id);
-                int rowsAffected = stmt.executeUpdate();
-                
-                if (rowsAffected > 0) {
-                    statusLabel.setText("Mistake marked as reviewed!");
-                    statusLabel.setStyle("-fx-text-fill: #27ae60");
-                    loadMistakes(); // Refresh the list
-                } else {
-                    statusLabel.setText("Failed to update mistake");
-                }
+        try {
+            // Every open window (including this one) applies the change from the event
+            if (MistakeDao.markReviewed(selectedId) >= 0) {
+                statusLabel.setText("Mistake marked as reviewed!");
+                statusLabel.setStyle("-fx-text-fill: #27ae60");
+            } else {
+                statusLabel.setText("Failed to update mistake");
             }
         } catch (SQLException e) {
             statusLabel.setText("Error updating mistake: " + e.getMessage());
         }
     }
 
+    // Reviews the mistakes the list currently shows, in list order
+    @FXML
+    protected void onReviewSessionClick() {
+        if (visibleIds.isEmpty()) {
+            statusLabel.setText("No mistakes to review");
+            return;
+        }
+        int[] ids = new int[visibleIds.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = visibleIds.getInt(i);
+        }
+        try {
+            FXMLLoader loader = new FXMLLoader(ViewMistakesController.class.getResource("review-session-view.fxml"));
+            Scene scene = new Scene(loader.load(), 800, 600);
+            ReviewSessionController controller = loader.getController();
+            Stage stage = new Stage();
+            stage.setTitle("Review Session");
+            stage.setScene(scene);
+            stage.setOnHidden(e -> controller.dispose());
+            stage.show();
+            controller.start(ids);
+        } catch (IOException e) {
+            statusLabel.setText("Error loading review session: " + e.getMessage());
+        }
+    }
+
     @FXML
     protected void onCloseClick() {
         Stage stage = (Stage) closeBtn.getScene().getWindow();
         stage.close();
     }
-
-    // Inner class to hold mistake data
-    private static class Mistake {
-        int id;
-        String title;
-        String description;
-        String correctAnswer;
-        String yourAnswer;
-        String explanation;
-        String difficultyLevel;
-        String source;
-        boolean isReviewed;
-        int reviewCount;
-        String subjectName;
-        String categoryName;
-    }
 }
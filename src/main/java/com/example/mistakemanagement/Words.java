@@ -0,0 +1,24 @@
+package com.example.mistakemanagement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Word splitting shared by the text indexes, so they all agree on what a word is
+public class Words {
+    // Words too common to say anything about whether two mistakes are alike
+    static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "the", "i", "my", "me", "to", "of", "in", "on", "at", "for", "and", "or",
+        "is", "it", "was", "be", "as", "by", "with", "when", "that", "this");
+
+    // Lowercase runs of letters and digits
+    static List<String> split(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) return words;
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) words.add(word);
+        }
+        return words;
+    }
+}
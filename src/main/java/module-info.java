@@ -3,6 +3,8 @@ module com.example.mistakemanagement {
     requires javafx.fxml;
     requires javafx.web;
     requires java.sql;
+    requires java.net.http;
+    requires jdk.httpserver;
 
     requires org.controlsfx.controls;
     requires com.dlsc.formsfx;
@@ -0,0 +1,73 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Only requests the server turns away before touching the database
+class ApiServerTest {
+    private static final String TOKEN = "test-token";
+    private static ApiServer server;
+    private static String baseUrl;
+    private static final HttpClient http = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new ApiServer(InetAddress.getLoopbackAddress(), port, TOKEN);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + port;
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    private static HttpResponse<String> post(String token, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/mistakes"))
+            .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) request.header(ApiServer.TOKEN_HEADER, token);
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void rejectsMissingAndWrongTokens() throws Exception {
+        assertEquals(401, post(null, "{}").statusCode());
+        assertEquals(401, post("test-token-but-longer", "{}").statusCode());
+        assertEquals(401, post("", "{}").statusCode());
+
+        HttpRequest get = HttpRequest.newBuilder(URI.create(baseUrl + "/api/stats")).build();
+        assertEquals(401, http.send(get, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    void answersMalformedJsonWith400() throws Exception {
+        for (String body : new String[] {"{", "{\"title\": \"a", "[".repeat(10_000), "{} trailing", "\"\\u12\""}) {
+            HttpResponse<String> response = post(TOKEN, body);
+            assertEquals(400, response.statusCode(), body);
+            assertTrue(response.body().contains("Malformed JSON"), response.body());
+        }
+    }
+
+    @Test
+    void answersMissingFieldsWith400() throws Exception {
+        HttpResponse<String> response = post(TOKEN, "{\"title\": \"Sign error\"}");
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("required"), response.body());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AttachmentStoreTest {
+    @TempDir
+    Path root;
+
+    @Test
+    void namesContentByItsSha256() throws IOException {
+        AttachmentStore store = new AttachmentStore(root);
+
+        AttachmentStore.Blob blob = store.put(stream("abc"));
+
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", blob.sha256());
+        assertEquals(3, blob.size());
+        assertTrue(store.contains(blob.sha256()));
+        assertEquals(root.resolve("ba").resolve(blob.sha256()), store.path(blob.sha256()));
+    }
+
+    @Test
+    void storesTheSameContentOnceAndLeavesNoTemporaryFiles() throws IOException {
+        AttachmentStore store = new AttachmentStore(root);
+        Path file = Files.writeString(root.resolve("screenshot.png"), "same bytes");
+
+        AttachmentStore.Blob first = store.put(file);
+        AttachmentStore.Blob second = store.put(stream("same bytes"));
+
+        assertEquals(first, second);
+        try (Stream<Path> files = Files.walk(root)) {
+            assertEquals(1, files.filter(p -> p.toString().endsWith(first.sha256())).count());
+        }
+        try (Stream<Path> files = Files.list(root)) {
+            assertTrue(files.noneMatch(p -> p.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void readsBackThroughTheMapping() throws IOException {
+        AttachmentStore store = new AttachmentStore(root);
+        byte[] content = new byte[200_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        String sha256 = store.put(new ByteArrayInputStream(content)).sha256();
+
+        MappedByteBuffer mapped = store.map(sha256);
+        assertEquals(content.length, mapped.remaining());
+        try (InputStream in = store.open(sha256)) {
+            assertEquals(content.length, in.available());
+            assertEquals(content[0] & 0xff, in.read());
+            assertEquals(1000, in.skip(1000));
+            byte[] rest = in.readAllBytes();
+            assertEquals(content.length - 1001, rest.length);
+            assertEquals(content[1001], rest[0]);
+            assertEquals(-1, in.read());
+        }
+        try (InputStream in = store.open(sha256)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void rejectsOversizedContentWithoutKeepingIt() {
+        AttachmentStore store = new AttachmentStore(root);
+        InputStream huge = new InputStream() {
+            private long left = AttachmentStore.MAX_SIZE_BYTES + 1;
+
+            @Override
+            public int read() {
+                return left-- > 0 ? 0 : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if (left <= 0) return -1;
+                int n = (int) Math.min(length, left);
+                left -= n;
+                return n;
+            }
+        };
+
+        IOException e = assertThrows(IOException.class, () -> store.put(huge));
+        assertTrue(e.getMessage().startsWith("Attachments are limited to"), e.getMessage());
+        try (Stream<Path> files = Files.list(root)) {
+            assertEquals(0, files.count());
+        } catch (IOException listing) {
+            throw new AssertionError(listing);
+        }
+    }
+
+    @Test
+    void refusesHashesThatCouldNameAnotherPath() {
+        AttachmentStore store = new AttachmentStore(root);
+
+        assertThrows(IllegalArgumentException.class, () -> store.path("../../etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> store.path(null));
+        assertThrows(IllegalArgumentException.class, () -> store.path("g".repeat(64)));
+        assertThrows(IllegalArgumentException.class, () -> store.path("../" + "a".repeat(61)));
+        assertFalse(store.contains("a".repeat(64)));
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
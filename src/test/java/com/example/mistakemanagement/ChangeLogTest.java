@@ -0,0 +1,44 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+// Entries reach API clients as JSON; the poller relies on every field coming back as it was
+class ChangeLogTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void entriesSurviveTheApiTransport() {
+        List<ChangeLog.Entry> entries = List.of(
+            new ChangeLog.Entry(1, ChangeLog.MISTAKE, 7, ChangeLog.INSERT, ChangeLog.CLIENT_ID, null, 0),
+            new ChangeLog.Entry(5_000_000_000L, ChangeLog.MISTAKE, 7, ChangeLog.REVIEW, "other", "12", 1),
+            new ChangeLog.Entry(6, ChangeLog.DATA, 0, ChangeLog.RELOAD, "other", "backup-full.mmbak", 14_973));
+
+        List<Object> json = new ArrayList<>();
+        entries.forEach(entry -> json.add(entry.toJson()));
+        List<ChangeLog.Entry> read = new ArrayList<>();
+        for (Object item : (List<Object>) Json.parse(Json.write(json))) {
+            read.add(ChangeLog.Entry.fromJson((Map<String, Object>) item));
+        }
+        assertEquals(entries, read);
+    }
+
+    @Test
+    void eachProcessHasItsOwnOrigin() {
+        assertEquals(36, ChangeLog.CLIENT_ID.length());
+        assertEquals(ChangeLog.CLIENT_ID, ChangeLog.ORIGIN.get());
+        ChangeLog.ORIGIN.set("remote-client");
+        try {
+            assertNotEquals(ChangeLog.CLIENT_ID, ChangeLog.ORIGIN.get());
+        } finally {
+            ChangeLog.ORIGIN.remove();
+        }
+        assertEquals(ChangeLog.CLIENT_ID, ChangeLog.ORIGIN.get());
+    }
+}
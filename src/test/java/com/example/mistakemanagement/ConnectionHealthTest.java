@@ -0,0 +1,78 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Never started, so no probes run; the tests report connection outcomes themselves
+class ConnectionHealthTest {
+    private final ConnectionHealth health = new ConnectionHealth();
+    private final List<ConnectionHealth.Status> changes = new ArrayList<>();
+
+    @BeforeEach
+    void listen() {
+        health.addListener(changes::add);
+    }
+
+    @Test
+    void opensAfterThreeFailuresInARowAndThenFailsFast() {
+        assertEquals(ConnectionHealth.State.UNKNOWN, health.status().state());
+        health.recordFailure(new SQLException("refused 1", "08001"));
+        health.recordFailure(new SQLException("refused 2", "08001"));
+        assertDoesNotThrow(health::check);
+
+        health.recordFailure(new SQLException("refused 3", "08001"));
+        health.recordFailure(new SQLException("refused 4", "08001"));
+
+        SQLException e = assertThrows(SQLException.class, health::check);
+        assertEquals("08001", e.getSQLState());
+        assertTrue(e.getMessage().endsWith("refused 3"), e.getMessage());
+        assertEquals(List.of(new ConnectionHealth.Status(ConnectionHealth.State.DOWN, "refused 3")), changes);
+    }
+
+    @Test
+    void aSuccessClosesTheCircuitAndResetsTheCount() throws SQLException {
+        for (int i = 0; i < 3; i++) {
+            health.recordFailure(new SQLException("refused", "08001"));
+        }
+
+        health.recordSuccess();
+        health.check();
+        health.recordFailure(new SQLException("refused", "08001"));
+        health.recordFailure(new SQLException("refused", "08001"));
+        health.recordSuccess();
+        health.recordFailure(new SQLException("refused", "08001"));
+        health.recordFailure(new SQLException("refused", "08001"));
+
+        health.check();
+        assertEquals(ConnectionHealth.State.UP, health.status().state());
+        assertEquals(List.of(ConnectionHealth.State.DOWN, ConnectionHealth.State.UP),
+            changes.stream().map(ConnectionHealth.Status::state).toList());
+    }
+
+    @Test
+    void repeatedSuccessesNotifyOnce() {
+        health.recordSuccess();
+        health.recordSuccess();
+
+        assertEquals(List.of(new ConnectionHealth.Status(ConnectionHealth.State.UP, null)), changes);
+    }
+
+    @Test
+    void onlyConnectionFailuresCount() {
+        assertTrue(ConnectionHealth.isConnectionFailure(new SQLException("refused", "08S01")));
+        assertTrue(ConnectionHealth.isConnectionFailure(new SQLTransientConnectionException("pool", "08000")));
+        assertFalse(ConnectionHealth.isConnectionFailure(new SQLException("duplicate key", "23000")));
+        assertFalse(ConnectionHealth.isConnectionFailure(new SQLException("no state")));
+    }
+}
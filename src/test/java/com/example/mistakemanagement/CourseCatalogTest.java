@@ -0,0 +1,44 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CourseCatalogTest {
+
+    @Test
+    void groupsCoursesUnderTheirCategory() throws IOException {
+        String text = "# comment\nBefore any category\n\n[ Sciences ]\n  Physics  \nChemistry\n[Languages]\n# Latin\nFrench\n";
+
+        List<CourseCatalog.Course> courses = CourseCatalog.read(
+            new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(List.of(
+            new CourseCatalog.Course("Before any category", "Other"),
+            new CourseCatalog.Course("Physics", "Sciences"),
+            new CourseCatalog.Course("Chemistry", "Sciences"),
+            new CourseCatalog.Course("French", "Languages")), courses);
+    }
+
+    @Test
+    void bundledCatalogLoadsOnceWithUniqueNames() throws IOException {
+        List<CourseCatalog.Course> courses = CourseCatalog.courses();
+
+        assertTrue(courses.size() > 100, "only " + courses.size() + " courses");
+        assertEquals(new CourseCatalog.Course("Mathematics", "STEM Subjects"), courses.get(0));
+        Set<String> names = new HashSet<>();
+        for (CourseCatalog.Course course : courses) {
+            assertTrue(names.add(course.name()), "listed twice: " + course.name());
+        }
+        assertSame(courses, CourseCatalog.courses());
+    }
+}
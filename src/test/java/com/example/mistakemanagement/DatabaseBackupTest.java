@@ -0,0 +1,182 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The on-disk chunk format; the table sections themselves need a database
+class DatabaseBackupTest {
+
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    void chunksRoundTrip() throws IOException {
+        Random random = new Random(4);
+        byte[] compressible = "INSERT INTO mistakes VALUES ".repeat(5_000).getBytes();
+        byte[] noise = new byte[100_000];
+        random.nextBytes(noise);
+        byte[] single = {7};
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(file);
+        for (byte[] raw : new byte[][] {compressible, noise, single}) {
+            out.write(DatabaseBackup.deflate(raw));
+        }
+        out.writeInt(0);
+
+        DataInputStream in = input(file.toByteArray());
+        assertArrayEquals(compressible, DatabaseBackup.inflate(DatabaseBackup.readChunk(in)));
+        assertArrayEquals(noise, DatabaseBackup.inflate(DatabaseBackup.readChunk(in)));
+        assertArrayEquals(single, DatabaseBackup.inflate(DatabaseBackup.readChunk(in)));
+        assertNull(DatabaseBackup.readChunk(in));
+    }
+
+    @Test
+    void corruptChunksAreRejected() throws IOException {
+        byte[] chunk = DatabaseBackup.deflate("Confused mean and median. ".repeat(1_000).getBytes());
+
+        byte[] badCrc = chunk.clone();
+        badCrc[8] ^= 1;
+        assertThrows(IOException.class, () -> DatabaseBackup.inflate(badCrc));
+
+        byte[] badData = chunk.clone();
+        badData[badData.length - 3] ^= 0x55;
+        assertThrows(IOException.class, () -> DatabaseBackup.inflate(badData));
+
+        byte[] longer = chunk.clone();
+        longer[3]++; // Claims one more raw byte than the data holds
+        assertThrows(IOException.class, () -> DatabaseBackup.inflate(longer));
+
+        byte[] truncated = Arrays.copyOf(chunk, chunk.length - 10);
+        assertThrows(EOFException.class, () -> DatabaseBackup.readChunk(input(truncated)));
+    }
+
+    // A full backup of one table in the on-disk layout: header, then each section's name, mode,
+    // columns and chunks
+    private static byte[] backupFile(String table) throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(file);
+        out.writeInt(0x4D4D424B);
+        out.writeInt(1);
+        out.writeUTF("2026-01-02 03:04:05");
+        out.writeUTF("");
+        out.writeUTF("");
+        out.writeInt(0);
+        out.writeBoolean(true);
+        out.writeUTF(table);
+        out.writeUTF("WHOLE");
+        out.writeInt(2);
+        out.writeUTF("id");
+        out.writeUTF("name");
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(rows);
+        for (int id = 1; id <= 1_000; id++) {
+            data.writeByte(1); // LONG
+            data.writeLong(id);
+            byte[] name = ("tag " + id).getBytes();
+            data.writeByte(3); // TEXT
+            data.writeInt(name.length);
+            data.write(name);
+        }
+        out.write(DatabaseBackup.deflate(rows.toByteArray()));
+        out.writeInt(0);
+        out.writeBoolean(false);
+        return file.toByteArray();
+    }
+
+    private static void verify(byte[] contents) throws IOException {
+        Path file = Files.createTempFile("verify", DatabaseBackup.SUFFIX);
+        ExecutorService decoders = Executors.newFixedThreadPool(2);
+        try {
+            Files.write(file, contents);
+            DatabaseBackup.verify(file, decoders);
+        } finally {
+            decoders.shutdownNow();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void verifyReadsWholeFilesThrough() throws IOException {
+        byte[] good = backupFile("tags");
+        verify(good);
+
+        byte[] flipped = good.clone();
+        flipped[good.length - 20] ^= 0x40;
+        assertTrue(assertThrows(IOException.class, () -> verify(flipped)).getMessage().contains("damaged"));
+
+        byte[] truncated = Arrays.copyOf(good, good.length - 1);
+        assertTrue(assertThrows(IOException.class, () -> verify(truncated)).getMessage().contains("truncated"));
+
+        IOException unknown = assertThrows(IOException.class, () -> verify(backupFile("users")));
+        assertTrue(unknown.getMessage().contains("Unknown table"));
+
+        byte[] notBackup = good.clone();
+        notBackup[0] = 0;
+        assertThrows(IOException.class, () -> verify(notBackup));
+    }
+
+    @Test
+    void varIntsRoundTrip() throws IOException {
+        int[] values = {0, 1, 127, 128, 16_383, 16_384, 1 << 21, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int value : values) {
+            DatabaseBackup.writeVarInt(out, value);
+        }
+        DataInputStream in = input(bytes.toByteArray());
+        for (int value : values) {
+            assertEquals(value, DatabaseBackup.readVarInt(in));
+        }
+        assertEquals(0, in.available());
+
+        byte[] endless = new byte[6];
+        Arrays.fill(endless, (byte) 0x80);
+        assertThrows(IOException.class, () -> DatabaseBackup.readVarInt(input(endless)));
+    }
+
+    @Test
+    void idSectionsRoundTrip() throws IOException {
+        // Ids are written ascending as gaps from the previous one, across several chunks
+        int[] ids = new int[10_000];
+        Random random = new Random(5);
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(file);
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(chunk);
+        int last = 0;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = last + 1 + random.nextInt(i % 2 == 0 ? 3 : 100_000);
+            DatabaseBackup.writeVarInt(data, ids[i] - last);
+            last = ids[i];
+            if (i % 3_000 == 2_999) {
+                out.write(DatabaseBackup.deflate(chunk.toByteArray()));
+                chunk.reset();
+            }
+        }
+        out.write(DatabaseBackup.deflate(chunk.toByteArray()));
+        out.writeInt(0);
+
+        assertArrayEquals(ids, DatabaseBackup.readIds(input(file.toByteArray())));
+        assertArrayEquals(new int[0], DatabaseBackup.readIds(input(new byte[4])));
+    }
+}
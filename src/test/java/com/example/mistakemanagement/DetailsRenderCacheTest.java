@@ -0,0 +1,82 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DetailsRenderCacheTest {
+    private static final int THIRD = (int) (DetailsRenderCache.MAX_CHARS / 3);
+
+    private final DetailsRenderCache cache = new DetailsRenderCache();
+
+    @Test
+    void servesOnlyTheVersionThatWasRendered() {
+        cache.put(mistake(1, 4), "<p>v4</p>");
+
+        assertEquals("<p>v4</p>", cache.cached(mistake(1, 4)));
+        assertNull(cache.cached(mistake(1, 5)));
+        assertNull(cache.cached(mistake(2, 4)));
+
+        cache.put(mistake(1, 5), "<p>v5</p>");
+        assertEquals("<p>v5</p>", cache.cached(mistake(1, 5)));
+        assertNull(cache.cached(mistake(1, 4)));
+    }
+
+    @Test
+    void dropsTheLeastRecentlyViewedOnceOverTheLimit() {
+        cache.put(mistake(1, 0), "a".repeat(THIRD));
+        cache.put(mistake(2, 0), "b".repeat(THIRD));
+        cache.put(mistake(3, 0), "c".repeat(THIRD));
+        // Viewing 1 again makes 2 the eldest
+        cache.cached(mistake(1, 0));
+
+        cache.put(mistake(4, 0), "d".repeat(THIRD));
+
+        assertNull(cache.cached(mistake(2, 0)));
+        assertEquals(THIRD, cache.cached(mistake(1, 0)).length());
+        assertEquals(THIRD, cache.cached(mistake(3, 0)).length());
+        assertEquals(THIRD, cache.cached(mistake(4, 0)).length());
+    }
+
+    @Test
+    void replacingAnEntryFreesItsOldSize() {
+        cache.put(mistake(1, 0), "a".repeat(THIRD));
+        cache.put(mistake(2, 0), "b".repeat(THIRD));
+        for (int version = 1; version <= 5; version++) {
+            cache.put(mistake(1, version), "a".repeat(THIRD));
+        }
+
+        assertEquals(THIRD, cache.cached(mistake(2, 0)).length());
+    }
+
+    @Test
+    void keepsTheNewestEvenWhenItAloneIsOverTheLimit() {
+        cache.put(mistake(1, 0), "small");
+        String huge = "h".repeat((int) DetailsRenderCache.MAX_CHARS + 1);
+
+        cache.put(mistake(2, 0), huge);
+
+        assertNull(cache.cached(mistake(1, 0)));
+        assertEquals(huge, cache.cached(mistake(2, 0)));
+    }
+
+    @Test
+    void rendersOnlyTheSectionsThatHaveText() {
+        Mistake mistake = mistake(1, 0);
+        mistake.description = "Forgot **units**";
+        mistake.correctAnswer = "5 m";
+        mistake.yourAnswer = " ";
+
+        assertEquals("<section class=\"\"><h2>Description</h2>\n<p>Forgot <strong>units</strong></p>\n</section>\n"
+            + "<section class=\"correct-answer\"><h2>Correct Answer</h2>\n<p>5 m</p>\n</section>\n",
+            DetailsRenderCache.sections(mistake));
+    }
+
+    private static Mistake mistake(int id, int version) {
+        Mistake mistake = new Mistake();
+        mistake.id = id;
+        mistake.version = version;
+        return mistake;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Drains run only when the test says so, standing in for FX pulses
+class EventBusTest {
+    private final Queue<Runnable> pulses = new ArrayDeque<>();
+    private final List<EventBus.Subscription> subscriptions = new ArrayList<>();
+    private final List<String> seen = new ArrayList<>();
+    private final EventBus bus = EventBus.get();
+
+    @BeforeEach
+    void useManualDispatcher() {
+        bus.setDispatcher(pulses::add);
+    }
+
+    @AfterEach
+    void cancelSubscriptions() {
+        subscriptions.forEach(EventBus.Subscription::cancel);
+        runPulses();
+    }
+
+    private void runPulses() {
+        Runnable pulse;
+        while ((pulse = pulses.poll()) != null) {
+            pulse.run();
+        }
+    }
+
+    @Test
+    void deliversABurstInOneDrainInPublishOrder() {
+        subscriptions.add(bus.subscribe(DomainEvent.MistakeReviewed.class,
+            event -> seen.add("reviewed " + event.mistakeId())));
+        subscriptions.add(bus.subscribe(DomainEvent.DataReloaded.class, event -> seen.add("reloaded")));
+
+        bus.publish(new DomainEvent.MistakeReviewed(1, 1));
+        bus.publish(new DomainEvent.DataReloaded());
+        bus.publish(new DomainEvent.MistakeReviewed(2, 1));
+        assertEquals(List.of(), seen);
+        assertEquals(1, pulses.size());
+
+        runPulses();
+        assertEquals(List.of("reviewed 1", "reloaded", "reviewed 2"), seen);
+    }
+
+    @Test
+    void runsAfterDrainActionsOnceEveryEventIsHandled() {
+        subscriptions.add(bus.subscribe(DomainEvent.MistakeReviewed.class, event -> {
+            seen.add("reviewed " + event.mistakeId());
+            if (event.mistakeId() == 1) {
+                bus.afterDrain(() -> seen.add("refresh"));
+            }
+        }));
+
+        bus.publish(new DomainEvent.MistakeReviewed(1, 1));
+        bus.publish(new DomainEvent.MistakeReviewed(2, 1));
+        runPulses();
+        assertEquals(List.of("reviewed 1", "reviewed 2", "refresh"), seen);
+
+        // Not run again by the next drain
+        seen.clear();
+        bus.publish(new DomainEvent.MistakeReviewed(3, 1));
+        runPulses();
+        assertEquals(List.of("reviewed 3"), seen);
+    }
+
+    @Test
+    void deliversEventsPublishedByHandlers() {
+        subscriptions.add(bus.subscribe(DomainEvent.MistakeReviewed.class, event -> {
+            seen.add("reviewed");
+            bus.publish(new DomainEvent.DataReloaded());
+        }));
+        subscriptions.add(bus.subscribe(DomainEvent.DataReloaded.class, event -> seen.add("reloaded")));
+
+        bus.publish(new DomainEvent.MistakeReviewed(1, 1));
+        runPulses();
+        assertEquals(List.of("reviewed", "reloaded"), seen);
+    }
+
+    @Test
+    void keepsGoingWhenAHandlerFails() {
+        subscriptions.add(bus.subscribe(DomainEvent.DataReloaded.class, event -> {
+            throw new IllegalStateException("broken window");
+        }));
+        subscriptions.add(bus.subscribe(DomainEvent.DataReloaded.class, event -> {
+            seen.add("second");
+            bus.afterDrain(() -> {
+                throw new IllegalStateException("broken refresh");
+            });
+            bus.afterDrain(() -> seen.add("refresh"));
+        }));
+
+        bus.publish(new DomainEvent.DataReloaded());
+        runPulses();
+        assertEquals(List.of("second", "refresh"), seen);
+    }
+
+    @Test
+    void stopsDeliveringAfterCancel() {
+        EventBus.Subscription subscription = bus.subscribe(DomainEvent.DataReloaded.class, event -> seen.add("reloaded"));
+        bus.publish(new DomainEvent.DataReloaded());
+        runPulses();
+        subscription.cancel();
+        bus.publish(new DomainEvent.DataReloaded());
+        runPulses();
+        assertEquals(List.of("reloaded"), seen);
+    }
+}
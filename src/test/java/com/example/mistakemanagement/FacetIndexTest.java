@@ -0,0 +1,131 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FacetIndexTest {
+    private final FacetIndex index = new FacetIndex();
+    private final FacetIndex.Selection selection = new FacetIndex.Selection();
+
+    @BeforeEach
+    void addMistakes() {
+        index.add(mistake(1, "Math", "Algebra", "Easy", false, "exam, homework"));
+        index.add(mistake(2, "Math", "Geometry", "Hard", true, "exam"));
+        index.add(mistake(3, "math", null, "Hard", false, "Homework"));
+        index.add(mistake(4, "Physics", "Optics", "Medium", false, "exam"));
+    }
+
+    @Test
+    void countsEveryValueWithNoSelection() {
+        assertEquals(Map.of("Math", 3, "Physics", 1), index.counts(FacetIndex.Facet.SUBJECT, selection));
+        assertEquals(Map.of("exam", 3, "homework", 2), index.counts(FacetIndex.Facet.TAG, selection));
+        assertEquals(Map.of(FacetIndex.NOT_REVIEWED, 3, FacetIndex.REVIEWED, 1),
+            index.counts(FacetIndex.Facet.REVIEWED, selection));
+        assertEquals(List.of(1, 2, 3, 4), ids(index.matching(selection)));
+    }
+
+    @Test
+    void otherFacetsNarrowTheCountsButAFacetsOwnChoiceDoesNot() {
+        choose(FacetIndex.Facet.SUBJECT, "MATH");
+
+        assertEquals(List.of(1, 2, 3), ids(index.matching(selection)));
+        // Picking Physics as well would still add one
+        assertEquals(Map.of("Math", 3, "Physics", 1), index.counts(FacetIndex.Facet.SUBJECT, selection));
+        assertEquals(Map.of("Easy", 1, "Hard", 2), index.counts(FacetIndex.Facet.DIFFICULTY, selection));
+
+        choose(FacetIndex.Facet.DIFFICULTY, "Hard");
+        assertEquals(List.of(2, 3), ids(index.matching(selection)));
+        assertEquals(Map.of("Math", 2), index.counts(FacetIndex.Facet.SUBJECT, selection));
+    }
+
+    @Test
+    void valuesInAFacetAreOredAndTagsCanBeAnded() {
+        choose(FacetIndex.Facet.TAG, "exam", "homework");
+        assertEquals(List.of(1, 2, 3, 4), ids(index.matching(selection)));
+
+        selection.matchAllTags = true;
+        assertEquals(List.of(1), ids(index.matching(selection)));
+        // In match-all mode the tag counts follow the tag selection too
+        assertEquals(Map.of("exam", 1, "homework", 1), index.counts(FacetIndex.Facet.TAG, selection));
+
+        choose(FacetIndex.Facet.TAG, "exam", "unused");
+        assertEquals(List.of(), ids(index.matching(selection)));
+    }
+
+    @Test
+    void keepsAChosenValueWithNoMatchesAtZero() {
+        choose(FacetIndex.Facet.SUBJECT, "Physics");
+        choose(FacetIndex.Facet.CATEGORY, "Algebra");
+
+        assertEquals(List.of(), ids(index.matching(selection)));
+        assertEquals(Map.of("Algebra", 0, "Optics", 1), index.counts(FacetIndex.Facet.CATEGORY, selection));
+        assertEquals(Map.of("Math", 1, "Physics", 0), index.counts(FacetIndex.Facet.SUBJECT, selection));
+    }
+
+    @Test
+    void hiddenMistakesDropOutOfResultsAndCounts() {
+        index.setHidden(1, true);
+        index.setHidden(2, true);
+
+        assertEquals(List.of(3, 4), ids(index.matching(selection)));
+        assertEquals(Map.of("Math", 1, "Physics", 1), index.counts(FacetIndex.Facet.SUBJECT, selection));
+
+        index.setHidden(2, false);
+        assertEquals(List.of(2, 3, 4), ids(index.matching(selection)));
+    }
+
+    @Test
+    void reviewsAndEditsMoveMistakesBetweenValues() {
+        index.setReviewed(1);
+        index.setReviewed(2);
+        assertEquals(Map.of(FacetIndex.NOT_REVIEWED, 2, FacetIndex.REVIEWED, 2),
+            index.counts(FacetIndex.Facet.REVIEWED, selection));
+
+        // An edit is a remove and an add; values left empty disappear
+        index.remove(4);
+        index.add(mistake(4, "Chemistry", null, "Easy", false, null));
+        assertEquals(Map.of("Chemistry", 1, "Math", 3), index.counts(FacetIndex.Facet.SUBJECT, selection));
+        assertEquals(Map.of("Algebra", 1, "Geometry", 1), index.counts(FacetIndex.Facet.CATEGORY, selection));
+        assertEquals(Map.of("exam", 2, "homework", 2), index.counts(FacetIndex.Facet.TAG, selection));
+    }
+
+    @Test
+    void countsAreInNameOrderWithTheFirstSpelling() {
+        assertEquals(List.of("Easy", "Hard", "Medium"),
+            List.copyOf(index.counts(FacetIndex.Facet.DIFFICULTY, selection).keySet()));
+        assertEquals(List.of("exam", "homework"),
+            List.copyOf(index.counts(FacetIndex.Facet.TAG, selection).keySet()));
+    }
+
+    private void choose(FacetIndex.Facet facet, String... values) {
+        Set<String> chosen = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        chosen.addAll(List.of(values));
+        selection.chosen.put(facet, chosen);
+    }
+
+    private static List<Integer> ids(RoaringBitmap bitmap) {
+        List<Integer> ids = new ArrayList<>();
+        bitmap.forEach(ids::add);
+        return ids;
+    }
+
+    private static Mistake mistake(int id, String subject, String category, String difficulty,
+                                   boolean reviewed, String tags) {
+        Mistake mistake = new Mistake();
+        mistake.id = id;
+        mistake.subjectName = subject;
+        mistake.categoryName = category;
+        mistake.difficultyLevel = difficulty;
+        mistake.isReviewed = reviewed;
+        mistake.tags = tags;
+        return mistake;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonTest {
+
+    @Test
+    void writtenValuesParseBack() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("text", "quote \" backslash \\ newline \n tab \t bell \u0007 é 😀");
+        value.put("number", 42L);
+        value.put("fraction", -1.5e3);
+        value.put("flag", true);
+        value.put("nothing", null);
+        value.put("list", List.of(1L, "two", List.of(), Map.of()));
+        assertEquals(value, Json.parse(Json.write(value)));
+    }
+
+    @Test
+    void readsEscapes() {
+        assertEquals("a\"b\\c/d\b\f\n\r\té", Json.parse("\"a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\\u00e9\""));
+        assertEquals(Map.of("k", List.of(1L, 2.5, false)), Json.parseObject(" { \"k\" : [1, 2.5, false] } "));
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        for (String text : new String[] {"", "\"abc", "\"abc\\", "\"\\u12", "\"\\u12\"", "{", "{\"a\"", "{\"a\":",
+                "[1,", "[1", "tru", "-", "{\"a\":1,}"}) {
+            assertThrows(Json.ParseException.class, () -> Json.parse(text), text);
+        }
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        for (String text : new String[] {"\"\\uzzzz\"", "1 2", "{} x", "[1 2]", "{1:2}",
+                "99999999999999999999", "nul"}) {
+            assertThrows(Json.ParseException.class, () -> Json.parse(text), text);
+        }
+        assertThrows(Json.ParseException.class, () -> Json.parseObject("[1]"));
+    }
+
+    @Test
+    void limitsNesting() {
+        assertEquals(List.of(List.of()), Json.parse("[[]]"));
+        assertThrows(Json.ParseException.class, () -> Json.parse("[".repeat(65) + "]".repeat(65)));
+        assertThrows(Json.ParseException.class, () -> Json.parse("[".repeat(100_000)));
+        assertThrows(Json.ParseException.class, () -> Json.parse("{\"a\":".repeat(100) + "1" + "}".repeat(100)));
+
+        Object nested = new ArrayList<>();
+        for (int i = 1; i < 64; i++) {
+            nested = List.of(nested);
+        }
+        assertEquals(nested, Json.parse("[".repeat(64) + "]".repeat(64)));
+    }
+}
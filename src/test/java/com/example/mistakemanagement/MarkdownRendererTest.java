@@ -0,0 +1,83 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MarkdownRendererTest {
+
+    @Test
+    void rendersBlocks() {
+        String html = MarkdownRenderer.render("# Title\nfirst line\nsecond line\n\n- one\n- two\n1. three\n> quoted\n---");
+
+        assertEquals("<h3>Title</h3>\n"
+            + "<p>first line<br>\nsecond line</p>\n"
+            + "<ul>\n<li>one</li>\n<li>two</li>\n</ul>\n"
+            + "<ol>\n<li>three</li>\n</ol>\n"
+            + "<blockquote>quoted</blockquote>\n"
+            + "<hr>\n", html);
+    }
+
+    @Test
+    void rendersInlineMarkup() {
+        assertEquals("<strong>bold</strong> and <em>italic</em> and <code>a*b*c</code>",
+            MarkdownRenderer.inline("**bold** and *italic* and `a*b*c`"));
+        assertEquals("<a href=\"https://example.com/x\" target=\"_blank\">docs</a>",
+            MarkdownRenderer.inline("[docs](https://example.com/x)"));
+        assertEquals("snake_case_name", MarkdownRenderer.inline("snake_case_name"));
+    }
+
+    @Test
+    void escapesEverythingTyped() {
+        String html = MarkdownRenderer.render("<script>alert('x')</script> & `<b>`");
+        assertEquals("<p>&lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt; &amp; <code>&lt;b&gt;</code></p>\n", html);
+
+        // Only http(s) links become anchors, and quotes cannot leave the attribute
+        assertEquals("[x](javascript:alert(1))", MarkdownRenderer.inline("[x](javascript:alert(1))"));
+        String link = MarkdownRenderer.inline("[x](https://a\"onclick=\"b)");
+        assertFalse(link.contains("\"onclick"), link);
+    }
+
+    @Test
+    void highlightsFencedCode() {
+        String html = MarkdownRenderer.render("```java\nreturn x + 1; // done\n```");
+
+        assertEquals("<pre class=\"code\"><code><span class=\"kw\">return</span> x + <span class=\"num\">1</span>; "
+            + "<span class=\"com\">// done</span></code></pre>\n", html);
+        assertEquals("<span class=\"com\"># note</span>", MarkdownRenderer.highlight("# note", "python"));
+        assertEquals("<span class=\"str\">&quot;a\\&quot;b&quot;</span>", MarkdownRenderer.highlight("\"a\\\"b\"", "c"));
+    }
+
+    @Test
+    void laysOutMath() {
+        assertEquals("<span class=\"frac\"><span class=\"num\"><i>a</i></span><span class=\"den\">2</span></span>",
+            MarkdownRenderer.math("\\frac{a}{2}"));
+        assertEquals("<i>x</i><sup>2</sup>+<i>y</i><sub><i>i</i></sub>", MarkdownRenderer.math("x^2+y_i"));
+        assertEquals("<sup class=\"root\">3</sup>√<span class=\"radicand\"><i>x</i></span>",
+            MarkdownRenderer.math("\\sqrt[3]{x}"));
+        assertEquals("α≤<span class=\"upright\">sin</span>θ", MarkdownRenderer.math("\\alpha\\leq\\sin\\theta"));
+        assertEquals("<span class=\"upright\">unknown</span>&lt;", MarkdownRenderer.math("\\unknown<"));
+    }
+
+    @Test
+    void findsMathInTextButLeavesPricesAlone() {
+        assertEquals("so <span class=\"math\"><i>x</i><sup>2</sup></span> grows",
+            MarkdownRenderer.inline("so $x^2$ grows"));
+        assertEquals("costs $5 and $6", MarkdownRenderer.inline("costs $5 and $6"));
+        assertEquals("<span class=\"math display\"><i>x</i></span>", MarkdownRenderer.inline("\\[x\\]"));
+        assertEquals("<div class=\"math display\"><i>a</i>+<i>b</i></div>\n", MarkdownRenderer.render("$$\na+b\n$$"));
+    }
+
+    @Test
+    void showsVeryLongTextAsTyped() {
+        String text = "*".repeat(MarkdownRenderer.MAX_MARKUP_CHARS) + "<";
+
+        String html = MarkdownRenderer.render(text);
+
+        assertTrue(html.startsWith("<pre class=\"plain\">***"));
+        assertTrue(html.endsWith("&lt;</pre>"));
+        assertEquals("", MarkdownRenderer.render("  \n "));
+    }
+}
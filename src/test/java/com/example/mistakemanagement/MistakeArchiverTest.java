@@ -0,0 +1,119 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MistakeArchiverTest {
+
+    @Test
+    void partitionsEveryYearUpToNextThenTheFuture() {
+        int nextYear = Year.now().getValue() + 1;
+
+        String partitions = MistakeArchiver.initialPartitions();
+
+        assertTrue(partitions.startsWith("PARTITION p_before_2021 VALUES LESS THAN (2021), "
+            + "PARTITION p2021 VALUES LESS THAN (2022), "), partitions);
+        assertTrue(partitions.endsWith("PARTITION p" + nextYear + " VALUES LESS THAN (" + (nextYear + 1) + "), "
+            + "PARTITION " + MistakeArchiver.FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE"), partitions);
+        assertEquals(nextYear - 2020 + 2, partitions.split("PARTITION ").length - 1);
+    }
+
+    // Needs a scratch MySQL database: mvn test -Dmistakes.db.url=jdbc:mysql://host:3306/db.
+    // A pass archives every reviewed mistake there older than mistakes.archive.days, not just these.
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    @EnabledIfSystemProperty(named = "mistakes.db.url", matches = ".+")
+    class Archiving {
+        private Subject subject;
+
+        @BeforeAll
+        void createSubject() throws SQLException {
+            DatabaseSchema.ensure();
+            EventBus.get().setDispatcher(Runnable::run);
+            subject = new Subject();
+            subject.name = "MistakeArchiverTest " + System.nanoTime();
+            subject.id = SubjectDao.insert(subject.name, null);
+        }
+
+        @AfterAll
+        void removeSubject() throws SQLException {
+            SubjectDao.delete(subject);
+            execute("UPDATE subjects SET deleted_at = NOW() - INTERVAL 1 DAY WHERE id = ?", subject.id);
+            SubjectDao.purge(subject, 0, purged -> { });
+        }
+
+        @Test
+        void movesOldReviewedMistakesIntoTheirYearAndBackWithTheirTags() throws Exception {
+            int old = add("old and reviewed", true, 400);
+            int recent = add("reviewed recently", true, 10);
+            int unreviewed = add("old, not reviewed", false, 400);
+
+            MistakeArchiver.get().run();
+
+            assertEquals(0, count("SELECT COUNT(*) FROM mistakes WHERE id = ?", old));
+            int year = LocalDate.now().minusDays(400).getYear();
+            assertEquals(1, count("SELECT COUNT(*) FROM mistakes_archive PARTITION (p" + year + ") " +
+                "WHERE id = ? AND YEAR(last_active) = " + year, old));
+            assertEquals(2, count("SELECT COUNT(*) FROM mistake_tags_archive WHERE mistake_id = ?", old));
+            assertEquals(0, count("SELECT COUNT(*) FROM mistake_tags WHERE mistake_id = ?", old));
+            assertEquals(1, count("SELECT COUNT(*) FROM mistakes WHERE id = ?", recent));
+            assertEquals(1, count("SELECT COUNT(*) FROM mistakes WHERE id = ?", unreviewed));
+
+            assertTrue(MistakeArchiver.restore(old));
+            assertFalse(MistakeArchiver.restore(old));
+
+            Mistake restored = MistakeDao.findByIds(List.of(old)).get(0);
+            assertEquals("old and reviewed", restored.title);
+            assertEquals("archive-a, archive-b", restored.tags);
+            assertEquals(0, count("SELECT COUNT(*) FROM mistakes_archive WHERE id = ?", old));
+            assertEquals(0, count("SELECT COUNT(*) FROM mistake_tags_archive WHERE mistake_id = ?", old));
+        }
+
+        private int add(String title, boolean reviewed, int daysAgo) throws SQLException {
+            Mistake mistake = new Mistake();
+            mistake.title = title;
+            mistake.correctAnswer = "answer";
+            mistake.difficultyLevel = "Easy";
+            mistake.subjectName = subject.name;
+            int id = MistakeDao.insert(mistake, "archive-a, archive-b");
+            execute("UPDATE mistakes SET is_reviewed = " + reviewed + ", " +
+                "updated_at = NOW() - INTERVAL " + daysAgo + " DAY WHERE id = ?", id);
+            return id;
+        }
+    }
+
+    private static void execute(String query, int id) throws SQLException {
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, id);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static int count(String query, int id) throws SQLException {
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
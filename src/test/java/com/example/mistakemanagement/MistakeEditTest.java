@@ -0,0 +1,149 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MistakeEditTest {
+
+    @Test
+    void keepsOnlyTheChangedFields() {
+        Mistake original = mistake("Sign error", "Forgot the minus", "Physics", "Kinematics");
+        Mistake edited = mistake("Sign error", "Dropped the minus sign", "Physics", null);
+
+        MistakeEdit edit = MistakeEdit.between(original, edited, original.tags);
+
+        assertEquals(original.id, edit.mistakeId);
+        assertEquals(original.version, edit.version);
+        assertEquals(List.of(MistakeEdit.DESCRIPTION, MistakeEdit.CATEGORY), List.copyOf(edit.fields.keySet()));
+        assertEquals("Dropped the minus sign", edit.fields.get(MistakeEdit.DESCRIPTION));
+        assertNull(edit.fields.get(MistakeEdit.CATEGORY));
+        assertTrue(edit.changesAny(MistakeEdit.TITLE, MistakeEdit.CATEGORY));
+        assertFalse(edit.changesAny(MistakeEdit.TITLE, MistakeEdit.SUBJECT));
+    }
+
+    @Test
+    void treatsEmptyAndNullAsTheSame() {
+        Mistake original = mistake("Title", null, "Math", null);
+        original.source = null;
+        Mistake edited = mistake("Title", "", "Math", "");
+        edited.source = "";
+
+        MistakeEdit edit = MistakeEdit.between(original, edited, null);
+
+        assertTrue(edit.isEmpty());
+    }
+
+    @Test
+    void diffsTagsWithoutCase() {
+        Mistake original = mistake("Title", null, "Math", null);
+        original.tags = "Algebra, exam, homework";
+
+        MistakeEdit edit = MistakeEdit.between(original, original, "algebra, Homework, quiz");
+
+        assertEquals(List.of("quiz"), edit.addedTags);
+        assertEquals(List.of("exam"), edit.removedTags);
+        assertTrue(edit.fields.isEmpty());
+        assertFalse(edit.isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void roundTripsThroughTheApiJson() {
+        Mistake original = mistake("Title", "old", "Math", "Limits");
+        original.tags = "a, b";
+        MistakeEdit edit = MistakeEdit.between(original, mistake("New title", "old", "Math", null), "b, c");
+
+        MistakeEdit copy = MistakeEdit.fromJson(original.id,
+            (Map<String, Object>) Json.parse(Json.write(edit.toJson())));
+
+        assertEquals(edit.mistakeId, copy.mistakeId);
+        assertEquals(edit.version, copy.version);
+        assertEquals(edit.fields, copy.fields);
+        assertTrue(copy.fields.containsKey(MistakeEdit.CATEGORY));
+        assertEquals(List.of("c"), copy.addedTags);
+        assertEquals(List.of("a"), copy.removedTags);
+    }
+
+    private static Mistake mistake(String title, String description, String subject, String category) {
+        Mistake mistake = new Mistake();
+        mistake.id = 42;
+        mistake.version = 3;
+        mistake.title = title;
+        mistake.description = description;
+        mistake.correctAnswer = "answer";
+        mistake.difficultyLevel = "Medium";
+        mistake.subjectName = subject;
+        mistake.categoryName = category;
+        return mistake;
+    }
+
+    // Needs a scratch MySQL database: mvn test -Dmistakes.db.url=jdbc:mysql://host:3306/db
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    @EnabledIfSystemProperty(named = "mistakes.db.url", matches = ".+")
+    class Saving {
+        private Subject subject;
+
+        @BeforeAll
+        void createSubject() throws SQLException {
+            DatabaseSchema.ensure();
+            EventBus.get().setDispatcher(Runnable::run);
+            subject = new Subject();
+            subject.name = "MistakeEditTest " + System.nanoTime();
+            subject.id = SubjectDao.insert(subject.name, null);
+        }
+
+        @AfterAll
+        void removeSubject() throws SQLException {
+            SubjectDao.delete(subject);
+            try (Connection conn = MySQLConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(
+                     "UPDATE subjects SET deleted_at = NOW() - INTERVAL 1 DAY WHERE id = ?")) {
+                stmt.setInt(1, subject.id);
+                stmt.executeUpdate();
+            }
+            SubjectDao.purge(subject, 0, purged -> { });
+        }
+
+        @Test
+        void savesTheChangesAndRejectsAStaleVersion() throws SQLException {
+            Mistake mistake = mistake("Before", "description", subject.name, null);
+            mistake.tags = "one, two";
+            MistakeDao.insert(mistake, mistake.tags);
+            Mistake loaded = MistakeDao.findByIds(List.of(mistake.id)).get(0);
+
+            Mistake edited = MistakeDao.findByIds(List.of(mistake.id)).get(0);
+            edited.title = "After";
+            Mistake saved = MistakeDao.update(MistakeEdit.between(loaded, edited, "Two, three"), loaded);
+
+            assertEquals("After", saved.title);
+            assertEquals("description", saved.description);
+            assertEquals(loaded.version + 1, saved.version);
+            assertEquals(List.of("three", "two"),
+                MistakeDao.splitTags(saved.tags).stream().map(String::toLowerCase).sorted().toList());
+
+            // A second editor still holding the first version loses
+            Mistake other = MistakeDao.findByIds(List.of(mistake.id)).get(0);
+            other.title = "Other";
+            MistakeEdit stale = MistakeEdit.between(loaded, other, loaded.tags);
+            assertThrows(MistakeDao.StaleEditException.class, () -> MistakeDao.update(stale, loaded));
+            assertEquals("After", MistakeDao.findByIds(List.of(mistake.id)).get(0).title);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MistakeStoreTest {
+
+    private static Mistake mistake(int id, String title, int subjectId, String subjectName, String category) {
+        Mistake mistake = new Mistake();
+        mistake.id = id;
+        mistake.title = title;
+        mistake.subjectId = subjectId;
+        mistake.subjectName = subjectName;
+        mistake.categoryName = category;
+        mistake.difficultyLevel = "Medium";
+        return mistake;
+    }
+
+    // As list loads give them: no description
+    private static MistakeStore store() {
+        MistakeStore store = new MistakeStore();
+        store.load(new ArrayList<>(List.of(
+            mistake(3, "Integration by parts", 1, "Calculus", "Integrals"),
+            mistake(1, "Sign error", 2, "Algebra", null),
+            mistake(2, "Chain rule", 1, "Calculus", "Derivatives"),
+            // A second subject of the same name, e.g. created after the first was deleted
+            mistake(4, "Wrong limit", 3, "Calculus", null))));
+        return store;
+    }
+
+    private static List<Integer> filter(MistakeStore store, String subject, String search) {
+        IntObservableList target = new IntObservableList();
+        store.filter(subject, search, null, target);
+        return new ArrayList<>(target);
+    }
+
+    @Test
+    void filtersNewestFirstByTitleSubjectAndCategory() {
+        MistakeStore store = store();
+        assertEquals(List.of(4, 3, 2, 1), filter(store, null, ""));
+        assertEquals(List.of(4, 3, 2), filter(store, "Calculus", null));
+        assertEquals(List.of(3, 2), filter(store, null, "TI"));
+        assertEquals(List.of(1), filter(store, null, "algeb"));
+        assertEquals(List.of(2), filter(store, "Calculus", "deriv"));
+
+        IntObservableList target = new IntObservableList();
+        RoaringBitmap allowed = new RoaringBitmap();
+        allowed.add(1);
+        allowed.add(3);
+        store.filter(null, "", allowed, target);
+        assertEquals(List.of(3, 1), target);
+    }
+
+    @Test
+    void hidesSubjectsById() {
+        MistakeStore store = store();
+        assertEquals(2, store.setSubjectHidden(1, true));
+        assertEquals(List.of(4, 1), filter(store, null, ""));
+        assertFalse(store.contains(3));
+        assertEquals(0, store.setSubjectHidden(1, true));
+
+        // Adding a hidden row shows it again; a visible one is not added twice
+        assertTrue(store.add(mistake(3, "Integration by parts", 1, "Calculus", "Integrals")));
+        assertFalse(store.add(mistake(3, "Integration by parts", 1, "Calculus", "Integrals")));
+        assertEquals(1, store.setSubjectHidden(1, false));
+        assertEquals(List.of(4, 3, 2, 1), filter(store, null, ""));
+        assertEquals(1, store.subjectIdOf(3));
+        assertEquals(3, store.subjectIdOf(4));
+        assertEquals(-1, store.subjectIdOf(9));
+    }
+
+    @Test
+    void marksReviewedAndUpdatesRows() {
+        MistakeStore store = store();
+        assertTrue(store.displayText(2).startsWith("[○] Chain rule"));
+        store.setReviewed(2, 4);
+        assertTrue(store.displayText(2).startsWith("[✓] Chain rule"));
+
+        store.setSubjectHidden(1, true);
+        assertTrue(store.update(mistake(2, "Product rule", 1, "Calculus", "Derivatives")));
+        assertFalse(store.contains(2));
+        store.setSubjectHidden(1, false);
+        assertEquals(List.of(2), filter(store, null, "product"));
+        assertEquals(List.of(), filter(store, null, "chain"));
+        assertFalse(store.update(mistake(9, "Missing", 1, "Calculus", null)));
+
+        // Inserted in id order, wherever the id falls
+        store.add(mistake(0, "Oldest", 2, "Algebra", null));
+        store.add(mistake(10, "Newest", 2, "Algebra", null));
+        assertEquals(List.of(10, 4, 3, 2, 1, 0), filter(store, null, ""));
+    }
+
+    @Test
+    void searchesDescriptionsOnceTheirIndexIsBuilt() {
+        MistakeStore store = store();
+        int build = store.startDescriptions();
+        TrigramIndex built = new TrigramIndex();
+        built.add(1, "Dropped the minus when expanding");
+        built.add(3, "Picked u badly");
+
+        // Edits and new mistakes that arrive while the index is being built are kept
+        Mistake added = mistake(5, "Area", 2, "Algebra", null);
+        added.description = "Forgot the minus sign";
+        store.add(added);
+        Mistake edited = mistake(3, "Integration by parts", 1, "Calculus", "Integrals");
+        edited.description = "Swapped u and dv";
+        store.update(edited);
+        assertEquals(List.of(5), filter(store, null, "minus"));
+
+        store.finishDescriptions(build, built);
+        assertEquals(List.of(5, 1), filter(store, null, "minus"));
+        assertEquals(List.of(3), filter(store, null, "swap"));
+        assertEquals(List.of(), filter(store, null, "badly"));
+        assertEquals(List.of(5, 1), filter(store, null, "MINUS the"));
+    }
+
+    @Test
+    void dropsDescriptionBuildsOfAnEarlierLoad() {
+        MistakeStore store = store();
+        int build = store.startDescriptions();
+        store.load(new ArrayList<>(List.of(mistake(1, "Sign error", 2, "Algebra", null))));
+        TrigramIndex built = new TrigramIndex();
+        built.add(1, "Dropped the minus");
+        store.finishDescriptions(build, built);
+        assertEquals(List.of(), filter(store, null, "minus"));
+    }
+
+    @Test
+    void fuzzySearchRanksClosestFirst() {
+        MistakeStore store = store();
+        store.add(mistake(6, "Integrtion constant", 2, "Algebra", null));
+        IntObservableList target = new IntObservableList();
+        store.filterFuzzy(null, "integration", null, target);
+        assertEquals(List.of(3, 6), target);
+        store.filterFuzzy("Algebra", "integration", null, target);
+        assertEquals(List.of(6), target);
+        // Too short for the typo index: falls back to the plain search
+        store.filterFuzzy(null, "ru", null, target);
+        assertEquals(List.of(2), target);
+        assertNull(store.details(2));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Needs a scratch database and replicas, e.g. the same server listed as a replica followed by
+// one that is down: mvn test -Dmistakes.db.url=jdbc:mysql://localhost:3306/db
+// -Dmistakes.db.replicas=jdbc:mysql://localhost:3306/db,jdbc:mysql://localhost:1/db
+// Replica connections are the read-only ones.
+@EnabledIfSystemProperty(named = "mistakes.db.url", matches = ".+")
+@EnabledIfSystemProperty(named = "mistakes.db.replicas", matches = ".+")
+class MySQLConnectionTest {
+    private String previousOrigin;
+
+    @BeforeEach
+    void useOwnSession() {
+        previousOrigin = ChangeLog.ORIGIN.get();
+        ChangeLog.ORIGIN.set(UUID.randomUUID().toString());
+    }
+
+    @AfterEach
+    void restoreSession() {
+        ChangeLog.ORIGIN.set(previousOrigin);
+        MySQLConnection.PRIMARY_READS.remove();
+    }
+
+    @Test
+    void readsGoToReplicasSkippingOnesThatAreDown() throws SQLException {
+        for (int i = 0; i < 6; i++) {
+            try (Connection conn = MySQLConnection.getReadConnection()) {
+                assertTrue(conn.isReadOnly());
+                assertEquals(1, selectOne(conn));
+            }
+        }
+        try (Connection conn = MySQLConnection.getConnection()) {
+            assertFalse(conn.isReadOnly());
+        }
+    }
+
+    @Test
+    void aSessionThatWroteReadsFromThePrimary() throws SQLException {
+        MySQLConnection.pinReads();
+        try (Connection conn = MySQLConnection.getReadConnection()) {
+            assertFalse(conn.isReadOnly());
+        }
+
+        // Other sessions are not affected
+        ChangeLog.ORIGIN.set(UUID.randomUUID().toString());
+        try (Connection conn = MySQLConnection.getReadConnection()) {
+            assertTrue(conn.isReadOnly());
+        }
+    }
+
+    @Test
+    void sharedCachesReadFromThePrimary() throws SQLException {
+        MySQLConnection.PRIMARY_READS.set(true);
+        try (Connection conn = MySQLConnection.getReadConnection()) {
+            assertFalse(conn.isReadOnly());
+        }
+    }
+
+    private static int selectOne(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
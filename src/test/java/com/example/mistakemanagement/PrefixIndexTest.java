@@ -0,0 +1,87 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrefixIndexTest {
+    private final PrefixIndex index = new PrefixIndex();
+
+    @Test
+    void ranksByUsageThenAlphabetically() {
+        index.add("algebra", 3);
+        index.add("Algorithms", 7);
+        index.add("alchemy", 3);
+        index.add("biology", 50);
+
+        assertEquals(List.of("Algorithms", "alchemy", "algebra"), index.suggest("al", 10));
+        assertEquals(List.of("Algorithms", "algebra"), index.suggest("alg", 10));
+        assertEquals(List.of("biology", "Algorithms"), index.suggest("", 2));
+        assertEquals(List.of(), index.suggest("chem", 10));
+    }
+
+    @Test
+    void matchesCaseInsensitivelyAndKeepsTheFirstSpelling() {
+        index.add("  Calculus ", 1);
+        index.add("CALCULUS", 2);
+
+        assertEquals(List.of("Calculus"), index.suggest("cAL", 10));
+        assertEquals(List.of("Calculus"), index.suggest(" calculus", 10));
+    }
+
+    @Test
+    void countChangesRerankTheWholePath() {
+        index.add("geometry", 5);
+        index.add("geography", 4);
+        assertEquals(List.of("geometry", "geography"), index.suggest("ge", 10));
+
+        index.add("geography", 2);
+        index.add("geometry", -10);
+
+        assertEquals(List.of("geography", "geometry"), index.suggest("ge", 10));
+        assertEquals(List.of("geography", "geometry"), index.suggest("g", 10));
+    }
+
+    @Test
+    void keepsOnlyTheTopTermsBelowEachNode() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            index.add("tag" + i, i);
+        }
+        for (int i = 29; i >= 30 - PrefixIndex.TOP_K; i--) {
+            expected.add("tag" + i);
+        }
+
+        assertEquals(expected, index.suggest("t", 100));
+        assertEquals(List.of("tag29", "tag28", "tag27"), index.suggest("tag", 3));
+        // A low-ranked term is still found once the prefix narrows to it
+        assertEquals(List.of("tag5"), index.suggest("tag5", 100));
+    }
+
+    @Test
+    void removeReturnsTheCountAndDropsTheTerm() {
+        index.add("physics", 4);
+        index.add("physiology", 1);
+
+        assertEquals(4, index.remove("PHYSICS"));
+        assertEquals(-1, index.remove("physics"));
+        assertEquals(-1, index.remove("phys"));
+        assertEquals(-1, index.remove("chemistry"));
+        assertEquals(List.of("physiology"), index.suggest("phys", 10));
+
+        index.add("physics", 4);
+        assertEquals(List.of("physics", "physiology"), index.suggest("phys", 10));
+    }
+
+    @Test
+    void ignoresBlankTerms() {
+        index.add("   ", 5);
+        index.add(null, 5);
+
+        assertEquals(List.of(), index.suggest("", 10));
+        assertEquals(-1, index.remove(" "));
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuizSamplerTest {
+    private static final int TRIALS = 20_000;
+
+    private final QuizSampler sampler = new QuizSampler();
+
+    @Test
+    void drawsWithoutRepeats() {
+        List<Mistake> candidates = new ArrayList<>();
+        for (int id = 1; id <= 50; id++) {
+            candidates.add(mistake(id, 1, id % 3 == 0 ? "Hard" : "Easy", null));
+        }
+        sampler.load(candidates);
+
+        for (int trial = 0; trial < 200; trial++) {
+            int[] drawn = sampler.draw(10, -1, null);
+            assertEquals(10, drawn.length);
+            assertEquals(10, Arrays.stream(drawn).distinct().count(), Arrays.toString(drawn));
+        }
+        int[] all = sampler.draw(80, -1, null);
+        Arrays.sort(all);
+        assertEquals(50, all.length);
+        assertEquals(1, all[0]);
+        assertEquals(50, all[49]);
+    }
+
+    @Test
+    void firstPickFollowsTheWeights() {
+        // Never reviewed, so the weights are 4, 8 and 12
+        sampler.load(new ArrayList<>(List.of(
+            mistake(1, 1, "Easy", null), mistake(2, 1, "Medium", null), mistake(3, 1, "Hard", null))));
+
+        double[] share = firstPickShares(3, 1);
+
+        assertEquals(1 / 6.0, share[1], 0.02);
+        assertEquals(2 / 6.0, share[2], 0.02);
+        assertEquals(3 / 6.0, share[3], 0.02);
+    }
+
+    @Test
+    void reviewsLowerTheWeight() {
+        sampler.load(new ArrayList<>(List.of(mistake(1, 1, "Hard", null), mistake(2, 1, "Hard", null))));
+
+        // Just reviewed: staleness drops from 4 to 1 and the count divides by 1 + 3
+        sampler.setReviewed(1, 3);
+
+        double[] share = firstPickShares(2, 1);
+        assertEquals(1 / 17.0, share[1], 0.02);
+        assertEquals(16 / 17.0, share[2], 0.02);
+    }
+
+    @Test
+    void aFullDrawPutsTheStrongestKeyFirst() {
+        sampler.load(new ArrayList<>(List.of(
+            mistake(1, 1, "Easy", null), mistake(2, 1, "Medium", null), mistake(3, 1, "Hard", null))));
+
+        // Everything is drawn, yet the order still favours the heavier weights
+        double[] share = firstPickShares(3, 3);
+
+        assertEquals(1 / 6.0, share[1], 0.02);
+        assertEquals(3 / 6.0, share[3], 0.02);
+    }
+
+    @Test
+    void filtersBySubjectAndTag() {
+        sampler.load(new ArrayList<>(List.of(
+            mistake(1, 1, "Easy", "Algebra, exam"),
+            mistake(2, 2, "Easy", "algebra"),
+            mistake(3, 2, "Easy", "geometry"))));
+
+        assertEquals(List.of(2, 3), sorted(sampler.draw(10, 2, null)));
+        assertEquals(List.of(1, 2), sorted(sampler.draw(10, -1, " ALGEBRA ")));
+        assertEquals(List.of(2), sorted(sampler.draw(10, 2, "algebra")));
+        assertEquals(List.of(), sorted(sampler.draw(10, -1, "calculus")));
+        assertEquals(List.of(), sorted(sampler.draw(0, -1, null)));
+    }
+
+    @Test
+    void hiddenSubjectsAreSkippedUntilShownAgain() {
+        sampler.load(new ArrayList<>(List.of(
+            mistake(1, 1, "Easy", "x"), mistake(2, 2, "Easy", "x"), mistake(3, 2, "Easy", null))));
+
+        assertEquals(2, sampler.setSubjectHidden(2, true));
+        assertEquals(0, sampler.setSubjectHidden(2, true));
+        assertEquals(List.of(1), sorted(sampler.draw(10, -1, null)));
+        assertEquals(List.of(1), sorted(sampler.draw(10, -1, "x")));
+
+        // A restored mistake arriving as an add shows just that row
+        sampler.add(mistake(3, 2, "Easy", null));
+        assertEquals(List.of(1, 3), sorted(sampler.draw(10, -1, null)));
+        assertEquals(1, sampler.setSubjectHidden(2, false));
+        assertEquals(List.of(1, 2, 3), sorted(sampler.draw(10, -1, null)));
+    }
+
+    @Test
+    void anOlderMistakeIsInsertedInOrderWithItsTags() {
+        sampler.load(new ArrayList<>(List.of(
+            mistake(10, 1, "Easy", "x"), mistake(20, 1, "Easy", "x, y"), mistake(30, 1, "Easy", "y"))));
+
+        sampler.add(mistake(15, 1, "Easy", "y"));
+        sampler.add(mistake(40, 1, "Easy", "x"));
+
+        assertEquals(5, sampler.size());
+        assertEquals(List.of(10, 20, 40), sorted(sampler.draw(10, -1, "x")));
+        assertEquals(List.of(15, 20, 30), sorted(sampler.draw(10, -1, "y")));
+    }
+
+    @Test
+    void updateMovesTheRowToItsNewSubjectAndTags() {
+        sampler.load(new ArrayList<>(List.of(mistake(1, 1, "Easy", "x"), mistake(2, 1, "Easy", "x"))));
+
+        sampler.update(mistake(1, 2, "Hard", "z"));
+
+        assertEquals(List.of(2), sorted(sampler.draw(10, -1, "x")));
+        assertEquals(List.of(1), sorted(sampler.draw(10, -1, "z")));
+        assertEquals(List.of(1), sorted(sampler.draw(10, 2, null)));
+    }
+
+    // Share of TRIALS in which each id (1..ids) came first in a draw of count
+    private double[] firstPickShares(int ids, int count) {
+        int[] firsts = new int[ids + 1];
+        for (int trial = 0; trial < TRIALS; trial++) {
+            firsts[sampler.draw(count, -1, null)[0]]++;
+        }
+        double[] share = new double[ids + 1];
+        for (int id = 1; id <= ids; id++) {
+            share[id] = firsts[id] / (double) TRIALS;
+        }
+        return share;
+    }
+
+    private static List<Integer> sorted(int[] ids) {
+        int[] copy = ids.clone();
+        Arrays.sort(copy);
+        return Arrays.stream(copy).boxed().toList();
+    }
+
+    private static Mistake mistake(int id, int subjectId, String difficulty, String tags) {
+        Mistake mistake = new Mistake();
+        mistake.id = id;
+        mistake.subjectId = subjectId;
+        mistake.difficultyLevel = difficulty;
+        mistake.tags = tags;
+        return mistake;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RelatedMistakesModelTest {
+    private RelatedMistakesJob.Model model;
+
+    @BeforeEach
+    void buildCorpus() {
+        model = new RelatedMistakesJob.Model();
+        add(101, "derivative chain rule composite function inner outer");
+        add(102, "chain rule derivative inner function forgot");
+        add(103, "derivative product rule two functions");
+        add(104, "photosynthesis chlorophyll light glucose");
+        add(105, "photosynthesis light reactions glucose oxygen");
+        add(106, "french verb conjugation subjunctive");
+        model.weighAll();
+    }
+
+    @Test
+    void ranksMistakesSharingRareWordsFirst() {
+        assertEquals(102, related(101).get(0));
+        assertEquals(101, related(102).get(0));
+        assertEquals(List.of(105), related(104));
+        assertEquals(List.of(104), related(105));
+    }
+
+    @Test
+    void leavesOutMistakesWithNothingInCommon() {
+        assertEquals(List.of(), related(106));
+        assertFalse(related(101).contains(104));
+        assertFalse(related(104).contains(101));
+    }
+
+    @Test
+    void scoresAreCosinesBestFirst() {
+        RelatedMistakesJob.Neighbours neighbours = model.neighbours(doc(101));
+        float previous = 1.0001f;
+        for (int i = 0; i < neighbours.size(); i++) {
+            float score = neighbours.scores()[i];
+            assertTrue(score <= previous && score > 0, Arrays.toString(neighbours.scores()));
+            previous = score;
+        }
+    }
+
+    @Test
+    void aMistakeAddedLaterFindsItsNeighbours() {
+        int doc = model.addDocument(107, words("glucose light photosynthesis plants"));
+        model.weigh(doc);
+
+        List<Integer> related = related(107);
+        assertTrue(related.containsAll(List.of(104, 105)), related.toString());
+        assertEquals(1, model.added);
+    }
+
+    @Test
+    void retiredMistakesDropOutOfOtherLists() {
+        model.retire(102);
+
+        assertFalse(model.contains(102));
+        assertFalse(related(101).contains(102));
+        assertTrue(related(103).stream().noneMatch(id -> id == 102));
+        assertEquals(1, model.added);
+    }
+
+    @Test
+    void keepsOnlyTheTopNeighbours() {
+        model = new RelatedMistakesJob.Model();
+        // Twelve mistakes share a word, so each has eleven candidates; the rest are unrelated pairs
+        for (int id = 1; id <= 30; id++) {
+            add(id, (id <= 12 ? "eigenvalue" : "filler" + id % 9) + " only" + id);
+        }
+        model.weighAll();
+
+        RelatedMistakesJob.Neighbours neighbours = model.neighbours(doc(1));
+        assertEquals(RelatedMistakesJob.TOP_K, neighbours.size());
+        assertFalse(related(1).contains(1));
+        assertTrue(related(1).stream().allMatch(id -> id <= 12));
+    }
+
+    private void add(int mistakeId, String text) {
+        model.addDocument(mistakeId, words(text));
+    }
+
+    private static List<String> words(String text) {
+        return Words.split(text);
+    }
+
+    private int doc(int mistakeId) {
+        return model.docById.get(mistakeId);
+    }
+
+    private List<Integer> related(int mistakeId) {
+        RelatedMistakesJob.Neighbours neighbours = model.neighbours(doc(mistakeId));
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < neighbours.size(); i++) {
+            ids.add(model.ids[neighbours.docs()[i]]);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Needs a scratch MySQL database: mvn test -Dmistakes.db.url=jdbc:mysql://host:3306/db.
+// Polls pass no onReady callback, so no FX toolkit is needed.
+@EnabledIfSystemProperty(named = "mistakes.db.url", matches = ".+")
+class ReviewPrefetcherTest {
+    private static final long TIMEOUT_MS = 10_000;
+
+    private static Subject subject;
+    private static final List<Integer> ids = new ArrayList<>();
+
+    @BeforeAll
+    static void createMistakes() throws SQLException {
+        DatabaseSchema.ensure();
+        EventBus.get().setDispatcher(Runnable::run);
+        subject = new Subject();
+        subject.name = "ReviewPrefetcherTest " + System.nanoTime();
+        subject.id = SubjectDao.insert(subject.name, null);
+        for (int i = 0; i < 7; i++) {
+            Mistake mistake = new Mistake();
+            mistake.title = "card " + i;
+            mistake.difficultyLevel = "Easy";
+            mistake.subjectName = subject.name;
+            ids.add(MistakeDao.insert(mistake, null));
+        }
+    }
+
+    @AfterAll
+    static void removeMistakes() throws SQLException {
+        SubjectDao.delete(subject);
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "UPDATE subjects SET deleted_at = NOW() - INTERVAL 1 DAY WHERE id = ?")) {
+            stmt.setInt(1, subject.id);
+            stmt.executeUpdate();
+        }
+        SubjectDao.purge(subject, 0, purged -> { });
+    }
+
+    @Test
+    void deliversTheSessionInOrderSkippingMissingIds() throws InterruptedException {
+        // Shuffled, with an id that does not exist in the middle
+        int[] session = {ids.get(3), ids.get(0), Integer.MAX_VALUE, ids.get(6), ids.get(1)};
+        ReviewPrefetcher prefetcher = new ReviewPrefetcher(session, 8, message -> { });
+        prefetcher.start();
+
+        List<Integer> seen = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!prefetcher.isFinished() && System.currentTimeMillis() < deadline) {
+            Mistake next = prefetcher.poll(null);
+            if (next != null) {
+                seen.add(next.id);
+            } else {
+                Thread.sleep(5);
+            }
+        }
+
+        assertTrue(prefetcher.isFinished());
+        assertEquals(List.of(ids.get(3), ids.get(0), ids.get(6), ids.get(1)), seen);
+        assertNull(prefetcher.poll(null));
+    }
+
+    @Test
+    void holdsAtMostItsCapacityAhead() throws InterruptedException {
+        int[] session = ids.stream().mapToInt(Integer::intValue).toArray();
+        ReviewPrefetcher prefetcher = new ReviewPrefetcher(session, 3, message -> { });
+        prefetcher.start();
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (prefetcher.buffered() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        // Give the fetcher time to overfill if it were going to
+        Thread.sleep(200);
+        assertEquals(3, prefetcher.buffered());
+        assertFalse(prefetcher.isFinished());
+
+        assertEquals(ids.get(0), prefetcher.poll(null).id);
+        prefetcher.stop();
+        assertEquals(0, prefetcher.buffered());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Checks every operation against a TreeSet, with sets dense enough to use bitset containers
+// (over 4096 values per 65536 block) and sparse enough to use arrays
+class RoaringBitmapTest {
+
+    private static TreeSet<Integer> randomSet(Random random, int count, int bound) {
+        TreeSet<Integer> set = new TreeSet<>();
+        while (set.size() < count) {
+            set.add(random.nextInt(bound));
+        }
+        return set;
+    }
+
+    private static RoaringBitmap bitmapOf(Iterable<Integer> values) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    private static void assertSame(TreeSet<Integer> expected, RoaringBitmap actual) {
+        List<Integer> values = new ArrayList<>();
+        actual.forEach(values::add);
+        assertEquals(new ArrayList<>(expected), values);
+        assertEquals(expected.size(), actual.cardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+    }
+
+    @Test
+    void addRemoveAndContainsMatchASet() {
+        Random random = new Random(1);
+        TreeSet<Integer> expected = new TreeSet<>();
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < 50_000; i++) {
+            // Mostly one block so its container crosses from array to bitset and back
+            int value = random.nextInt(10) == 0 ? random.nextInt(1 << 20) : random.nextInt(12_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(value);
+                bitmap.remove(value);
+            } else {
+                expected.add(value);
+                bitmap.add(value);
+            }
+        }
+        assertSame(expected, bitmap);
+        for (int value = 0; value < 20_000; value++) {
+            assertEquals(expected.contains(value), bitmap.contains(value));
+        }
+
+        for (int value : new ArrayList<>(expected)) {
+            bitmap.remove(value);
+        }
+        assertSame(new TreeSet<>(), bitmap);
+    }
+
+    @Test
+    void setOperationsMatchASet() {
+        Random random = new Random(2);
+        // Dense, sparse and empty blocks in each combination
+        int[][] shapes = {{20_000, 65_536}, {300, 65_536}, {5_000, 1 << 18}, {50, 1 << 20}, {0, 1}};
+        for (int[] left : shapes) {
+            for (int[] right : shapes) {
+                TreeSet<Integer> a = randomSet(random, left[0], left[1]);
+                TreeSet<Integer> b = randomSet(random, right[0], right[1]);
+                RoaringBitmap bitmapA = bitmapOf(a);
+                RoaringBitmap bitmapB = bitmapOf(b);
+
+                TreeSet<Integer> and = new TreeSet<>(a);
+                and.retainAll(b);
+                TreeSet<Integer> or = new TreeSet<>(a);
+                or.addAll(b);
+                TreeSet<Integer> andNot = new TreeSet<>(a);
+                andNot.removeAll(b);
+
+                assertSame(and, RoaringBitmap.and(bitmapA, bitmapB));
+                assertEquals(and.size(), RoaringBitmap.andCardinality(bitmapA, bitmapB));
+                assertSame(or, RoaringBitmap.or(bitmapA, bitmapB));
+                assertSame(andNot, RoaringBitmap.andNot(bitmapA, bitmapB));
+                // The operands are left alone
+                assertSame(a, bitmapA);
+                assertSame(b, bitmapB);
+            }
+        }
+    }
+
+    @Test
+    void copyIsIndependent() {
+        RoaringBitmap original = bitmapOf(List.of(1, 70_000, 5));
+        RoaringBitmap copy = original.copy();
+        copy.add(2);
+        copy.remove(70_000);
+        assertTrue(original.contains(70_000));
+        assertFalse(original.contains(2));
+        assertEquals(3, original.cardinality());
+        assertEquals(3, copy.cardinality());
+    }
+}
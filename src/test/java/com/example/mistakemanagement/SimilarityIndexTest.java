@@ -0,0 +1,92 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimilarityIndexTest {
+    private final SimilarityIndex index = new SimilarityIndex();
+
+    @Test
+    void signatureIgnoresWordOrderCaseAndStopWords() {
+        long signature = MinHash.of("Forgot the chain rule", "derivative of composite function", null);
+
+        assertEquals(signature, MinHash.of("forgot chain RULE", "composite function derivative", null));
+        assertEquals(0, MinHash.of("the of and", null, ""));
+        assertNotEquals(0, signature);
+    }
+
+    @Test
+    void rewordedTextsShareMostHashesAndUnrelatedOnesFew() {
+        String words = "photosynthesis converts light energy chemical energy stored glucose " +
+                      "chloroplasts absorb red blue light release oxygen water splitting";
+        long original = MinHash.of(words, null, null);
+        long reworded = MinHash.of(words + " leaves", null, null);
+        long unrelated = MinHash.of("integral substitution trigonometric identity limits bounds", null, null);
+
+        assertTrue(MinHash.matches(original, reworded) >= SimilarityIndex.MIN_MATCHES);
+        assertTrue(MinHash.matches(original, unrelated) < SimilarityIndex.MIN_MATCHES);
+    }
+
+    @Test
+    void matchesCountsEqualBytes() {
+        assertEquals(8, MinHash.matches(0x1122334455667788L, 0x1122334455667788L));
+        assertEquals(6, MinHash.matches(0x1122334455667788L, 0x11ff3344556677ffL));
+        assertEquals(0, MinHash.matches(0x1122334455667788L, 0x2233445566778899L));
+    }
+
+    @Test
+    void findsCloseSignaturesClosestFirst() {
+        long signature = 0x1122334455667788L;
+        index.add(1, 0x11223344556677ffL);      // 7 of 8
+        index.add(2, signature);                // 8 of 8
+        index.add(3, 0x112233445566ffffL);      // 6 of 8
+        index.add(4, 0x11223344ffffffffL);      // 4 of 8, same bands 2 and 3 but too far
+
+        assertEquals(List.of(2, 1, 3), index.findSimilar(signature, 10));
+        assertEquals(List.of(2), index.findSimilar(signature, 1));
+        assertEquals(List.of(), index.findSimilar(0, 10));
+    }
+
+    @Test
+    void replaceMovesAMistakeToItsNewBuckets() {
+        long before = 0x1122334455667788L;
+        long after = 0x0102030405060708L;
+        index.add(7, before);
+
+        index.replace(7, after);
+
+        assertEquals(List.of(), index.findSimilar(before, 10));
+        assertEquals(List.of(7), index.findSimilar(after, 10));
+        // Replacing with the same signature, or indexing an id twice, files it only once
+        index.replace(7, after);
+        index.add(7, after);
+        assertEquals(List.of(7), index.findSimilar(after, 10));
+    }
+
+    @Test
+    void replaceLeavesOtherIdsInSharedBuckets() {
+        long shared = 0x1122334455667788L;
+        index.add(1, shared);
+        index.add(2, shared);
+        index.add(3, shared);
+
+        index.replace(1, 0x0102030405060708L);
+
+        assertEquals(List.of(3, 2), index.findSimilar(shared, 10));
+    }
+
+    @Test
+    void replaceIndexesAnUnknownMistakeAndZeroIsNeverIndexed() {
+        index.replace(5, 0x1122334455667788L);
+        index.add(6, 0);
+
+        assertEquals(List.of(5), index.findSimilar(0x1122334455667788L, 10));
+        index.replace(5, 0);
+        assertEquals(List.of(), index.findSimilar(0x1122334455667788L, 10));
+    }
+}
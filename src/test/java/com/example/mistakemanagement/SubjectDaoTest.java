@@ -0,0 +1,194 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Needs a scratch MySQL database: mvn test -Dmistakes.db.url=jdbc:mysql://host:3306/db
+@EnabledIfSystemProperty(named = "mistakes.db.url", matches = ".+")
+class SubjectDaoTest {
+    private Subject subject;
+
+    @BeforeAll
+    static void ensureSchema() throws SQLException {
+        DatabaseSchema.ensure();
+        // Drains run inline; a dispatcher that dropped them would leave the bus waiting on a drain forever
+        EventBus.get().setDispatcher(Runnable::run);
+    }
+
+    @BeforeEach
+    void createSubject() throws SQLException {
+        String name = "SubjectDaoTest " + System.nanoTime();
+        subject = new Subject();
+        subject.id = SubjectDao.insert(name, "scratch");
+        subject.name = name;
+        subject.description = "scratch";
+        assertTrue(subject.id > 0);
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "INSERT INTO categories (name, subject_id) VALUES ('Purge test', ?)")) {
+            stmt.setInt(1, subject.id);
+            stmt.executeUpdate();
+        }
+    }
+
+    @AfterEach
+    void removeSubject() throws SQLException, InterruptedException {
+        SubjectDao.delete(subject);
+        ageDeletion();
+        SubjectDao.purge(subject, 0, purged -> { });
+    }
+
+    @Test
+    void deleteHidesTheSubjectAndItsMistakesUntilRestored() throws SQLException {
+        int mistakeId = addMistake("hidden", null);
+
+        assertTrue(SubjectDao.delete(subject));
+        assertFalse(SubjectDao.delete(subject));
+        assertFalse(SubjectDao.findAllNames().contains(subject.name));
+        assertNull(SubjectDao.findById(subject.id));
+        assertTrue(MistakeDao.findByIds(List.of(mistakeId)).isEmpty());
+
+        assertTrue(SubjectDao.restore(subject));
+        assertTrue(SubjectDao.findAllNames().contains(subject.name));
+        assertEquals(1, MistakeDao.findByIds(List.of(mistakeId)).size());
+    }
+
+    @Test
+    void restoreRefusesOnceTheGracePeriodIsOver() throws SQLException {
+        SubjectDao.delete(subject);
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "UPDATE subjects SET deleted_at = NOW() - INTERVAL ? SECOND WHERE id = ?")) {
+            stmt.setInt(1, SubjectPurger.GRACE_SECONDS + 1);
+            stmt.setInt(2, subject.id);
+            stmt.executeUpdate();
+        }
+
+        assertFalse(SubjectDao.restore(subject));
+        assertNull(SubjectDao.findById(subject.id));
+    }
+
+    @Test
+    void aDeletedSubjectsNameCanBeTakenAgain() throws SQLException {
+        SubjectDao.delete(subject);
+
+        Subject reused = new Subject();
+        reused.name = subject.name;
+        reused.id = SubjectDao.insert(reused.name, null);
+        try {
+            assertTrue(reused.id > 0);
+            assertEquals(reused.name, SubjectDao.findById(reused.id).name);
+            assertTrue(SubjectDao.restore(subject));
+            assertTrue(SubjectDao.findById(subject.id).name.startsWith(subject.name + " (deleted #"));
+        } finally {
+            SubjectDao.delete(reused);
+            try (Connection conn = MySQLConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(
+                     "UPDATE subjects SET deleted_at = NOW() - INTERVAL 1 DAY WHERE id = ?")) {
+                stmt.setInt(1, reused.id);
+                stmt.executeUpdate();
+            }
+            SubjectDao.purge(reused, 0, purged -> { });
+        }
+    }
+
+    @Test
+    void purgeRemovesEveryMistakeInBatchesThenTheSubject() throws SQLException, InterruptedException {
+        addMistake("with tags", "purge-test-a, purge-test-b");
+        addRows(1100);
+        assertEquals(1101, count("SELECT COUNT(*) FROM mistakes WHERE subject_id = ?"));
+        assertEquals(1, count("SELECT COUNT(*) FROM mistakes WHERE subject_id = ? AND category_id IS NOT NULL"));
+
+        SubjectDao.delete(subject);
+        ageDeletion();
+        List<Integer> progress = new ArrayList<>();
+        SubjectDao.purge(subject, 0, progress::add);
+
+        assertEquals(List.of(500, 1000, 1101), progress);
+        assertEquals(0, count("SELECT COUNT(*) FROM mistakes WHERE subject_id = ?"));
+        assertEquals(0, count("SELECT COUNT(*) FROM categories WHERE subject_id = ?"));
+        assertEquals(0, count("SELECT COUNT(*) FROM subjects WHERE id = ?"));
+    }
+
+    @Test
+    void purgeLeavesASubjectStillInsideItsGracePeriod() throws SQLException {
+        addMistake("kept", null);
+        SubjectDao.delete(subject);
+
+        SubjectDao.purge(subject, 3600, purged -> { throw new AssertionError("purged " + purged); });
+
+        assertEquals(1, count("SELECT COUNT(*) FROM mistakes WHERE subject_id = ?"));
+        assertEquals(1, count("SELECT COUNT(*) FROM subjects WHERE id = ?"));
+        assertTrue(SubjectDao.findPurgeable(3600, 1000).stream().noneMatch(s -> s.id == subject.id));
+    }
+
+    @Test
+    void progressCanStopThePurgeBetweenBatches() throws SQLException, InterruptedException {
+        addRows(1100);
+        SubjectDao.delete(subject);
+        ageDeletion();
+
+        try {
+            SubjectDao.purge(subject, 0, purged -> { throw new IllegalStateException("stop"); });
+        } catch (IllegalStateException expected) {
+            // The first batch is committed, the rest waits for the next run
+        }
+
+        assertEquals(600, count("SELECT COUNT(*) FROM mistakes WHERE subject_id = ?"));
+        assertTrue(SubjectDao.findPurgeable(0, 1000).stream().anyMatch(s -> s.id == subject.id));
+    }
+
+    private int addMistake(String title, String tags) throws SQLException {
+        Mistake mistake = new Mistake();
+        mistake.title = title;
+        mistake.description = "description of " + title;
+        mistake.difficultyLevel = "Easy";
+        mistake.subjectName = subject.name;
+        mistake.categoryName = "Purge test";
+        return MistakeDao.insert(mistake, tags);
+    }
+
+    private void addRows(int rows) throws SQLException {
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "INSERT INTO mistakes (title, difficulty_level, subject_id) VALUES (?, 'Easy', ?)")) {
+            for (int i = 0; i < rows; i++) {
+                stmt.setString(1, "row " + i);
+                stmt.setInt(2, subject.id);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    // deleted_at has one-second resolution; purge with grace 0 wants it strictly in the past
+    private static void ageDeletion() throws InterruptedException {
+        Thread.sleep(1100);
+    }
+
+    private int count(String query) throws SQLException {
+        try (Connection conn = MySQLConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setInt(1, subject.id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
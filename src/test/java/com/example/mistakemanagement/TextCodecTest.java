@@ -0,0 +1,67 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextCodecTest {
+
+    @Test
+    void shortTextIsStoredAsIs() throws SQLException {
+        String text = "Forgot to carry the one";
+        assertSame(text, TextCodec.encode(text));
+        assertEquals(text, TextCodec.decode(text));
+        assertEquals("", TextCodec.encode(""));
+    }
+
+    @Test
+    void longTextIsCompressed() throws SQLException {
+        String text = "Mixed up sine and cosine again, é. ".repeat(200);
+        String stored = TextCodec.encode(text);
+        assertTrue(TextCodec.isCompressed(stored));
+        assertTrue(stored.length() < text.length());
+        assertEquals(text, TextCodec.decode(stored));
+    }
+
+    @Test
+    void textThatDoesNotShrinkIsStoredAsIs() throws SQLException {
+        StringBuilder noise = new StringBuilder();
+        java.util.Random random = new java.util.Random(3);
+        while (noise.length() < 4 * TextCodec.THRESHOLD) {
+            noise.append((char) ('!' + random.nextInt(90)));
+        }
+        String text = noise.toString();
+        assertFalse(TextCodec.isCompressed(TextCodec.encode(text)));
+        assertEquals(text, TextCodec.decode(TextCodec.encode(text)));
+    }
+
+    @Test
+    void textStartingLikeAMarkerRoundTrips() throws SQLException {
+        for (String text : new String[] {"\u0001", "\u0001z", TextCodec.DEFLATE_MARKER + "not base64!"}) {
+            String stored = TextCodec.encode(text);
+            assertTrue(TextCodec.isCompressed(stored), text);
+            assertEquals(text, TextCodec.decode(stored));
+        }
+    }
+
+    @Test
+    void nullStaysNull() throws SQLException {
+        assertNull(TextCodec.encode(null));
+        assertNull(TextCodec.decode(null));
+    }
+
+    @Test
+    void corruptStoredTextFails() {
+        String stored = TextCodec.encode("Dropped a minus sign. ".repeat(200));
+        assertThrows(SQLException.class, () -> TextCodec.decode(TextCodec.DEFLATE_MARKER + "AAAA"));
+        assertThrows(SQLException.class, () -> TextCodec.decode(TextCodec.DEFLATE_MARKER + "@@@"));
+        assertThrows(SQLException.class, () -> TextCodec.decode(stored.substring(0, stored.length() / 2)));
+    }
+}
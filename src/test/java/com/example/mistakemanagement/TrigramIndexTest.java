@@ -0,0 +1,58 @@
+package com.example.mistakemanagement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramIndexTest {
+
+    private static List<Integer> ids(RoaringBitmap bitmap) {
+        List<Integer> ids = new ArrayList<>();
+        bitmap.forEach(ids::add);
+        return ids;
+    }
+
+    private static TrigramIndex index() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "Integration by parts", "Calculus");
+        index.add(2, "Sign error in quadratic formula", "Algebra");
+        index.add(3, "Forgot the integration constant", "Calculus");
+        return index;
+    }
+
+    @Test
+    void toleratesTyposAndPrefixes() {
+        TrigramIndex index = index();
+        assertEquals(Map.of(1, 1, 3, 1), index.search("intergration"));
+        assertEquals(Map.of(2, 0), index.search("quadratic form"));
+        assertEquals(Map.of(3, 0), index.search("integration const"));
+        assertTrue(index.search("geometry").isEmpty());
+        assertNull(index.search("by a"));
+    }
+
+    @Test
+    void findsSubstringsWithinWords() {
+        TrigramIndex index = index();
+        assertEquals(List.of(1, 3), ids(index.containing("TEGRAT")));
+        assertEquals(List.of(2), ids(index.containing("rror adr")));
+        assertNull(index.containing(" - "));
+    }
+
+    @Test
+    void replacesAndRemovesMistakes() {
+        TrigramIndex index = index();
+        index.add(1, "Chain rule", "Calculus");
+        assertEquals(List.of(3), ids(index.containing("integration")));
+        assertEquals(List.of(1), ids(index.containing("chain")));
+
+        index.remove(3);
+        assertTrue(index.containing("integration").isEmpty());
+        assertEquals(List.of(1), ids(index.containing("calculus")));
+    }
+}